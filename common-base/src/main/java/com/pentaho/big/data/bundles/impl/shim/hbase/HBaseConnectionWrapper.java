@@ -112,6 +112,14 @@ public class HBaseConnectionWrapper implements HBaseConnection {
     return delegate.sourceTableRowExists( bytes );
   }
 
+  @Override public List<Object> getSourceTableRows( List<byte[]> list ) throws Exception {
+    return delegate.getSourceTableRows( list );
+  }
+
+  @Override public boolean[] sourceTableRowsExist( List<byte[]> list ) throws Exception {
+    return delegate.sourceTableRowsExist( list );
+  }
+
   @Override public void newSourceTableScan( byte[] bytes, byte[] bytes1, int i ) throws Exception {
     delegate.newSourceTableScan( bytes, bytes1, i );
   }
@@ -50,4 +50,8 @@ public class ResultImpl implements Result {
   @Override public boolean isEmpty() {
     return result.isEmpty();
   }
+
+  public org.apache.hadoop.hbase.client.Result getResult() {
+    return result;
+  }
 }
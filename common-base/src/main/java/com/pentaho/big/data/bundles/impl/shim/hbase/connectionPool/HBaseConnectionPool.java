@@ -192,7 +192,7 @@ public class HBaseConnectionPool implements Closeable {
     if ( targetTableProps == null ) {
       propsDifferent = resultTargetTableProperties != null;
     } else {
-      propsDifferent = targetTableProps.equals( resultTargetTableProperties );
+      propsDifferent = !targetTableProps.equals( resultTargetTableProperties );
     }
     if ( targetTableDifferent || propsDifferent ) {
       try {
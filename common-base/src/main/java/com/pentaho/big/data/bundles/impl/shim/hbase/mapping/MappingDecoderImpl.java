@@ -0,0 +1,350 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package com.pentaho.big.data.bundles.impl.shim.hbase.mapping;
+
+import com.pentaho.big.data.bundles.impl.shim.hbase.ResultImpl;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.hadoop.shim.api.hbase.Result;
+import org.pentaho.hadoop.shim.api.hbase.mapping.Mapping;
+import org.pentaho.hadoop.shim.api.hbase.mapping.MappingDecoder;
+import org.pentaho.hadoop.shim.api.hbase.meta.HBaseValueMetaInterface;
+import org.pentaho.hadoop.shim.api.internal.hbase.HBaseBytesUtilShim;
+import org.pentaho.hadoop.shim.api.internal.hbase.HBaseValueMeta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * {@link MappingDecoder} compiled from a {@link Mapping}. Mapped columns are sorted the same way HBase sorts the cells
+ * of a row (family, then qualifier) so that a row is decoded with a single merge pass over
+ * {@link org.apache.hadoop.hbase.client.Result#rawCells()}, reading values straight out of the cell backing arrays
+ * instead of building the three level map returned by getMap().
+ */
+public class MappingDecoderImpl implements MappingDecoder {
+  public static final String BINARY_COLUMN_NAME_PREFIX = "@@@binary@@@";
+  private static final Class<?> PKG = HBaseValueMeta.class;
+
+  private final Mapping mapping;
+  private final HBaseBytesUtilShim hBaseBytesUtilShim;
+  private final int keyIndex;
+  private final CompiledColumn[] columns;
+
+  // tuple mode
+  private final byte[][] tupleFamilies;
+  private final CompiledColumn tupleFamily;
+  private final CompiledColumn tupleColumn;
+  private final CompiledColumn tupleValue;
+  private final int tupleTimestampIndex;
+
+  public MappingDecoderImpl( Mapping mapping, RowMetaInterface outputRowMeta, HBaseBytesUtilShim hBaseBytesUtilShim )
+    throws KettleException {
+    this.mapping = mapping;
+    this.hBaseBytesUtilShim = hBaseBytesUtilShim;
+    keyIndex = outputRowMeta.indexOfValue( mapping.getKeyName() );
+    Map<String, HBaseValueMetaInterface> mappedColumns = mapping.getMappedColumns();
+
+    if ( mapping.isTupleMapping() ) {
+      columns = new CompiledColumn[ 0 ];
+      tupleFamily = compileTupleColumn( mappedColumns, outputRowMeta, Mapping.TupleMapping.FAMILY );
+      tupleColumn = compileTupleColumn( mappedColumns, outputRowMeta, Mapping.TupleMapping.COLUMN );
+      tupleValue = compileTupleColumn( mappedColumns, outputRowMeta, Mapping.TupleMapping.VALUE );
+      tupleTimestampIndex = outputRowMeta.indexOfValue( Mapping.TupleMapping.TIMESTAMP.toString() );
+      if ( Const.isEmpty( mapping.getTupleFamilies() ) ) {
+        tupleFamilies = null;
+      } else {
+        String[] familyNames = mapping.getTupleFamiliesSplit();
+        tupleFamilies = new byte[ familyNames.length ][];
+        for ( int i = 0; i < familyNames.length; i++ ) {
+          tupleFamilies[ i ] = hBaseBytesUtilShim.toBytes( familyNames[ i ].trim() );
+        }
+      }
+    } else {
+      List<CompiledColumn> compiled = new ArrayList<>();
+      for ( Map.Entry<String, HBaseValueMetaInterface> entry : mappedColumns.entrySet() ) {
+        HBaseValueMetaInterface column = entry.getValue();
+        int index = outputRowMeta.indexOfValue( entry.getKey() );
+        if ( column.isKey() || index < 0 ) {
+          continue;
+        }
+        compiled.add( new CompiledColumn( column, index, hBaseBytesUtilShim ) );
+      }
+      columns = compiled.toArray( new CompiledColumn[ compiled.size() ] );
+      Arrays.sort( columns, ( c1, c2 ) -> {
+        int result = Bytes.compareTo( c1.family, c2.family );
+        return result != 0 ? result : Bytes.compareTo( c1.qualifier, c2.qualifier );
+      } );
+      tupleFamilies = null;
+      tupleFamily = null;
+      tupleColumn = null;
+      tupleValue = null;
+      tupleTimestampIndex = -1;
+    }
+  }
+
+  private CompiledColumn compileTupleColumn( Map<String, HBaseValueMetaInterface> mappedColumns,
+                                             RowMetaInterface outputRowMeta, Mapping.TupleMapping tupleMapping )
+    throws KettleException {
+    HBaseValueMetaInterface column = mappedColumns.get( tupleMapping.toString() );
+    int index = outputRowMeta.indexOfValue( tupleMapping.toString() );
+    if ( column == null || index < 0 ) {
+      return null;
+    }
+    return new CompiledColumn( column, index, hBaseBytesUtilShim );
+  }
+
+  @Override public Object[] decodeRow( Result result, Object[] outputRow ) throws KettleException {
+    for ( CompiledColumn column : columns ) {
+      outputRow[ column.index ] = null;
+    }
+    if ( keyIndex >= 0 ) {
+      outputRow[ keyIndex ] = mapping.decodeKeyValue( result.getRow() );
+    }
+
+    if ( !( result instanceof ResultImpl ) ) {
+      for ( CompiledColumn column : columns ) {
+        byte[] value = result.getValue( column.meta.getColumnFamily(), column.columnName, column.columnNameIsBinary );
+        outputRow[ column.index ] = column.meta.decodeColumnValue( value );
+      }
+      return outputRow;
+    }
+
+    Cell[] cells = ( (ResultImpl) result ).getResult().rawCells();
+    if ( cells == null ) {
+      return outputRow;
+    }
+    int c = 0;
+    for ( Cell cell : cells ) {
+      int cmp = -1;
+      while ( c < columns.length && ( cmp = columns[ c ].compareTo( cell ) ) < 0 ) {
+        c++;
+      }
+      if ( c == columns.length ) {
+        break;
+      }
+      if ( cmp == 0 ) {
+        // several aliases can map the same column, each of them gets the value. Cells of a column are ordered newest
+        // first, any further versions won't match the column after them
+        do {
+          CompiledColumn column = columns[ c++ ];
+          outputRow[ column.index ] =
+            column.decode( cell.getValueArray(), cell.getValueOffset(), cell.getValueLength() );
+        } while ( c < columns.length && columns[ c ].compareTo( cell ) == 0 );
+      }
+    }
+    return outputRow;
+  }
+
+  @Override public int decodeTuples( Result result, Object[] outputRow, TupleRowHandler handler )
+    throws KettleException {
+    Object key = mapping.decodeKeyValue( result.getRow() );
+    int rows = 0;
+
+    if ( !( result instanceof ResultImpl ) ) {
+      NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>> rowMap = result.getMap();
+      if ( rowMap == null ) {
+        return 0;
+      }
+      for ( Map.Entry<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>> family : rowMap.entrySet() ) {
+        if ( !isTupleFamily( family.getKey(), 0, family.getKey().length ) ) {
+          continue;
+        }
+        for ( Map.Entry<byte[], NavigableMap<Long, byte[]>> qualifier : family.getValue().entrySet() ) {
+          for ( Map.Entry<Long, byte[]> version : qualifier.getValue().entrySet() ) {
+            fillTuple( outputRow, key, family.getKey(), 0, family.getKey().length, qualifier.getKey(), 0,
+              qualifier.getKey().length, version.getValue(), 0, version.getValue().length, version.getKey() );
+            handler.handleRow( outputRow );
+            rows++;
+          }
+        }
+      }
+      return rows;
+    }
+
+    Cell[] cells = ( (ResultImpl) result ).getResult().rawCells();
+    if ( cells == null ) {
+      return 0;
+    }
+    for ( Cell cell : cells ) {
+      if ( !isTupleFamily( cell.getFamilyArray(), cell.getFamilyOffset(), cell.getFamilyLength() ) ) {
+        continue;
+      }
+      fillTuple( outputRow, key, cell.getFamilyArray(), cell.getFamilyOffset(), cell.getFamilyLength(),
+        cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength(),
+        cell.getValueArray(), cell.getValueOffset(), cell.getValueLength(), cell.getTimestamp() );
+      handler.handleRow( outputRow );
+      rows++;
+    }
+    return rows;
+  }
+
+  private boolean isTupleFamily( byte[] buffer, int offset, int length ) {
+    if ( tupleFamilies == null ) {
+      return true;
+    }
+    for ( byte[] tupleFamilyBytes : tupleFamilies ) {
+      if ( Bytes.equals( tupleFamilyBytes, 0, tupleFamilyBytes.length, buffer, offset, length ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void fillTuple( Object[] outputRow, Object key, byte[] familyBuffer, int familyOffset, int familyLength,
+                          byte[] qualifierBuffer, int qualifierOffset, int qualifierLength,
+                          byte[] valueBuffer, int valueOffset, int valueLength, long timestamp )
+    throws KettleException {
+    if ( keyIndex >= 0 ) {
+      outputRow[ keyIndex ] = key;
+    }
+    if ( tupleFamily != null ) {
+      outputRow[ tupleFamily.index ] = tupleFamily.decode( familyBuffer, familyOffset, familyLength );
+    }
+    if ( tupleColumn != null ) {
+      outputRow[ tupleColumn.index ] = tupleColumn.decode( qualifierBuffer, qualifierOffset, qualifierLength );
+    }
+    if ( tupleValue != null ) {
+      outputRow[ tupleValue.index ] = tupleValue.decode( valueBuffer, valueOffset, valueLength );
+    }
+    if ( tupleTimestampIndex >= 0 ) {
+      outputRow[ tupleTimestampIndex ] = timestamp;
+    }
+  }
+
+  /**
+   * A mapped column with its family/qualifier bytes, output index and a decode function chosen from its type
+   */
+  static class CompiledColumn {
+    private final HBaseValueMetaInterface meta;
+    private final int index;
+    private final byte[] family;
+    private final byte[] qualifier;
+    private final String columnName;
+    private final boolean columnNameIsBinary;
+    private final ValueDecoder decoder;
+
+    CompiledColumn( HBaseValueMetaInterface meta, int index, HBaseBytesUtilShim hBaseBytesUtilShim )
+      throws KettleException {
+      this.meta = meta;
+      this.index = index;
+      String name = meta.getColumnName();
+      columnNameIsBinary = name != null && name.startsWith( BINARY_COLUMN_NAME_PREFIX );
+      columnName = columnNameIsBinary ? name.substring( BINARY_COLUMN_NAME_PREFIX.length() ) : name;
+      family = meta.getColumnFamily() == null ? new byte[ 0 ] : hBaseBytesUtilShim.toBytes( meta.getColumnFamily() );
+      if ( columnName == null ) {
+        qualifier = new byte[ 0 ];
+      } else {
+        qualifier = columnNameIsBinary ? hBaseBytesUtilShim.toBytesBinary( columnName )
+          : hBaseBytesUtilShim.toBytes( columnName );
+      }
+      decoder = compileDecoder( meta );
+    }
+
+    int compareTo( Cell cell ) {
+      int result = Bytes.compareTo( family, 0, family.length,
+        cell.getFamilyArray(), cell.getFamilyOffset(), cell.getFamilyLength() );
+      if ( result != 0 ) {
+        return result;
+      }
+      return Bytes.compareTo( qualifier, 0, qualifier.length,
+        cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength() );
+    }
+
+    Object decode( byte[] buffer, int offset, int length ) throws KettleException {
+      return decoder.decode( buffer, offset, length );
+    }
+  }
+
+  @FunctionalInterface
+  interface ValueDecoder {
+    Object decode( byte[] buffer, int offset, int length ) throws KettleException;
+  }
+
+  /**
+   * Picks the decode function for a column once, mirroring {@link HBaseValueMeta#decodeColumnValue} for the common
+   * types. Less common types (boolean, big number, serializable) fall back to the generic decoder.
+   */
+  static ValueDecoder compileDecoder( final HBaseValueMetaInterface meta ) {
+    switch ( meta.getType() ) {
+      case ValueMetaInterface.TYPE_STRING:
+        if ( meta.getStorageType() == ValueMetaInterface.STORAGE_TYPE_INDEXED ) {
+          return compileIndexedStringDecoder( meta );
+        }
+        return Bytes::toString;
+      case ValueMetaInterface.TYPE_NUMBER:
+        return ( buffer, offset, length ) -> {
+          if ( length == Bytes.SIZEOF_FLOAT ) {
+            return (double) Bytes.toFloat( buffer, offset );
+          }
+          if ( length == Bytes.SIZEOF_DOUBLE ) {
+            return Bytes.toDouble( buffer, offset );
+          }
+          throw new KettleException( BaseMessages.getString( PKG, "HBaseValueMeta.Error.UnknownTypeForColumn" ) );
+        };
+      case ValueMetaInterface.TYPE_INTEGER:
+        return ( buffer, offset, length ) -> {
+          if ( length == Bytes.SIZEOF_INT ) {
+            return (long) Bytes.toInt( buffer, offset, length );
+          }
+          if ( length == Bytes.SIZEOF_LONG ) {
+            return Bytes.toLong( buffer, offset, length );
+          }
+          if ( length == Bytes.SIZEOF_SHORT ) {
+            return (long) Bytes.toShort( buffer, offset, length );
+          }
+          throw new KettleException( BaseMessages.getString( PKG, "HBaseValueMeta.Error.IllegalIntegerLength" ) );
+        };
+      case ValueMetaInterface.TYPE_DATE:
+        return ( buffer, offset, length ) -> {
+          if ( length != Bytes.SIZEOF_LONG ) {
+            throw new KettleException(
+              BaseMessages.getString( PKG, "HBaseValueMeta.Error.DateValueLengthNotEqualToLong" ) );
+          }
+          return new Date( Bytes.toLong( buffer, offset, length ) );
+        };
+      case ValueMetaInterface.TYPE_BINARY:
+        return ( buffer, offset, length ) -> Arrays.copyOfRange( buffer, offset, offset + length );
+      default:
+        return ( buffer, offset, length ) ->
+          meta.decodeColumnValue( Arrays.copyOfRange( buffer, offset, offset + length ) );
+    }
+  }
+
+  private static ValueDecoder compileIndexedStringDecoder( final HBaseValueMetaInterface meta ) {
+    Object[] legalValues = meta.getIndex();
+    final Map<String, Integer> indexes = new HashMap<>();
+    for ( int i = legalValues.length - 1; i >= 0; i-- ) {
+      indexes.put( legalValues[ i ].toString().trim(), i );
+    }
+    return ( buffer, offset, length ) -> {
+      String value = Bytes.toString( buffer, offset, length );
+      Integer index = indexes.get( value.trim() );
+      if ( index == null ) {
+        throw new KettleException( BaseMessages.getString( PKG, "HBaseValueMeta.Error.IllegalIndexedColumnValue",
+          value, meta.getAlias() ) );
+      }
+      return index;
+    };
+  }
+}
@@ -14,6 +14,8 @@
 package com.pentaho.big.data.bundles.impl.shim.hbase.mapping;
 
 import com.pentaho.big.data.bundles.impl.shim.hbase.meta.HBaseValueMetaInterfaceFactoryImpl;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.hadoop.shim.api.hbase.mapping.Mapping;
 import org.pentaho.hadoop.shim.api.hbase.mapping.MappingFactory;
 import org.pentaho.hadoop.shim.api.internal.hbase.HBaseBytesUtilShim;
@@ -53,4 +55,9 @@ public class MappingFactoryImpl implements MappingFactory {
       hBaseBytesUtilShim,
       hBaseValueMetaInterfaceFactory );
   }
+
+  @Override
+  public MappingDecoderImpl createDecoder( Mapping mapping, RowMetaInterface outputRowMeta ) throws KettleException {
+    return new MappingDecoderImpl( mapping, outputRowMeta, hBaseBytesUtilShim );
+  }
 }
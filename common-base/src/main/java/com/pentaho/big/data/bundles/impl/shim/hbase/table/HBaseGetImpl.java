@@ -0,0 +1,43 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package com.pentaho.big.data.bundles.impl.shim.hbase.table;
+
+import org.pentaho.hadoop.shim.api.hbase.Result;
+import org.pentaho.hadoop.shim.api.hbase.table.HBaseGet;
+import org.pentaho.hadoop.shim.api.hbase.table.HBaseTable;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * Single row get against an {@link HBaseTable}, can also be handed to {@link HBaseTable#get(java.util.List)} to be
+ * executed as part of a batch.
+ */
+public class HBaseGetImpl implements HBaseGet {
+  private final HBaseTable hBaseTable;
+  private final byte[] key;
+
+  public HBaseGetImpl( HBaseTable hBaseTable, byte[] key ) {
+    this.hBaseTable = hBaseTable;
+    this.key = key;
+  }
+
+  @Override public byte[] getKey() {
+    return key;
+  }
+
+  @Override public Result execute() throws IOException {
+    return hBaseTable.get( Collections.<HBaseGet>singletonList( this ) ).get( 0 );
+  }
+}
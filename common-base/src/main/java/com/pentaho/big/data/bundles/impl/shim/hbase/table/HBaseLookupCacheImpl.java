@@ -0,0 +1,178 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package com.pentaho.big.data.bundles.impl.shim.hbase.table;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.pentaho.hadoop.shim.api.hbase.Result;
+import org.pentaho.hadoop.shim.api.hbase.table.HBaseGet;
+import org.pentaho.hadoop.shim.api.hbase.table.HBaseLookupCache;
+import org.pentaho.hadoop.shim.api.hbase.table.HBaseTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * LRU cache of row lookups with an optional time to live. Keys that are not cached (or have expired) are collected
+ * and fetched from the table with a single batched call.
+ */
+public class HBaseLookupCacheImpl implements HBaseLookupCache {
+  private final HBaseTable hBaseTable;
+  private final long ttlMillis;
+  private final LongSupplier clock;
+  private final Map<ByteBuffer, CacheEntry> entries;
+  private long hitCount;
+  private long missCount;
+
+  public HBaseLookupCacheImpl( HBaseTable hBaseTable, int maxEntries, long ttlMillis ) {
+    this( hBaseTable, maxEntries, ttlMillis, System::currentTimeMillis );
+  }
+
+  @VisibleForTesting
+  HBaseLookupCacheImpl( HBaseTable hBaseTable, final int maxEntries, long ttlMillis, LongSupplier clock ) {
+    if ( maxEntries <= 0 ) {
+      throw new IllegalArgumentException( "maxEntries must be positive: " + maxEntries );
+    }
+    this.hBaseTable = hBaseTable;
+    this.ttlMillis = ttlMillis;
+    this.clock = clock;
+    this.entries = new LinkedHashMap<ByteBuffer, CacheEntry>( 16, 0.75f, true ) {
+      @Override protected boolean removeEldestEntry( Map.Entry<ByteBuffer, CacheEntry> eldest ) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  @Override public Result get( byte[] key ) throws IOException {
+    return getAll( Collections.singletonList( key ) ).get( 0 );
+  }
+
+  @Override public List<Result> getAll( List<byte[]> keys ) throws IOException {
+    Result[] results = new Result[ keys.size() ];
+    List<HBaseGet> misses = new ArrayList<>();
+    List<Integer> missIndexes = new ArrayList<>();
+    synchronized ( this ) {
+      long now = clock.getAsLong();
+      for ( int i = 0; i < results.length; i++ ) {
+        CacheEntry entry = lookup( keys.get( i ), now );
+        if ( entry != null && entry.result != null ) {
+          results[ i ] = entry.result;
+          hitCount++;
+        } else {
+          misses.add( new HBaseGetImpl( hBaseTable, keys.get( i ) ) );
+          missIndexes.add( i );
+          missCount++;
+        }
+      }
+    }
+    if ( !misses.isEmpty() ) {
+      List<Result> fetched = hBaseTable.get( misses );
+      synchronized ( this ) {
+        long now = clock.getAsLong();
+        for ( int i = 0; i < fetched.size(); i++ ) {
+          Result result = fetched.get( i );
+          results[ missIndexes.get( i ) ] = result;
+          if ( result != null ) {
+            entries.put( ByteBuffer.wrap( misses.get( i ).getKey() ), new CacheEntry( result, !result.isEmpty(), now ) );
+          }
+        }
+      }
+    }
+    return Arrays.asList( results );
+  }
+
+  @Override public boolean keyExists( byte[] key ) throws IOException {
+    return existsAll( Collections.singletonList( key ) )[ 0 ];
+  }
+
+  @Override public boolean[] existsAll( List<byte[]> keys ) throws IOException {
+    boolean[] exists = new boolean[ keys.size() ];
+    List<byte[]> misses = new ArrayList<>();
+    List<Integer> missIndexes = new ArrayList<>();
+    synchronized ( this ) {
+      long now = clock.getAsLong();
+      for ( int i = 0; i < exists.length; i++ ) {
+        CacheEntry entry = lookup( keys.get( i ), now );
+        if ( entry != null ) {
+          exists[ i ] = entry.exists;
+          hitCount++;
+        } else {
+          misses.add( keys.get( i ) );
+          missIndexes.add( i );
+          missCount++;
+        }
+      }
+    }
+    if ( !misses.isEmpty() ) {
+      boolean[] fetched = hBaseTable.existsAll( misses );
+      synchronized ( this ) {
+        long now = clock.getAsLong();
+        for ( int i = 0; i < fetched.length; i++ ) {
+          exists[ missIndexes.get( i ) ] = fetched[ i ];
+          entries.put( ByteBuffer.wrap( misses.get( i ) ), new CacheEntry( null, fetched[ i ], now ) );
+        }
+      }
+    }
+    return exists;
+  }
+
+  @Override public synchronized void invalidate( byte[] key ) {
+    entries.remove( ByteBuffer.wrap( key ) );
+  }
+
+  @Override public synchronized void invalidateAll() {
+    entries.clear();
+  }
+
+  @Override public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  @Override public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  @VisibleForTesting
+  synchronized int size() {
+    return entries.size();
+  }
+
+  private CacheEntry lookup( byte[] key, long now ) {
+    ByteBuffer cacheKey = ByteBuffer.wrap( key );
+    CacheEntry entry = entries.get( cacheKey );
+    if ( entry != null && ttlMillis > 0 && now - entry.loadedAt >= ttlMillis ) {
+      entries.remove( cacheKey );
+      return null;
+    }
+    return entry;
+  }
+
+  private static class CacheEntry {
+    private final Result result;
+    private final boolean exists;
+    private final long loadedAt;
+
+    private CacheEntry( Result result, boolean exists, long loadedAt ) {
+      this.result = result;
+      this.exists = exists;
+      this.loadedAt = loadedAt;
+    }
+  }
+}
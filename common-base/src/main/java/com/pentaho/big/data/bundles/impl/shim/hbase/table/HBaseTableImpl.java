@@ -13,6 +13,7 @@
 
 package com.pentaho.big.data.bundles.impl.shim.hbase.table;
 
+import com.pentaho.big.data.bundles.impl.shim.hbase.ResultImpl;
 import com.pentaho.big.data.bundles.impl.shim.hbase.connectionPool.HBaseConnectionHandle;
 import com.pentaho.big.data.bundles.impl.shim.hbase.connectionPool.HBaseConnectionPool;
 import com.pentaho.big.data.bundles.impl.shim.hbase.meta.HBaseValueMetaInterfaceFactoryImpl;
@@ -22,7 +23,9 @@ import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.logging.LogChannelInterface;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.hadoop.shim.api.hbase.Result;
 import org.pentaho.hadoop.shim.api.hbase.mapping.Mapping;
+import org.pentaho.hadoop.shim.api.hbase.table.HBaseGet;
 import org.pentaho.hadoop.shim.api.hbase.table.HBaseTable;
 import org.pentaho.hadoop.shim.api.hbase.table.HBaseTableWriteOperationManager;
 import org.pentaho.hadoop.shim.api.hbase.table.ResultScannerBuilder;
@@ -33,6 +36,7 @@ import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Properties;
@@ -247,8 +251,13 @@ public class HBaseTableImpl implements HBaseTable {
           .getString( PKG, "HBaseInput.Message.SettingScannerCaching", cacheSize ) );
       }
     }
-    return getResultScannerBuilder( hBaseConnectionPool, hBaseValueMetaInterfaceFactory, hBaseBytesUtilShim, name,
-      cacheSize, keyLowerBound, keyUpperBound );
+    ResultScannerBuilder resultScannerBuilder =
+      getResultScannerBuilder( hBaseConnectionPool, hBaseValueMetaInterfaceFactory, hBaseBytesUtilShim, name,
+        cacheSize, keyLowerBound, keyUpperBound );
+    if ( resultScannerBuilder instanceof ResultScannerBuilderImpl ) {
+      ( (ResultScannerBuilderImpl) resultScannerBuilder ).setKeyType( keyType );
+    }
+    return resultScannerBuilder;
   }
 
   @Override public List<String> getColumnFamilies() throws IOException {
@@ -267,6 +276,39 @@ public class HBaseTableImpl implements HBaseTable {
     }
   }
 
+  @Override public HBaseGetImpl createGet( byte[] key ) {
+    return new HBaseGetImpl( this, key );
+  }
+
+  @Override public List<Result> get( List<HBaseGet> gets ) throws IOException {
+    List<byte[]> keys = new ArrayList<>( gets.size() );
+    for ( HBaseGet get : gets ) {
+      keys.add( get.getKey() );
+    }
+    try ( HBaseConnectionHandle hBaseConnectionHandle = hBaseConnectionPool.getConnectionHandle( name ) ) {
+      List<Object> rows = hBaseConnectionHandle.getConnection().getSourceTableRows( keys );
+      List<Result> results = new ArrayList<>( rows.size() );
+      for ( Object row : rows ) {
+        results.add( new ResultImpl( (org.apache.hadoop.hbase.client.Result) row, hBaseBytesUtilShim ) );
+      }
+      return results;
+    } catch ( Exception e ) {
+      throw new IOException( e );
+    }
+  }
+
+  @Override public boolean[] existsAll( List<byte[]> keys ) throws IOException {
+    try ( HBaseConnectionHandle hBaseConnectionHandle = hBaseConnectionPool.getConnectionHandle( name ) ) {
+      return hBaseConnectionHandle.getConnection().sourceTableRowsExist( keys );
+    } catch ( Exception e ) {
+      throw new IOException( e );
+    }
+  }
+
+  @Override public HBaseLookupCacheImpl createLookupCache( int maxEntries, long ttlMillis ) {
+    return new HBaseLookupCacheImpl( this, maxEntries, ttlMillis );
+  }
+
   @Override public HBaseTableWriteOperationManager createWriteOperationManager( Long writeBufferSize )
     throws IOException {
     Properties targetTableProps = new Properties();
@@ -278,6 +320,23 @@ public class HBaseTableImpl implements HBaseTable {
       writeBufferSize != null );
   }
 
+  @Override public HBaseTableWriteOperationManager createBulkLoadWriteOperationManager( String stagingDirectory,
+                                                                                       Long bufferSize )
+    throws IOException {
+    if ( stagingDirectory == null || stagingDirectory.isEmpty() ) {
+      throw new IOException( "A staging directory is required for bulk loading into " + name );
+    }
+    Properties targetTableProps = new Properties();
+    targetTableProps.setProperty( org.pentaho.hadoop.shim.spi.HBaseConnection.HTABLE_BULK_LOAD_STAGING_DIR_KEY,
+      stagingDirectory );
+    if ( bufferSize != null ) {
+      targetTableProps.setProperty( org.pentaho.hadoop.shim.spi.HBaseConnection.HTABLE_BULK_LOAD_BUFFER_SIZE_KEY,
+        bufferSize.toString() );
+    }
+    return new HBaseTableWriteOperationManagerImpl( hBaseConnectionPool.getConnectionHandle( name, targetTableProps ),
+      false );
+  }
+
   @Override public void close() throws IOException {
 
   }
@@ -28,6 +28,7 @@ import org.pentaho.hadoop.shim.api.hbase.meta.HBaseValueMetaInterface;
 import org.pentaho.hadoop.shim.api.hbase.table.ResultScanner;
 import org.pentaho.hadoop.shim.api.hbase.table.ResultScannerBuilder;
 import org.pentaho.hadoop.shim.api.internal.hbase.HBaseBytesUtilShim;
+import org.pentaho.hadoop.shim.api.internal.hbase.Mapping;
 
 import java.io.IOException;
 
@@ -41,6 +42,7 @@ public class ResultScannerBuilderImpl implements ResultScannerBuilder {
   private final BatchHBaseConnectionOperation batchHBaseConnectionOperation;
   private int caching = 0;
   private String tableName;
+  private Mapping.KeyType keyType;
 
   public ResultScannerBuilderImpl( HBaseConnectionPool hBaseConnectionPool,
                                    HBaseValueMetaInterfaceFactoryImpl hBaseValueMetaInterfaceFactory,
@@ -93,6 +95,9 @@ public class ResultScannerBuilderImpl implements ResultScannerBuilder {
       org.pentaho.hadoop.shim.api.internal.hbase.ColumnFilter.ComparisonType
         .valueOf( cf.getComparisonOperator().name() ) );
     final HBaseValueMetaInterfaceImpl hBaseValueMetaInterface = hBaseValueMetaInterfaceFactory.copy( columnMeta );
+    if ( hBaseValueMetaInterface.isKey() ) {
+      hBaseValueMetaInterface.setKeyType( keyType );
+    }
     batchHBaseConnectionOperation.addOperation( new HBaseConnectionOperation() {
       @Override public void perform( HBaseConnectionWrapper hBaseConnectionWrapper ) throws IOException {
         try {
@@ -105,6 +110,13 @@ public class ResultScannerBuilderImpl implements ResultScannerBuilder {
     } );
   }
 
+  /**
+   * Sets the key type of the table mapping, so that filters on the key can be turned into key ranges
+   */
+  void setKeyType( Mapping.KeyType keyType ) {
+    this.keyType = keyType;
+  }
+
   @Override public void setCaching( int cacheSize ) {
     this.caching = cacheSize;
   }
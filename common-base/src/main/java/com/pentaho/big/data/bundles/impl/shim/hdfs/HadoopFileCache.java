@@ -0,0 +1,328 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package com.pentaho.big.data.bundles.impl.shim.hdfs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two level (memory, then local disk) cache for the content of small remote files that get read over and over,
+ * such as lookup tables and schemas. Entries are keyed by path, length and modification time (plus the etag where
+ * the store provides one), so a changed file is never served stale; the TTL bounds how long an entry is trusted at
+ * all. Entries also carry the calling user, so content is only ever served back to the user that read it; callers
+ * should still check the file is readable before serving it (see {@link HadoopFileSystemImpl#open}). The disk level
+ * lives in a directory only the process owner can access. When full, the memory level evicts the least recently used
+ * entries and the disk level the least recently written ones.
+ */
+public class HadoopFileCache {
+  public static final String CACHE_ENABLED = "pentaho.fs.cache.enabled";
+  public static final String CACHE_MAX_FILE_SIZE = "pentaho.fs.cache.max.file.size";
+  public static final String CACHE_MEMORY_SIZE = "pentaho.fs.cache.memory.size";
+  public static final String CACHE_DISK_SIZE = "pentaho.fs.cache.disk.size";
+  public static final String CACHE_DIR = "pentaho.fs.cache.dir";
+  public static final String CACHE_TTL_SECONDS = "pentaho.fs.cache.ttl.seconds";
+
+  static final long DEFAULT_MAX_FILE_SIZE = 1024L * 1024L;
+  static final long DEFAULT_MEMORY_SIZE = 64L * 1024L * 1024L;
+  static final long DEFAULT_DISK_SIZE = 512L * 1024L * 1024L;
+  static final long DEFAULT_TTL_SECONDS = 600L;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger( HadoopFileCache.class );
+  private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString( "rwx------" );
+  /**
+   * EtagSource only exists from Hadoop 3.3.2 on, and this class is shared by shims built against older versions
+   */
+  private static final Class<?> ETAG_SOURCE;
+  private static final Method GET_ETAG;
+
+  static {
+    Class<?> etagSource = null;
+    Method getEtag = null;
+    try {
+      etagSource = Class.forName( "org.apache.hadoop.fs.EtagSource" );
+      getEtag = etagSource.getMethod( "getEtag" );
+    } catch ( ClassNotFoundException | NoSuchMethodException e ) {
+      LOGGER.debug( "Etags are not available, cached entries are keyed by length and modification time only" );
+      etagSource = null;
+    }
+    ETAG_SOURCE = etagSource;
+    GET_ETAG = getEtag;
+  }
+
+  private final long maxFileSize;
+  private final long diskSize;
+  private final long ttlMillis;
+  private final File directory;
+  private final Cache<String, byte[]> memoryCache;
+  private volatile boolean directoryPrivate;
+  private final AtomicLong memoryHits = new AtomicLong();
+  private final AtomicLong diskHits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * @param maxFileSize largest file that is cached
+   * @param memorySize  bytes kept in memory
+   * @param diskSize    bytes kept on disk, 0 disables the disk level
+   * @param directory   directory of the disk level
+   * @param ttlSeconds  how long an entry is served before it's read again
+   */
+  public HadoopFileCache( long maxFileSize, long memorySize, long diskSize, File directory, long ttlSeconds ) {
+    this.maxFileSize = maxFileSize;
+    this.diskSize = diskSize;
+    this.ttlMillis = TimeUnit.SECONDS.toMillis( ttlSeconds );
+    this.directory = directory;
+    this.memoryCache = CacheBuilder.newBuilder()
+      .maximumWeight( memorySize )
+      .weigher( ( String key, byte[] value ) -> value.length )
+      .expireAfterWrite( ttlSeconds, TimeUnit.SECONDS )
+      .build();
+  }
+
+  /**
+   * Creates a cache from the {@link #CACHE_ENABLED} family of properties, or returns null if it isn't enabled.
+   */
+  public static HadoopFileCache fromConfiguration( Configuration conf ) {
+    if ( conf == null || !conf.getBoolean( CACHE_ENABLED, false ) ) {
+      return null;
+    }
+    return new HadoopFileCache(
+      conf.getLongBytes( CACHE_MAX_FILE_SIZE, DEFAULT_MAX_FILE_SIZE ),
+      conf.getLongBytes( CACHE_MEMORY_SIZE, DEFAULT_MEMORY_SIZE ),
+      conf.getLongBytes( CACHE_DISK_SIZE, DEFAULT_DISK_SIZE ),
+      getDirectory( conf ),
+      conf.getLong( CACHE_TTL_SECONDS, DEFAULT_TTL_SECONDS ) );
+  }
+
+  /**
+   * The resolved cache settings of the configuration, or null if it doesn't enable the cache. Configurations with
+   * the same settings can share one cache.
+   */
+  public static String getSettings( Configuration conf ) {
+    if ( conf == null || !conf.getBoolean( CACHE_ENABLED, false ) ) {
+      return null;
+    }
+    return conf.getLongBytes( CACHE_MAX_FILE_SIZE, DEFAULT_MAX_FILE_SIZE ) + "\n"
+      + conf.getLongBytes( CACHE_MEMORY_SIZE, DEFAULT_MEMORY_SIZE ) + "\n"
+      + conf.getLongBytes( CACHE_DISK_SIZE, DEFAULT_DISK_SIZE ) + "\n"
+      + getDirectory( conf ).getAbsolutePath() + "\n"
+      + conf.getLong( CACHE_TTL_SECONDS, DEFAULT_TTL_SECONDS );
+  }
+
+  private static File getDirectory( Configuration conf ) {
+    String dir = conf.get( CACHE_DIR );
+    // one directory per OS user, a directory created by another user can't be made private
+    return dir == null
+      ? new File( System.getProperty( "java.io.tmpdir" ), "pentaho-fs-cache-" + System.getProperty( "user.name" ) )
+      : new File( dir );
+  }
+
+  public boolean isCacheable( FileStatus fileStatus ) {
+    return fileStatus != null && fileStatus.isFile() && fileStatus.getLen() <= maxFileSize;
+  }
+
+  /**
+   * Returns the content of the file, from the cache if possible, otherwise read through the loader and cached.
+   */
+  public InputStream open( FileStatus fileStatus, ContentLoader loader ) throws IOException {
+    String key = getKey( fileStatus, UserGroupInformation.getCurrentUser().getUserName() );
+    byte[] content = memoryCache.getIfPresent( key );
+    if ( content != null ) {
+      memoryHits.incrementAndGet();
+      return new ByteArrayInputStream( content );
+    }
+    content = readFromDisk( key );
+    if ( content != null ) {
+      diskHits.incrementAndGet();
+    } else {
+      misses.incrementAndGet();
+      try ( InputStream inputStream = loader.open() ) {
+        content = IOUtils.toByteArray( inputStream );
+      }
+      writeToDisk( key, content );
+    }
+    memoryCache.put( key, content );
+    return new ByteArrayInputStream( content );
+  }
+
+  public void invalidateAll() {
+    memoryCache.invalidateAll();
+    File[] files = diskSize > 0 ? directory.listFiles() : null;
+    if ( files != null ) {
+      for ( File file : files ) {
+        deleteQuietly( file );
+      }
+    }
+  }
+
+  public long getMemoryHits() {
+    return memoryHits.get();
+  }
+
+  public long getDiskHits() {
+    return diskHits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  static String getKey( FileStatus fileStatus, String user ) {
+    return user + '\n' + fileStatus.getPath().toString() + '\n' + fileStatus.getLen() + '\n'
+      + fileStatus.getModificationTime() + '\n' + Objects.toString( getEtag( fileStatus ), "" );
+  }
+
+  private static String getEtag( FileStatus fileStatus ) {
+    if ( ETAG_SOURCE == null || !ETAG_SOURCE.isInstance( fileStatus ) ) {
+      return null;
+    }
+    try {
+      return (String) GET_ETAG.invoke( fileStatus );
+    } catch ( ReflectiveOperationException e ) {
+      LOGGER.debug( "Unable to get the etag of " + fileStatus.getPath(), e );
+      return null;
+    }
+  }
+
+  /**
+   * Creates the disk level directory, or restricts an existing one, so only the owner can access it. The disk level
+   * is skipped if that isn't possible.
+   */
+  private boolean isDirectoryPrivate() {
+    if ( directoryPrivate ) {
+      return true;
+    }
+    synchronized ( this ) {
+      if ( !directoryPrivate ) {
+        try {
+          if ( FileSystems.getDefault().supportedFileAttributeViews().contains( "posix" ) ) {
+            if ( !directory.isDirectory() ) {
+              Files.createDirectories( directory.toPath(), PosixFilePermissions.asFileAttribute( OWNER_ONLY ) );
+            }
+            Files.setPosixFilePermissions( directory.toPath(), OWNER_ONLY );
+          } else {
+            // no POSIX permissions (Windows), java.io.tmpdir is already in the user's profile there
+            Files.createDirectories( directory.toPath() );
+          }
+          directoryPrivate = true;
+        } catch ( IOException | UnsupportedOperationException | SecurityException e ) {
+          LOGGER.warn( "Not caching file content on disk, " + directory + " can't be made private", e );
+        }
+      }
+      return directoryPrivate;
+    }
+  }
+
+  private byte[] readFromDisk( String key ) {
+    if ( diskSize <= 0 || !isDirectoryPrivate() ) {
+      return null;
+    }
+    File file = new File( directory, digest( key ) );
+    if ( !file.isFile() ) {
+      return null;
+    }
+    if ( System.currentTimeMillis() - file.lastModified() > ttlMillis ) {
+      deleteQuietly( file );
+      return null;
+    }
+    try {
+      return Files.readAllBytes( file.toPath() );
+    } catch ( IOException e ) {
+      LOGGER.debug( "Unable to read cached file " + file, e );
+      deleteQuietly( file );
+      return null;
+    }
+  }
+
+  private void writeToDisk( String key, byte[] content ) {
+    if ( diskSize <= 0 || content.length > diskSize || !isDirectoryPrivate() ) {
+      return;
+    }
+    try {
+      File file = new File( directory, digest( key ) );
+      File temp = File.createTempFile( file.getName(), ".tmp", directory );
+      Files.write( temp.toPath(), content );
+      Files.move( temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE );
+      evictFromDisk();
+    } catch ( IOException e ) {
+      LOGGER.debug( "Unable to cache file content on disk", e );
+    }
+  }
+
+  /**
+   * Deletes the least recently written files until the disk level fits its bound again. Disk hits don't touch the
+   * files, their modification time is also what the TTL is measured against.
+   */
+  private synchronized void evictFromDisk() {
+    File[] files = directory.listFiles( ( dir, name ) -> !name.endsWith( ".tmp" ) );
+    if ( files == null ) {
+      return;
+    }
+    long total = 0;
+    for ( File file : files ) {
+      total += file.length();
+    }
+    if ( total <= diskSize ) {
+      return;
+    }
+    Arrays.sort( files, Comparator.comparingLong( File::lastModified ) );
+    for ( File file : files ) {
+      if ( total <= diskSize ) {
+        break;
+      }
+      total -= file.length();
+      deleteQuietly( file );
+    }
+  }
+
+  private static void deleteQuietly( File file ) {
+    if ( !file.delete() && file.exists() ) {
+      LOGGER.debug( "Unable to delete cached file " + file );
+    }
+  }
+
+  private static String digest( String key ) {
+    return DigestUtils.sha256Hex( key );
+  }
+
+  @FunctionalInterface
+  public interface ContentLoader {
+    InputStream open() throws IOException;
+  }
+}
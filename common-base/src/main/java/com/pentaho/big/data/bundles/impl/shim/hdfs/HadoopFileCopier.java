@@ -0,0 +1,279 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package com.pentaho.big.data.bundles.impl.shim.hdfs;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileChecksum;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel copy between two Hadoop file systems, in the spirit of distcp but run from the client. A directory tree is
+ * copied one file per task. A single large file is split into up to parallelism block aligned ranges that are copied
+ * to separate part files in parallel and joined with {@link FileSystem#concat} where the destination supports it
+ * (HDFS); elsewhere the file is read in chunks in parallel (positional reads) and written in order through one stream,
+ * so only parallelism chunks are held in memory. Each file is written to a temporary name, verified against the source checksum where
+ * both file systems report a comparable one, then renamed into place.
+ */
+public class HadoopFileCopier {
+  static final String COPYING_SUFFIX = "._COPYING_";
+  static final String PART_SUFFIX = ".part-";
+  static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+  private final FileSystem sourceFileSystem;
+  private final FileSystem destinationFileSystem;
+  private final int parallelism;
+  private final int chunkSize;
+
+  public HadoopFileCopier( FileSystem sourceFileSystem, FileSystem destinationFileSystem, int parallelism ) {
+    this( sourceFileSystem, destinationFileSystem, parallelism, DEFAULT_CHUNK_SIZE );
+  }
+
+  HadoopFileCopier( FileSystem sourceFileSystem, FileSystem destinationFileSystem, int parallelism,
+                    int chunkSize ) {
+    this.sourceFileSystem = sourceFileSystem;
+    this.destinationFileSystem = destinationFileSystem;
+    this.parallelism = Math.max( 1, parallelism );
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * @return the number of bytes copied
+   */
+  public long copy( Path source, Path destination ) throws IOException {
+    FileStatus sourceStatus = sourceFileSystem.getFileStatus( source );
+    if ( !sourceStatus.isDirectory() ) {
+      return copyFile( sourceStatus, destination, parallelism );
+    }
+    destinationFileSystem.mkdirs( destination );
+    String sourceRoot = sourceStatus.getPath().toUri().getPath();
+    List<LocatedFileStatus> files = new ArrayList<>();
+    RemoteIterator<LocatedFileStatus> iterator = sourceFileSystem.listFiles( source, true );
+    while ( iterator.hasNext() ) {
+      files.add( iterator.next() );
+    }
+    ExecutorService executorService = Executors.newFixedThreadPool( Math.min( parallelism, Math.max( 1,
+      files.size() ) ) );
+    try {
+      List<Future<Long>> futures = new ArrayList<>( files.size() );
+      for ( LocatedFileStatus file : files ) {
+        String relative = file.getPath().toUri().getPath().substring( sourceRoot.length() );
+        Path target = new Path( destination, relative.startsWith( Path.SEPARATOR ) ? relative.substring( 1 )
+          : relative );
+        futures.add( executorService.submit( () -> copyFile( file, target, 1 ) ) );
+      }
+      long bytes = 0;
+      for ( Future<Long> future : futures ) {
+        bytes += get( future );
+      }
+      return bytes;
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private long copyFile( FileStatus sourceStatus, Path destination, int readers ) throws IOException {
+    Path parent = destination.getParent();
+    if ( parent != null ) {
+      destinationFileSystem.mkdirs( parent );
+    }
+    Path temp = new Path( destination.getParent(), destination.getName() + COPYING_SUFFIX );
+    try {
+      boolean parallel = readers > 1 && sourceStatus.getLen() > 2L * chunkSize;
+      if ( !parallel || !supportsConcat() || !copyParts( sourceStatus, temp, readers ) ) {
+        try ( FSDataInputStream in = sourceFileSystem.open( sourceStatus.getPath() );
+              FSDataOutputStream out = destinationFileSystem.create( temp, true ) ) {
+          if ( parallel ) {
+            copyChunks( in, out, sourceStatus.getLen(), readers );
+          } else {
+            copyStream( in, out );
+          }
+        }
+      }
+      verifyChecksum( sourceStatus.getPath(), temp );
+      destinationFileSystem.delete( destination, false );
+      if ( !destinationFileSystem.rename( temp, destination ) ) {
+        throw new IOException( "Unable to rename " + temp + " to " + destination );
+      }
+      return sourceStatus.getLen();
+    } catch ( IOException | RuntimeException e ) {
+      destinationFileSystem.delete( temp, false );
+      throw e;
+    }
+  }
+
+  /**
+   * Only HDFS is known to implement concat, other file systems get the ordered single stream copy.
+   */
+  boolean supportsConcat() {
+    return "hdfs".equalsIgnoreCase( destinationFileSystem.getUri().getScheme() );
+  }
+
+  /**
+   * Copies the file as up to writers ranges in parallel, each to its own part file, and concatenates the parts. The
+   * first range is written to temp itself, which is the concat target. Ranges are whole destination blocks, so the
+   * joined file has the block layout of a sequential copy and its block checksums compare equal to the source's.
+   *
+   * @return false if the file is not split into several parts or the destination does not support concat after all;
+   * the caller then copies it through one stream
+   */
+  private boolean copyParts( FileStatus sourceStatus, Path temp, int writers ) throws IOException {
+    long length = sourceStatus.getLen();
+    long partSize = alignToBlockSize( Math.max( chunkSize, ( length + writers - 1 ) / writers ),
+      destinationFileSystem.getDefaultBlockSize( temp ) );
+    int count = (int) ( ( length + partSize - 1 ) / partSize );
+    if ( count < 2 ) {
+      return false;
+    }
+    Path[] parts = new Path[ count ];
+    parts[ 0 ] = temp;
+    for ( int i = 1; i < count; i++ ) {
+      parts[ i ] = new Path( temp.getParent(), temp.getName() + PART_SUFFIX + i );
+    }
+    ExecutorService executorService = Executors.newFixedThreadPool( count );
+    try ( FSDataInputStream in = sourceFileSystem.open( sourceStatus.getPath() ) ) {
+      List<Future<Void>> futures = new ArrayList<>( count );
+      for ( int i = 0; i < count; i++ ) {
+        final Path part = parts[ i ];
+        final long start = i * partSize;
+        final long end = Math.min( length, start + partSize );
+        futures.add( executorService.submit( () -> {
+          copyRange( in, part, start, end );
+          return null;
+        } ) );
+      }
+      for ( Future<Void> future : futures ) {
+        get( future );
+      }
+      try {
+        destinationFileSystem.concat( temp, Arrays.copyOfRange( parts, 1, count ) );
+      } catch ( UnsupportedOperationException e ) {
+        return false;
+      }
+      return true;
+    } finally {
+      executorService.shutdownNow();
+      // concat removes the parts it joined, these are left over from a failure
+      for ( int i = 1; i < count; i++ ) {
+        destinationFileSystem.delete( parts[ i ], false );
+      }
+    }
+  }
+
+  /**
+   * Rounds size up to a multiple of the block size, which is itself a multiple of the bytes per checksum
+   */
+  static long alignToBlockSize( long size, long blockSize ) {
+    if ( blockSize <= 0 ) {
+      return size;
+    }
+    return ( ( size + blockSize - 1 ) / blockSize ) * blockSize;
+  }
+
+  private void copyRange( FSDataInputStream in, Path part, long start, long end ) throws IOException {
+    byte[] buffer = new byte[ (int) Math.min( COPY_BUFFER_SIZE, end - start ) ];
+    try ( FSDataOutputStream out = destinationFileSystem.create( part, true ) ) {
+      long position = start;
+      while ( position < end ) {
+        int length = (int) Math.min( buffer.length, end - position );
+        in.readFully( position, buffer, 0, length );
+        out.write( buffer, 0, length );
+        position += length;
+      }
+    }
+  }
+
+  private void copyStream( FSDataInputStream in, FSDataOutputStream out ) throws IOException {
+    byte[] buffer = new byte[ COPY_BUFFER_SIZE ];
+    int read;
+    while ( ( read = in.read( buffer ) ) != -1 ) {
+      out.write( buffer, 0, read );
+    }
+  }
+
+  /**
+   * Keeps up to readers positional chunk reads in flight while writing completed chunks in file order.
+   */
+  private void copyChunks( FSDataInputStream in, FSDataOutputStream out, long length, int readers )
+    throws IOException {
+    ExecutorService executorService = Executors.newFixedThreadPool( readers );
+    try {
+      Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+      long position = 0;
+      while ( position < length || !inFlight.isEmpty() ) {
+        while ( position < length && inFlight.size() < readers ) {
+          final long chunkPosition = position;
+          final int chunkLength = (int) Math.min( chunkSize, length - position );
+          inFlight.add( executorService.submit( () -> {
+            byte[] chunk = new byte[ chunkLength ];
+            in.readFully( chunkPosition, chunk, 0, chunkLength );
+            return chunk;
+          } ) );
+          position += chunkLength;
+        }
+        out.write( get( inFlight.poll() ) );
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private void verifyChecksum( Path source, Path copy ) throws IOException {
+    FileChecksum sourceChecksum = sourceFileSystem.getFileChecksum( source );
+    if ( sourceChecksum == null ) {
+      return;
+    }
+    FileChecksum copyChecksum = destinationFileSystem.getFileChecksum( copy );
+    // checksums are only comparable when both sides compute them the same way (algorithm, block and chunk sizes)
+    if ( copyChecksum != null && sourceChecksum.getAlgorithmName().equals( copyChecksum.getAlgorithmName() )
+      && !sourceChecksum.equals( copyChecksum ) ) {
+      throw new IOException( "Checksum mismatch copying " + source + " to " + copy );
+    }
+  }
+
+  private static <T> T get( Future<T> future ) throws IOException {
+    try {
+      return future.get();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( e.getMessage() );
+    } catch ( ExecutionException e ) {
+      if ( e.getCause() instanceof IOException ) {
+        throw (IOException) e.getCause();
+      }
+      if ( e.getCause() instanceof RuntimeException ) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException( e.getCause() );
+    }
+  }
+}
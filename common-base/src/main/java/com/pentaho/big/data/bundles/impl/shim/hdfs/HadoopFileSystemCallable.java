@@ -17,4 +17,17 @@ import org.apache.hadoop.fs.FileSystem;
 
 public interface HadoopFileSystemCallable {
   FileSystem getFileSystem();
+
+  /**
+   * Called when the file system returned by {@link #getFileSystem()} turned out to be closed, so the next call can
+   * resolve a new one.
+   */
+  default void fileSystemClosed() {
+  }
+
+  /**
+   * Called after a property of the configuration of the file system returned by {@link #getFileSystem()} was changed.
+   */
+  default void configurationChanged() {
+  }
 }
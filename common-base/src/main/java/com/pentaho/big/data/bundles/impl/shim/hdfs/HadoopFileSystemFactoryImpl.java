@@ -13,8 +13,13 @@
 
 package com.pentaho.big.data.bundles.impl.shim.hdfs;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.security.UserGroupInformation;
 
 import org.pentaho.hadoop.shim.api.internal.Configuration;
 import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
@@ -27,6 +32,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by bryan on 5/28/15.
@@ -38,6 +48,19 @@ public class HadoopFileSystemFactoryImpl implements HadoopFileSystemFactory {
   protected final boolean isActiveConfiguration;
   protected final HadoopShim hadoopShim;
   protected final ShimIdentifierInterface shimIdentifier;
+  /**
+   * Resolved file system handles, so operations don't go through the shim (and FileSystem.get's global lock) each
+   * time. Entries are keyed by cluster, configuration fingerprint and calling user, so a changed cluster definition
+   * or configuration resolves a new handle; stale entries age out, and handles found closed are dropped.
+   */
+  private final Cache<FileSystemHandleKey, FileSystem> fileSystemCache = CacheBuilder.newBuilder()
+    .maximumSize( 256 )
+    .expireAfterAccess( 30, TimeUnit.MINUTES )
+    .build();
+  /**
+   * File caches by their settings, see {@link HadoopFileCache#getSettings(org.apache.hadoop.conf.Configuration)}
+   */
+  private final Map<String, HadoopFileCache> fileCaches = new ConcurrentHashMap<>();
 
   public HadoopFileSystemFactoryImpl( HadoopShim hadoopShim, ShimIdentifierInterface shimIdentifier ) {
     this( true, hadoopShim, "hdfs", shimIdentifier );
@@ -71,18 +94,156 @@ public class HadoopFileSystemFactoryImpl implements HadoopFileSystemFactory {
     }
 
     final URI finalUri = fileSystem.getUri() != null ? fileSystem.getUri() : uri;
-    HadoopFileSystem hadoopFileSystem = new HadoopFileSystemImpl( () -> {
+    HadoopFileSystem hadoopFileSystem =
+      new HadoopFileSystemImpl( new CachingFileSystemCallable( namedCluster, configuration, finalUri ) );
+    ( (HadoopFileSystemImpl) hadoopFileSystem ).setNamedCluster( namedCluster );
+    ( (HadoopFileSystemImpl) hadoopFileSystem ).setFileCache( getFileCache( configuration ) );
+
+    return hadoopFileSystem;
+  }
+
+  /**
+   * Drops the resolved file system handles of a named cluster, e.g. after its definition was edited.
+   */
+  public void invalidate( NamedCluster namedCluster ) {
+    String clusterName = namedCluster.getName();
+    fileSystemCache.asMap().keySet().removeIf( key -> Objects.equals( key.clusterName, clusterName ) );
+  }
+
+  public void invalidateAll() {
+    fileSystemCache.invalidateAll();
+  }
+
+  @VisibleForTesting
+  long getCachedFileSystemCount() {
+    fileSystemCache.cleanUp();
+    return fileSystemCache.size();
+  }
+
+  /**
+   * File systems whose configurations enable the file cache with the same settings share one cache, a configuration
+   * with different settings gets a cache of its own.
+   */
+  @VisibleForTesting
+  HadoopFileCache getFileCache( Configuration configuration ) {
+    org.apache.hadoop.conf.Configuration conf =
+      configuration.getAsDelegateConf( org.apache.hadoop.conf.Configuration.class );
+    String settings = HadoopFileCache.getSettings( conf );
+    if ( settings == null ) {
+      return null;
+    }
+    return fileCaches.computeIfAbsent( settings, key -> HadoopFileCache.fromConfiguration( conf ) );
+  }
+
+  private static String getCurrentUser() throws IOException {
+    return UserGroupInformation.getCurrentUser().getUserName();
+  }
+
+  /**
+   * SHA-256 of every property of the configuration, in key order.
+   */
+  @VisibleForTesting
+  static String getConfigurationFingerprint( Configuration configuration ) {
+    org.apache.hadoop.conf.Configuration conf =
+      configuration.getAsDelegateConf( org.apache.hadoop.conf.Configuration.class );
+    if ( conf == null ) {
+      return "";
+    }
+    Map<String, String> properties = new TreeMap<>();
+    for ( Map.Entry<String, String> entry : conf ) {
+      properties.put( entry.getKey(), entry.getValue() );
+    }
+    StringBuilder content = new StringBuilder();
+    for ( Map.Entry<String, String> entry : properties.entrySet() ) {
+      content.append( entry.getKey() ).append( '\0' ).append( entry.getValue() ).append( '\0' );
+    }
+    return DigestUtils.sha256Hex( content.toString() );
+  }
+
+  /**
+   * Resolves the file system of a HadoopFileSystemImpl through the handle cache. The configuration fingerprint is
+   * computed once and again only after {@link HadoopFileSystemImpl#setProperty(String, String)} changed the
+   * configuration; the calling user is looked up on every call.
+   */
+  private final class CachingFileSystemCallable implements HadoopFileSystemCallable {
+    private final NamedCluster namedCluster;
+    private final Configuration configuration;
+    private final URI uri;
+    private volatile String configurationFingerprint;
+
+    private CachingFileSystemCallable( NamedCluster namedCluster, Configuration configuration, URI uri ) {
+      this.namedCluster = namedCluster;
+      this.configuration = configuration;
+      this.uri = uri;
+      this.configurationFingerprint = getConfigurationFingerprint( configuration );
+    }
+
+    @Override public FileSystem getFileSystem() {
       try {
-        return finalUri != null
-          ? (FileSystem) hadoopShim.getFileSystem( finalUri, configuration, (NamedCluster) namedCluster ).getDelegate()
+        FileSystemHandleKey key = getKey();
+        FileSystem cached = fileSystemCache.getIfPresent( key );
+        if ( cached != null ) {
+          return cached;
+        }
+        FileSystem resolved = uri != null
+          ? (FileSystem) hadoopShim.getFileSystem( uri, configuration, namedCluster ).getDelegate()
           : (FileSystem) hadoopShim.getFileSystem( configuration ).getDelegate();
+        if ( resolved != null ) {
+          fileSystemCache.put( key, resolved );
+        }
+        return resolved;
       } catch ( IOException | InterruptedException e ) {
         LOGGER.debug( "Error looking up/creating the file system ", e );
         return null;
       }
-    } );
-    ( (HadoopFileSystemImpl) hadoopFileSystem ).setNamedCluster( namedCluster );
+    }
 
-    return hadoopFileSystem;
+    @Override public void fileSystemClosed() {
+      try {
+        fileSystemCache.invalidate( getKey() );
+      } catch ( IOException e ) {
+        LOGGER.debug( "Unable to drop the closed file system handle", e );
+      }
+    }
+
+    @Override public void configurationChanged() {
+      configurationFingerprint = getConfigurationFingerprint( configuration );
+    }
+
+    private FileSystemHandleKey getKey() throws IOException {
+      return new FileSystemHandleKey( namedCluster.getName(), configurationFingerprint, getCurrentUser(), uri );
+    }
+  }
+
+  private static final class FileSystemHandleKey {
+    private final String clusterName;
+    private final String configurationFingerprint;
+    private final String user;
+    private final URI uri;
+
+    private FileSystemHandleKey( String clusterName, String configurationFingerprint, String user, URI uri ) {
+      this.clusterName = clusterName;
+      this.configurationFingerprint = configurationFingerprint;
+      this.user = user;
+      this.uri = uri;
+    }
+
+    @Override public boolean equals( Object o ) {
+      if ( this == o ) {
+        return true;
+      }
+      if ( o == null || getClass() != o.getClass() ) {
+        return false;
+      }
+      FileSystemHandleKey that = (FileSystemHandleKey) o;
+      return Objects.equals( configurationFingerprint, that.configurationFingerprint )
+        && Objects.equals( clusterName, that.clusterName )
+        && Objects.equals( user, that.user )
+        && Objects.equals( uri, that.uri );
+    }
+
+    @Override public int hashCode() {
+      return Objects.hash( clusterName, configurationFingerprint, user, uri );
+    }
   }
 }
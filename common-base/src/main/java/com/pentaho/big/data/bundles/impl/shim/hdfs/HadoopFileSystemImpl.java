@@ -16,25 +16,57 @@ package com.pentaho.big.data.bundles.impl.shim.hdfs;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
 import org.apache.hadoop.fs.permission.FsAction;
 import org.apache.hadoop.fs.permission.FsPermission;
 import org.apache.hadoop.security.AccessControlException;
+import org.apache.hadoop.security.UserGroupInformation;
 
 import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
 import org.pentaho.hadoop.shim.api.hdfs.HadoopFileStatus;
+import org.pentaho.hadoop.shim.api.hdfs.HadoopFileStatusIterator;
 import org.pentaho.hadoop.shim.api.hdfs.HadoopFileSystem;
 import org.pentaho.hadoop.shim.api.hdfs.HadoopFileSystemPath;
+import org.pentaho.hadoop.shim.api.hdfs.HadoopGlobPattern;
+import org.pentaho.hadoop.shim.api.hdfs.HadoopPathResult;
+import org.pentaho.hadoop.shim.api.hdfs.HadoopSeekableInput;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Created by bryan on 5/28/15.
  */
 public class HadoopFileSystemImpl implements HadoopFileSystem {
+  /**
+   * Object stores where a flat prefix listing is much cheaper than walking the tree one directory at a time
+   */
+  static final Set<String> FLAT_LISTING_SCHEMES =
+    Collections.unmodifiableSet( new HashSet<>( Arrays.asList( "s3a", "s3n", "s3", "gs", "abfs", "abfss", "adl",
+      "wasb", "wasbs" ) ) );
+
   protected HadoopFileSystemCallable hadoopFileSystemCallable;
   private NamedCluster namedCluster;
+  private HadoopFileCache fileCache;
 
   public HadoopFileSystemImpl( HadoopFileSystemCallable hadoopFileSystemCallable ) {
     this.hadoopFileSystemCallable = hadoopFileSystemCallable;
@@ -69,7 +101,7 @@ public class HadoopFileSystemImpl implements HadoopFileSystem {
 
   @Override
   public HadoopFileStatus getFileStatus( final HadoopFileSystemPath path ) throws IOException {
-    return callAndWrapExceptions( new IOExceptionCallable<HadoopFileStatus>() {
+    return callReadAndWrapExceptions( new IOExceptionCallable<HadoopFileStatus>() {
       @Override public HadoopFileStatus call() throws IOException {
         return new HadoopFileStatusImpl( getFileSystem().getFileStatus( new Path( path.getPath() ) ) );
       }
@@ -87,9 +119,53 @@ public class HadoopFileSystemImpl implements HadoopFileSystem {
 
   @Override
   public InputStream open( final HadoopFileSystemPath path ) throws IOException {
-    return callAndWrapExceptions( new IOExceptionCallable<InputStream>() {
+    return callReadAndWrapExceptions( new IOExceptionCallable<InputStream>() {
       @Override public InputStream call() throws IOException {
-        return getFileSystem().open( new Path( path.getPath() ) );
+        final Path hadoopPath = new Path( path.getPath() );
+        if ( fileCache != null ) {
+          FileStatus fileStatus = getFileSystem().getFileStatus( hadoopPath );
+          // getFileStatus only needs traverse permission, cached content must not bypass read permission
+          if ( fileCache.isCacheable( fileStatus ) && canRead( fileStatus ) ) {
+            return fileCache.open( fileStatus, () -> getFileSystem().open( hadoopPath ) );
+          }
+        }
+        return getFileSystem().open( hadoopPath );
+      }
+    } );
+  }
+
+  /**
+   * Whether the current user may read the file, decided from the permission bits of the status already at hand. Only
+   * files with ACLs need another round trip. Files that can't be shown readable here are opened without the cache,
+   * leaving the check to the file system.
+   */
+  private boolean canRead( FileStatus fileStatus ) throws IOException {
+    if ( fileStatus.hasAcl() ) {
+      try {
+        getFileSystem().access( fileStatus.getPath(), FsAction.READ );
+        return true;
+      } catch ( AccessControlException e ) {
+        return false;
+      }
+    }
+    UserGroupInformation user = UserGroupInformation.getCurrentUser();
+    FsPermission permission = fileStatus.getPermission();
+    FsAction action;
+    if ( user.getShortUserName().equals( fileStatus.getOwner() ) ) {
+      action = permission.getUserAction();
+    } else if ( Arrays.asList( user.getGroupNames() ).contains( fileStatus.getGroup() ) ) {
+      action = permission.getGroupAction();
+    } else {
+      action = permission.getOtherAction();
+    }
+    return action.implies( FsAction.READ );
+  }
+
+  @Override
+  public HadoopSeekableInput openSeekable( final HadoopFileSystemPath path ) throws IOException {
+    return callReadAndWrapExceptions( new IOExceptionCallable<HadoopSeekableInput>() {
+      @Override public HadoopSeekableInput call() throws IOException {
+        return new HadoopSeekableInputImpl( getFileSystem().open( new Path( path.getPath() ) ) );
       }
     } );
   }
@@ -115,7 +191,7 @@ public class HadoopFileSystemImpl implements HadoopFileSystem {
 
   @Override
   public HadoopFileStatus[] listStatus( final HadoopFileSystemPath path ) throws IOException {
-    FileStatus[] fileStatuses = callAndWrapExceptions( new IOExceptionCallable<FileStatus[]>() {
+    FileStatus[] fileStatuses = callReadAndWrapExceptions( new IOExceptionCallable<FileStatus[]>() {
       @Override public FileStatus[] call() throws IOException {
         return getFileSystem().listStatus( new Path( path.getPath() ) );
       }
@@ -130,6 +206,92 @@ public class HadoopFileSystemImpl implements HadoopFileSystem {
     return result;
   }
 
+  @Override
+  public HadoopFileStatusIterator listStatusIterator( final HadoopFileSystemPath path ) throws IOException {
+    return new RemoteIteratorWrapper( callReadAndWrapExceptions( new IOExceptionCallable<RemoteIterator<FileStatus>>() {
+      @Override public RemoteIterator<FileStatus> call() throws IOException {
+        return getFileSystem().listStatusIterator( new Path( path.getPath() ) );
+      }
+    } ) );
+  }
+
+  @Override
+  public HadoopFileStatusIterator listFiles( final HadoopFileSystemPath path, final boolean recursive )
+    throws IOException {
+    return new RemoteIteratorWrapper( callReadAndWrapExceptions( new IOExceptionCallable<RemoteIterator<? extends
+      FileStatus>>() {
+      @Override public RemoteIterator<? extends FileStatus> call() throws IOException {
+        return getFileSystem().listFiles( new Path( path.getPath() ), recursive );
+      }
+    } ) );
+  }
+
+  @Override
+  public List<HadoopFileStatus> findFiles( HadoopFileSystemPath root, String glob, int parallelism )
+    throws IOException {
+    HadoopGlobPattern pattern = glob == null ? null : new HadoopGlobPattern( glob );
+    List<HadoopFileStatus> result = new ArrayList<>();
+    if ( parallelism <= 1 || isFlatListingPreferred() ) {
+      HadoopFileStatusIterator iterator = listFiles( root, true );
+      while ( iterator.hasNext() ) {
+        HadoopFileStatus status = iterator.next();
+        if ( matches( pattern, status ) ) {
+          result.add( status );
+        }
+      }
+      return result;
+    }
+    ExecutorService executorService = Executors.newFixedThreadPool( parallelism );
+    try {
+      CompletionService<List<HadoopFileStatus>> completionService =
+        new ExecutorCompletionService<>( executorService );
+      completionService.submit( () -> listDirectory( root ) );
+      int pending = 1;
+      while ( pending > 0 ) {
+        List<HadoopFileStatus> entries = completionService.take().get();
+        pending--;
+        for ( HadoopFileStatus status : entries ) {
+          if ( status.isDir() ) {
+            completionService.submit( () -> listDirectory( status.getPath() ) );
+            pending++;
+          } else if ( matches( pattern, status ) ) {
+            result.add( status );
+          }
+        }
+      }
+      return result;
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new IOException( e );
+    } catch ( ExecutionException e ) {
+      if ( e.getCause() instanceof IOException ) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException( e.getCause() );
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private List<HadoopFileStatus> listDirectory( HadoopFileSystemPath directory ) throws IOException {
+    List<HadoopFileStatus> entries = new ArrayList<>();
+    HadoopFileStatusIterator iterator = listStatusIterator( directory );
+    while ( iterator.hasNext() ) {
+      entries.add( iterator.next() );
+    }
+    return entries;
+  }
+
+  private boolean isFlatListingPreferred() {
+    URI uri = getFileSystem().getUri();
+    String scheme = uri == null ? null : uri.getScheme();
+    return scheme != null && FLAT_LISTING_SCHEMES.contains( scheme.toLowerCase() );
+  }
+
+  private static boolean matches( HadoopGlobPattern pattern, HadoopFileStatus status ) {
+    return pattern == null || pattern.matches( status.getPath().getName() );
+  }
+
   @Override
   public HadoopFileSystemPath getPath( String path ) {
     return new HadoopFileSystemPathImpl( new Path( path ) );
@@ -168,7 +330,7 @@ public class HadoopFileSystemImpl implements HadoopFileSystem {
   }
 
   @Override public boolean exists( final HadoopFileSystemPath path ) throws IOException {
-    return callAndWrapExceptions( new IOExceptionCallable<Boolean>() {
+    return callReadAndWrapExceptions( new IOExceptionCallable<Boolean>() {
       @Override public Boolean call() throws IOException {
         return getFileSystem().exists( HadoopFileSystemPathImpl.toHadoopFileSystemPathImpl( path ).getRawPath() );
       }
@@ -176,7 +338,7 @@ public class HadoopFileSystemImpl implements HadoopFileSystem {
   }
 
   @Override public HadoopFileSystemPath resolvePath( final HadoopFileSystemPath path ) throws IOException {
-    return callAndWrapExceptions( new IOExceptionCallable<HadoopFileSystemPath>() {
+    return callReadAndWrapExceptions( new IOExceptionCallable<HadoopFileSystemPath>() {
       @Override public HadoopFileSystemPath call() throws IOException {
         return new HadoopFileSystemPathImpl(
           getFileSystem().getFileStatus( HadoopFileSystemPathImpl.toHadoopFileSystemPathImpl( path ).getRawPath() )
@@ -185,12 +347,140 @@ public class HadoopFileSystemImpl implements HadoopFileSystem {
     } );
   }
 
+  @Override
+  public List<HadoopPathResult> deleteAll( List<HadoopFileSystemPath> paths, final boolean recursive,
+                                           int parallelism ) {
+    if ( !recursive ) {
+      return runConcurrently( paths, parallelism, path -> delete( path, false ) );
+    }
+    // A recursive delete of a directory covers everything below it, and on object stores is done with paged bulk
+    // deletes, so only the topmost paths are deleted and nested ones share their ancestor's result
+    Map<String, HadoopFileSystemPath> pathsByName = new HashMap<>();
+    for ( HadoopFileSystemPath path : paths ) {
+      pathsByName.putIfAbsent( new Path( path.getPath() ).toString(), path );
+    }
+    List<HadoopFileSystemPath> roots = new ArrayList<>();
+    List<HadoopFileSystemPath> ancestors = new ArrayList<>( paths.size() );
+    for ( HadoopFileSystemPath path : paths ) {
+      HadoopFileSystemPath ancestor = findAncestor( path, pathsByName );
+      ancestors.add( ancestor );
+      if ( ancestor == path ) {
+        roots.add( path );
+      }
+    }
+    List<HadoopPathResult> rootResults = runConcurrently( roots, parallelism, path -> delete( path, true ) );
+    Map<HadoopFileSystemPath, HadoopPathResult> resultsByRoot = new IdentityHashMap<>();
+    for ( HadoopPathResult rootResult : rootResults ) {
+      resultsByRoot.put( rootResult.getPath(), rootResult );
+    }
+    List<HadoopPathResult> results = new ArrayList<>( paths.size() );
+    for ( int i = 0; i < paths.size(); i++ ) {
+      HadoopPathResult rootResult = resultsByRoot.get( ancestors.get( i ) );
+      results.add( rootResult.isFailed()
+        ? HadoopPathResult.failure( paths.get( i ), rootResult.getException() )
+        : HadoopPathResult.success( paths.get( i ), rootResult.getResult() ) );
+    }
+    return results;
+  }
+
+  @Override
+  public List<HadoopPathResult> renameAll( final Map<HadoopFileSystemPath, HadoopFileSystemPath> renames,
+                                           int parallelism ) {
+    return runConcurrently( new ArrayList<>( renames.keySet() ), parallelism,
+      path -> rename( path, renames.get( path ) ) );
+  }
+
+  @Override
+  public List<HadoopPathResult> existsAll( List<HadoopFileSystemPath> paths, int parallelism ) {
+    return runConcurrently( paths, parallelism, this::exists );
+  }
+
+  @Override
+  public List<HadoopPathResult> chmodAll( List<HadoopFileSystemPath> paths, final int permissions,
+                                          int parallelism ) {
+    return runConcurrently( paths, parallelism, path -> {
+      chmod( path, permissions );
+      return true;
+    } );
+  }
+
+  @Override
+  public long copy( final HadoopFileSystemPath source, HadoopFileSystem destinationFileSystem,
+                    final HadoopFileSystemPath destination, final int parallelism ) throws IOException {
+    if ( !( destinationFileSystem instanceof HadoopFileSystemImpl ) ) {
+      return HadoopFileSystem.super.copy( source, destinationFileSystem, destination, parallelism );
+    }
+    final FileSystem targetFileSystem = ( (HadoopFileSystemImpl) destinationFileSystem ).getFileSystem();
+    return callAndWrapExceptions( new IOExceptionCallable<Long>() {
+      @Override public Long call() throws IOException {
+        return new HadoopFileCopier( getFileSystem(), targetFileSystem, parallelism )
+          .copy( new Path( source.getPath() ), new Path( destination.getPath() ) );
+      }
+    } );
+  }
+
+  /**
+   * @return the topmost entry of candidates that is the path itself or one of its parents
+   */
+  private static HadoopFileSystemPath findAncestor( HadoopFileSystemPath path,
+                                                    Map<String, HadoopFileSystemPath> candidates ) {
+    HadoopFileSystemPath result = path;
+    Path parent = new Path( path.getPath() ).getParent();
+    while ( parent != null ) {
+      HadoopFileSystemPath candidate = candidates.get( parent.toString() );
+      if ( candidate != null ) {
+        result = candidate;
+      }
+      parent = parent.getParent();
+    }
+    return result;
+  }
+
+  private List<HadoopPathResult> runConcurrently( List<HadoopFileSystemPath> paths, int parallelism,
+                                                  PathOperation operation ) {
+    List<HadoopPathResult> results = new ArrayList<>( paths.size() );
+    if ( paths.isEmpty() ) {
+      return results;
+    }
+    ExecutorService executorService =
+      Executors.newFixedThreadPool( Math.max( 1, Math.min( parallelism, paths.size() ) ) );
+    try {
+      List<Future<HadoopPathResult>> futures = new ArrayList<>( paths.size() );
+      for ( HadoopFileSystemPath path : paths ) {
+        futures.add( executorService.submit( () -> {
+          try {
+            return HadoopPathResult.success( path, operation.apply( path ) );
+          } catch ( IOException e ) {
+            return HadoopPathResult.failure( path, e );
+          }
+        } ) );
+      }
+      for ( int i = 0; i < futures.size(); i++ ) {
+        try {
+          results.add( futures.get( i ).get() );
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+          results.add( HadoopPathResult.failure( paths.get( i ), new InterruptedIOException( e.getMessage() ) ) );
+        } catch ( ExecutionException e ) {
+          if ( e.getCause() instanceof RuntimeException ) {
+            throw (RuntimeException) e.getCause();
+          }
+          throw new IllegalStateException( e.getCause() );
+        }
+      }
+      return results;
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
   @Override public String getFsDefaultName() {
     return getFileSystem().getConf().get( "fs.defaultFS", getFileSystem().getConf().get( "fs.default.name" ) );
   }
 
   @Override public void setProperty( String name, String value ) {
     getFileSystem().getConf().set( name, value );
+    hadoopFileSystemCallable.configurationChanged();
   }
 
   @Override public String getProperty( String name, String defaultValue ) {
@@ -198,13 +488,48 @@ public class HadoopFileSystemImpl implements HadoopFileSystem {
   }
 
   public <T> T callAndWrapExceptions( IOExceptionCallable<T> ioExceptionCallable ) throws IOException {
+    return callAndWrapExceptions( ioExceptionCallable, false );
+  }
+
+  /**
+   * Like {@link #callAndWrapExceptions(IOExceptionCallable)}, for operations that only read and may therefore be
+   * retried once when the file system handle turns out to be closed.
+   */
+  protected <T> T callReadAndWrapExceptions( IOExceptionCallable<T> ioExceptionCallable ) throws IOException {
+    return callAndWrapExceptions( ioExceptionCallable, true );
+  }
+
+  private <T> T callAndWrapExceptions( IOExceptionCallable<T> ioExceptionCallable, boolean retry ) throws IOException {
     try {
-      return ioExceptionCallable.call();
+      try {
+        return ioExceptionCallable.call();
+      } catch ( IOException e ) {
+        if ( !isFileSystemClosed( e ) ) {
+          throw e;
+        }
+        // a cached handle closed elsewhere (e.g. FileSystem.closeAll) is dropped either way, but only reads are
+        // retried against a newly resolved one: a write may have taken effect before the handle failed
+        hadoopFileSystemCallable.fileSystemClosed();
+        if ( !retry ) {
+          throw e;
+        }
+        return ioExceptionCallable.call();
+      }
     } catch ( AccessControlException e ) {
       throw new org.pentaho.hadoop.shim.api.hdfs.exceptions.AccessControlException( e.getMessage(), e );
     }
   }
 
+  static boolean isFileSystemClosed( IOException e ) {
+    String message = e.getMessage();
+    if ( message == null ) {
+      return false;
+    }
+    message = message.toLowerCase( Locale.ROOT );
+    // HDFS: "Filesystem closed", S3A and ABFS: "FileSystem is closed!"
+    return message.contains( "filesystem closed" ) || message.contains( "filesystem is closed" );
+  }
+
   public NamedCluster getNamedCluster() {
     return namedCluster;
   }
@@ -213,10 +538,49 @@ public class HadoopFileSystemImpl implements HadoopFileSystem {
     this.namedCluster = namedCluster;
   }
 
+  public HadoopFileCache getFileCache() {
+    return fileCache;
+  }
+
+  /**
+   * Serves reads of small files from the given cache, null reads everything from the filesystem.
+   */
+  public void setFileCache( HadoopFileCache fileCache ) {
+    this.fileCache = fileCache;
+  }
+
   protected interface IOExceptionCallable<T> {
     T call() throws IOException;
   }
 
+  private interface PathOperation {
+    boolean apply( HadoopFileSystemPath path ) throws IOException;
+  }
+
+  private class RemoteIteratorWrapper implements HadoopFileStatusIterator {
+    private final RemoteIterator<? extends FileStatus> delegate;
+
+    private RemoteIteratorWrapper( RemoteIterator<? extends FileStatus> delegate ) {
+      this.delegate = delegate;
+    }
+
+    @Override public boolean hasNext() throws IOException {
+      return callAndWrapExceptions( new IOExceptionCallable<Boolean>() {
+        @Override public Boolean call() throws IOException {
+          return delegate.hasNext();
+        }
+      } );
+    }
+
+    @Override public HadoopFileStatus next() throws IOException {
+      return callAndWrapExceptions( new IOExceptionCallable<HadoopFileStatus>() {
+        @Override public HadoopFileStatus call() throws IOException {
+          return new HadoopFileStatusImpl( delegate.next() );
+        }
+      } );
+    }
+  }
+
   protected FileSystem getFileSystem() {
     return hadoopFileSystemCallable.getFileSystem();
   }
@@ -0,0 +1,198 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package com.pentaho.big.data.bundles.impl.shim.hdfs;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.hadoop.fs.ByteBufferReadable;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.pentaho.hadoop.shim.api.hdfs.HadoopFileRange;
+import org.pentaho.hadoop.shim.api.hdfs.HadoopSeekableInput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+
+/**
+ * {@link HadoopSeekableInput} over an {@link FSDataInputStream}, exposing its positional, ByteBuffer and vectored
+ * reads. The vectored read API only exists from Hadoop 3.3.5 on and this class is shared by shims built against older
+ * versions, so it's looked up once and replaced by concurrent positional reads where it's missing.
+ */
+public class HadoopSeekableInputImpl implements HadoopSeekableInput {
+  private static final Logger LOGGER = LoggerFactory.getLogger( HadoopSeekableInputImpl.class );
+  private static final int FALLBACK_READ_THREADS = 4;
+  private static final VectoredReadApi VECTORED_READ_API = VectoredReadApi.lookup();
+  private static volatile ExecutorService fallbackExecutor;
+
+  private final FSDataInputStream inputStream;
+  private final boolean nativeVectoredRead;
+
+  public HadoopSeekableInputImpl( FSDataInputStream inputStream ) {
+    this( inputStream, VECTORED_READ_API != null );
+  }
+
+  @VisibleForTesting
+  HadoopSeekableInputImpl( FSDataInputStream inputStream, boolean nativeVectoredRead ) {
+    this.inputStream = inputStream;
+    this.nativeVectoredRead = nativeVectoredRead;
+  }
+
+  @Override public long getPos() throws IOException {
+    return inputStream.getPos();
+  }
+
+  @Override public void seek( long position ) throws IOException {
+    inputStream.seek( position );
+  }
+
+  @Override public int read( ByteBuffer buffer ) throws IOException {
+    if ( inputStream.getWrappedStream() instanceof ByteBufferReadable ) {
+      return inputStream.read( buffer );
+    }
+    // Not every stream reads straight into buffers, copy through a heap array for those
+    byte[] bytes = new byte[ buffer.remaining() ];
+    int read = inputStream.read( bytes, 0, bytes.length );
+    if ( read > 0 ) {
+      buffer.put( bytes, 0, read );
+    }
+    return read;
+  }
+
+  @Override public int read( long position, byte[] buffer, int offset, int length ) throws IOException {
+    return inputStream.read( position, buffer, offset, length );
+  }
+
+  @Override public void readFully( long position, byte[] buffer, int offset, int length ) throws IOException {
+    inputStream.readFully( position, buffer, offset, length );
+  }
+
+  @Override
+  public List<CompletableFuture<ByteBuffer>> readVectored( List<HadoopFileRange> ranges,
+                                                           IntFunction<ByteBuffer> allocate ) throws IOException {
+    if ( nativeVectoredRead ) {
+      return VECTORED_READ_API.readVectored( inputStream, ranges, allocate );
+    }
+    ExecutorService executor = getFallbackExecutor();
+    List<CompletableFuture<ByteBuffer>> result = new ArrayList<>( ranges.size() );
+    for ( HadoopFileRange range : ranges ) {
+      result.add( CompletableFuture.supplyAsync( () -> readRange( range, allocate ), executor ) );
+    }
+    return result;
+  }
+
+  private ByteBuffer readRange( HadoopFileRange range, IntFunction<ByteBuffer> allocate ) {
+    try {
+      ByteBuffer buffer = allocate.apply( range.getLength() );
+      if ( buffer.hasArray() ) {
+        inputStream.readFully( range.getOffset(), buffer.array(), buffer.arrayOffset() + buffer.position(),
+          range.getLength() );
+        buffer.position( buffer.position() + range.getLength() );
+      } else {
+        byte[] bytes = new byte[ range.getLength() ];
+        inputStream.readFully( range.getOffset(), bytes, 0, bytes.length );
+        buffer.put( bytes );
+      }
+      buffer.flip();
+      return buffer;
+    } catch ( IOException e ) {
+      throw new CompletionException( e );
+    }
+  }
+
+  private static ExecutorService getFallbackExecutor() {
+    if ( fallbackExecutor == null ) {
+      synchronized ( HadoopSeekableInputImpl.class ) {
+        if ( fallbackExecutor == null ) {
+          fallbackExecutor = Executors.newFixedThreadPool( FALLBACK_READ_THREADS,
+            new ThreadFactoryBuilder().setDaemon( true ).setNameFormat( "pentaho-vectored-read-%d" ).build() );
+        }
+      }
+    }
+    return fallbackExecutor;
+  }
+
+  @Override public void close() throws IOException {
+    inputStream.close();
+  }
+
+  /**
+   * FSDataInputStream.readVectored and FileRange, reached reflectively
+   */
+  private static final class VectoredReadApi {
+    private final Method createFileRange;
+    private final Method getData;
+    private final Method readVectored;
+
+    private VectoredReadApi( Method createFileRange, Method getData, Method readVectored ) {
+      this.createFileRange = createFileRange;
+      this.getData = getData;
+      this.readVectored = readVectored;
+    }
+
+    static VectoredReadApi lookup() {
+      try {
+        Class<?> fileRange = Class.forName( "org.apache.hadoop.fs.FileRange" );
+        return new VectoredReadApi( fileRange.getMethod( "createFileRange", long.class, int.class ),
+          fileRange.getMethod( "getData" ),
+          FSDataInputStream.class.getMethod( "readVectored", List.class, IntFunction.class ) );
+      } catch ( ClassNotFoundException | NoSuchMethodException e ) {
+        LOGGER.debug( "Vectored reads are not available, falling back to concurrent positional reads" );
+        return null;
+      }
+    }
+
+    @SuppressWarnings( "unchecked" )
+    List<CompletableFuture<ByteBuffer>> readVectored( FSDataInputStream inputStream, List<HadoopFileRange> ranges,
+                                                      IntFunction<ByteBuffer> allocate ) throws IOException {
+      try {
+        List<Object> fileRanges = new ArrayList<>( ranges.size() );
+        for ( HadoopFileRange range : ranges ) {
+          fileRanges.add( createFileRange.invoke( null, range.getOffset(), range.getLength() ) );
+        }
+        readVectored.invoke( inputStream, fileRanges, allocate );
+        List<CompletableFuture<ByteBuffer>> result = new ArrayList<>( fileRanges.size() );
+        for ( Object fileRange : fileRanges ) {
+          result.add( (CompletableFuture<ByteBuffer>) getData.invoke( fileRange ) );
+        }
+        return result;
+      } catch ( InvocationTargetException e ) {
+        Throwable cause = e.getCause();
+        if ( cause instanceof IOException ) {
+          throw (IOException) cause;
+        }
+        if ( cause instanceof UncheckedIOException ) {
+          throw ( (UncheckedIOException) cause ).getCause();
+        }
+        if ( cause instanceof RuntimeException ) {
+          throw (RuntimeException) cause;
+        }
+        throw new IOException( cause );
+      } catch ( IllegalAccessException e ) {
+        throw new IOException( e );
+      }
+    }
+  }
+}
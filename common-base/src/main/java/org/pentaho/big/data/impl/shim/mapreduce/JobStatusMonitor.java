@@ -0,0 +1,144 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.impl.shim.mapreduce;
+
+import org.pentaho.hadoop.shim.api.internal.mapred.RunningJob;
+import org.pentaho.hadoop.shim.api.internal.mapred.RunningJobStatus;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Polls the status of all jobs submitted by this process on a single scheduler thread. Each poll fetches the job's
+ * status with one request ({@link RunningJob#getStatus()}). While a job's status does not change the interval between
+ * polls doubles, up to a maximum; any progress resets it to the minimum. Waiters are notified through the job's
+ * completion future.
+ */
+public class JobStatusMonitor {
+  public static final long DEFAULT_MIN_POLL_INTERVAL_MS = 100;
+  public static final long DEFAULT_MAX_POLL_INTERVAL_MS = 5000;
+
+  private static final JobStatusMonitor INSTANCE =
+    new JobStatusMonitor( DEFAULT_MIN_POLL_INTERVAL_MS, DEFAULT_MAX_POLL_INTERVAL_MS );
+
+  private final ScheduledExecutorService scheduler;
+  private final long minPollIntervalMs;
+  private final long maxPollIntervalMs;
+  private final AtomicInteger monitoredJobs = new AtomicInteger();
+
+  public JobStatusMonitor( long minPollIntervalMs, long maxPollIntervalMs ) {
+    if ( minPollIntervalMs <= 0 || maxPollIntervalMs < minPollIntervalMs ) {
+      throw new IllegalArgumentException( "Invalid poll intervals: " + minPollIntervalMs + ", " + maxPollIntervalMs );
+    }
+    this.minPollIntervalMs = minPollIntervalMs;
+    this.maxPollIntervalMs = maxPollIntervalMs;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor( r -> {
+      Thread thread = new Thread( r, "Hadoop job status monitor" );
+      thread.setDaemon( true );
+      return thread;
+    } );
+  }
+
+  /**
+   * @return The monitor shared by all jobs submitted by this process
+   */
+  public static JobStatusMonitor getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Starts polling the status of a job until it completes.
+   *
+   * @param runningJob Job to monitor
+   * @return Handle to the job's latest status and completion
+   */
+  public MonitoredJob monitor( RunningJob runningJob ) {
+    MonitoredJob monitoredJob = new MonitoredJob( runningJob );
+    monitoredJobs.incrementAndGet();
+    scheduler.execute( monitoredJob );
+    return monitoredJob;
+  }
+
+  /**
+   * @return Number of jobs currently being polled
+   */
+  public int getMonitoredJobCount() {
+    return monitoredJobs.get();
+  }
+
+  /**
+   * A job being monitored. Its completion future completes with the final status once the job is complete, or
+   * exceptionally if its status could not be retrieved.
+   */
+  public class MonitoredJob implements Runnable {
+    private final RunningJob runningJob;
+    private final CompletableFuture<RunningJobStatus> completion = new CompletableFuture<>();
+    private volatile RunningJobStatus lastStatus;
+    private long pollIntervalMs = minPollIntervalMs;
+
+    private MonitoredJob( RunningJob runningJob ) {
+      this.runningJob = runningJob;
+      completion.whenComplete( ( status, throwable ) -> monitoredJobs.decrementAndGet() );
+    }
+
+    /**
+     * @return The most recently retrieved status or {@code null} if the job has not been polled yet
+     */
+    public RunningJobStatus getLastStatus() {
+      return lastStatus;
+    }
+
+    /**
+     * @return Future completing with the job's final status
+     */
+    public CompletableFuture<RunningJobStatus> getCompletion() {
+      return completion;
+    }
+
+    /**
+     * Stops polling the job without waiting for it to complete.
+     */
+    public void cancel() {
+      completion.cancel( false );
+    }
+
+    @Override
+    public void run() {
+      if ( completion.isDone() ) {
+        return;
+      }
+      RunningJobStatus status;
+      try {
+        status = runningJob.getStatus();
+      } catch ( IOException | RuntimeException e ) {
+        completion.completeExceptionally( e );
+        return;
+      }
+      if ( status != null && status.isComplete() ) {
+        lastStatus = status;
+        completion.complete( status );
+        return;
+      }
+      pollIntervalMs = Objects.equals( status, lastStatus )
+        ? Math.min( pollIntervalMs * 2, maxPollIntervalMs ) : minPollIntervalMs;
+      lastStatus = status;
+      scheduler.schedule( this, pollIntervalMs, TimeUnit.MILLISECONDS );
+    }
+  }
+}
@@ -36,6 +36,13 @@ import java.util.Map;
  * Created by bryan on 12/3/15.
  */
 public class MapReduceJobBuilderImpl implements MapReduceJobBuilder {
+  public static final String MAP_OUTPUT_COMPRESS = "mapreduce.map.output.compress";
+  public static final String MAP_OUTPUT_COMPRESS_CODEC = "mapreduce.map.output.compress.codec";
+  public static final String IO_SORT_MB = "mapreduce.task.io.sort.mb";
+  public static final String MAP_SORT_SPILL_PERCENT = "mapreduce.map.sort.spill.percent";
+  public static final String IO_SORT_FACTOR = "mapreduce.task.io.sort.factor";
+  public static final String REDUCE_SHUFFLE_PARALLEL_COPIES = "mapreduce.reduce.shuffle.parallelcopies";
+  public static final String REDUCE_SLOWSTART_COMPLETED_MAPS = "mapreduce.job.reduce.slowstart.completedmaps";
   private final NamedCluster namedCluster;
   private final HadoopShim hadoopShim;
   private final LogChannelInterface log;
@@ -58,6 +65,12 @@ public class MapReduceJobBuilderImpl implements MapReduceJobBuilder {
   private String mapOutputKeyClass;
   private String mapOutputValueClass;
   private String mapRunnerClass;
+  private MapOutputCompression mapOutputCompression;
+  private Integer sortBufferMb;
+  private Float sortSpillPercent;
+  private Integer sortFactor;
+  private Integer shuffleParallelCopies;
+  private Float reduceSlowStart;
 
   public MapReduceJobBuilderImpl( NamedCluster namedCluster, HadoopShim hadoopShim, LogChannelInterface log,
                                   VariableSpace variableSpace ) {
@@ -153,6 +166,53 @@ public class MapReduceJobBuilderImpl implements MapReduceJobBuilder {
     this.outputPath = outputPath;
   }
 
+  @Override
+  public void setMapOutputCompression( MapOutputCompression mapOutputCompression ) {
+    this.mapOutputCompression = mapOutputCompression;
+  }
+
+  @Override
+  public void setSortBufferMb( int sortBufferMb ) {
+    if ( sortBufferMb <= 0 ) {
+      throw new IllegalArgumentException( "Sort buffer size must be positive: " + sortBufferMb );
+    }
+    this.sortBufferMb = sortBufferMb;
+  }
+
+  @Override
+  public void setSortSpillPercent( float sortSpillPercent ) {
+    checkFraction( "Sort spill percent", sortSpillPercent );
+    this.sortSpillPercent = sortSpillPercent;
+  }
+
+  @Override
+  public void setSortFactor( int sortFactor ) {
+    if ( sortFactor < 2 ) {
+      throw new IllegalArgumentException( "Sort factor must be at least 2: " + sortFactor );
+    }
+    this.sortFactor = sortFactor;
+  }
+
+  @Override
+  public void setShuffleParallelCopies( int shuffleParallelCopies ) {
+    if ( shuffleParallelCopies <= 0 ) {
+      throw new IllegalArgumentException( "Shuffle parallel copies must be positive: " + shuffleParallelCopies );
+    }
+    this.shuffleParallelCopies = shuffleParallelCopies;
+  }
+
+  @Override
+  public void setReduceSlowStart( float reduceSlowStart ) {
+    checkFraction( "Reduce slow start", reduceSlowStart );
+    this.reduceSlowStart = reduceSlowStart;
+  }
+
+  private static void checkFraction( String name, float value ) {
+    if ( !( value >= 0 && value <= 1 ) ) {
+      throw new IllegalArgumentException( name + " must be between 0 and 1: " + value );
+    }
+  }
+
   @Override
   public void set( String key, String value ) {
     userDefined.put( key, value );
@@ -227,6 +287,9 @@ public class MapReduceJobBuilderImpl implements MapReduceJobBuilder {
       conf.setInputPaths( finalPaths );
       conf.setOutputPath( getOutputPath( conf, fs ) );
 
+      // Applied before the user defined values so raw Hadoop properties still take precedence
+      configureShuffle( conf );
+
       // process user defined values
       for ( Map.Entry<String, String> stringStringEntry : userDefined.entrySet() ) {
         String key = stringStringEntry.getKey();
@@ -245,6 +308,54 @@ public class MapReduceJobBuilderImpl implements MapReduceJobBuilder {
     }
   }
 
+  private void configureShuffle( Configuration conf ) {
+    MapOutputCompression compression =
+      mapOutputCompression != null ? mapOutputCompression : getDefaultMapOutputCompression( conf );
+    if ( compression != null ) {
+      conf.set( MAP_OUTPUT_COMPRESS, Boolean.toString( compression.getCodecClass() != null ) );
+      if ( compression.getCodecClass() != null ) {
+        conf.set( MAP_OUTPUT_COMPRESS_CODEC, compression.getCodecClass() );
+      }
+    }
+    if ( sortBufferMb != null ) {
+      conf.set( IO_SORT_MB, sortBufferMb.toString() );
+    }
+    if ( sortSpillPercent != null ) {
+      conf.set( MAP_SORT_SPILL_PERCENT, sortSpillPercent.toString() );
+    }
+    if ( sortFactor != null ) {
+      conf.set( IO_SORT_FACTOR, sortFactor.toString() );
+    }
+    if ( shuffleParallelCopies != null ) {
+      conf.set( REDUCE_SHUFFLE_PARALLEL_COPIES, shuffleParallelCopies.toString() );
+    }
+    if ( reduceSlowStart != null ) {
+      conf.set( REDUCE_SLOWSTART_COMPLETED_MAPS, reduceSlowStart.toString() );
+    }
+  }
+
+  /**
+   * The map output compression to use when none was set explicitly.
+   *
+   * @param conf Configuration of the job
+   * @return the compression or {@code null} to leave the cluster's setting in place
+   */
+  protected MapOutputCompression getDefaultMapOutputCompression( Configuration conf ) {
+    return null;
+  }
+
+  protected String getMapOutputKeyClass() {
+    return mapOutputKeyClass;
+  }
+
+  protected String getMapOutputValueClass() {
+    return mapOutputValueClass;
+  }
+
+  protected int getNumReduceTasks() {
+    return numReduceTasks;
+  }
+
   public VariableSpace getVariableSpace() {
     return variableSpace;
   }
@@ -258,7 +369,7 @@ public class MapReduceJobBuilderImpl implements MapReduceJobBuilder {
   }
 
   protected MapReduceJobAdvanced submit( Configuration conf, String shimIdentifier ) throws IOException {
-    return new RunningJobMapReduceJobAdvancedImpl( hadoopShim.submitJob( conf ) );
+    return new RunningJobMapReduceJobAdvancedImpl( hadoopShim.submitJob( conf ), JobStatusMonitor.getInstance() );
   }
 
   @Override
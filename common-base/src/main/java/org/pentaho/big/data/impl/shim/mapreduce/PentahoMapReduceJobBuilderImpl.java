@@ -60,6 +60,7 @@ import org.pentaho.hadoop.shim.api.internal.fs.FileSystem;
 import org.pentaho.hadoop.shim.api.internal.fs.Path;
 import org.pentaho.hadoop.shim.api.mapreduce.MapReduceJobAdvanced;
 import org.pentaho.hadoop.shim.api.mapreduce.PentahoMapReduceJobBuilder;
+import org.pentaho.hadoop.shim.common.CommonHadoopShim;
 import org.pentaho.hadoop.shim.common.DistributedCacheUtilImpl;
 import org.pentaho.hadoop.shim.spi.HadoopShim;
 import org.pentaho.metastore.api.IMetaStore;
@@ -77,6 +78,7 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -97,6 +99,8 @@ public class PentahoMapReduceJobBuilderImpl extends MapReduceJobBuilderImpl impl
   public static final String PENTAHO_MAPREDUCE_PROPERTY_KETTLE_INSTALLATION_ID = "pmr.kettle.installation.id";
   public static final String PENTAHO_MAPREDUCE_PROPERTY_ADDITIONAL_PLUGINS = "pmr.kettle.additional.plugins";
   public static final String PENTAHO_MAPREDUCE_PROPERTY_EXCLUDE_FILES = "pmr.kettle.exclude.plugin.files";
+  public static final String PENTAHO_MAPREDUCE_PROPERTY_INCREMENTAL_STAGING = "pmr.kettle.incremental.staging";
+  public static final String PENTAHO_MAPREDUCE_PROPERTY_MAP_OUTPUT_COMPRESSION = "pmr.map.output.compression";
   public static final String PENTAHO_MAP_REDUCE_JOB_BUILDER_IMPL_INPUT_STEP_NOT_SPECIFIED =
     "PentahoMapReduceJobBuilderImpl.InputStepNotSpecified";
   public static final String PENTAHO_MAP_REDUCE_JOB_BUILDER_IMPL_INPUT_STEP_NOT_FOUND =
@@ -119,6 +123,8 @@ public class PentahoMapReduceJobBuilderImpl extends MapReduceJobBuilderImpl impl
     "PentahoMapReduceJobBuilderImpl.NoOutputKeyOrdinal";
   public static final String PENTAHO_MAP_REDUCE_JOB_BUILDER_IMPL_NO_OUTPUT_VALUE_ORDINAL =
     "PentahoMapReduceJobBuilderImpl.NoOutputValueOrdinal";
+  public static final String PENTAHO_MAP_REDUCE_JOB_BUILDER_IMPL_MAPPER_THREADS_IGNORED =
+    "PentahoMapReduceJobBuilderImpl.MapperThreadsIgnored";
   public static final String TRANSFORMATION_MAP_XML = "transformation-map-xml";
   public static final String TRANSFORMATION_MAP_INPUT_STEPNAME = "transformation-map-input-stepname";
   public static final String TRANSFORMATION_MAP_OUTPUT_STEPNAME = "transformation-map-output-stepname";
@@ -129,6 +135,18 @@ public class PentahoMapReduceJobBuilderImpl extends MapReduceJobBuilderImpl impl
   public static final String TRANSFORMATION_REDUCE_XML = "transformation-reduce-xml";
   public static final String TRANSFORMATION_REDUCE_INPUT_STEPNAME = "transformation-reduce-input-stepname";
   public static final String TRANSFORMATION_REDUCE_OUTPUT_STEPNAME = "transformation-reduce-output-stepname";
+  public static final String TRANSFORMATION_MAP_THREADS = "transformation-map-threads";
+  public static final String MULTITHREADED_MAP_RUNNER_CLASS =
+    "org.pentaho.hadoop.mapreduce.MultithreadedPentahoMapRunnable";
+  public static final String TRANSFORMATION_ROW_KEY_FIELDS = "transformation-row-key-fields";
+  public static final String TRANSFORMATION_ROW_KEY_GROUPING_FIELDS = "transformation-row-key-grouping-fields";
+  public static final String ROW_KEY_WRITABLE_CLASS = "org.pentaho.hadoop.mapreduce.RowKeyWritable";
+  public static final String ROW_KEY_PARTITIONER_CLASS = "org.pentaho.hadoop.mapreduce.RowKeyPartitioner";
+  public static final String MAPRED_OUTPUT_KEY_COMPARATOR_CLASS = "mapreduce.job.output.key.comparator.class";
+  public static final String MAPRED_OUTPUT_GROUP_COMPARATOR_CLASS = "mapreduce.job.output.group.comparator.class";
+  public static final String MAPRED_PARTITIONER_CLASS = "mapred.partitioner.class";
+  public static final List<String> VARIABLE_LENGTH_WRITABLE_CLASSES = Collections.unmodifiableList( Arrays.asList(
+    "org.apache.hadoop.io.Text", "org.apache.hadoop.io.BytesWritable", ROW_KEY_WRITABLE_CLASS ) );
   public static final String JOB_ENTRY_HADOOP_TRANS_JOB_EXECUTOR_CLEANING_OUTPUT_PATH =
     "JobEntryHadoopTransJobExecutor.CleaningOutputPath";
   public static final String JOB_ENTRY_HADOOP_TRANS_JOB_EXECUTOR_FAILED_TO_CLEAN_OUTPUT_PATH =
@@ -171,6 +189,9 @@ public class PentahoMapReduceJobBuilderImpl extends MapReduceJobBuilderImpl impl
   private String reducerTransformationXml;
   private String reducerInputStep;
   private String reducerOutputStep;
+  private int mapperThreads = 1;
+  private String[] rowKeyFields;
+  private int rowKeyGroupingFieldCount;
 
   public PentahoMapReduceJobBuilderImpl( NamedCluster namedCluster,
                                          HadoopShim hadoopShim,
@@ -457,11 +478,33 @@ public class PentahoMapReduceJobBuilderImpl extends MapReduceJobBuilderImpl impl
     this.mapperOutputStep = mapperOutputStep;
   }
 
+  @Override
+  public void setMapperThreads( int threads ) {
+    this.mapperThreads = threads;
+  }
+
+  @Override
+  public void setRowKeyInfo( String[] keyFields, int groupingFieldCount ) {
+    this.rowKeyFields = keyFields;
+    this.rowKeyGroupingFieldCount = groupingFieldCount;
+  }
+
   @Override
   protected void configure( Configuration conf ) throws Exception {
     callVisitors();
 
-    setMapRunnerClass( hadoopShim.getPentahoMapReduceMapRunnerClass() );
+    String mapRunnerClass = hadoopShim.getPentahoMapReduceMapRunnerClass();
+    if ( mapperThreads > 1 ) {
+      // only a shim using the stock runner gets the multithreaded one, a shim specific runner is kept as is
+      if ( CommonHadoopShim.PENTAHO_MAPREDUCE_RUNNABLE_CLASS_NAME.equals( mapRunnerClass ) ) {
+        mapRunnerClass = MULTITHREADED_MAP_RUNNER_CLASS;
+        conf.set( TRANSFORMATION_MAP_THREADS, Integer.toString( mapperThreads ) );
+      } else {
+        log.logBasic( BaseMessages.getString( PKG, PENTAHO_MAP_REDUCE_JOB_BUILDER_IMPL_MAPPER_THREADS_IGNORED,
+          mapperThreads, mapRunnerClass ) );
+      }
+    }
+    setMapRunnerClass( mapRunnerClass );
 
     conf.set( TRANSFORMATION_MAP_XML, mapperTransformationXml );
     conf.set( TRANSFORMATION_MAP_INPUT_STEPNAME, mapperInputStep );
@@ -479,12 +522,45 @@ public class PentahoMapReduceJobBuilderImpl extends MapReduceJobBuilderImpl impl
       conf.set( TRANSFORMATION_REDUCE_OUTPUT_STEPNAME, reducerOutputStep );
       setReducerClass( hadoopShim.getPentahoMapReduceReducerClass() );
     }
+    if ( rowKeyFields != null && rowKeyFields.length > 0 ) {
+      configureRowKey( conf );
+    }
     conf.setJarByClass( Class.forName( "org.pentaho.hadoop.mapreduce.PentahoMapReduceJarMarker" ) );
     conf.set( LOG_LEVEL, logLevel.toString() );
     configureVariableSpace( conf );
     super.configure( conf );
   }
 
+  /**
+   * Map output shuffled to reducers is compressed with the codec named by {@value
+   * #PENTAHO_MAPREDUCE_PROPERTY_MAP_OUTPUT_COMPRESSION} (e.g. SNAPPY or NONE). Without it, output with a variable
+   * length key or value type (text, bytes or row keys) defaults to Snappy as it usually shrinks several times; fixed
+   * width numeric output keeps the cluster's setting.
+   */
+  @Override
+  protected MapOutputCompression getDefaultMapOutputCompression( Configuration conf ) {
+    String configured = getProperty( conf, pmrProperties, PENTAHO_MAPREDUCE_PROPERTY_MAP_OUTPUT_COMPRESSION, null );
+    if ( !Utils.isEmpty( configured ) ) {
+      return MapOutputCompression.valueOf( configured.trim().toUpperCase() );
+    }
+    if ( getNumReduceTasks() > 0 && ( VARIABLE_LENGTH_WRITABLE_CLASSES.contains( getMapOutputKeyClass() )
+      || VARIABLE_LENGTH_WRITABLE_CLASSES.contains( getMapOutputValueClass() ) ) ) {
+      return MapOutputCompression.SNAPPY;
+    }
+    return null;
+  }
+
+  private void configureRowKey( Configuration conf ) {
+    setMapOutputKeyClass( ROW_KEY_WRITABLE_CLASS );
+    conf.set( TRANSFORMATION_ROW_KEY_FIELDS, String.join( ",", rowKeyFields ) );
+    conf.set( TRANSFORMATION_ROW_KEY_GROUPING_FIELDS, Integer.toString( rowKeyGroupingFieldCount ) );
+    conf.set( MAPRED_OUTPUT_KEY_COMPARATOR_CLASS, ROW_KEY_WRITABLE_CLASS + "$Comparator" );
+    if ( rowKeyGroupingFieldCount > 0 && rowKeyGroupingFieldCount < rowKeyFields.length ) {
+      conf.set( MAPRED_OUTPUT_GROUP_COMPARATOR_CLASS, ROW_KEY_WRITABLE_CLASS + "$GroupingComparator" );
+      conf.set( MAPRED_PARTITIONER_CLASS, ROW_KEY_PARTITIONER_CLASS );
+    }
+  }
+
   @Override
   protected MapReduceJobAdvanced submit( Configuration conf, String shimIdentifier ) throws IOException {
     cleanOutputPath( conf );
@@ -531,10 +607,13 @@ public class PentahoMapReduceJobBuilderImpl extends MapReduceJobBuilderImpl impl
           log.logBasic( BaseMessages.getString( PKG, "JobEntryHadoopTransJobExecutor.InstallingKettleAt",
             kettleEnvInstallDir ) );
 
+          boolean incrementalStaging = Boolean.parseBoolean(
+            getProperty( conf, pmrProperties, PENTAHO_MAPREDUCE_PROPERTY_INCREMENTAL_STAGING, Boolean.toString( false ) ) );
+
           FileObject bigDataPluginFolder = vfsPluginDirectory;
           hadoopShim.getDistributedCacheUtil()
             .installKettleEnvironment( pmrLibArchive, fs, kettleEnvInstallDir, bigDataPluginFolder,
-              additionalPluginNames, excludePluginFileNames, shimIdentifier );
+              additionalPluginNames, excludePluginFileNames, shimIdentifier, incrementalStaging );
 
           log.logBasic( BaseMessages
             .getString( PKG, "JobEntryHadoopTransJobExecutor.InstallationOfKettleSuccessful", kettleEnvInstallDir ) );
@@ -15,21 +15,38 @@ package org.pentaho.big.data.impl.shim.mapreduce;
 
 
 import org.pentaho.hadoop.shim.api.internal.mapred.RunningJob;
+import org.pentaho.hadoop.shim.api.internal.mapred.RunningJobStatus;
 import org.pentaho.hadoop.shim.api.mapreduce.MapReduceJobAdvanced;
 import org.pentaho.hadoop.shim.api.mapreduce.MapReduceService;
 import org.pentaho.hadoop.shim.api.mapreduce.TaskCompletionEvent;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Created by bryan on 12/3/15.
  */
 public class RunningJobMapReduceJobAdvancedImpl implements MapReduceJobAdvanced {
+  private static final long STOPPABLE_CHECK_INTERVAL_MS = 50;
+
   private final RunningJob runningJob;
+  private final JobStatusMonitor.MonitoredJob monitoredJob;
 
   public RunningJobMapReduceJobAdvancedImpl( RunningJob runningJob ) {
+    this( runningJob, null );
+  }
+
+  /**
+   * @param runningJob Job to wrap
+   * @param monitor    Monitor polling the job's status. Completion and progress are then served from the monitor
+   *                   instead of querying the cluster on every call. May be {@code null}.
+   */
+  public RunningJobMapReduceJobAdvancedImpl( RunningJob runningJob, JobStatusMonitor monitor ) {
     this.runningJob = runningJob;
+    this.monitoredJob = monitor == null ? null : monitor.monitor( runningJob );
   }
 
   @Override public void killJob() throws IOException {
@@ -39,6 +56,9 @@ public class RunningJobMapReduceJobAdvancedImpl implements MapReduceJobAdvanced
   @Override public boolean waitOnCompletion( long timeout, TimeUnit timeUnit, MapReduceService.Stoppable stoppable )
     throws IOException, InterruptedException {
     long stopTime = System.currentTimeMillis() + timeUnit.toMillis( timeout );
+    if ( monitoredJob != null ) {
+      return waitOnMonitor( stopTime, stoppable );
+    }
     long sleepTime;
     while ( !stoppable.isStopped() && ( sleepTime = Math.min( 50, stopTime - System.currentTimeMillis() ) ) > 0
       && !runningJob.isComplete() ) {
@@ -47,24 +67,65 @@ public class RunningJobMapReduceJobAdvancedImpl implements MapReduceJobAdvanced
     return runningJob.isComplete();
   }
 
+  private boolean waitOnMonitor( long stopTime, MapReduceService.Stoppable stoppable )
+    throws IOException, InterruptedException {
+    CompletableFuture<RunningJobStatus> completion = monitoredJob.getCompletion();
+    long waitTime;
+    // Only the stoppable is checked periodically, the job's status is polled by the monitor
+    while ( !completion.isDone() && !stoppable.isStopped()
+      && ( waitTime = Math.min( STOPPABLE_CHECK_INTERVAL_MS, stopTime - System.currentTimeMillis() ) ) > 0 ) {
+      try {
+        completion.get( waitTime, TimeUnit.MILLISECONDS );
+      } catch ( TimeoutException | ExecutionException e ) {
+        // Check again, failures are reported below
+      }
+    }
+    if ( completion.isCompletedExceptionally() && !completion.isCancelled() ) {
+      try {
+        completion.get();
+      } catch ( ExecutionException e ) {
+        if ( e.getCause() instanceof IOException ) {
+          throw (IOException) e.getCause();
+        }
+        throw new IOException( e.getCause() );
+      }
+    }
+    return completion.isDone() && !completion.isCompletedExceptionally();
+  }
+
+  /**
+   * @return The status last retrieved by the monitor or {@code null} if the cluster has to be queried
+   */
+  private RunningJobStatus getMonitoredStatus() {
+    if ( monitoredJob == null || monitoredJob.getCompletion().isCompletedExceptionally() ) {
+      return null;
+    }
+    return monitoredJob.getLastStatus();
+  }
+
   @Override public double getSetupProgress() throws IOException {
-    return runningJob.setupProgress();
+    RunningJobStatus status = getMonitoredStatus();
+    return status != null ? status.getSetupProgress() : runningJob.setupProgress();
   }
 
   @Override public double getMapProgress() throws IOException {
-    return runningJob.mapProgress();
+    RunningJobStatus status = getMonitoredStatus();
+    return status != null ? status.getMapProgress() : runningJob.mapProgress();
   }
 
   @Override public double getReduceProgress() throws IOException {
-    return runningJob.reduceProgress();
+    RunningJobStatus status = getMonitoredStatus();
+    return status != null ? status.getReduceProgress() : runningJob.reduceProgress();
   }
 
   @Override public boolean isSuccessful() throws IOException {
-    return runningJob.isSuccessful();
+    RunningJobStatus status = getMonitoredStatus();
+    return status != null ? status.isSuccessful() : runningJob.isSuccessful();
   }
 
   @Override public boolean isComplete() throws IOException {
-    return runningJob.isComplete();
+    RunningJobStatus status = getMonitoredStatus();
+    return status != null ? status.isComplete() : runningJob.isComplete();
   }
 
   @Override public TaskCompletionEvent[] getTaskCompletionEvents( int startIndex ) throws IOException {
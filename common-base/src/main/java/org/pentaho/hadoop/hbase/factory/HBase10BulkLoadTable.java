@@ -0,0 +1,321 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.hadoop.hbase.factory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.CellScanner;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptor;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.io.hfile.HFileContext;
+import org.apache.hadoop.hbase.io.hfile.HFileContextBuilder;
+import org.apache.hadoop.hbase.regionserver.HStoreFile;
+import org.apache.hadoop.hbase.regionserver.StoreFileWriter;
+import org.apache.hadoop.hbase.tool.BulkLoadHFiles;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.pentaho.hbase.factory.HBasePut;
+import org.pentaho.hbase.factory.HBaseTable;
+
+/**
+ * Write-only HBaseTable that bypasses the WAL and memstore. Cells are sorted in memory and spilled to HFiles laid out
+ * the same way HFileOutputFormat2 does (one directory per column family, one file per region and family); the
+ * spilled files are handed to {@link BulkLoadHFiles} on {@link #flushCommits()}. The load is atomic per region, not
+ * across the whole table.
+ * <p>
+ * The buffer is guarded by the table's monitor: {@link #put(HBasePut)}, {@link #setWriteBufferSize(long)} and
+ * {@link #flushCommits()} all synchronize on it, so a table may be shared between threads.
+ */
+class HBase10BulkLoadTable implements HBaseTable {
+  static final long DEFAULT_BUFFER_SIZE = 128L * 1024 * 1024;
+
+  private final Configuration conf;
+  private final Connection conn;
+  private final TableName tableName;
+  private final Path stagingDir;
+  private long bufferSize;
+
+  private final TreeSet<KeyValue> buffer = new TreeSet<>( CellComparator.getInstance() );
+  private long bufferedBytes = 0;
+  private int spillCount = 0;
+  private TableDescriptor tableDescriptor;
+
+  HBase10BulkLoadTable( Configuration conf, Connection conn, String tableName, String stagingDirectory,
+                        long bufferSize ) {
+    this.conf = conf;
+    this.conn = conn;
+    this.tableName = TableName.valueOf( tableName );
+    this.stagingDir = new Path( stagingDirectory,
+      this.tableName.getNameAsString().replace( ':', '_' ) + "-" + UUID.randomUUID() );
+    this.bufferSize = bufferSize > 0 ? bufferSize : DEFAULT_BUFFER_SIZE;
+  }
+
+  @Override
+  public void put( HBasePut put ) throws IOException {
+    if ( put == null ) {
+      throw new NullPointerException( "NULL Put passed" );
+    }
+    if ( put instanceof HBase10Put ) {
+      put( ( (HBase10Put) put ).getPut() );
+    } else {
+      throw new IllegalArgumentException( "Unexpected backed HBasePut type passed:" + put.getClass() );
+    }
+  }
+
+  synchronized void put( Put toPut ) throws IOException {
+    long now = System.currentTimeMillis();
+    CellScanner cells = toPut.cellScanner();
+    while ( cells.advance() ) {
+      Cell cell = cells.current();
+      KeyValue kv = new KeyValue( CellUtil.cloneRow( cell ), CellUtil.cloneFamily( cell ),
+        CellUtil.cloneQualifier( cell ), cell.getTimestamp() == HConstants.LATEST_TIMESTAMP ? now : cell.getTimestamp(),
+        KeyValue.Type.Put, CellUtil.cloneValue( cell ) );
+      // a later put of the same cell wins, as it would through the region server
+      KeyValue previous = buffer.ceiling( kv );
+      if ( previous != null && buffer.comparator().compare( previous, kv ) == 0 ) {
+        buffer.remove( previous );
+        bufferedBytes -= previous.getLength();
+      }
+      buffer.add( kv );
+      bufferedBytes += kv.getLength();
+    }
+    if ( bufferedBytes >= bufferSize ) {
+      spill();
+    }
+  }
+
+  /**
+   * Writes the sorted buffer out as HFiles under a new directory in the staging area
+   */
+  private synchronized void spill() throws IOException {
+    if ( buffer.isEmpty() ) {
+      return;
+    }
+    FileSystem fs = stagingDir.getFileSystem( conf );
+    Path spillDir = new Path( stagingDir, "spill-" + spillCount );
+    try {
+      writeSpill( fs, spillDir );
+    } catch ( IOException | RuntimeException e ) {
+      // the cells are still buffered, a partial spill would load them twice
+      fs.delete( spillDir, true );
+      throw e;
+    }
+    spillCount++;
+    buffer.clear();
+    bufferedBytes = 0;
+  }
+
+  private void writeSpill( FileSystem fs, Path spillDir ) throws IOException {
+    byte[][] startKeys = getStartKeys();
+    Map<String, StoreFileWriter> writers = new HashMap<>();
+    int region = 0;
+    try {
+      for ( KeyValue cell : buffer ) {
+        // the buffer is sorted by row, so the owning region only ever moves forward
+        int cellRegion = region;
+        while ( cellRegion + 1 < startKeys.length && Bytes.compareTo( cell.getRowArray(), cell.getRowOffset(),
+          cell.getRowLength(), startKeys[ cellRegion + 1 ], 0, startKeys[ cellRegion + 1 ].length ) >= 0 ) {
+          cellRegion++;
+        }
+        if ( cellRegion != region ) {
+          closeWriters( writers );
+          region = cellRegion;
+        }
+        String family = Bytes.toString( cell.getFamilyArray(), cell.getFamilyOffset(), cell.getFamilyLength() );
+        StoreFileWriter writer = writers.get( family );
+        if ( writer == null ) {
+          writer = createWriter( fs, new Path( spillDir, family ), CellUtil.cloneFamily( cell ) );
+          writers.put( family, writer );
+        }
+        writer.append( cell );
+      }
+    } finally {
+      closeWriters( writers );
+    }
+  }
+
+  private byte[][] getStartKeys() throws IOException {
+    try ( RegionLocator locator = conn.getRegionLocator( tableName ) ) {
+      byte[][] startKeys = locator.getStartKeys();
+      return startKeys.length == 0 ? new byte[][] { HConstants.EMPTY_START_ROW } : startKeys;
+    }
+  }
+
+  private synchronized TableDescriptor getTableDescriptor() throws IOException {
+    if ( tableDescriptor == null ) {
+      try ( Table table = conn.getTable( tableName ) ) {
+        tableDescriptor = table.getDescriptor();
+      }
+    }
+    return tableDescriptor;
+  }
+
+  private StoreFileWriter createWriter( FileSystem fs, Path familyDir, byte[] family ) throws IOException {
+    ColumnFamilyDescriptor familyDescriptor = getTableDescriptor().getColumnFamily( family );
+    if ( familyDescriptor == null ) {
+      throw new IOException(
+        "Column family " + Bytes.toString( family ) + " does not exist in table " + tableName.getNameAsString() );
+    }
+    HFileContext context = new HFileContextBuilder()
+      .withCompression( familyDescriptor.getCompressionType() )
+      .withBlockSize( familyDescriptor.getBlocksize() )
+      .withDataBlockEncoding( familyDescriptor.getDataBlockEncoding() )
+      .withColumnFamily( family )
+      .withTableName( tableName.getName() )
+      .build();
+    return new StoreFileWriter.Builder( conf, CacheConfig.DISABLED, fs )
+      .withOutputDir( familyDir )
+      .withBloomType( familyDescriptor.getBloomFilterType() )
+      .withFileContext( context )
+      .build();
+  }
+
+  private void closeWriters( Map<String, StoreFileWriter> writers ) throws IOException {
+    byte[] loadTime = Bytes.toBytes( System.currentTimeMillis() );
+    IOException firstException = null;
+    for ( StoreFileWriter writer : writers.values() ) {
+      try {
+        writer.appendFileInfo( HStoreFile.BULKLOAD_TIME_KEY, loadTime );
+        writer.appendFileInfo( HStoreFile.BULKLOAD_TASK_KEY, Bytes.toBytes( stagingDir.getName() ) );
+        writer.appendFileInfo( HStoreFile.MAJOR_COMPACTION_KEY, Bytes.toBytes( true ) );
+        writer.appendFileInfo( HStoreFile.EXCLUDE_FROM_MINOR_COMPACTION_KEY, Bytes.toBytes( false ) );
+        writer.appendTrackedTimestampsToMetadata();
+        writer.close();
+      } catch ( IOException e ) {
+        if ( firstException == null ) {
+          firstException = e;
+        }
+      }
+    }
+    writers.clear();
+    if ( firstException != null ) {
+      throw firstException;
+    }
+  }
+
+  /**
+   * Spills whatever is still buffered and bulk loads every HFile staged since the last flush. Each spill directory is
+   * removed once it is loaded; if a load fails the remaining ones are kept, so calling flushCommits again retries
+   * them.
+   */
+  @Override
+  public synchronized void flushCommits() throws IOException {
+    spill();
+    if ( spillCount == 0 ) {
+      return;
+    }
+    FileSystem fs = stagingDir.getFileSystem( conf );
+    BulkLoadHFiles loader = createLoader();
+    for ( int i = 0; i < spillCount; i++ ) {
+      Path spillDir = new Path( stagingDir, "spill-" + i );
+      if ( fs.exists( spillDir ) ) {
+        loader.bulkLoad( tableName, spillDir );
+        fs.delete( spillDir, true );
+      }
+    }
+    fs.delete( stagingDir, true );
+    spillCount = 0;
+  }
+
+  @VisibleForTesting
+  BulkLoadHFiles createLoader() {
+    return BulkLoadHFiles.create( conf );
+  }
+
+  @VisibleForTesting
+  synchronized int getBufferedCells() {
+    return buffer.size();
+  }
+
+  @VisibleForTesting
+  synchronized long getBufferedBytes() {
+    return bufferedBytes;
+  }
+
+  @VisibleForTesting
+  Path getStagingDir() {
+    return stagingDir;
+  }
+
+  @Override
+  public void close() throws IOException {
+    flushCommits();
+  }
+
+  @Override
+  public synchronized void setWriteBufferSize( long bufferSize ) throws IOException {
+    this.bufferSize = bufferSize;
+  }
+
+  @Override
+  public boolean isAutoFlush() throws IOException {
+    return false;
+  }
+
+  @Override
+  public void setAutoFlush( boolean autoFlush ) throws IOException {
+    if ( autoFlush ) {
+      throw new IOException( "Auto flush is not supported in bulk load mode" );
+    }
+  }
+
+  @Override
+  public void delete( Delete toDel ) throws IOException {
+    throw new IOException( "Deletes are not supported in bulk load mode" );
+  }
+
+  @Override
+  public Result get( Get toGet ) throws IOException {
+    throw new IOException( "Reads are not supported in bulk load mode" );
+  }
+
+  @Override
+  public Result[] get( List<Get> toGet ) throws IOException {
+    throw new IOException( "Reads are not supported in bulk load mode" );
+  }
+
+  @Override
+  public boolean[] exists( List<Get> toCheck ) throws IOException {
+    throw new IOException( "Reads are not supported in bulk load mode" );
+  }
+
+  @Override
+  public ResultScanner getScanner( Scan s ) throws IOException {
+    throw new IOException( "Reads are not supported in bulk load mode" );
+  }
+}
@@ -61,6 +61,11 @@ public class HBase10ClientFactory implements HBaseClientFactory {
     }
   }
 
+  @Override public HBaseTable getHBaseBulkLoadTable( String tableName, String stagingDirectory, long bufferSize )
+    throws IOException {
+    return new HBase10BulkLoadTable( conf, getConnection(), tableName, stagingDirectory, bufferSize );
+  }
+
   @Override public HBaseAdmin getHBaseAdmin() {
     try {
       return new HBase10Admin( getConnection() );
@@ -14,6 +14,7 @@ package org.pentaho.hadoop.hbase.factory;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.util.List;
 
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.BufferedMutator;
@@ -90,6 +91,16 @@ class HBase10Table implements HBaseTable {
     return tab.get( toGet );
   }
 
+  @Override
+  public Result[] get( List<Get> toGet ) throws IOException {
+    return tab.get( toGet );
+  }
+
+  @Override
+  public boolean[] exists( List<Get> toCheck ) throws IOException {
+    return tab.exists( toCheck );
+  }
+
   @Override
   public void flushCommits() throws IOException {
     getBufferedMutator().flush();
@@ -164,6 +164,22 @@ public class ShimConfigsLoader {
     }
   }
 
+  /**
+   * Adds the site files of the named cluster to the configuration from shared, already parsed snapshots, see
+   * {@link SiteConfigurationCache}.
+   */
+  public static void addConfigsAsResources( NamedCluster namedCluster, Configuration configuration ) {
+    addConfigsAsResources( namedCluster, configuration, Arrays.asList( createSiteFilesArray() ) );
+  }
+
+  public static void addConfigsAsResources( NamedCluster namedCluster, Configuration configuration,
+                                            List<String> fileNames ) {
+    SiteConfigurationCache siteConfigurationCache = SiteConfigurationCache.getInstance();
+    for ( String siteFile : fileNames ) {
+      siteConfigurationCache.addSnapshot( namedCluster, siteFile, configuration );
+    }
+  }
+
   /**
    * @deprecated Use {@Link addConfigsAsResources(NamedCluster namedCluster,
    * BiConsumer < ? super InputStream, ? super String > configurationConsumer)}
@@ -0,0 +1,184 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.hadoop.shim;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringEscapeUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.pentaho.di.core.logging.LogChannel;
+import org.pentaho.di.core.logging.LogChannelInterface;
+import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parsed site files of named clusters, so that each consumer doesn't parse the same XML again. A snapshot is a
+ * {@link Configuration} without defaults holding the properties of one site file; it is never modified once built
+ * and is applied to a caller's configuration with {@link Configuration#addResource(Configuration)}, which copies the
+ * properties. That copy drops {@code <final>} markers, so {@link #addSnapshot} also adds the final properties of the
+ * site file as a small XML resource of their own. Snapshots are keyed by cluster name and file name and rebuilt when
+ * the content hash of the site file changes.
+ */
+public class SiteConfigurationCache {
+  private static final SiteConfigurationCache INSTANCE = new SiteConfigurationCache();
+  private static final LogChannelInterface log = new LogChannel( SiteConfigurationCache.class.getName() );
+
+  private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+  public static SiteConfigurationCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the parsed properties of a site file of the named cluster. The result must not be modified.
+   *
+   * @return the snapshot, null if the cluster has no such site file
+   */
+  public Configuration getSnapshot( NamedCluster namedCluster, String fileName ) {
+    return getSnapshot( namedCluster.getName(), fileName, readSiteFile( namedCluster, fileName ) );
+  }
+
+  /**
+   * Returns the parsed properties of the given site file content. The result must not be modified.
+   *
+   * @return the snapshot, null if content is null
+   */
+  public Configuration getSnapshot( String clusterName, String fileName, byte[] content ) {
+    Snapshot snapshot = getEntry( clusterName, fileName, content );
+    return snapshot == null ? null : snapshot.configuration;
+  }
+
+  /**
+   * Adds the snapshot of a site file to the configuration, the equivalent of adding the site file as a resource.
+   *
+   * @return whether the cluster has the site file
+   */
+  public boolean addSnapshot( NamedCluster namedCluster, String fileName, Configuration configuration ) {
+    return addSnapshot( namedCluster.getName(), fileName, readSiteFile( namedCluster, fileName ), configuration );
+  }
+
+  /**
+   * Adds the snapshot of the given site file content to the configuration, the equivalent of adding the content as a
+   * resource. Properties marked final in the site file stay final in the configuration.
+   *
+   * @return whether content is not null
+   */
+  public boolean addSnapshot( String clusterName, String fileName, byte[] content, Configuration configuration ) {
+    Snapshot snapshot = getEntry( clusterName, fileName, content );
+    if ( snapshot == null ) {
+      return false;
+    }
+    configuration.addResource( snapshot.configuration );
+    if ( snapshot.finalProperties != null ) {
+      configuration.addResource( new ByteArrayInputStream( snapshot.finalProperties ), fileName );
+    }
+    return true;
+  }
+
+  private Snapshot getEntry( String clusterName, String fileName, byte[] content ) {
+    String key = clusterName + '/' + fileName;
+    if ( content == null ) {
+      snapshots.remove( key );
+      return null;
+    }
+    byte[] hash = sha256( content );
+    Snapshot snapshot = snapshots.get( key );
+    if ( snapshot == null || !Arrays.equals( snapshot.hash, hash ) ) {
+      Configuration configuration = parse( content, fileName );
+      snapshot = new Snapshot( hash, configuration, toFinalProperties( configuration ) );
+      snapshots.put( key, snapshot );
+    }
+    return snapshot;
+  }
+
+  public void invalidate( String clusterName ) {
+    snapshots.keySet().removeIf( key -> key.startsWith( clusterName + '/' ) );
+  }
+
+  public void invalidateAll() {
+    snapshots.clear();
+  }
+
+  int size() {
+    return snapshots.size();
+  }
+
+  private static byte[] readSiteFile( NamedCluster namedCluster, String fileName ) {
+    try ( InputStream is = namedCluster.getSiteFileInputStream( fileName ) ) {
+      return is == null ? null : IOUtils.toByteArray( is );
+    } catch ( IOException e ) {
+      log.logError( "Unable to read " + fileName + " of named cluster " + namedCluster.getName(), e );
+      return null;
+    }
+  }
+
+  private static byte[] sha256( byte[] content ) {
+    try {
+      return MessageDigest.getInstance( "SHA-256" ).digest( content );
+    } catch ( NoSuchAlgorithmException e ) {
+      throw new IllegalStateException( e );
+    }
+  }
+
+  private static Configuration parse( byte[] content, String fileName ) {
+    Configuration configuration = new Configuration( false );
+    configuration.addResource( new ByteArrayInputStream( content ), fileName );
+    // parse now, while no other thread can see the configuration
+    configuration.size();
+    return configuration;
+  }
+
+  /**
+   * Builds a site file holding only the final properties of the snapshot, marked final
+   *
+   * @return the XML, null if no property is final
+   */
+  private static byte[] toFinalProperties( Configuration configuration ) {
+    Set<String> finalParameters = configuration.getFinalParameters();
+    if ( finalParameters.isEmpty() ) {
+      return null;
+    }
+    StringBuilder xml = new StringBuilder( "<?xml version=\"1.0\"?><configuration>" );
+    for ( String name : finalParameters ) {
+      String value = configuration.getRaw( name );
+      if ( value != null ) {
+        xml.append( "<property><name>" ).append( StringEscapeUtils.escapeXml( name ) ).append( "</name><value>" )
+          .append( StringEscapeUtils.escapeXml( value ) ).append( "</value><final>true</final></property>" );
+      }
+    }
+    xml.append( "</configuration>" );
+    return xml.toString().getBytes( StandardCharsets.UTF_8 );
+  }
+
+  private static final class Snapshot {
+    private final byte[] hash;
+    private final Configuration configuration;
+    private final byte[] finalProperties;
+
+    private Snapshot( byte[] hash, Configuration configuration, byte[] finalProperties ) {
+      this.hash = hash;
+      this.configuration = configuration;
+      this.finalProperties = finalProperties;
+    }
+  }
+}
@@ -67,6 +67,23 @@ public interface DistributedCacheUtil {
                                  String excludePluginFileNames, String shimIdentifier )
     throws Exception;
 
+  /**
+   * Installs the contents of a pre-configured Kettle environment into a Hadoop file system, optionally staging it
+   * incrementally: files are recorded by content digest in a manifest and only content that is not staged yet is
+   * uploaded.
+   *
+   * @param incremental Stage incrementally instead of copying the complete environment
+   * @throws Exception Error staging the Kettle environment
+   * @see #installKettleEnvironment(FileObject, FileSystem, Path, FileObject, String, String, String)
+   */
+  default void installKettleEnvironment( FileObject pmrLibArchive, FileSystem fs, Path destination,
+                                         FileObject bigDataPluginFolder, String additionalPlugins,
+                                         String excludePluginFileNames, String shimIdentifier, boolean incremental )
+    throws Exception {
+    installKettleEnvironment( pmrLibArchive, fs, destination, bigDataPluginFolder, additionalPlugins,
+      excludePluginFileNames, shimIdentifier );
+  }
+
   /**
    * Stages the source file or folder to a Hadoop file system and sets their permission and replication value
    * appropriately to be used with the Distributed Cache. WARNING: This will delete the contents of dest before staging
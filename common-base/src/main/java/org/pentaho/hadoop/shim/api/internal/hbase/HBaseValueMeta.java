@@ -61,6 +61,11 @@ public class HBaseValueMeta extends ValueMeta {
 
   protected boolean m_isKey;
 
+  /**
+   * The key type of the table mapping when this field is the key, null if not known
+   */
+  protected Mapping.KeyType m_keyType;
+
   /**
    * In HBase, for filtering on unsigned columns, we need to know if a number is double/long or float/int in order to
    * convert the comparison constant to the right number of bytes for a lexical comparison to work properly
@@ -277,6 +282,24 @@ public class HBaseValueMeta extends ValueMeta {
     return m_isKey;
   }
 
+  /**
+   * Set the key type of the table mapping this key field belongs to
+   *
+   * @param keyType the key type of the mapping
+   */
+  public void setKeyType( Mapping.KeyType keyType ) {
+    m_keyType = keyType;
+  }
+
+  /**
+   * Get the key type of the table mapping this key field belongs to
+   *
+   * @return the key type of the mapping, or null if not known
+   */
+  public Mapping.KeyType getKeyType() {
+    return m_keyType;
+  }
+
   /**
    * Encode a keyValue (with associated meta data) to an array of bytes with respect to the key type specified in a
    * mapping.
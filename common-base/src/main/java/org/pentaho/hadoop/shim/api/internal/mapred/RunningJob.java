@@ -86,4 +86,17 @@ public interface RunningJob {
    * @throws IOException
    */
   float reduceProgress() throws IOException;
+
+  /**
+   * Retrieve the job's completion state and progress at once. Implementations should fetch the status with a single
+   * request; this default queries each value separately.
+   *
+   * @return snapshot of the job's status
+   * @throws IOException
+   */
+  default RunningJobStatus getStatus() throws IOException {
+    boolean complete = isComplete();
+    return new RunningJobStatus( complete, complete && isSuccessful(), setupProgress(), mapProgress(),
+      reduceProgress() );
+  }
 }
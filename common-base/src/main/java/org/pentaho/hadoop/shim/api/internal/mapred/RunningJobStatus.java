@@ -0,0 +1,95 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+package org.pentaho.hadoop.shim.api.internal.mapred;
+
+import java.util.Objects;
+
+/**
+ * A snapshot of a {@link RunningJob}'s status, retrieved with a single request to the cluster.
+ */
+public class RunningJobStatus {
+  private final boolean complete;
+  private final boolean successful;
+  private final float setupProgress;
+  private final float mapProgress;
+  private final float reduceProgress;
+
+  public RunningJobStatus( boolean complete, boolean successful, float setupProgress, float mapProgress,
+                           float reduceProgress ) {
+    this.complete = complete;
+    this.successful = successful;
+    this.setupProgress = setupProgress;
+    this.mapProgress = mapProgress;
+    this.reduceProgress = reduceProgress;
+  }
+
+  /**
+   * @return {@code true} if the job has completed
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * @return {@code true} if the job completed successfully
+   */
+  public boolean isSuccessful() {
+    return successful;
+  }
+
+  /**
+   * @return progress percentage of the job's setup tasks
+   */
+  public float getSetupProgress() {
+    return setupProgress;
+  }
+
+  /**
+   * @return progress percentage of the job's map tasks
+   */
+  public float getMapProgress() {
+    return mapProgress;
+  }
+
+  /**
+   * @return progress percentage of the job's reduce tasks
+   */
+  public float getReduceProgress() {
+    return reduceProgress;
+  }
+
+  @Override
+  public boolean equals( Object o ) {
+    if ( this == o ) {
+      return true;
+    }
+    if ( o == null || getClass() != o.getClass() ) {
+      return false;
+    }
+    RunningJobStatus that = (RunningJobStatus) o;
+    return complete == that.complete && successful == that.successful
+      && Float.compare( that.setupProgress, setupProgress ) == 0
+      && Float.compare( that.mapProgress, mapProgress ) == 0
+      && Float.compare( that.reduceProgress, reduceProgress ) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash( complete, successful, setupProgress, mapProgress, reduceProgress );
+  }
+
+  @Override
+  public String toString() {
+    return "RunningJobStatus{complete=" + complete + ", successful=" + successful + ", setupProgress=" + setupProgress
+      + ", mapProgress=" + mapProgress + ", reduceProgress=" + reduceProgress + '}';
+  }
+}
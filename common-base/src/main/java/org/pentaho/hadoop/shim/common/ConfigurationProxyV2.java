@@ -26,8 +26,8 @@ import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
 import org.pentaho.hadoop.shim.api.internal.Configuration;
 import org.pentaho.hadoop.shim.api.internal.mapred.RunningJob;
 import org.pentaho.hadoop.shim.ShimConfigsLoader;
+import org.pentaho.hadoop.shim.SiteConfigurationCache;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
@@ -66,11 +66,12 @@ public class ConfigurationProxyV2 implements Configuration {
       List<String> siteFileNames = Arrays.asList(
         new String[] { "hdfs-site.xml", "core-site.xml", "mapred-site.xml", "yarn-site.xml", "hbase-site.xml",
           "hive-site.xml" } );
+      SiteConfigurationCache siteConfigurationCache = SiteConfigurationCache.getInstance();
       for ( NamedClusterSiteFile namedClusterSiteFile : nc.getSiteFiles() ) {
         if ( siteFileNames.contains( namedClusterSiteFile.getSiteFileName() ) ) {
-          job.getConfiguration()
-            .addResource( new ByteArrayInputStream( namedClusterSiteFile.getSiteFileContents().getBytes() ),
-              namedClusterSiteFile.getSiteFileName() );
+          // parsed once per cluster and file content, then copied into this job's configuration
+          siteConfigurationCache.addSnapshot( nc.getName(), namedClusterSiteFile.getSiteFileName(),
+            namedClusterSiteFile.getSiteFileContents().getBytes(), job.getConfiguration() );
         }
       }
       ShimConfigsLoader.setSystemProperties( nc.getName() );
@@ -42,20 +42,35 @@ import org.pentaho.hadoop.shim.ShimRuntimeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -84,6 +99,27 @@ public class DistributedCacheUtilImpl implements org.pentaho.hadoop.shim.api.int
    */
   private static final String PATH_PLUGINS = "plugins";
 
+  /**
+   * Directory next to the installation directories that holds files and directories staged by content digest. It is
+   * shared by all installations staged incrementally under the same parent directory.
+   */
+  private static final String PATH_BLOBS = ".blobs";
+
+  /**
+   * Number of threads uploading files when the Kettle environment is staged incrementally
+   */
+  public static final String STAGING_THREADS = "pentaho.kettle.staging.threads";
+
+  private static final int DEFAULT_STAGING_THREADS = 4;
+
+  /**
+   * Minimum age in milliseconds before a blob no installation refers to is deleted. Blobs that are being staged are
+   * not referred to by any manifest yet.
+   */
+  public static final String BLOB_RETENTION = "pentaho.kettle.staging.blob.retention";
+
+  private static final long DEFAULT_BLOB_RETENTION = TimeUnit.DAYS.toMillis( 1 );
+
   /**
    * Default buffer size when compressing/uncompressing files.
    */
@@ -134,6 +170,34 @@ public class DistributedCacheUtilImpl implements org.pentaho.hadoop.shim.api.int
     return new Path( dir, ".lock" );
   }
 
+  /**
+   * Creates the path to the content addressed blob store shared by all installations next to the one provided
+   *
+   * @param dir Installation directory
+   * @return Path to the blob store used by the installation in {@code dir}
+   */
+  public Path getBlobStoreAt( Path dir ) {
+    return new Path( dir.getParent(), PATH_BLOBS );
+  }
+
+  /**
+   * Resolves where a file of an incrementally staged installation is stored in the blob store
+   *
+   * @param dir      Installation directory
+   * @param manifest Manifest of the installation
+   * @param path     Path of the file relative to the installation directory
+   * @return Path of the file within the blob store
+   */
+  public Path getStagedPathAt( Path dir, KettleEnvironmentManifest manifest, String path ) {
+    Path blobStore = getBlobStoreAt( dir );
+    String unit = getUnit( path );
+    if ( unit.equals( path ) ) {
+      return getBlobPath( blobStore, path, manifest.get( path ) );
+    }
+    return new Path( new Path( blobStore, getDirectoryDigests( manifest ).get( unit ) ),
+      path.substring( unit.length() + 1 ) );
+  }
+
   /**
    * This validates that the Kettle Environment is installed. "Installed" means the kettle engine and supporting
    * jars/plugins exist in the provided file system at the path provided.
@@ -144,6 +208,10 @@ public class DistributedCacheUtilImpl implements org.pentaho.hadoop.shim.api.int
    * @throws IOException Error investigating installation
    */
   public boolean isKettleEnvironmentInstalledAt( FileSystem fs, Path root ) throws IOException {
+    // Incrementally staged installations keep their libraries in the blob store and are described by the manifest
+    if ( fs.exists( KettleEnvironmentManifest.getManifestAt( root ) ) ) {
+      return !fs.exists( getLockFileAt( root ) );
+    }
     Path[] directories = new Path[] { new Path( root, PATH_LIB ) };
     // This file must not exist
     Path lock = getLockFileAt( root );
@@ -161,15 +229,7 @@ public class DistributedCacheUtilImpl implements org.pentaho.hadoop.shim.api.int
                                         FileObject bigDataPlugin, String additionalPlugins,
                                         String excludePluginFileNames, String shimIdentifier )
     throws IOException, KettleFileException {
-    if ( pmrArchive == null ) {
-      throw new NullPointerException( "pmrArchive is required" );
-    }
-    if ( destination == null ) {
-      throw new NullPointerException( "destination is required" );
-    }
-    if ( bigDataPlugin == null ) {
-      throw new NullPointerException( "big data plugin required" );
-    }
+    checkInstallArguments( pmrArchive, destination, bigDataPlugin );
 
     FileObject extracted = extractToTemp( pmrArchive );
 
@@ -178,6 +238,9 @@ public class DistributedCacheUtilImpl implements org.pentaho.hadoop.shim.api.int
     FSDataOutputStream out = fs.create( lockFile, true );
     //We should close output stream, otherwise the file will be locked on Windows
     out.close();
+    // A full installation replaces any incrementally staged one
+    fs.delete( KettleEnvironmentManifest.getManifestAt( destination ), false );
+    fs.delete( KettleEnvironmentManifest.getPreviousManifestAt( destination ), false );
 
     stageForCache( extracted, fs, destination, "", true, false );
 
@@ -197,6 +260,371 @@ public class DistributedCacheUtilImpl implements org.pentaho.hadoop.shim.api.int
     fs.delete( lockFile, true );
   }
 
+  /**
+   * Installs the Kettle environment like {@link #installKettleEnvironment(FileObject, FileSystem, Path, FileObject,
+   * String, String, String)} does, optionally staging it incrementally. An incremental installation digests every file
+   * and records it in a {@link KettleEnvironmentManifest}. Everything is stored by content in the blob store shared by
+   * all installation ids (see {@link #getBlobStoreAt(Path)}): each plugin directory, each directory within lib/ and
+   * each other top level directory as a directory named after the paths and digests of its files, and single files
+   * such as the library jars by their own digest. Only blobs that are not staged yet are uploaded, in parallel using
+   * {@value #STAGING_THREADS} threads, so changing one plugin uploads just that plugin. Blobs are never replaced in
+   * place: the new manifest is switched in once all of them are staged, so jobs configured with the previous manifest
+   * keep consistent files. Blobs that neither the current nor the previous manifest of any installation refers to are
+   * deleted once they are older than {@value #BLOB_RETENTION} milliseconds.
+   *
+   * @param incremental Stage incrementally instead of copying the complete environment
+   */
+  public void installKettleEnvironment( FileObject pmrArchive, FileSystem fs, Path destination,
+                                        FileObject bigDataPlugin, String additionalPlugins,
+                                        String excludePluginFileNames, String shimIdentifier, boolean incremental )
+    throws IOException, KettleFileException {
+    if ( !incremental ) {
+      installKettleEnvironment( pmrArchive, fs, destination, bigDataPlugin, additionalPlugins, excludePluginFileNames,
+        shimIdentifier );
+      return;
+    }
+    checkInstallArguments( pmrArchive, destination, bigDataPlugin );
+
+    FileObject extracted = extractToTemp( pmrArchive );
+    try {
+      Path lockFile = getLockFileAt( destination );
+      FSDataOutputStream out = fs.create( lockFile, true );
+      out.close();
+
+      Map<String, FileObject> files = new TreeMap<>();
+      collectFiles( extracted, "", Collections.emptyList(), files );
+      for ( Map.Entry<String, FileObject> entry : getBigDataPluginFiles( bigDataPlugin, shimIdentifier ).entrySet() ) {
+        collectFiles( entry.getValue(), entry.getKey(), Collections.emptyList(), files );
+      }
+      if ( StringUtils.isNotEmpty( additionalPlugins ) ) {
+        List<String> excludeList = getExcludeList( excludePluginFileNames );
+        for ( String localPluginPath : additionalPlugins.split( "," ) ) {
+          Object[] localFileTuple = locatePluginFolder( localPluginPath );
+          collectFiles( (FileObject) localFileTuple[ 0 ], joinPath( PATH_PLUGINS, (String) localFileTuple[ 1 ] ),
+            excludeList, files );
+        }
+      }
+
+      stageIncrementally( fs, destination, files );
+
+      // As with a full installation a failed staging leaves the lock file behind; staging again only uploads what is
+      // still missing
+      fs.delete( lockFile, true );
+    } finally {
+      deleteDirectory( extracted );
+    }
+  }
+
+  private void checkInstallArguments( FileObject pmrArchive, Path destination, FileObject bigDataPlugin ) {
+    if ( pmrArchive == null ) {
+      throw new NullPointerException( "pmrArchive is required" );
+    }
+    if ( destination == null ) {
+      throw new NullPointerException( "destination is required" );
+    }
+    if ( bigDataPlugin == null ) {
+      throw new NullPointerException( "big data plugin required" );
+    }
+  }
+
+  /**
+   * Adds all files of a file or folder to the files to stage.
+   *
+   * @param source       File or folder to add
+   * @param relativePath Path of {@code source} relative to the installation directory
+   * @param excludeList  File prefixes of jars to leave out
+   * @param files        Files to stage keyed by their path relative to the installation directory
+   */
+  private void collectFiles( FileObject source, String relativePath, List<String> excludeList,
+                             Map<String, FileObject> files ) throws IOException, KettleFileException {
+    if ( !source.exists() ) {
+      throw new KettleFileException(
+        BaseMessages.getString( DistributedCacheUtilImpl.class, "DistributedCacheUtil.SourceDoesNotExist", source ) );
+    }
+    if ( !source.isFolder() ) {
+      files.put( relativePath, source );
+      return;
+    }
+    FileObject[] found = source.findFiles( new FileSelector() {
+      @Override
+      public boolean includeFile( FileSelectInfo info ) throws Exception {
+        return FileType.FILE.equals( info.getFile().getType() ) && !isExcluded( info.getFile().getName(), excludeList );
+      }
+
+      @Override
+      public boolean traverseDescendents( FileSelectInfo info ) throws Exception {
+        return FileType.FOLDER.equals( info.getFile().getType() );
+      }
+    } );
+    if ( found != null ) {
+      for ( FileObject f : found ) {
+        files.put( joinPath( relativePath, source.getName().getRelativeName( f.getName() ) ), f );
+      }
+    }
+  }
+
+  private void stageIncrementally( FileSystem fs, Path destination, Map<String, FileObject> files )
+    throws IOException {
+    KettleEnvironmentManifest previous = KettleEnvironmentManifest.read( fs, destination );
+    KettleEnvironmentManifest manifest = new KettleEnvironmentManifest();
+    Path blobStore = getBlobStoreAt( destination );
+    // Use the same replication we'd use for submitting jobs
+    short replication = (short) fs.getConf().getInt( "mapred.submit.replication", 10 );
+    int threads = Math.max( 1, fs.getConf().getInt( STAGING_THREADS, DEFAULT_STAGING_THREADS ) );
+
+    Map<Path, Path> pendingDirectories = new HashMap<>();
+    ExecutorService executor = Executors.newFixedThreadPool( threads );
+    try {
+      // All files are digested first as directories are named after the digests of their files
+      Map<String, byte[]> contents = new ConcurrentHashMap<>();
+      List<Future<String>> digests = new ArrayList<>( files.size() );
+      for ( Map.Entry<String, FileObject> entry : files.entrySet() ) {
+        digests.add( executor.submit( () -> digestFile( entry.getKey(), entry.getValue(), manifest, contents ) ) );
+      }
+      for ( Future<String> digest : digests ) {
+        getStagingResult( digest );
+      }
+
+      // Directories are uploaded into a temporary directory that is renamed into place once complete
+      Map<String, Path> directoryTemps = new HashMap<>();
+      for ( Map.Entry<String, String> directory : getDirectoryDigests( manifest ).entrySet() ) {
+        Path blob = new Path( blobStore, directory.getValue() );
+        if ( !fs.exists( blob ) ) {
+          Path temp = getTempPath( blob );
+          directoryTemps.put( directory.getKey(), temp );
+          pendingDirectories.put( temp, blob );
+        }
+      }
+
+      List<Future<Boolean>> uploads = new ArrayList<>( files.size() );
+      for ( Map.Entry<String, FileObject> entry : files.entrySet() ) {
+        String path = entry.getKey();
+        String unit = getUnit( path );
+        if ( unit.equals( path ) ) {
+          Path blob = getBlobPath( blobStore, path, manifest.get( path ) );
+          uploads.add( executor.submit(
+            () -> stageBlob( fs, blob, entry.getValue(), contents.get( path ), replication ) ) );
+        } else if ( directoryTemps.containsKey( unit ) ) {
+          Path target = new Path( directoryTemps.get( unit ), path.substring( unit.length() + 1 ) );
+          uploads.add( executor.submit( () -> {
+            uploadFile( fs, target, entry.getValue(), contents.get( path ), replication );
+            return true;
+          } ) );
+        }
+      }
+      int uploaded = 0;
+      for ( Future<Boolean> upload : uploads ) {
+        if ( getStagingResult( upload ) ) {
+          uploaded++;
+        }
+      }
+      for ( Map.Entry<Path, Path> directory : pendingDirectories.entrySet() ) {
+        moveIntoPlace( fs, directory.getKey(), directory.getValue() );
+      }
+      pendingDirectories.clear();
+      logger.info( "Uploaded {} of {} files of the Kettle environment at {}", uploaded, files.size(), destination );
+    } finally {
+      executor.shutdownNow();
+      for ( Path temp : pendingDirectories.keySet() ) {
+        fs.delete( temp, true );
+      }
+    }
+
+    if ( previous == null || !previous.getEntries().equals( manifest.getEntries() ) ) {
+      if ( previous != null ) {
+        previous.writePrevious( fs, destination );
+      }
+      manifest.write( fs, destination );
+    }
+    deleteUnusedBlobs( fs, destination );
+  }
+
+  /**
+   * Digests a single file into the manifest. The content of config.properties is rewritten while digesting, so it is
+   * kept in {@code contents} for the upload.
+   */
+  private String digestFile( String path, FileObject source, KettleEnvironmentManifest manifest,
+                             Map<String, byte[]> contents ) throws IOException {
+    String digest;
+    if ( path.endsWith( CONFIG_PROPERTIES ) ) {
+      byte[] content = readConfigProperties( source );
+      contents.put( path, content );
+      digest = KettleEnvironmentManifest.digest( content );
+    } else {
+      try ( InputStream in = source.getContent().getInputStream() ) {
+        digest = KettleEnvironmentManifest.digest( in );
+      }
+    }
+    manifest.put( path, digest );
+    return digest;
+  }
+
+  /**
+   * Groups the files of a manifest into the directories they are staged as (see {@link #getUnit(String)}) and names
+   * each directory after the relative paths and digests of its files, so a directory whose files did not change
+   * resolves to the blob already staged.
+   *
+   * @return Digest of every directory keyed by its path relative to the installation directory
+   */
+  private static Map<String, String> getDirectoryDigests( KettleEnvironmentManifest manifest ) {
+    Map<String, StringBuilder> directories = new TreeMap<>();
+    for ( Map.Entry<String, String> entry : manifest.getEntries().entrySet() ) {
+      String path = entry.getKey();
+      String unit = getUnit( path );
+      if ( !unit.equals( path ) ) {
+        directories.computeIfAbsent( unit, k -> new StringBuilder() ).append( path.substring( unit.length() + 1 ) )
+          .append( '\0' ).append( entry.getValue() ).append( '\n' );
+      }
+    }
+    Map<String, String> digests = new TreeMap<>();
+    for ( Map.Entry<String, StringBuilder> directory : directories.entrySet() ) {
+      digests.put( directory.getKey(),
+        KettleEnvironmentManifest.digest( directory.getValue().toString().getBytes( StandardCharsets.UTF_8 ) ) );
+    }
+    return digests;
+  }
+
+  /**
+   * Uploads a single file into the blob store unless it is already staged. Blobs are named after their content, so an
+   * existing one never needs to be replaced.
+   *
+   * @return {@code true} if the file was uploaded
+   */
+  private boolean stageBlob( FileSystem fs, Path blob, FileObject source, byte[] content, short replication )
+    throws IOException {
+    if ( fs.exists( blob ) ) {
+      return false;
+    }
+    // Upload next to the blob and rename it into place so other clients staging the same file never use a partially
+    // written one
+    Path temp = getTempPath( blob );
+    uploadFile( fs, temp, source, content, replication );
+    moveIntoPlace( fs, temp, blob );
+    return true;
+  }
+
+  private void uploadFile( FileSystem fs, Path target, FileObject source, byte[] content, short replication )
+    throws IOException {
+    try ( FSDataOutputStream out = fs.create( target, true );
+          InputStream in = content != null ? new ByteArrayInputStream( content )
+            : source.getContent().getInputStream() ) {
+      IOUtils.copy( in, out );
+    }
+    fs.setPermission( target, CACHED_FILE_PERMISSION );
+    fs.setReplication( target, replication );
+  }
+
+  private void moveIntoPlace( FileSystem fs, Path temp, Path blob ) throws IOException {
+    if ( !fs.rename( temp, blob ) ) {
+      fs.delete( temp, true );
+      // Another client may have staged the same blob in the meantime
+      if ( !fs.exists( blob ) ) {
+        throw new IOException( "Unable to stage " + blob );
+      }
+    }
+  }
+
+  /**
+   * Temporary upload path of a blob, see {@link #deleteUnusedBlobs(FileSystem, Path)}
+   */
+  private static Path getTempPath( Path blob ) {
+    return new Path( blob.getParent(), "." + blob.getName() + "." + UUID.randomUUID() + ".tmp" );
+  }
+
+  /**
+   * Removes the blobs that neither the current nor the previous manifest of any installation next to {@code
+   * destination} refers to. Blobs younger than {@value #BLOB_RETENTION} milliseconds are kept, which also covers
+   * blobs and temporary uploads of stagings still in progress.
+   */
+  private void deleteUnusedBlobs( FileSystem fs, Path destination ) throws IOException {
+    Path blobStore = getBlobStoreAt( destination );
+    if ( !fs.exists( blobStore ) ) {
+      return;
+    }
+    Set<String> used = new HashSet<>();
+    for ( FileStatus installation : fs.listStatus( destination.getParent() ) ) {
+      if ( installation.isDirectory() && !PATH_BLOBS.equals( installation.getPath().getName() ) ) {
+        addBlobNames( used, KettleEnvironmentManifest.read( fs, installation.getPath() ) );
+        addBlobNames( used, KettleEnvironmentManifest.readPrevious( fs, installation.getPath() ) );
+      }
+    }
+    long cutoff = System.currentTimeMillis() - fs.getConf().getLong( BLOB_RETENTION, DEFAULT_BLOB_RETENTION );
+    for ( FileStatus blob : fs.listStatus( blobStore ) ) {
+      if ( !used.contains( blob.getPath().getName() ) && blob.getModificationTime() < cutoff ) {
+        logger.debug( "Deleting unused blob {}", blob.getPath() );
+        fs.delete( blob.getPath(), true );
+      }
+    }
+  }
+
+  private static void addBlobNames( Set<String> names, KettleEnvironmentManifest manifest ) {
+    if ( manifest == null ) {
+      return;
+    }
+    for ( Map.Entry<String, String> entry : manifest.getEntries().entrySet() ) {
+      if ( getUnit( entry.getKey() ).equals( entry.getKey() ) ) {
+        names.add( getBlobName( entry.getKey(), entry.getValue() ) );
+      }
+    }
+    names.addAll( getDirectoryDigests( manifest ).values() );
+  }
+
+  private <T> T getStagingResult( Future<T> upload ) throws IOException {
+    try {
+      return upload.get();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Interrupted while staging the Kettle environment" );
+    } catch ( ExecutionException e ) {
+      if ( e.getCause() instanceof IOException ) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException( e.getCause() );
+    }
+  }
+
+  /**
+   * Library jars directly within lib/ are put on the classpath and do not need to be in the installation directory.
+   */
+  private static boolean isLibrary( String path ) {
+    return path.startsWith( PATH_LIB + "/" ) && path.indexOf( '/', PATH_LIB.length() + 1 ) < 0;
+  }
+
+  /**
+   * Resolves the path, relative to the installation directory, of the blob a file is staged in: every plugin and every
+   * directory within lib/ is one directory blob, as is every other top level directory. Files directly within the
+   * installation directory, lib/ or plugins/ are blobs of their own, in which case the file's own path is returned.
+   */
+  private static String getUnit( String path ) {
+    String[] segments = path.split( "/" );
+    int depth = PATH_PLUGINS.equals( segments[ 0 ] ) || PATH_LIB.equals( segments[ 0 ] ) ? 2 : 1;
+    if ( segments.length <= depth ) {
+      return path;
+    }
+    return String.join( "/", Arrays.copyOf( segments, depth ) );
+  }
+
+  private static Path getBlobPath( Path blobStore, String path, String digest ) {
+    return new Path( blobStore, getBlobName( path, digest ) );
+  }
+
+  private static String getBlobName( String path, String digest ) {
+    // Keep the extension so the cluster recognizes jars as such
+    String name = path.substring( path.lastIndexOf( '/' ) + 1 );
+    int extension = name.lastIndexOf( '.' );
+    return extension > 0 ? digest + name.substring( extension ) : digest;
+  }
+
+  private static String joinPath( String parent, String child ) {
+    if ( StringUtils.isEmpty( parent ) ) {
+      return child;
+    }
+    if ( StringUtils.isEmpty( child ) ) {
+      return parent;
+    }
+    return StringUtils.stripEnd( parent, "/" ) + "/" + StringUtils.stripStart( child, "/" );
+  }
+
   private Map<String, String> getDrivers( java.nio.file.Path dir )
     throws IOException {
     Map<String, String> files = new HashMap<>();
@@ -237,14 +665,31 @@ public class DistributedCacheUtilImpl implements org.pentaho.hadoop.shim.api.int
    */
   private void stageBigDataPlugin( FileSystem fs, Path dest, FileObject pluginFolder, String shimIdentifier )
     throws KettleFileException, IOException {
-    Path pluginsDir = new Path( dest, PATH_PLUGINS );
-    Path bigDataPluginDir = new Path( pluginsDir, pluginFolder.getName().getBaseName() );
+    for ( Map.Entry<String, FileObject> entry : getBigDataPluginFiles( pluginFolder, shimIdentifier ).entrySet() ) {
+      stageForCache( entry.getValue(), fs, new Path( dest, entry.getKey() ), "", true, false );
+    }
+  }
+
+  /**
+   * Determines the files and folders of the Big Data plugin to stage: everything except the hadoop-configurations and
+   * pmr libraries, the current Hadoop configuration without its pmr libraries, and the pmr libraries which go into the
+   * root library path for the Kettle environment.
+   *
+   * @param pluginFolder   Big Data plugin folder
+   * @param shimIdentifier Identifier of the current Hadoop configuration
+   * @return Files and folders to stage keyed by their path relative to the installation directory
+   * @throws FileSystemException Error reading the plugin folder
+   */
+  private Map<String, FileObject> getBigDataPluginFiles( FileObject pluginFolder, String shimIdentifier )
+    throws FileSystemException {
+    Map<String, FileObject> files = new LinkedHashMap<>();
+    String bigDataPluginDir = joinPath( PATH_PLUGINS, pluginFolder.getName().getBaseName() );
 
     // Stage everything except the hadoop-configurations and pmr libraries
     for ( FileObject f : pluginFolder.findFiles( new FileDepthSelector( 1, 1 ) ) ) {
       if ( !"hadoop-configurations".equals( f.getName().getBaseName() )
         && !"pentaho-mapreduce-libraries.zip".equals( f.getName().getBaseName() ) ) {
-        stageForCache( f, fs, new Path( bigDataPluginDir, f.getName().getBaseName() ), "", true, false );
+        files.put( joinPath( bigDataPluginDir, f.getName().getBaseName() ), f );
       }
     }
 
@@ -259,6 +704,7 @@ public class DistributedCacheUtilImpl implements org.pentaho.hadoop.shim.api.int
         }
         // Stage the current Hadoop configuration without its client-only or pmr libraries (these will be copied into the
         // lib dir)
+        String shimConfigDir = joinPath( joinPath( bigDataPluginDir, "hadoop-configurations" ), shimIdentifier );
         for ( FileObject f : shimDir.findFiles( new FileSelector() {
           @Override
           public boolean includeFile( FileSelectInfo info ) throws Exception {
@@ -274,19 +720,19 @@ public class DistributedCacheUtilImpl implements org.pentaho.hadoop.shim.api.int
         } ) ) {
           // Create relative path to write to
           String relPath = shimDir.getName().getRelativeName( f.getName() );
-          stageForCache( f, fs, new Path( bigDataPluginDir + "/hadoop-configurations/" + shimIdentifier, relPath ), "", true, false );
+          files.put( joinPath( shimConfigDir, relPath ), f );
         }
 
       }
     }
 
     // Stage all pmr libraries for the Hadoop configuration into the root library path for the Kettle environment
-    Path pdiLib = new Path( dest, PATH_LIB );
     if ( pmrLibsDir != null ) {
       for ( FileObject f : pmrLibsDir.getChildren() ) {
-        stageForCache( f, fs, new Path( pdiLib, f.getName().getBaseName() ), "", true, false );
+        files.put( joinPath( PATH_LIB, f.getName().getBaseName() ), f );
       }
     }
+    return files;
   }
 
   /**
@@ -311,12 +757,7 @@ public class DistributedCacheUtilImpl implements org.pentaho.hadoop.shim.api.int
       fs.mkdirs( pluginsDir );
     }
     for ( String localPluginPath : pluginFolderNames.split( "," ) ) {
-      Object[] localFileTuple = findPluginFolder( localPluginPath );
-      if ( localFileTuple == null || localFileTuple.length == 0 || !( (FileObject) localFileTuple[ 0 ] ).exists() ) {
-        throw new KettleFileException( BaseMessages
-          .getString( DistributedCacheUtilImpl.class, "DistributedCacheUtil.PluginDirectoryNotFound",
-            localPluginPath ) );
-      }
+      Object[] localFileTuple = locatePluginFolder( localPluginPath );
       FileObject localFile = (FileObject) localFileTuple[ 0 ];
       String relativePath = (String) localFileTuple[ 1 ];
       Path pluginDir = new Path( pluginsDir, relativePath );
@@ -324,6 +765,16 @@ public class DistributedCacheUtilImpl implements org.pentaho.hadoop.shim.api.int
     }
   }
 
+  private Object[] locatePluginFolder( String localPluginPath ) throws KettleFileException, FileSystemException {
+    Object[] localFileTuple = findPluginFolder( localPluginPath );
+    if ( localFileTuple == null || localFileTuple.length == 0 || !( (FileObject) localFileTuple[ 0 ] ).exists() ) {
+      throw new KettleFileException( BaseMessages
+        .getString( DistributedCacheUtilImpl.class, "DistributedCacheUtil.PluginDirectoryNotFound",
+          localPluginPath ) );
+    }
+    return localFileTuple;
+  }
+
   /**
    * Configure the provided configuration to use the Distributed Cache and include all files in {@code
    * kettleInstallDir}. All jar files in lib/ will be added to the classpath.
@@ -336,6 +787,11 @@ public class DistributedCacheUtilImpl implements org.pentaho.hadoop.shim.api.int
    */
   public void configureWithKettleEnvironment( Configuration conf, FileSystem fs, Path kettleInstallDir )
     throws IOException {
+    KettleEnvironmentManifest manifest = KettleEnvironmentManifest.read( fs, kettleInstallDir );
+    if ( manifest != null ) {
+      configureWithManifest( conf, fs, kettleInstallDir, manifest );
+      return;
+    }
     Path libDir = new Path( kettleInstallDir, PATH_LIB );
     // Add all files to the classpath found in the lib directory
     List<Path> libraryJars = findFiles( fs, libDir, null );
@@ -345,6 +801,53 @@ public class DistributedCacheUtilImpl implements org.pentaho.hadoop.shim.api.int
     addCachedFiles( nonLibFiles, conf );
   }
 
+  /**
+   * Configure the provided configuration to use an incrementally staged Kettle environment. Everything is used straight
+   * from the blob store, linked under its path relative to the installation directory; library jars and the
+   * directories within lib/ are put on the classpath.
+   */
+  private void configureWithManifest( Configuration conf, FileSystem fs, Path kettleInstallDir,
+                                      KettleEnvironmentManifest manifest ) throws IOException {
+    Path blobStore = getBlobStoreAt( kettleInstallDir );
+    org.apache.hadoop.mapreduce.filecache.DistributedCache.createSymlink( conf );
+    for ( Map.Entry<String, String> entry : manifest.getEntries().entrySet() ) {
+      String path = entry.getKey();
+      if ( getUnit( path ).equals( path ) ) {
+        Path blob = getBlobPath( blobStore, path, entry.getValue() );
+        if ( isLibrary( path ) ) {
+          addBlobToClassPath( fs, blob, path.substring( PATH_LIB.length() + 1 ), conf );
+        } else {
+          addBlob( fs, blob, path, conf );
+        }
+      }
+    }
+    for ( Map.Entry<String, String> directory : getDirectoryDigests( manifest ).entrySet() ) {
+      Path blob = new Path( blobStore, directory.getValue() );
+      if ( directory.getKey().startsWith( PATH_LIB + "/" ) ) {
+        addBlobToClassPath( fs, blob, directory.getKey(), conf );
+      } else {
+        addBlob( fs, blob, directory.getKey(), conf );
+      }
+    }
+  }
+
+  /**
+   * Adds a blob to the cache linked as {@code linkName}. Link names may contain directories, which are created in the
+   * working directory of the task.
+   */
+  private void addBlob( FileSystem fs, Path blob, String linkName, Configuration conf ) {
+    org.apache.hadoop.mapreduce.filecache.DistributedCache
+      .addCacheFile( URI.create( fs.makeQualified( blob ).toUri() + "#" + linkName ), conf );
+  }
+
+  private void addBlobToClassPath( FileSystem fs, Path blob, String linkName, Configuration conf ) {
+    Path file = disqualifyPath( blob );
+    String classpath = conf.get( "mapred.job.classpath.files" );
+    conf.set( "mapred.job.classpath.files", classpath == null ? file.toString()
+      : classpath + getClusterPathSeparator() + file.toString() );
+    addBlob( fs, blob, linkName, conf );
+  }
+
   /**
    * Register a list of files from a Hadoop file system to be available and placed on the classpath when the
    * configuration is used to submit Hadoop jobs
@@ -500,23 +1003,12 @@ public class DistributedCacheUtilImpl implements org.pentaho.hadoop.shim.api.int
   }
 
   private void removeExcludedFiles( FileObject tempPluginDir, String filesToExclude ) throws FileSystemException {
-    List<String> excludeList = Arrays.asList( filesToExclude.split( "," ) );
+    List<String> excludeList = getExcludeList( filesToExclude );
 
     tempPluginDir.delete( new FileSelector() {
       @Override
       public boolean includeFile( FileSelectInfo fileSelectInfo ) throws Exception {
-        FileName scannedName = fileSelectInfo.getFile().getName();
-        if ( "jar".equals( scannedName.getExtension() ) ) {
-          String jarName = scannedName.getBaseName();
-          if ( !Strings.isNullOrEmpty( jarName ) ) {
-            for ( String excludeFile : excludeList ) {
-              if ( jarName.startsWith( excludeFile ) ) {
-                return true;
-              }
-            }
-          }
-        }
-        return false;
+        return isExcluded( fileSelectInfo.getFile().getName(), excludeList );
       }
 
       @Override
@@ -526,9 +1018,39 @@ public class DistributedCacheUtilImpl implements org.pentaho.hadoop.shim.api.int
     } );
   }
 
+  private static List<String> getExcludeList( String filesToExclude ) {
+    return Strings.isNullOrEmpty( filesToExclude ) ? Collections.emptyList()
+      : Arrays.asList( filesToExclude.split( "," ) );
+  }
+
+  private static boolean isExcluded( FileName scannedName, List<String> excludeList ) {
+    if ( "jar".equals( scannedName.getExtension() ) ) {
+      String jarName = scannedName.getBaseName();
+      if ( !Strings.isNullOrEmpty( jarName ) ) {
+        for ( String excludeFile : excludeList ) {
+          if ( jarName.startsWith( excludeFile ) ) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
   private void copyConfigProperties( FileObject source, FileSystem fs, Path dest ) {
-    try ( FSDataOutputStream output = fs.create( dest ); InputStream input = source.getContent().getInputStream() ) {
+    try ( FSDataOutputStream output = fs.create( dest ) ) {
+      output.write( readConfigProperties( source ) );
+    } catch ( IOException e ) {
+      throw new ShimRuntimeException( "Error copying modified version of config.properties", e );
+    }
+  }
 
+  /**
+   * Reads config.properties without the authentication properties we do not want to copy to the cluster
+   */
+  private byte[] readConfigProperties( FileObject source ) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try ( InputStream input = source.getContent().getInputStream() ) {
       List<String> lines = IOUtils.readLines( input );
       for ( String line : lines ) {
         if ( !line.startsWith( AUTH_PREFIX ) ) {
@@ -536,9 +1058,8 @@ public class DistributedCacheUtilImpl implements org.pentaho.hadoop.shim.api.int
           IOUtils.write( String.format( "%n" ), output );
         }
       }
-    } catch ( IOException e ) {
-      throw new ShimRuntimeException( "Error copying modified version of config.properties", e );
     }
+    return output.toByteArray();
   }
 
   /**
@@ -747,6 +1268,16 @@ public class DistributedCacheUtilImpl implements org.pentaho.hadoop.shim.api.int
 
   }
 
+  @Override
+  public void installKettleEnvironment( FileObject pmrLibArchive, org.pentaho.hadoop.shim.api.internal.fs.FileSystem fs,
+                                        org.pentaho.hadoop.shim.api.internal.fs.Path destination,
+                                        FileObject bigDataPluginFolder, String additionalPlugins,
+                                        String excludePluginFileNames, String shimIdentifier, boolean incremental )
+    throws KettleFileException, IOException {
+    installKettleEnvironment( pmrLibArchive, ShimUtils.asFileSystem( fs ), ShimUtils.asPath( destination ),
+      bigDataPluginFolder, additionalPlugins, excludePluginFileNames, shimIdentifier, incremental );
+  }
+
   @Override public void stageForCache( FileObject source, org.pentaho.hadoop.shim.api.internal.fs.FileSystem fs,
                                        org.pentaho.hadoop.shim.api.internal.fs.Path dest, String excludePluginFileNames,
                                        boolean overwrite, boolean isPublic )
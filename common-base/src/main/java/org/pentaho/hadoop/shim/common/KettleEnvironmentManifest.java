@@ -0,0 +1,202 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.hadoop.shim.common;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileContext;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Options;
+import org.apache.hadoop.fs.Path;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Lists every file of a Kettle environment installation along with the SHA-256 digest of its content. The manifest is
+ * what makes an installation staged by {@link DistributedCacheUtilImpl} incremental: files and directories are stored
+ * once by digest in a blob store shared by all installations, so only content that changed is uploaded again.
+ * <p/>
+ * The manifest is stored as {@value #MANIFEST_FILE_NAME} in the installation directory, one {@code <digest> <path>}
+ * line per file. The manifest it replaced is kept as {@value #PREVIOUS_MANIFEST_FILE_NAME} so the blobs of jobs
+ * configured with it are not collected while they may still be localized.
+ */
+public class KettleEnvironmentManifest {
+
+  /**
+   * Name of the manifest file within the installation directory
+   */
+  public static final String MANIFEST_FILE_NAME = ".manifest";
+
+  /**
+   * Name of the manifest replaced by the last staging within the installation directory
+   */
+  public static final String PREVIOUS_MANIFEST_FILE_NAME = ".manifest.previous";
+
+  private final Map<String, String> entries = new TreeMap<>();
+
+  /**
+   * Creates the path to the manifest file within the provided installation directory
+   *
+   * @param dir Installation directory
+   * @return Path to the manifest within {@code dir}
+   */
+  public static Path getManifestAt( Path dir ) {
+    return new Path( dir, MANIFEST_FILE_NAME );
+  }
+
+  /**
+   * Creates the path to the previous manifest file within the provided installation directory
+   *
+   * @param dir Installation directory
+   * @return Path to the previous manifest within {@code dir}
+   */
+  public static Path getPreviousManifestAt( Path dir ) {
+    return new Path( dir, PREVIOUS_MANIFEST_FILE_NAME );
+  }
+
+  /**
+   * Reads the manifest of an installation.
+   *
+   * @param fs  File system the installation resides in
+   * @param dir Installation directory
+   * @return The manifest or {@code null} if the installation has none
+   * @throws IOException Error reading the manifest
+   */
+  public static KettleEnvironmentManifest read( FileSystem fs, Path dir ) throws IOException {
+    return readFile( fs, getManifestAt( dir ) );
+  }
+
+  /**
+   * Reads the manifest an installation had before it was last staged.
+   *
+   * @param fs  File system the installation resides in
+   * @param dir Installation directory
+   * @return The previous manifest or {@code null} if the installation has none
+   * @throws IOException Error reading the manifest
+   */
+  public static KettleEnvironmentManifest readPrevious( FileSystem fs, Path dir ) throws IOException {
+    return readFile( fs, getPreviousManifestAt( dir ) );
+  }
+
+  private static KettleEnvironmentManifest readFile( FileSystem fs, Path file ) throws IOException {
+    if ( !fs.exists( file ) ) {
+      return null;
+    }
+    KettleEnvironmentManifest manifest = new KettleEnvironmentManifest();
+    try ( FSDataInputStream in = fs.open( file );
+          BufferedReader reader = new BufferedReader( new InputStreamReader( in, StandardCharsets.UTF_8 ) ) ) {
+      String line;
+      while ( ( line = reader.readLine() ) != null ) {
+        int separator = line.indexOf( ' ' );
+        if ( separator > 0 ) {
+          manifest.put( line.substring( separator + 1 ), line.substring( 0, separator ) );
+        }
+      }
+    }
+    return manifest;
+  }
+
+  /**
+   * Writes this manifest into the installation directory. The content is written to a temporary file first and then
+   * renamed over the previous manifest in a single operation, so readers never observe a missing or partially written
+   * manifest.
+   *
+   * @param fs  File system the installation resides in
+   * @param dir Installation directory
+   * @throws IOException Error writing the manifest
+   */
+  public void write( FileSystem fs, Path dir ) throws IOException {
+    writeFile( fs, getManifestAt( dir ) );
+  }
+
+  /**
+   * Writes this manifest as the previous manifest of the installation directory, see {@link #write(FileSystem, Path)}.
+   *
+   * @param fs  File system the installation resides in
+   * @param dir Installation directory
+   * @throws IOException Error writing the manifest
+   */
+  public void writePrevious( FileSystem fs, Path dir ) throws IOException {
+    writeFile( fs, getPreviousManifestAt( dir ) );
+  }
+
+  private void writeFile( FileSystem fs, Path file ) throws IOException {
+    // Concurrent writers must not share the temporary file
+    Path temp = new Path( file.getParent(), file.getName() + "." + UUID.randomUUID() + ".tmp" );
+    try ( FSDataOutputStream out = fs.create( temp, true );
+          Writer writer = new OutputStreamWriter( out, StandardCharsets.UTF_8 ) ) {
+      for ( Map.Entry<String, String> entry : getEntries().entrySet() ) {
+        writer.write( entry.getValue() );
+        writer.write( ' ' );
+        writer.write( entry.getKey() );
+        writer.write( '\n' );
+      }
+    }
+    try {
+      // FileSystem.rename does not replace an existing file, FileContext does so atomically
+      FileContext.getFileContext( fs.getUri(), fs.getConf() ).rename( fs.makeQualified( temp ),
+        fs.makeQualified( file ), Options.Rename.OVERWRITE );
+    } catch ( IOException e ) {
+      fs.delete( temp, false );
+      throw e;
+    }
+  }
+
+  public synchronized void put( String path, String digest ) {
+    entries.put( path, digest );
+  }
+
+  public synchronized String get( String path ) {
+    return entries.get( path );
+  }
+
+  /**
+   * @return Read-only view of all entries, relative path to digest, sorted by path
+   */
+  public synchronized Map<String, String> getEntries() {
+    return Collections.unmodifiableMap( new TreeMap<>( entries ) );
+  }
+
+  /**
+   * Computes the hex encoded SHA-256 digest of a stream. The stream is consumed but not closed.
+   *
+   * @param in Stream to digest
+   * @return Hex encoded digest
+   * @throws IOException Error reading the stream
+   */
+  public static String digest( InputStream in ) throws IOException {
+    return DigestUtils.sha256Hex( in );
+  }
+
+  /**
+   * Computes the hex encoded SHA-256 digest of a byte array.
+   *
+   * @param content Bytes to digest
+   * @return Hex encoded digest
+   */
+  public static String digest( byte[] content ) {
+    return DigestUtils.sha256Hex( content );
+  }
+}
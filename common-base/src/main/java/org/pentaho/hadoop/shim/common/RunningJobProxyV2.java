@@ -14,7 +14,9 @@ package org.pentaho.hadoop.shim.common;
 
 import org.apache.hadoop.mapred.TaskAttemptID;
 import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobStatus;
 import org.pentaho.hadoop.shim.api.internal.mapred.RunningJob;
+import org.pentaho.hadoop.shim.api.internal.mapred.RunningJobStatus;
 import org.pentaho.hadoop.shim.common.mapred.TaskCompletionEventProxy;
 
 import java.io.IOException;
@@ -128,4 +130,21 @@ public class RunningJobProxyV2 implements RunningJob {
   @Override public float reduceProgress() throws IOException {
     return delegateJob.reduceProgress();
   }
+
+  /**
+   * Retrieve the job's completion state and progress with a single status request.
+   *
+   * @return snapshot of the job's status
+   * @throws java.io.IOException
+   */
+  @Override public RunningJobStatus getStatus() throws IOException {
+    try {
+      JobStatus status = delegateJob.getStatus();
+      return new RunningJobStatus( status.isJobComplete(), status.getState() == JobStatus.State.SUCCEEDED,
+        status.getSetupProgress(), status.getMapProgress(), status.getReduceProgress() );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new IOException( e );
+    }
+  }
 }
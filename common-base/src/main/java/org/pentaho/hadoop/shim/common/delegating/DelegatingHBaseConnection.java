@@ -259,6 +259,16 @@ public class DelegatingHBaseConnection implements HBaseConnection, HBaseConnecti
     return delegate.sourceTableRowExists( rowKey );
   }
 
+  @Override
+  public List<Object> getSourceTableRows( List<byte[]> rowKeys ) throws Exception {
+    return delegate.getSourceTableRows( rowKeys );
+  }
+
+  @Override
+  public boolean[] sourceTableRowsExist( List<byte[]> rowKeys ) throws Exception {
+    return delegate.sourceTableRowsExist( rowKeys );
+  }
+
   @Override
   public boolean tableExists( String tableName ) throws Exception {
     return delegate.tableExists( tableName );
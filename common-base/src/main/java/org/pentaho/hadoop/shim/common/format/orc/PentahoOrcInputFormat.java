@@ -24,9 +24,7 @@ import org.pentaho.hadoop.shim.common.ConfigurationProxy;
 import org.pentaho.hadoop.shim.common.format.HadoopFormatBase;
 import org.pentaho.hadoop.shim.common.format.S3NCredentialUtils;
 
-import java.io.InputStream;
 import java.util.List;
-import java.util.function.BiConsumer;
 
 import static java.util.Objects.requireNonNull;
 
@@ -48,8 +46,7 @@ public class PentahoOrcInputFormat extends HadoopFormatBase implements IPentahoO
       conf = inClassloader( () -> {
         Configuration confProxy = new ConfigurationProxy();
         confProxy.addResource( "hive-site.xml" );
-        BiConsumer<InputStream, String> consumer = ( is, filename ) -> confProxy.addResource( is, filename );
-        ShimConfigsLoader.addConfigsAsResources( namedCluster, consumer );
+        ShimConfigsLoader.addConfigsAsResources( namedCluster, confProxy );
         return confProxy;
       } );
     }
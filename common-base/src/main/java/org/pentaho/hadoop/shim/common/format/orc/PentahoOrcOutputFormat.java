@@ -28,11 +28,9 @@ import org.pentaho.hadoop.shim.common.ConfigurationProxy;
 import org.pentaho.hadoop.shim.common.format.HadoopFormatBase;
 import org.pentaho.hadoop.shim.common.format.S3NCredentialUtils;
 
-import java.io.InputStream;
 import java.net.URI;
 import java.nio.file.FileAlreadyExistsException;
 import java.util.List;
-import java.util.function.BiConsumer;
 
 /**
  * Created by tkafalas on 11/3/2017.
@@ -57,8 +55,7 @@ public class PentahoOrcOutputFormat extends HadoopFormatBase implements IPentaho
 
     if ( namedCluster != null ) {
       // if named cluster is not defined, no need to add cluster resource configs
-      BiConsumer<InputStream, String> consumer = ( is, filename ) -> conf.addResource( is, filename );
-      ShimConfigsLoader.addConfigsAsResources( namedCluster, consumer );
+      ShimConfigsLoader.addConfigsAsResources( namedCluster, conf );
     } else {
       conf.addResource( "hive-site.xml" );
     }
@@ -42,11 +42,9 @@ import org.pentaho.hadoop.shim.common.format.S3NCredentialUtils;
 import org.pentaho.hadoop.shim.common.format.parquet.ParquetInputFieldList;
 import org.pentaho.hadoop.shim.common.format.parquet.PentahoInputSplitImpl;
 
-import java.io.InputStream;
 import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import static org.apache.hadoop.mapreduce.lib.input.FileInputFormat.setInputDirRecursive;
@@ -70,8 +68,7 @@ public class PentahoApacheInputFormat extends HadoopFormatBase implements IPenta
 
       if ( namedCluster != null ) {
         // if named cluster is not defined, no need to add cluster resource configs
-        BiConsumer<InputStream, String> consumer = ( is, filename ) -> conf.addResource( is, filename );
-        ShimConfigsLoader.addConfigsAsResources( namedCluster, consumer );
+        ShimConfigsLoader.addConfigsAsResources( namedCluster, conf );
       }
       job = Job.getInstance( conf );
 
@@ -37,10 +37,8 @@ import org.pentaho.hadoop.shim.common.format.HadoopFormatBase;
 import org.pentaho.hadoop.shim.common.format.S3NCredentialUtils;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.util.List;
-import java.util.function.BiConsumer;
 
 import static org.apache.hadoop.mapreduce.lib.output.FileOutputFormat.setOutputPath;
 
@@ -67,8 +65,7 @@ public class PentahoApacheOutputFormat extends HadoopFormatBase implements IPent
 
       if ( namedCluster != null ) {
         // if named cluster is not defined, no need to add cluster resource configs
-        BiConsumer<InputStream, String> consumer = ( is, filename ) -> conf.addResource( is, filename );
-        ShimConfigsLoader.addConfigsAsResources( namedCluster, consumer );
+        ShimConfigsLoader.addConfigsAsResources( namedCluster, conf );
       }
 
       job = Job.getInstance( conf );
@@ -15,8 +15,10 @@ package org.pentaho.hadoop.shim.common.mapred;
 
 import java.io.IOException;
 
+import org.apache.hadoop.mapred.JobStatus;
 import org.apache.hadoop.mapred.TaskAttemptID;
 import org.pentaho.hadoop.shim.api.internal.mapred.RunningJob;
+import org.pentaho.hadoop.shim.api.internal.mapred.RunningJobStatus;
 import org.pentaho.hadoop.shim.api.internal.mapred.TaskCompletionEvent;
 
 public class RunningJobProxy implements RunningJob {
@@ -77,4 +79,11 @@ public class RunningJobProxy implements RunningJob {
   public float reduceProgress() throws IOException {
     return delegate.reduceProgress();
   }
+
+  @Override
+  public RunningJobStatus getStatus() throws IOException {
+    JobStatus status = delegate.getJobStatus();
+    return new RunningJobStatus( status.isJobComplete(), status.getState() == JobStatus.State.SUCCEEDED,
+      status.getSetupProgress(), status.getMapProgress(), status.getReduceProgress() );
+  }
 }
@@ -64,6 +64,8 @@ public interface HBaseConnection {
 
   // constant HTable writing keys
   public static final String HTABLE_WRITE_BUFFER_SIZE_KEY = "htable.writeBufferSize";
+  public static final String HTABLE_BULK_LOAD_STAGING_DIR_KEY = "htable.bulkLoad.stagingDir";
+  public static final String HTABLE_BULK_LOAD_BUFFER_SIZE_KEY = "htable.bulkLoad.bufferSize";
 
   /**
    * Method for getting a byte utility implementation
@@ -197,6 +199,25 @@ public interface HBaseConnection {
    */
   public abstract boolean sourceTableRowExists( byte[] rowKey ) throws Exception;
 
+  /**
+   * Fetches the rows with the given row keys from the source table in batched requests. The HBase client groups the
+   * keys per region server, so this costs one round trip per server rather than one per key.
+   *
+   * @param rowKeys the row keys to fetch
+   * @return one row per key, in the same order; rows that do not exist are returned as empty rows
+   * @throws Exception if a problem occurs
+   */
+  public abstract List<Object> getSourceTableRows( List<byte[]> rowKeys ) throws Exception;
+
+  /**
+   * Batched form of {@link #sourceTableRowExists(byte[])}
+   *
+   * @param rowKeys the row keys to check for
+   * @return one flag per key, in the same order
+   * @throws Exception if a problem occurs
+   */
+  public abstract boolean[] sourceTableRowsExist( List<byte[]> rowKeys ) throws Exception;
+
   /**
    * Configure a new source table scan. HBase can do a full table scan if no lower and upper bound are supplied or an
    * open upper-ended scan if a lower bound but no upper bound is specified. An upper bound with no lower bound is not
@@ -17,9 +17,13 @@ import org.apache.hadoop.hbase.HTableDescriptor;
 import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
 import org.pentaho.hbase.mapred.PentahoTableInputFormat;
 
+import java.io.IOException;
+
 public interface HBaseClientFactory {
   HBaseTable getHBaseTable( String tableName );
 
+  HBaseTable getHBaseBulkLoadTable( String tableName, String stagingDirectory, long bufferSize ) throws IOException;
+
   HBaseAdmin getHBaseAdmin();
 
   HTableDescriptor getHBaseTableDescriptor( String tableName );
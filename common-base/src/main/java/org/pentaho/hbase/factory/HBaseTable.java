@@ -13,6 +13,7 @@
 package org.pentaho.hbase.factory;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Get;
@@ -23,6 +24,10 @@ import org.apache.hadoop.hbase.client.Scan;
 public interface HBaseTable {
   Result get( Get toGet ) throws IOException;
 
+  Result[] get( List<Get> toGet ) throws IOException;
+
+  boolean[] exists( List<Get> toCheck ) throws IOException;
+
   ResultScanner getScanner( Scan s ) throws IOException;
 
   void put( HBasePut put ) throws IOException;
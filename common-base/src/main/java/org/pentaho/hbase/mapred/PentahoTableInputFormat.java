@@ -17,8 +17,18 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.ConnectionFactory;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.client.RegionLocator;
 import org.apache.hadoop.hbase.mapred.TableInputFormat;
+import org.apache.hadoop.hbase.mapred.TableSplit;
+import org.apache.hadoop.hbase.mapreduce.RegionSizeCalculator;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.mapred.InputSplit;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.util.StringUtils;
 import org.pentaho.di.core.Const;
@@ -26,6 +36,9 @@ import org.pentaho.hadoop.hbase.factory.HBase10ClientFactory;
 import org.pentaho.hadoop.shim.api.internal.process.RequiredCredentialsToken;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Extends the mapred TableInputFormat and adds the ability to specify the table to read from via a property (rather
@@ -39,7 +52,9 @@ import java.io.IOException;
  * hbase.mapreduce.scan.cachedrows // number of rows for caching that will be passed to scanners
  * hbase.mapreduce.scan.timestamp // timestamp used to filter columns with a specific time stamp
  * hbase.mapreduce.scan.timerange.start // starting timestamp to filter in a given timestamp range
- * hbase.mapreduce.scan.timerange.end // end timestamp to filter in a given timestamp range </code>
+ * hbase.mapreduce.scan.timerange.end // end timestamp to filter in a given timestamp range
+ * hbase.mapred.split.region.maxsize // regions larger than this many bytes are read by several map tasks
+ * hbase.mapred.split.region.maxsubsplits // the most map tasks a single region is divided between </code>
  *
  * @author Mark Hall (mhall{[at]}pentaho{[dot]}com)
  */
@@ -78,6 +93,20 @@ public class PentahoTableInputFormat extends TableInputFormat {
    */
   public static final String SCAN_TIMERANGE_END = "hbase.mapreduce.scan.timerange.end";
 
+  /**
+   * Regions whose store files are larger than this many bytes (long) are divided into several key sub-ranges, each
+   * read by its own map task. Sub-splitting is disabled when this is not set. When it is enabled every region gets at
+   * least one split of its own.
+   */
+  public static final String SPLIT_REGION_MAX_SIZE = "hbase.mapred.split.region.maxsize";
+
+  /**
+   * The maximum number of sub-ranges (integer) a single region is divided into.
+   */
+  public static final String SPLIT_REGION_MAX_SUBSPLITS = "hbase.mapred.split.region.maxsubsplits";
+
+  public static final int DEFAULT_SPLIT_REGION_MAX_SUBSPLITS = 16;
+
   protected final Log PLOG = LogFactory.getLog( PentahoTableInputFormat.class );
 
   private PentahoTableInputFormat delegate;
@@ -159,6 +188,74 @@ public class PentahoTableInputFormat extends TableInputFormat {
     }
   }
 
+  @Override
+  public InputSplit[] getSplits( JobConf job, int numSplits ) throws IOException {
+    long maxRegionSize = job.getLong( SPLIT_REGION_MAX_SIZE, 0L );
+    if ( maxRegionSize <= 0 ) {
+      return super.getSplits( job, numSplits );
+    }
+    int maxSubSplits = job.getInt( SPLIT_REGION_MAX_SUBSPLITS, DEFAULT_SPLIT_REGION_MAX_SUBSPLITS );
+    TableName tableName = TableName.valueOf( job.get( INPUT_TABLE ) );
+
+    List<InputSplit> splits = new ArrayList<>();
+    try ( Connection connection = ConnectionFactory.createConnection( HBaseConfiguration.create( job ) );
+          RegionLocator regionLocator = connection.getRegionLocator( tableName );
+          Admin admin = connection.getAdmin() ) {
+      RegionSizeCalculator sizeCalculator = new RegionSizeCalculator( regionLocator, admin );
+      for ( HRegionLocation location : regionLocator.getAllRegionLocations() ) {
+        RegionInfo region = location.getRegion();
+        int subSplits = getSubSplitCount( sizeCalculator.getRegionSize( region.getRegionName() ), maxRegionSize,
+          maxSubSplits );
+        // every sub-range keeps the region's host, so map tasks stay data-local
+        splits.addAll(
+          createSubSplits( tableName, region.getStartKey(), region.getEndKey(), location.getHostname(), subSplits ) );
+      }
+    }
+    if ( PLOG.isDebugEnabled() ) {
+      PLOG.debug( "Created " + splits.size() + " splits for table " + tableName.getNameAsString() );
+    }
+    return splits.toArray( new InputSplit[ 0 ] );
+  }
+
+  static int getSubSplitCount( long regionSize, long maxRegionSize, int maxSubSplits ) {
+    if ( regionSize <= maxRegionSize ) {
+      return 1;
+    }
+    long count = ( regionSize + maxRegionSize - 1 ) / maxRegionSize;
+    return (int) Math.max( 1, Math.min( count, maxSubSplits ) );
+  }
+
+  /**
+   * Divides a region's key range into roughly uniform sub-ranges. Empty start and end keys are treated as the lowest
+   * and highest possible keys while computing split points, and are kept as-is on the first and last split.
+   */
+  static List<TableSplit> createSubSplits( TableName tableName, byte[] startKey, byte[] endKey, String location,
+                                           int subSplits ) {
+    List<TableSplit> result = new ArrayList<>( subSplits );
+    byte[][] splitKeys = null;
+    if ( subSplits > 1 ) {
+      byte[] lower = startKey.length == 0 ? new byte[] { 0 } : startKey;
+      byte[] upper = endKey;
+      if ( upper.length == 0 ) {
+        upper = new byte[ Math.max( 1, lower.length ) ];
+        Arrays.fill( upper, (byte) -1 );
+      }
+      if ( Bytes.compareTo( lower, upper ) < 0 ) {
+        splitKeys = Bytes.split( lower, upper, true, subSplits - 1 );
+      }
+    }
+    if ( splitKeys == null ) {
+      result.add( new TableSplit( tableName, startKey, endKey, location ) );
+      return result;
+    }
+    splitKeys[ 0 ] = startKey;
+    splitKeys[ splitKeys.length - 1 ] = endKey;
+    for ( int i = 0; i < splitKeys.length - 1; i++ ) {
+      result.add( new TableSplit( tableName, splitKeys[ i ], splitKeys[ i + 1 ], location ) );
+    }
+    return result;
+  }
+
   protected void setHBaseTable( Configuration conf, String tableName ) throws IOException {
     delegate.setHBaseTable( conf, tableName );
   }
@@ -54,6 +54,10 @@ public class PentahoTableRecordReaderImpl {
   private Long timeStamp;
   private Long timeStampStart;
   private Long timeStampEnd;
+  private byte[][][] parsedInputColumns;
+
+  private static volatile Method parseColumnMethod;
+  private static volatile boolean parseColumnResolved;
 
   /**
    * Restart from survivable exceptions by creating a new scanner.
@@ -66,7 +70,7 @@ public class PentahoTableRecordReaderImpl {
     if ( ( endRow != null ) && ( endRow.length > 0 ) ) {
       if ( trrRowFilter != null ) {
         scan = new Scan( firstRow, endRow );
-        configureScanWithInputColumns( scan, trrInputColumns );
+        configureScanWithParsedColumns( scan, getParsedInputColumns() );
         scan.setFilter( trrRowFilter );
 
         scan.setCacheBlocks( false );
@@ -74,13 +78,13 @@ public class PentahoTableRecordReaderImpl {
         LOG.debug( "TIFB.restart, firstRow: " + Bytes.toStringBinary( firstRow ) + ", endRow: "
           + Bytes.toStringBinary( endRow ) );
         scan = new Scan( firstRow, endRow );
-        configureScanWithInputColumns( scan, trrInputColumns );
+        configureScanWithParsedColumns( scan, getParsedInputColumns() );
       }
     } else {
       LOG.debug( "TIFB.restart, firstRow: " + Bytes.toStringBinary( firstRow ) + ", no endRow" );
 
       scan = new Scan( firstRow );
-      configureScanWithInputColumns( scan, trrInputColumns );
+      configureScanWithParsedColumns( scan, getParsedInputColumns() );
     }
 
     if ( scanCacheRows > 0 ) {
@@ -104,20 +108,11 @@ public class PentahoTableRecordReaderImpl {
    * @param inputColumns input columns in old-style family:column format
    */
   protected static void configureScanWithInputColumns( Scan scan, byte[][] inputColumns ) {
-    for ( byte[] familyAndQualifier : inputColumns ) {
-      byte[][] fq = null;
-      try {
-        Method method = KeyValue.class.getMethod( "parseColumn", (Class[]) new Class[] { byte[].class } );
-        fq = (byte[][]) method.invoke( null, familyAndQualifier );
-      } catch ( Exception e1 ) {
-        try {
-          Method method = CellUtil.class.getMethod( "parseColumn", (Class[]) new Class[] { byte[].class } );
-          fq = (byte[][]) method.invoke( null, familyAndQualifier );
-        } catch ( Exception e2 ) {
-          LOG.debug( "TIFB.configureScanWithInputColumns: error calling the parseColumn method." );
-        }
-      }
+    configureScanWithParsedColumns( scan, parseColumns( inputColumns ) );
+  }
 
+  private static void configureScanWithParsedColumns( Scan scan, byte[][][] parsedColumns ) {
+    for ( byte[][] fq : parsedColumns ) {
       if ( fq == null ) {
         return;
       }
@@ -130,6 +125,46 @@ public class PentahoTableRecordReaderImpl {
     }
   }
 
+  /**
+   * Splits each family:column into its parts. The entry for a column that can't be parsed is null.
+   */
+  static byte[][][] parseColumns( byte[][] inputColumns ) {
+    byte[][][] parsed = new byte[ inputColumns.length ][][];
+    Method parseColumn = getParseColumnMethod();
+    for ( int i = 0; i < inputColumns.length; i++ ) {
+      if ( parseColumn == null ) {
+        break;
+      }
+      try {
+        parsed[ i ] = (byte[][]) parseColumn.invoke( null, (Object) inputColumns[ i ] );
+      } catch ( Exception e ) {
+        LOG.debug( "TIFB.configureScanWithInputColumns: error calling the parseColumn method." );
+      }
+    }
+    return parsed;
+  }
+
+  /**
+   * parseColumn moved from KeyValue to CellUtil between HBase versions, look it up once per class loader
+   */
+  private static Method getParseColumnMethod() {
+    if ( !parseColumnResolved ) {
+      Method method = null;
+      try {
+        method = KeyValue.class.getMethod( "parseColumn", byte[].class );
+      } catch ( NoSuchMethodException e1 ) {
+        try {
+          method = CellUtil.class.getMethod( "parseColumn", byte[].class );
+        } catch ( NoSuchMethodException e2 ) {
+          LOG.debug( "TIFB.configureScanWithInputColumns: no parseColumn method found." );
+        }
+      }
+      parseColumnMethod = method;
+      parseColumnResolved = true;
+    }
+    return parseColumnMethod;
+  }
+
   public void setScanCacheRowSize( int size ) {
     scanCacheRows = size;
   }
@@ -168,6 +203,14 @@ public class PentahoTableRecordReaderImpl {
    */
   public void setInputColumns( final byte[][] inputColumns ) {
     this.trrInputColumns = inputColumns;
+    this.parsedInputColumns = null;
+  }
+
+  private byte[][][] getParsedInputColumns() {
+    if ( parsedInputColumns == null ) {
+      parsedInputColumns = parseColumns( trrInputColumns );
+    }
+    return parsedInputColumns;
   }
 
   /**
@@ -22,12 +22,11 @@ import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.BinaryComparator;
 import org.apache.hadoop.hbase.filter.BinaryPrefixComparator;
 import org.apache.hadoop.hbase.filter.CompareFilter;
 import org.apache.hadoop.hbase.filter.FamilyFilter;
 import org.apache.hadoop.hbase.filter.Filter;
-import org.apache.hadoop.hbase.filter.FilterList;
-import org.apache.hadoop.hbase.filter.PrefixFilter;
 import org.apache.hadoop.hbase.filter.QualifierFilter;
 import org.apache.hadoop.hbase.filter.RegexStringComparator;
 import org.apache.hadoop.hbase.filter.RowFilter;
@@ -36,6 +35,7 @@ import org.apache.hadoop.hbase.filter.SubstringComparator;
 import org.apache.hadoop.hbase.filter.TimestampsFilter;
 import org.apache.hadoop.hbase.filter.ValueFilter;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.logging.KettleLogStore;
 import org.pentaho.di.core.logging.LogChannelInterface;
 import org.pentaho.di.core.variables.VariableSpace;
@@ -54,7 +54,6 @@ import org.pentaho.hbase.factory.HBasePut;
 import org.pentaho.hbase.factory.HBaseTable;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
@@ -62,13 +61,16 @@ import java.text.DecimalFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Properties;
 import java.util.Set;
-import java.util.function.BiConsumer;
 
 /**
  * Concrete implementation for Hadoop 20.x.
@@ -84,6 +86,9 @@ public class CommonHBaseConnection implements HBaseConnection, IHBaseClientFacto
 
   protected HBaseTable m_sourceTable;
   protected Scan m_sourceScan;
+  protected ScanFilterPlanner m_scanFilterPlanner;
+  protected final Map<String, DecimalFormat> m_decimalFormats = new HashMap<>();
+  protected final Map<String, SimpleDateFormat> m_dateFormats = new HashMap<>();
   protected ResultScanner m_resultSet;
   protected Result m_currentResultSetRow;
   protected HBaseTable m_targetTable;
@@ -132,33 +137,27 @@ public class CommonHBaseConnection implements HBaseConnection, IHBaseClientFacto
       boolean namedClusterIsMapr = Boolean.parseBoolean( connProps.getProperty( SHIM_IS_MAPR, "false" ) );
 
       m_config = new Configuration();
-      BiConsumer<InputStream, String> consumer = ( is, filename ) -> m_config.addResource( is, filename );
-
       try {
         if ( namedClusterIsMapr ) {
-          ShimConfigsLoader.addConfigsAsResources( namedCluster, consumer,
-            ShimConfigsLoader.ClusterConfigNames.CORE_SITE.toString() );
-          ShimConfigsLoader.addConfigsAsResources( namedCluster, consumer,
-            ShimConfigsLoader.ClusterConfigNames.HDFS_SITE.toString() );
-          ShimConfigsLoader.addConfigsAsResources( namedCluster, consumer,
-            ShimConfigsLoader.ClusterConfigNames.YARN_SITE.toString() );
-          ShimConfigsLoader.addConfigsAsResources( namedCluster, consumer,
-            ShimConfigsLoader.ClusterConfigNames.MAPRED_SITE.toString() );
-          ShimConfigsLoader.addConfigsAsResources( namedCluster, consumer,
-            ShimConfigsLoader.ClusterConfigNames.HIVE_SITE.toString() );
+          ShimConfigsLoader.addConfigsAsResources( namedCluster, m_config, Arrays.asList(
+            ShimConfigsLoader.ClusterConfigNames.CORE_SITE.toString(),
+            ShimConfigsLoader.ClusterConfigNames.HDFS_SITE.toString(),
+            ShimConfigsLoader.ClusterConfigNames.YARN_SITE.toString(),
+            ShimConfigsLoader.ClusterConfigNames.MAPRED_SITE.toString(),
+            ShimConfigsLoader.ClusterConfigNames.HIVE_SITE.toString() ) );
         }
         if ( !HBaseConnection.isEmpty( defaultConfig ) ) {
           m_config.addResource( HBaseConnection.stringToURL( defaultConfig ) );
         } else {
-          ShimConfigsLoader.addConfigsAsResources( namedCluster, consumer,
-            ShimConfigsLoader.ClusterConfigNames.HBASE_DEFAULT.toString() );
+          ShimConfigsLoader.addConfigsAsResources( namedCluster, m_config, Collections.singletonList(
+            ShimConfigsLoader.ClusterConfigNames.HBASE_DEFAULT.toString() ) );
         }
 
         if ( !HBaseConnection.isEmpty( siteConfig ) ) {
           m_config.addResource( HBaseConnection.stringToURL( siteConfig ) );
         } else {
-          ShimConfigsLoader.addConfigsAsResources( namedCluster, consumer,
-            ShimConfigsLoader.ClusterConfigNames.HBASE_SITE.toString() );
+          ShimConfigsLoader.addConfigsAsResources( namedCluster, m_config, Collections.singletonList(
+            ShimConfigsLoader.ClusterConfigNames.HBASE_SITE.toString() ) );
         }
       } catch ( MalformedURLException e ) {
         throw new IllegalArgumentException(
@@ -476,12 +475,40 @@ public class CommonHBaseConnection implements HBaseConnection, IHBaseClientFacto
     return ( !r.isEmpty() );
   }
 
+  @Override
+  public List<Object> getSourceTableRows( List<byte[]> rowKeys ) throws Exception {
+
+    checkConfiguration();
+    checkSourceTable();
+    Result[] results = m_sourceTable.get( toGets( rowKeys ) );
+
+    return new ArrayList<Object>( Arrays.asList( results ) );
+  }
+
+  @Override
+  public boolean[] sourceTableRowsExist( List<byte[]> rowKeys ) throws Exception {
+
+    checkConfiguration();
+    checkSourceTable();
+
+    return m_sourceTable.exists( toGets( rowKeys ) );
+  }
+
+  protected List<Get> toGets( List<byte[]> rowKeys ) {
+    List<Get> gets = new ArrayList<Get>( rowKeys.size() );
+    for ( byte[] rowKey : rowKeys ) {
+      gets.add( new Get( rowKey ) );
+    }
+    return gets;
+  }
+
   @Override
   public void newSourceTableScan( byte[] keyLowerBound, byte[] keyUpperBound, int cacheSize ) throws Exception {
 
     checkConfiguration();
     checkSourceTable();
     closeSourceResultSet();
+    m_scanFilterPlanner = null;
 
     if ( keyLowerBound != null ) {
       if ( keyUpperBound != null ) {
@@ -507,7 +534,8 @@ public class CommonHBaseConnection implements HBaseConnection, IHBaseClientFacto
   }
 
   /**
-   * Add a column filter to the list of filters that the scanner will apply to rows server-side.
+   * Add a column filter to the list of filters that the scanner will apply to rows server-side. Filters are collected
+   * by a {@link ScanFilterPlanner} and only turned into the scan's key range and filter list when the scan is executed.
    *
    * @param cf         the column filter to add
    * @param columnMeta the meta data for the column used in the filter to add
@@ -526,9 +554,7 @@ public class CommonHBaseConnection implements HBaseConnection, IHBaseClientFacto
     try {
       Thread.currentThread().setContextClassLoader( getClass().getClassLoader() );
 
-      createEmptyFilterIfNull( matchAny );
-
-      FilterList fl = (FilterList) m_sourceScan.getFilter();
+      ScanFilterPlanner planner = getScanFilterPlanner( matchAny );
 
       ColumnFilter.ComparisonType op = cf.getComparisonOperator();
       CompareFilter.CompareOp comp = getCompareOpByComparisonType( op );
@@ -541,6 +567,14 @@ public class CommonHBaseConnection implements HBaseConnection, IHBaseClientFacto
 
       if ( comp != null ) {
 
+        if ( columnMeta.isKey() ) {
+          byte[] keyBound = encodeKeyBound( cf, columnMeta, columnMeta.getKeyType(), vars, comparisonString );
+          if ( keyBound != null ) {
+            addKeyFilter( planner, comp, keyBound );
+            return;
+          }
+        }
+
         // do the numeric comparison stuff
         if ( columnMeta.isNumeric() ) {
           if ( !cf.getSignedComparison() && columnMeta.isInteger() ) {
@@ -561,6 +595,16 @@ public class CommonHBaseConnection implements HBaseConnection, IHBaseClientFacto
           }
           comparator = getBooleanComparator( decodedB );
         }
+
+        if ( columnMeta.isKey() ) {
+          if ( columnMeta.isNumeric() || columnMeta.isDate() ) {
+            // the bound is not encoded like the stored keys, so its bytes can't delimit a key range
+            addKeyRowFilter( planner, comp, comparator == null ? comparison : comparator );
+          } else {
+            addKeyFilter( planner, comp, comparator == null ? comparison : comparator );
+          }
+          return;
+        }
       } else {
         comp = CompareFilter.CompareOp.EQUAL;
         if ( cf.getComparisonOperator() == ColumnFilter.ComparisonType.SUBSTRING ) {
@@ -568,22 +612,27 @@ public class CommonHBaseConnection implements HBaseConnection, IHBaseClientFacto
         } else if ( cf.getComparisonOperator() == ColumnFilter.ComparisonType.REGEX ) {
           comparator = new RegexStringComparator( comparisonString );
         } else /*if ( cf.getComparisonOperator() == ColumnFilter.ComparisonType.PREFIX )*/ {
-          //First of all check if it is Key in this case prefix filter is more appreciable
+          //First of all check if it is Key in this case a key range is more appreciable
           if ( columnMeta.isKey() ) {
-            PrefixFilter scf = new PrefixFilter( comparison );
-            fl.addFilter( scf );
+            planner.addKeyRange( ScanFilterPlanner.KeyRange.forPrefix( comparison ) );
             return;
           }
           comparator = new BinaryPrefixComparator( comparison );
           // comparator == null means prefix was chosen
         }
+        if ( columnMeta.isKey() ) {
+          planner.addFilter( createFilter( RowFilter.class, comp, comparatorClass, comparator ),
+            ScanFilterPlanner.COST_ROW_KEY );
+          return;
+        }
       }
 
       if ( comparator != null ) {
         Mapping.TupleMapping tupleMapping;
         tupleMapping = getTupleMappingByName( cf.getFieldAlias().toUpperCase() );
         if ( tupleMapping != null ) {
-          addFilterByMapping( fl, comp, comparatorClass, comparator, tupleMapping );
+          planner.addFilter( createFilterByMapping( comp, comparatorClass, comparator, tupleMapping ),
+            tupleMapping == Mapping.TupleMapping.KEY ? ScanFilterPlanner.COST_ROW_KEY : getFilterCost( op ) );
           return;
         }
         byte[] family = m_bytesUtil.toBytes( columnMeta.getColumnFamily() );
@@ -595,27 +644,112 @@ public class CommonHBaseConnection implements HBaseConnection, IHBaseClientFacto
             .getConstructor( byte[].class, byte[].class, CompareFilter.CompareOp.class, comparatorClass );
         SingleColumnValueFilter scf = scvfCtor.newInstance( family, qualifier, comp, comparator );
         scf.setFilterIfMissing( true );
-        fl.addFilter( scf );
-      } else {
-        //First of all check if it is Key
-        if ( columnMeta.isKey() ) {
-          PrefixFilter scf = new PrefixFilter( comparison );
-          fl.addFilter( scf );
-        }
+        planner.addFilter( scf, getFilterCost( op ) );
       }
     } finally {
       Thread.currentThread().setContextClassLoader( cl );
     }
   }
 
+  /**
+   * Adds a comparison against the row key. Keys compared as raw bytes become key ranges, anything else (e.g. signed
+   * numeric comparisons) is evaluated by a row filter.
+   */
+  protected void addKeyFilter( ScanFilterPlanner planner, CompareFilter.CompareOp comp, Object comparator )
+    throws Exception {
+    if ( comparator instanceof byte[] ) {
+      ScanFilterPlanner.KeyRange keyRange = ScanFilterPlanner.KeyRange.forComparison( comp, (byte[]) comparator );
+      if ( keyRange != null ) {
+        planner.addKeyRange( keyRange );
+        return;
+      }
+    }
+    addKeyRowFilter( planner, comp, comparator );
+  }
+
+  /**
+   * Adds a comparison against the row key that is evaluated by a row filter, never by a key range.
+   */
+  protected void addKeyRowFilter( ScanFilterPlanner planner, CompareFilter.CompareOp comp, Object comparator )
+    throws Exception {
+    if ( comparator instanceof byte[] ) {
+      comparator = new BinaryComparator( (byte[]) comparator );
+    }
+    planner.addFilter( createFilter( RowFilter.class, comp, getByteArrayComparableClass(), comparator ),
+      ScanFilterPlanner.COST_ROW_KEY );
+  }
+
+  /**
+   * Encodes the comparison constant of a numeric or date key the way the keys themselves are stored (see
+   * {@link HBaseValueMeta#encodeKeyValue(Object, Mapping.KeyType, HBaseBytesUtilShim)}), so that comparing bytes
+   * orders like comparing values. Returns null when the mapping's key type is unknown or does not match the type of
+   * the column, and for negative constants against unsigned keys; the caller then falls back to a row filter.
+   *
+   * @param keyType the key type of the table mapping, may be null
+   */
+  protected byte[] encodeKeyBound( ColumnFilter cf, HBaseValueMeta columnMeta, Mapping.KeyType keyType,
+                                   VariableSpace vars, String comparisonString ) throws ParseException {
+    if ( keyType == null ) {
+      return null;
+    }
+    String formatS = vars.environmentSubstitute( cf.getFormat() );
+    Object keyValue;
+    switch ( keyType ) {
+      case INTEGER:
+      case UNSIGNED_INTEGER:
+      case LONG:
+      case UNSIGNED_LONG:
+        if ( !columnMeta.isInteger() ) {
+          return null;
+        }
+        Number num = getDecimalFormat( formatS ).parse( comparisonString );
+        keyValue = keyType == Mapping.KeyType.LONG || keyType == Mapping.KeyType.UNSIGNED_LONG
+          ? (Object) num.longValue() : (Object) num.intValue();
+        break;
+      case DATE:
+      case UNSIGNED_DATE:
+        if ( !columnMeta.isDate() ) {
+          return null;
+        }
+        keyValue = getDateFormat( formatS ).parse( comparisonString );
+        break;
+      default:
+        return null;
+    }
+    try {
+      return HBaseValueMeta.encodeKeyValue( keyValue, keyType, m_bytesUtil );
+    } catch ( KettleException e ) {
+      // a negative bound of an unsigned key, the caller adds a row filter instead
+      return null;
+    }
+  }
+
+  protected ScanFilterPlanner getScanFilterPlanner( boolean matchAny ) {
+    if ( m_scanFilterPlanner == null ) {
+      m_scanFilterPlanner = new ScanFilterPlanner( matchAny );
+    }
+    return m_scanFilterPlanner;
+  }
+
+  protected int getFilterCost( ColumnFilter.ComparisonType op ) {
+    switch ( op ) {
+      case EQUAL:
+        return ScanFilterPlanner.COST_EQUAL;
+      case NOT_EQUAL:
+        return ScanFilterPlanner.COST_NOT_EQUAL;
+      case SUBSTRING:
+        return ScanFilterPlanner.COST_SUBSTRING;
+      case REGEX:
+        return ScanFilterPlanner.COST_REGEX;
+      default:
+        return ScanFilterPlanner.COST_RANGE;
+    }
+  }
+
   protected Object getNumericComparator( ColumnFilter cf, HBaseValueMeta columnMeta, VariableSpace vars,
                                          String comparisonString ) throws Exception {
-    DecimalFormat df = new DecimalFormat();
     String formatS = vars.environmentSubstitute( cf.getFormat() );
-    if ( !HBaseConnection.isEmpty( formatS ) ) {
-      df.applyPattern( formatS );
-    }
-    Number num = df.parse( comparisonString );
+    Number num = getDecimalFormat( formatS ).parse( comparisonString );
 
     Object comparator;
     if ( cf.getSignedComparison() ) {
@@ -648,14 +782,10 @@ public class CommonHBaseConnection implements HBaseConnection, IHBaseClientFacto
   protected Object getDateComparator( ColumnFilter cf, VariableSpace vars, String comparisonString )
     throws ParseException, ClassNotFoundException, NoSuchMethodException, InstantiationException,
     IllegalAccessException, java.lang.reflect.InvocationTargetException {
-    SimpleDateFormat sdf = new SimpleDateFormat();
     String formatS = vars.environmentSubstitute( cf.getFormat() );
-    if ( !HBaseConnection.isEmpty( formatS ) ) {
-      sdf.applyPattern( formatS );
-    }
 
     Object comparator;
-    Date d = sdf.parse( comparisonString );
+    Date d = getDateFormat( formatS ).parse( comparisonString );
     long dateAsMillis = d.getTime();
     if ( !cf.getSignedComparison() ) {
       comparator = m_bytesUtil.toBytes( dateAsMillis );
@@ -670,6 +800,29 @@ public class CommonHBaseConnection implements HBaseConnection, IHBaseClientFacto
     return comparator;
   }
 
+  /**
+   * Formats are cached per pattern, a connection is only used by one thread at a time
+   */
+  protected DecimalFormat getDecimalFormat( String pattern ) {
+    return m_decimalFormats.computeIfAbsent( HBaseConnection.isEmpty( pattern ) ? "" : pattern, p -> {
+      DecimalFormat df = new DecimalFormat();
+      if ( !p.isEmpty() ) {
+        df.applyPattern( p );
+      }
+      return df;
+    } );
+  }
+
+  protected SimpleDateFormat getDateFormat( String pattern ) {
+    return m_dateFormats.computeIfAbsent( HBaseConnection.isEmpty( pattern ) ? "" : pattern, p -> {
+      SimpleDateFormat sdf = new SimpleDateFormat();
+      if ( !p.isEmpty() ) {
+        sdf.applyPattern( p );
+      }
+      return sdf;
+    } );
+  }
+
   protected Object getSignedComparisonComparator( HBaseValueMeta columnMeta, Number num ) throws Exception {
     // custom comparator for signed comparison, specific to each shim due to HBase API changes
     Class<?> deserializedNumericComparatorClass = getDeserializedNumericComparatorClass();
@@ -697,47 +850,36 @@ public class CommonHBaseConnection implements HBaseConnection, IHBaseClientFacto
     return comparator;
   }
 
-  void addFilterByMapping( FilterList fl, CompareFilter.CompareOp comp, Class<?> comparatorClass, Object comparator,
-                           Mapping.TupleMapping tupleMapping )
+  Filter createFilterByMapping( CompareFilter.CompareOp comp, Class<?> comparatorClass, Object comparator,
+                                Mapping.TupleMapping tupleMapping )
     throws NoSuchMethodException, InstantiationException, IllegalAccessException,
     java.lang.reflect.InvocationTargetException {
     switch ( tupleMapping ) {
-      case KEY: {
-        addFilter( RowFilter.class, fl, comp, comparatorClass, comparator );
-        return;
-      }
-      case FAMILY: {
-        addFilter( FamilyFilter.class, fl, comp, comparatorClass, comparator );
-        return;
-      }
-      case COLUMN: {
+      case KEY:
+        return createFilter( RowFilter.class, comp, comparatorClass, comparator );
+      case FAMILY:
+        return createFilter( FamilyFilter.class, comp, comparatorClass, comparator );
+      case COLUMN:
         //TODO Check if ColumnPrefixFilter works faster and suit more
-
-        addFilter( QualifierFilter.class, fl, comp, comparatorClass, comparator );
-        return;
-      }
-      case VALUE: {
-        addFilter( ValueFilter.class, fl, comp, comparatorClass, comparator );
-        return;
-      }
-      case TIMESTAMP: {
-        addFilter( TimestampsFilter.class, fl, comp, comparatorClass, comparator );
+        return createFilter( QualifierFilter.class, comp, comparatorClass, comparator );
+      case VALUE:
+        return createFilter( ValueFilter.class, comp, comparatorClass, comparator );
+      case TIMESTAMP:
         //        Constructor<TimestampsFilter> columnFilterConstructor =
         //          TimestampsFilter.class.getConstructor( CompareFilter.CompareOp.class, comparatorClass );
         //        TimestampsFilter scf = columnFilterConstructor.newInstance( comp, comparator );
-        //        fl.addFilter( scf );
-        return;
-      }
+        return createFilter( TimestampsFilter.class, comp, comparatorClass, comparator );
+      default:
+        throw new IllegalArgumentException( "Unknown tuple mapping " + tupleMapping );
     }
   }
 
-  protected <T extends Filter> void addFilter( Class<T> filterClass, FilterList fl, CompareFilter.CompareOp comp,
+  protected <T extends Filter> T createFilter( Class<T> filterClass, CompareFilter.CompareOp comp,
                                                Class<?> comparatorClass, Object comparator )
     throws NoSuchMethodException, InstantiationException, IllegalAccessException,
     java.lang.reflect.InvocationTargetException {
     Constructor<T> constructor = filterClass.getConstructor( CompareFilter.CompareOp.class, comparatorClass );
-    T scf = constructor.newInstance( comp, comparator );
-    fl.addFilter( scf );
+    return constructor.newInstance( comp, comparator );
   }
 
   protected Mapping.TupleMapping getTupleMappingByName( String name ) {
@@ -750,16 +892,6 @@ public class CommonHBaseConnection implements HBaseConnection, IHBaseClientFacto
     return tupleMapping;
   }
 
-  protected void createEmptyFilterIfNull( boolean matchAny ) {
-    if ( m_sourceScan.getFilter() == null ) {
-      // create a new FilterList
-      FilterList
-        fl =
-        new FilterList( matchAny ? FilterList.Operator.MUST_PASS_ONE : FilterList.Operator.MUST_PASS_ALL );
-      m_sourceScan.setFilter( fl );
-    }
-  }
-
   protected CompareFilter.CompareOp getCompareOpByComparisonType( ColumnFilter.ComparisonType op ) {
     CompareFilter.CompareOp comp;
     switch ( op ) {
@@ -840,10 +972,8 @@ public class CommonHBaseConnection implements HBaseConnection, IHBaseClientFacto
     checkSourceTable();
     checkSourceScan();
 
-    if ( m_sourceScan.getFilter() != null ) {
-      if ( ( (FilterList) m_sourceScan.getFilter() ).getFilters().size() == 0 ) {
-        m_sourceScan.setFilter( null );
-      }
+    if ( m_scanFilterPlanner != null ) {
+      m_scanFilterPlanner.apply( m_sourceScan );
     }
 
     m_resultSet = m_sourceTable.getScanner( m_sourceScan );
@@ -964,6 +1094,14 @@ public class CommonHBaseConnection implements HBaseConnection, IHBaseClientFacto
     checkConfiguration();
     closeTargetTable();
 
+    String bulkLoadStagingDir = props != null ? props.getProperty( HTABLE_BULK_LOAD_STAGING_DIR_KEY ) : null;
+    if ( bulkLoadStagingDir != null ) {
+      String bufferSize = props.getProperty( HTABLE_BULK_LOAD_BUFFER_SIZE_KEY );
+      m_targetTable = m_factory.getHBaseBulkLoadTable( tableName, bulkLoadStagingDir,
+        bufferSize != null ? Long.parseLong( bufferSize ) : -1L );
+      return;
+    }
+
     m_targetTable = m_factory.getHBaseTable( tableName );
 
     if ( props != null ) {
@@ -0,0 +1,301 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.hbase.shim.common;
+
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.BinaryComparator;
+import org.apache.hadoop.hbase.filter.CompareFilter;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.MultiRowRangeFilter;
+import org.apache.hadoop.hbase.filter.RowFilter;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Collects the filters added to a source table scan and turns them into the cheapest equivalent scan when it is
+ * executed.
+ * <p>
+ * Conditions on the row key that can be expressed as key ranges are not evaluated server-side row by row. In "match
+ * all" mode they narrow the scan start and stop rows, so only the regions that can contain matches are read. In "match
+ * any" mode a list made only of key ranges becomes a {@link MultiRowRangeFilter}. The remaining filters are ordered
+ * so that cheap, selective ones run first and the {@link FilterList} can stop at the first one that rejects a row.
+ */
+public class ScanFilterPlanner {
+
+  /**
+   * Relative cost of evaluating a filter, lower runs first
+   */
+  public static final int COST_ROW_KEY = 0;
+  public static final int COST_EQUAL = 1;
+  public static final int COST_RANGE = 2;
+  public static final int COST_NOT_EQUAL = 3;
+  public static final int COST_SUBSTRING = 4;
+  public static final int COST_REGEX = 5;
+
+  private final boolean matchAny;
+  private final List<KeyRange> keyRanges = new ArrayList<>();
+  private final List<RankedFilter> filters = new ArrayList<>();
+
+  public ScanFilterPlanner( boolean matchAny ) {
+    this.matchAny = matchAny;
+  }
+
+  public boolean isMatchAny() {
+    return matchAny;
+  }
+
+  public void addKeyRange( KeyRange keyRange ) {
+    keyRanges.add( keyRange );
+  }
+
+  public void addFilter( Filter filter, int cost ) {
+    filters.add( new RankedFilter( filter, cost ) );
+  }
+
+  /**
+   * Applies the collected conditions to the scan, replacing any filter it already has
+   *
+   * @param scan the scan to configure
+   */
+  public void apply( Scan scan ) {
+    KeyRange scanRange = KeyRange.of( scan );
+    List<Filter> ordered = orderedFilters();
+    if ( !matchAny ) {
+      KeyRange range = scanRange;
+      for ( KeyRange keyRange : keyRanges ) {
+        range = range.intersect( keyRange );
+      }
+      range.applyTo( scan );
+      scan.setFilter( ordered.isEmpty() ? null : new FilterList( FilterList.Operator.MUST_PASS_ALL, ordered ) );
+    } else if ( ordered.isEmpty() && !keyRanges.isEmpty() ) {
+      List<MultiRowRangeFilter.RowRange> rowRanges = new ArrayList<>();
+      KeyRange span = null;
+      for ( KeyRange keyRange : keyRanges ) {
+        KeyRange range = scanRange.intersect( keyRange );
+        if ( !range.isEmpty() ) {
+          rowRanges.add( range.toRowRange() );
+          span = span == null ? range : span.span( range );
+        }
+      }
+      if ( span == null ) {
+        // none of the ranges overlaps the scan, so nothing can match
+        scanRange.intersect( keyRanges.get( 0 ) ).applyTo( scan );
+        scan.setFilter( null );
+      } else {
+        span.applyTo( scan );
+        scan.setFilter( new MultiRowRangeFilter( rowRanges ) );
+      }
+    } else {
+      List<Filter> any = new ArrayList<>();
+      for ( KeyRange keyRange : keyRanges ) {
+        any.add( keyRange.toFilter() );
+      }
+      any.addAll( ordered );
+      scan.setFilter( any.isEmpty() ? null : new FilterList( FilterList.Operator.MUST_PASS_ONE, any ) );
+    }
+  }
+
+  private List<Filter> orderedFilters() {
+    // the sort is stable, so filters of the same cost keep the order they were added in
+    List<RankedFilter> ranked = new ArrayList<>( filters );
+    ranked.sort( Comparator.comparingInt( RankedFilter::getCost ) );
+    List<Filter> result = new ArrayList<>( ranked.size() );
+    for ( RankedFilter rankedFilter : ranked ) {
+      result.add( rankedFilter.filter );
+    }
+    return result;
+  }
+
+  private static class RankedFilter {
+    private final Filter filter;
+    private final int cost;
+
+    private RankedFilter( Filter filter, int cost ) {
+      this.filter = filter;
+      this.cost = cost;
+    }
+
+    private int getCost() {
+      return cost;
+    }
+  }
+
+  /**
+   * A contiguous range of row keys, empty bounds are unbounded
+   */
+  public static class KeyRange {
+    private final byte[] start;
+    private final boolean startInclusive;
+    private final byte[] stop;
+    private final boolean stopInclusive;
+
+    public KeyRange( byte[] start, boolean startInclusive, byte[] stop, boolean stopInclusive ) {
+      this.start = start == null ? HConstants.EMPTY_START_ROW : start;
+      this.startInclusive = startInclusive || this.start.length == 0;
+      this.stop = stop == null ? HConstants.EMPTY_END_ROW : stop;
+      this.stopInclusive = stopInclusive && this.stop.length > 0;
+    }
+
+    /**
+     * Creates the key range matching a comparison against a key, or null if the comparison can't be expressed as a
+     * single range
+     */
+    public static KeyRange forComparison( CompareFilter.CompareOp comp, byte[] key ) {
+      switch ( comp ) {
+        case EQUAL:
+          return new KeyRange( key, true, key, true );
+        case GREATER:
+          return new KeyRange( key, false, null, false );
+        case GREATER_OR_EQUAL:
+          return new KeyRange( key, true, null, false );
+        case LESS:
+          return new KeyRange( null, true, key, false );
+        case LESS_OR_EQUAL:
+          return new KeyRange( null, true, key, true );
+        default:
+          return null;
+      }
+    }
+
+    public static KeyRange forPrefix( byte[] prefix ) {
+      return new KeyRange( prefix, true, nextPrefix( prefix ), false );
+    }
+
+    static KeyRange of( Scan scan ) {
+      return new KeyRange( scan.getStartRow(), scan.includeStartRow(), scan.getStopRow(), scan.includeStopRow() );
+    }
+
+    /**
+     * @return the first key that does not start with the prefix, or null if there is none
+     */
+    static byte[] nextPrefix( byte[] prefix ) {
+      for ( int i = prefix.length - 1; i >= 0; i-- ) {
+        if ( prefix[ i ] != (byte) 0xFF ) {
+          byte[] next = Arrays.copyOf( prefix, i + 1 );
+          next[ i ]++;
+          return next;
+        }
+      }
+      return null;
+    }
+
+    public byte[] getStart() {
+      return start;
+    }
+
+    public boolean isStartInclusive() {
+      return startInclusive;
+    }
+
+    public byte[] getStop() {
+      return stop;
+    }
+
+    public boolean isStopInclusive() {
+      return stopInclusive;
+    }
+
+    public boolean isEmpty() {
+      if ( start.length == 0 || stop.length == 0 ) {
+        return false;
+      }
+      int cmp = Bytes.compareTo( start, stop );
+      return cmp > 0 || ( cmp == 0 && !( startInclusive && stopInclusive ) );
+    }
+
+    public KeyRange intersect( KeyRange other ) {
+      byte[] newStart;
+      boolean newStartInclusive;
+      int startCmp = compareStarts( other );
+      if ( startCmp == 0 ) {
+        newStart = start;
+        newStartInclusive = startInclusive && other.startInclusive;
+      } else {
+        KeyRange later = startCmp > 0 ? this : other;
+        newStart = later.start;
+        newStartInclusive = later.startInclusive;
+      }
+      byte[] newStop;
+      boolean newStopInclusive;
+      int stopCmp = compareStops( other );
+      if ( stopCmp == 0 ) {
+        newStop = stop;
+        newStopInclusive = stopInclusive && other.stopInclusive;
+      } else {
+        KeyRange earlier = stopCmp < 0 ? this : other;
+        newStop = earlier.stop;
+        newStopInclusive = earlier.stopInclusive;
+      }
+      return new KeyRange( newStart, newStartInclusive, newStop, newStopInclusive );
+    }
+
+    /**
+     * @return the smallest range covering both ranges
+     */
+    public KeyRange span( KeyRange other ) {
+      int startCmp = compareStarts( other );
+      int stopCmp = compareStops( other );
+      return new KeyRange(
+        startCmp <= 0 ? start : other.start,
+        startCmp < 0 ? startInclusive : startCmp > 0 ? other.startInclusive : startInclusive || other.startInclusive,
+        stopCmp >= 0 ? stop : other.stop,
+        stopCmp > 0 ? stopInclusive : stopCmp < 0 ? other.stopInclusive : stopInclusive || other.stopInclusive );
+    }
+
+    private int compareStarts( KeyRange other ) {
+      return Bytes.compareTo( start, other.start );
+    }
+
+    private int compareStops( KeyRange other ) {
+      if ( stop.length == 0 || other.stop.length == 0 ) {
+        return stop.length == other.stop.length ? 0 : ( stop.length == 0 ? 1 : -1 );
+      }
+      return Bytes.compareTo( stop, other.stop );
+    }
+
+    void applyTo( Scan scan ) {
+      if ( isEmpty() ) {
+        // an exclusive stop row equal to the start row makes the region servers return nothing
+        scan.withStartRow( start, true );
+        scan.withStopRow( start, false );
+        return;
+      }
+      scan.withStartRow( start, startInclusive );
+      scan.withStopRow( stop, stopInclusive );
+    }
+
+    MultiRowRangeFilter.RowRange toRowRange() {
+      return new MultiRowRangeFilter.RowRange( start, startInclusive, stop, stopInclusive );
+    }
+
+    Filter toFilter() {
+      List<Filter> bounds = new ArrayList<>( 2 );
+      if ( start.length > 0 ) {
+        bounds.add( new RowFilter( startInclusive ? CompareFilter.CompareOp.GREATER_OR_EQUAL
+          : CompareFilter.CompareOp.GREATER, new BinaryComparator( start ) ) );
+      }
+      if ( stop.length > 0 ) {
+        bounds.add( new RowFilter( stopInclusive ? CompareFilter.CompareOp.LESS_OR_EQUAL
+          : CompareFilter.CompareOp.LESS, new BinaryComparator( stop ) ) );
+      }
+      return new FilterList( FilterList.Operator.MUST_PASS_ALL, bounds );
+    }
+  }
+}
@@ -121,6 +121,10 @@ public interface HBaseConnectionInterface {
 
   public abstract boolean sourceTableRowExists( byte[] rowKey ) throws Exception;
 
+  public abstract List<Object> getSourceTableRows( List<byte[]> rowKeys ) throws Exception;
+
+  public abstract boolean[] sourceTableRowsExist( List<byte[]> rowKeys ) throws Exception;
+
   public abstract boolean tableExists( String tableName ) throws Exception;
 
   public abstract boolean targetTableIsAutoFlush() throws Exception;
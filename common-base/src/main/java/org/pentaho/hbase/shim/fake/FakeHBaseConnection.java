@@ -13,6 +13,8 @@
 
 package org.pentaho.hbase.shim.fake;
 
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.hadoop.shim.ShimVersion;
 import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
@@ -785,6 +787,48 @@ public class FakeHBaseConnection implements HBaseConnection {
     return true;
   }
 
+  @Override
+  public List<Object> getSourceTableRows( List<byte[]> rowKeys ) throws Exception {
+    checkSourceTable();
+    FakeTable tab = m_db.get( m_sourceTable );
+    List<Object> rows = new ArrayList<Object>();
+    for ( byte[] rowKey : rowKeys ) {
+      rows.add( toClientResult( tab == null ? null : tab.get( rowKey ) ) );
+    }
+
+    return rows;
+  }
+
+  /**
+   * Converts a row to the client Result HBase itself returns from a get, an empty one if the row doesn't exist
+   */
+  protected org.apache.hadoop.hbase.client.Result toClientResult( Result row ) {
+    if ( row == null ) {
+      return org.apache.hadoop.hbase.client.Result.EMPTY_RESULT;
+    }
+    List<Cell> cells = new ArrayList<Cell>();
+    for ( Entry<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>> family : row.getMap().entrySet() ) {
+      for ( Entry<byte[], NavigableMap<Long, byte[]>> column : family.getValue().entrySet() ) {
+        // HBase orders the versions of a column newest first
+        for ( Entry<Long, byte[]> version : column.getValue().descendingMap().entrySet() ) {
+          cells.add( new KeyValue( row.getRow(), family.getKey(), column.getKey(), version.getKey(),
+            version.getValue() ) );
+        }
+      }
+    }
+    return org.apache.hadoop.hbase.client.Result.create( cells );
+  }
+
+  @Override
+  public boolean[] sourceTableRowsExist( List<byte[]> rowKeys ) throws Exception {
+    boolean[] exists = new boolean[ rowKeys.size() ];
+    for ( int i = 0; i < exists.length; i++ ) {
+      exists[ i ] = sourceTableRowExists( rowKeys.get( i ) );
+    }
+
+    return exists;
+  }
+
   @Override
   public boolean tableExists( String tableName ) throws Exception {
     return ( m_db.get( tableName ) != null );
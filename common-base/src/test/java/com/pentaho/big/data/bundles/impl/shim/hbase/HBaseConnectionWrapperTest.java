@@ -30,6 +30,7 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.List;
 import java.util.NavigableMap;
 import java.util.Properties;
@@ -159,6 +160,22 @@ public class HBaseConnectionWrapperTest {
     assertFalse( hBaseConnectionWrapper.sourceTableRowExists( testBytes ) );
   }
 
+  @Test
+  public void testGetSourceTableRows() throws Exception {
+    List<byte[]> keys = Arrays.asList( testBytes, testBytes2 );
+    List<Object> rows = Arrays.<Object>asList( "row1", "row2" );
+    when( delegate.getSourceTableRows( keys ) ).thenReturn( rows );
+    assertEquals( rows, hBaseConnectionWrapper.getSourceTableRows( keys ) );
+  }
+
+  @Test
+  public void testSourceTableRowsExist() throws Exception {
+    List<byte[]> keys = Arrays.asList( testBytes, testBytes2 );
+    boolean[] exists = new boolean[] { true, false };
+    when( delegate.sourceTableRowsExist( keys ) ).thenReturn( exists );
+    assertArrayEquals( exists, hBaseConnectionWrapper.sourceTableRowsExist( keys ) );
+  }
+
   @Test
   public void testNewSourceTableScan() throws Exception {
     hBaseConnectionWrapper.newSourceTableScan( testBytes, testBytes2, 1 );
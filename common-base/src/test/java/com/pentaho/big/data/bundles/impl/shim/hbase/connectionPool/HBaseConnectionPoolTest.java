@@ -290,6 +290,20 @@ public class HBaseConnectionPoolTest {
     assertEquals( connection, hBaseConnectionPool.getConnectionHandle( table, null ).getConnection() );
   }
 
+  @Test
+  public void testGetConnectionHandleTargetTableRetargetsOnDifferentProps() throws Exception {
+    String table = "table";
+    Properties properties = new Properties();
+    properties.setProperty( "a", "1" );
+    Properties otherProperties = new Properties();
+    otherProperties.setProperty( "a", "2" );
+    hBaseConnectionPool.getConnectionHandle( table, properties ).close();
+    hBaseConnectionPool.getConnectionHandle( table, (Properties) properties.clone() ).close();
+    verify( mockConnections.get( 0 ), times( 1 ) ).newTargetTable( table, properties );
+    hBaseConnectionPool.getConnectionHandle( table, otherProperties ).close();
+    verify( mockConnections.get( 0 ) ).newTargetTable( table, otherProperties );
+  }
+
   @Test
   public void testGetConnectionHandleTargetTableNullProps() throws IOException {
     String table = "table";
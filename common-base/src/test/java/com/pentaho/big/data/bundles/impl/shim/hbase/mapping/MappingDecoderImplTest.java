@@ -0,0 +1,187 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package com.pentaho.big.data.bundles.impl.shim.hbase.mapping;
+
+import com.pentaho.big.data.bundles.impl.shim.hbase.ResultImpl;
+import com.pentaho.big.data.bundles.impl.shim.hbase.meta.HBaseValueMetaInterfaceFactoryImpl;
+import com.pentaho.big.data.bundles.impl.shim.hbase.meta.HBaseValueMetaInterfaceImpl;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBinary;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.hadoop.shim.api.hbase.mapping.Mapping;
+import org.pentaho.hadoop.shim.api.hbase.meta.HBaseValueMetaInterface;
+import org.pentaho.hadoop.shim.api.internal.hbase.HBaseBytesUtilShim;
+import org.pentaho.hbase.shim.common.CommonHBaseBytesUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MappingDecoderImplTest {
+  private final byte[] row = Bytes.toBytes( "row1" );
+  private HBaseBytesUtilShim hBaseBytesUtilShim;
+  private Mapping mapping;
+  private RowMetaInterface outputRowMeta;
+
+  @Before
+  public void setup() throws Exception {
+    hBaseBytesUtilShim = new CommonHBaseBytesUtil();
+    mapping = new MappingFactoryImpl( hBaseBytesUtilShim,
+      new HBaseValueMetaInterfaceFactoryImpl( hBaseBytesUtilShim ) )
+      .createMapping( "table", "mapping", "key", Mapping.KeyType.STRING );
+    outputRowMeta = new RowMeta();
+    outputRowMeta.addValueMeta( new ValueMetaString( "key" ) );
+  }
+
+  private void addColumn( String family, String column, String alias, int type ) throws Exception {
+    mapping.addMappedColumn(
+      new HBaseValueMetaInterfaceImpl( family + "," + column + "," + alias, type, -1, -1, hBaseBytesUtilShim ),
+      false );
+  }
+
+  private ResultImpl result( Cell... cells ) {
+    return new ResultImpl( org.apache.hadoop.hbase.client.Result.create( Arrays.asList( cells ) ),
+      hBaseBytesUtilShim );
+  }
+
+  @Test
+  public void testDecodeRowLatestVersionsAndMissingColumns() throws Exception {
+    addColumn( "f1", "b", "longCol", ValueMetaInterface.TYPE_INTEGER );
+    addColumn( "f1", "a", "stringCol", ValueMetaInterface.TYPE_STRING );
+    addColumn( "f2", "d", "dateCol", ValueMetaInterface.TYPE_DATE );
+    addColumn( "f2", "n", "missingCol", ValueMetaInterface.TYPE_NUMBER );
+    outputRowMeta.addValueMeta( new ValueMetaInteger( "longCol" ) );
+    outputRowMeta.addValueMeta( new ValueMetaString( "stringCol" ) );
+    outputRowMeta.addValueMeta( new ValueMetaDate( "dateCol" ) );
+    outputRowMeta.addValueMeta( new ValueMetaNumber( "missingCol" ) );
+
+    MappingDecoderImpl decoder = new MappingDecoderImpl( mapping, outputRowMeta, hBaseBytesUtilShim );
+    Object[] outputRow = new Object[] { null, null, null, null, "stale" };
+    decoder.decodeRow( result(
+      new KeyValue( row, Bytes.toBytes( "f1" ), Bytes.toBytes( "a" ), 2L, Bytes.toBytes( "newest" ) ),
+      new KeyValue( row, Bytes.toBytes( "f1" ), Bytes.toBytes( "a" ), 1L, Bytes.toBytes( "older" ) ),
+      new KeyValue( row, Bytes.toBytes( "f1" ), Bytes.toBytes( "b" ), 1L, Bytes.toBytes( 42 ) ),
+      new KeyValue( row, Bytes.toBytes( "f1" ), Bytes.toBytes( "c" ), 1L, Bytes.toBytes( "unmapped" ) ),
+      new KeyValue( row, Bytes.toBytes( "f2" ), Bytes.toBytes( "d" ), 1L, Bytes.toBytes( 1000L ) ) ), outputRow );
+
+    assertEquals( "row1", outputRow[ 0 ] );
+    assertEquals( 42L, outputRow[ 1 ] );
+    assertEquals( "newest", outputRow[ 2 ] );
+    assertEquals( new Date( 1000L ), outputRow[ 3 ] );
+    assertNull( outputRow[ 4 ] );
+  }
+
+  @Test
+  public void testDecodeRowMatchesGenericDecoding() throws Exception {
+    addColumn( "f", "float", "floatCol", ValueMetaInterface.TYPE_NUMBER );
+    addColumn( "f", "double", "doubleCol", ValueMetaInterface.TYPE_NUMBER );
+    addColumn( "f", "short", "shortCol", ValueMetaInterface.TYPE_INTEGER );
+    addColumn( "f", "long", "longCol", ValueMetaInterface.TYPE_INTEGER );
+    for ( String name : new String[] { "floatCol", "doubleCol", "shortCol", "longCol" } ) {
+      outputRowMeta.addValueMeta( new ValueMetaNumber( name ) );
+    }
+    ResultImpl result = result(
+      new KeyValue( row, Bytes.toBytes( "f" ), Bytes.toBytes( "double" ), 1L, Bytes.toBytes( 2.5d ) ),
+      new KeyValue( row, Bytes.toBytes( "f" ), Bytes.toBytes( "float" ), 1L, Bytes.toBytes( 1.5f ) ),
+      new KeyValue( row, Bytes.toBytes( "f" ), Bytes.toBytes( "long" ), 1L, Bytes.toBytes( -7L ) ),
+      new KeyValue( row, Bytes.toBytes( "f" ), Bytes.toBytes( "short" ), 1L, Bytes.toBytes( (short) 3 ) ) );
+
+    Object[] outputRow = new MappingDecoderImpl( mapping, outputRowMeta, hBaseBytesUtilShim )
+      .decodeRow( result, new Object[ 5 ] );
+
+    for ( String alias : new String[] { "floatCol", "doubleCol", "shortCol", "longCol" } ) {
+      HBaseValueMetaInterfaceImpl meta = (HBaseValueMetaInterfaceImpl) mapping.getMappedColumns().get( alias );
+      assertEquals( meta.decodeColumnValue( result.getValue( "f", meta.getColumnName(), false ) ),
+        outputRow[ outputRowMeta.indexOfValue( alias ) ] );
+    }
+  }
+
+  @Test
+  public void testDecodeRowFillsEveryAliasOfAColumn() throws Exception {
+    Map<String, HBaseValueMetaInterface> columns = new HashMap<>();
+    columns.put( "asString",
+      new HBaseValueMetaInterfaceImpl( "f,a,asString", ValueMetaInterface.TYPE_STRING, -1, -1, hBaseBytesUtilShim ) );
+    columns.put( "asBinary",
+      new HBaseValueMetaInterfaceImpl( "f,a,asBinary", ValueMetaInterface.TYPE_BINARY, -1, -1, hBaseBytesUtilShim ) );
+    columns.put( "other",
+      new HBaseValueMetaInterfaceImpl( "f,b,other", ValueMetaInterface.TYPE_STRING, -1, -1, hBaseBytesUtilShim ) );
+    mapping.setMappedColumns( columns );
+    outputRowMeta.addValueMeta( new ValueMetaString( "asString" ) );
+    outputRowMeta.addValueMeta( new ValueMetaBinary( "asBinary" ) );
+    outputRowMeta.addValueMeta( new ValueMetaString( "other" ) );
+
+    Object[] outputRow = new MappingDecoderImpl( mapping, outputRowMeta, hBaseBytesUtilShim ).decodeRow( result(
+      new KeyValue( row, Bytes.toBytes( "f" ), Bytes.toBytes( "a" ), 2L, Bytes.toBytes( "newest" ) ),
+      new KeyValue( row, Bytes.toBytes( "f" ), Bytes.toBytes( "a" ), 1L, Bytes.toBytes( "older" ) ),
+      new KeyValue( row, Bytes.toBytes( "f" ), Bytes.toBytes( "b" ), 1L, Bytes.toBytes( "b" ) ) ), new Object[ 4 ] );
+
+    assertEquals( "newest", outputRow[ 1 ] );
+    assertArrayEquals( Bytes.toBytes( "newest" ), (byte[]) outputRow[ 2 ] );
+    assertEquals( "b", outputRow[ 3 ] );
+  }
+
+  @Test( expected = KettleException.class )
+  public void testDecodeRowIllegalIntegerLength() throws Exception {
+    addColumn( "f", "a", "longCol", ValueMetaInterface.TYPE_INTEGER );
+    outputRowMeta.addValueMeta( new ValueMetaInteger( "longCol" ) );
+    new MappingDecoderImpl( mapping, outputRowMeta, hBaseBytesUtilShim ).decodeRow( result(
+      new KeyValue( row, Bytes.toBytes( "f" ), Bytes.toBytes( "a" ), 1L, new byte[] { 1, 2, 3 } ) ), new Object[ 2 ] );
+  }
+
+  @Test
+  public void testDecodeTuples() throws Exception {
+    mapping.setTupleMapping( true );
+    mapping.setTupleFamilies( "f1" );
+    addTupleColumn( Mapping.TupleMapping.FAMILY, ValueMetaInterface.TYPE_STRING );
+    addTupleColumn( Mapping.TupleMapping.COLUMN, ValueMetaInterface.TYPE_STRING );
+    addTupleColumn( Mapping.TupleMapping.VALUE, ValueMetaInterface.TYPE_STRING );
+    outputRowMeta.addValueMeta( new ValueMetaString( "Family" ) );
+    outputRowMeta.addValueMeta( new ValueMetaString( "Column" ) );
+    outputRowMeta.addValueMeta( new ValueMetaString( "Value" ) );
+    outputRowMeta.addValueMeta( new ValueMetaInteger( "Timestamp" ) );
+
+    final List<Object[]> rows = new ArrayList<>();
+    int count = new MappingDecoderImpl( mapping, outputRowMeta, hBaseBytesUtilShim ).decodeTuples( result(
+      new KeyValue( row, Bytes.toBytes( "f1" ), Bytes.toBytes( "a" ), 2L, Bytes.toBytes( "v2" ) ),
+      new KeyValue( row, Bytes.toBytes( "f1" ), Bytes.toBytes( "a" ), 1L, Bytes.toBytes( "v1" ) ),
+      new KeyValue( row, Bytes.toBytes( "f2" ), Bytes.toBytes( "b" ), 1L, Bytes.toBytes( "skipped" ) ) ),
+      new Object[ 5 ], outputRow -> rows.add( outputRow.clone() ) );
+
+    assertEquals( 2, count );
+    assertArrayEquals( new Object[] { "row1", "f1", "a", "v2", 2L }, rows.get( 0 ) );
+    assertArrayEquals( new Object[] { "row1", "f1", "a", "v1", 1L }, rows.get( 1 ) );
+  }
+
+  private void addTupleColumn( Mapping.TupleMapping tupleMapping, int type ) throws Exception {
+    HBaseValueMetaInterfaceImpl meta =
+      new HBaseValueMetaInterfaceImpl( "f1,col," + tupleMapping.toString(), type, -1, -1, hBaseBytesUtilShim );
+    mapping.addMappedColumn( meta, true );
+  }
+}
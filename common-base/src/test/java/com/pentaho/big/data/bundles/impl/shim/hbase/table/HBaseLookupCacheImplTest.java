@@ -0,0 +1,148 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package com.pentaho.big.data.bundles.impl.shim.hbase.table;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.hadoop.shim.api.hbase.Result;
+import org.pentaho.hadoop.shim.api.hbase.table.HBaseGet;
+import org.pentaho.hadoop.shim.api.hbase.table.HBaseTable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class HBaseLookupCacheImplTest {
+  private final byte[] key1 = "key1".getBytes( StandardCharsets.UTF_8 );
+  private final byte[] key2 = "key2".getBytes( StandardCharsets.UTF_8 );
+  private HBaseTable hBaseTable;
+  private AtomicLong now;
+  private Result result1;
+  private Result result2;
+
+  @Before
+  public void setup() throws Exception {
+    hBaseTable = mock( HBaseTable.class );
+    now = new AtomicLong( 1000L );
+    result1 = mock( Result.class );
+    result2 = mock( Result.class );
+    when( result2.isEmpty() ).thenReturn( true );
+  }
+
+  @Test
+  public void testGetAllOnlyFetchesMisses() throws Exception {
+    HBaseLookupCacheImpl cache = new HBaseLookupCacheImpl( hBaseTable, 10, 0L, now::get );
+    when( hBaseTable.get( anyList() ) ).thenReturn( Collections.singletonList( result1 ),
+      Collections.singletonList( result2 ) );
+
+    assertSame( result1, cache.get( key1 ) );
+    List<Result> results = cache.getAll( Arrays.asList( key1, "key2".getBytes( StandardCharsets.UTF_8 ) ) );
+
+    assertEquals( Arrays.asList( result1, result2 ), results );
+    verify( hBaseTable, times( 2 ) ).get( anyList() );
+    assertEquals( 1, cache.getHitCount() );
+    assertEquals( 2, cache.getMissCount() );
+  }
+
+  @Test
+  public void testExistsAllUsesCachedRows() throws Exception {
+    HBaseLookupCacheImpl cache = new HBaseLookupCacheImpl( hBaseTable, 10, 0L, now::get );
+    when( hBaseTable.get( anyList() ) ).thenReturn( Arrays.asList( result1, result2 ) );
+
+    cache.getAll( Arrays.asList( key1, key2 ) );
+
+    assertArrayEquals( new boolean[] { true, false }, cache.existsAll( Arrays.asList( key1, key2 ) ) );
+    verify( hBaseTable, never() ).existsAll( anyList() );
+  }
+
+  @Test
+  public void testExistsOnlyEntryStillFetchesRow() throws Exception {
+    HBaseLookupCacheImpl cache = new HBaseLookupCacheImpl( hBaseTable, 10, 0L, now::get );
+    when( hBaseTable.existsAll( anyList() ) ).thenReturn( new boolean[] { true } );
+    when( hBaseTable.get( anyList() ) ).thenReturn( Collections.singletonList( result1 ) );
+
+    assertTrue( cache.keyExists( key1 ) );
+    assertTrue( cache.keyExists( key1 ) );
+    verify( hBaseTable, times( 1 ) ).existsAll( anyList() );
+
+    assertSame( result1, cache.get( key1 ) );
+    verify( hBaseTable ).get( anyList() );
+  }
+
+  @Test
+  public void testEntriesExpire() throws Exception {
+    HBaseLookupCacheImpl cache = new HBaseLookupCacheImpl( hBaseTable, 10, 100L, now::get );
+    when( hBaseTable.get( anyList() ) ).thenReturn( Collections.singletonList( result1 ) );
+
+    cache.get( key1 );
+    now.addAndGet( 99L );
+    cache.get( key1 );
+    verify( hBaseTable, times( 1 ) ).get( anyList() );
+
+    now.addAndGet( 1L );
+    cache.get( key1 );
+    verify( hBaseTable, times( 2 ) ).get( anyList() );
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEvicted() throws Exception {
+    HBaseLookupCacheImpl cache = new HBaseLookupCacheImpl( hBaseTable, 2, 0L, now::get );
+    when( hBaseTable.existsAll( anyList() ) ).thenReturn( new boolean[] { true } );
+    byte[] key3 = "key3".getBytes( StandardCharsets.UTF_8 );
+
+    cache.keyExists( key1 );
+    cache.keyExists( key2 );
+    cache.keyExists( key1 );
+    cache.keyExists( key3 );
+    assertEquals( 2, cache.size() );
+
+    cache.keyExists( key1 );
+    verify( hBaseTable, times( 3 ) ).existsAll( anyList() );
+    cache.keyExists( key2 );
+    verify( hBaseTable, times( 4 ) ).existsAll( anyList() );
+  }
+
+  @Test
+  public void testInvalidate() throws Exception {
+    HBaseLookupCacheImpl cache = new HBaseLookupCacheImpl( hBaseTable, 10, 0L, now::get );
+    when( hBaseTable.existsAll( anyList() ) ).thenReturn( new boolean[] { true } );
+
+    cache.keyExists( key1 );
+    cache.invalidate( key1 );
+    cache.keyExists( key1 );
+    verify( hBaseTable, times( 2 ) ).existsAll( anyList() );
+
+    cache.invalidateAll();
+    assertEquals( 0, cache.size() );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testNonPositiveMaxEntries() {
+    new HBaseLookupCacheImpl( hBaseTable, 0, 0L );
+  }
+
+  @Test
+  public void testGetImplExecutesThroughTable() throws Exception {
+    when( hBaseTable.get( anyList() ) ).thenReturn( Collections.singletonList( result1 ) );
+    HBaseGetImpl get = new HBaseGetImpl( hBaseTable, key1 );
+    assertSame( key1, get.getKey() );
+    assertSame( result1, get.execute() );
+    verify( hBaseTable ).get( Collections.<HBaseGet>singletonList( get ) );
+  }
+}
@@ -23,12 +23,16 @@ import org.mockito.stubbing.OngoingStubbing;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.logging.LogChannelInterface;
 import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.hadoop.shim.api.hbase.Result;
 import org.pentaho.hadoop.shim.api.hbase.mapping.Mapping;
+import org.pentaho.hadoop.shim.api.hbase.table.HBaseGet;
+import org.pentaho.hadoop.shim.api.hbase.table.HBaseTableWriteOperationManager;
 import org.pentaho.hadoop.shim.api.internal.hbase.HBaseBytesUtilShim;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 
@@ -332,6 +336,48 @@ public class HBaseTableImplTest {
       keyExistsRunnable );
   }
 
+  @Test
+  public void testGetBatch() throws Exception {
+    when( hBaseConnectionPool.getConnectionHandle( testName ) ).thenReturn( hBaseConnectionHandle );
+    byte[] otherBytes = "otherbytes".getBytes( Charset.forName( "UTF-8" ) );
+    org.apache.hadoop.hbase.client.Result row1 = mock( org.apache.hadoop.hbase.client.Result.class );
+    org.apache.hadoop.hbase.client.Result row2 = mock( org.apache.hadoop.hbase.client.Result.class );
+    when( row2.isEmpty() ).thenReturn( true );
+    when( hBaseConnectionWrapper.getSourceTableRows( Arrays.asList( testBytes, otherBytes ) ) )
+      .thenReturn( Arrays.<Object>asList( row1, row2 ) );
+    List<Result> results =
+      hBaseTable.get( Arrays.<HBaseGet>asList( hBaseTable.createGet( testBytes ), hBaseTable.createGet( otherBytes ) ) );
+    assertEquals( 2, results.size() );
+    assertFalse( results.get( 0 ).isEmpty() );
+    assertTrue( results.get( 1 ).isEmpty() );
+    verify( hBaseConnectionHandle ).close();
+  }
+
+  @Test( expected = IOException.class )
+  public void testGetBatchHandleClosedWhenException() throws Exception {
+    when( hBaseConnectionPool.getConnectionHandle( testName ) ).thenReturn( hBaseConnectionHandle );
+    when( hBaseConnectionWrapper.getSourceTableRows( anyList() ) ).thenThrow( new Exception() );
+    try {
+      hBaseTable.get( Arrays.<HBaseGet>asList( hBaseTable.createGet( testBytes ) ) );
+    } finally {
+      verify( hBaseConnectionHandle ).close();
+    }
+  }
+
+  @Test
+  public void testExistsAll() throws Exception {
+    when( hBaseConnectionPool.getConnectionHandle( testName ) ).thenReturn( hBaseConnectionHandle );
+    List<byte[]> keys = Arrays.asList( testBytes, testBytes );
+    when( hBaseConnectionWrapper.sourceTableRowsExist( keys ) ).thenReturn( new boolean[] { true, false } );
+    assertArrayEquals( new boolean[] { true, false }, hBaseTable.existsAll( keys ) );
+    verify( hBaseConnectionHandle ).close();
+  }
+
+  @Test
+  public void testCreateLookupCache() {
+    assertTrue( hBaseTable.createLookupCache( 10, 1000L ) instanceof HBaseLookupCacheImpl );
+  }
+
   @Test
   public void testCreateWriteOperationManagerSuccessNullBufferSize() throws IOException {
     assertNotNull( hBaseTable.createWriteOperationManager( null ) );
@@ -348,6 +394,22 @@ public class HBaseTableImplTest {
     verify( hBaseConnectionPool ).getConnectionHandle( eq( testName ), eq( properties ) );
   }
 
+  @Test
+  public void testCreateBulkLoadWriteOperationManager() throws IOException {
+    HBaseTableWriteOperationManager manager = hBaseTable.createBulkLoadWriteOperationManager( "/tmp/staging", 20L );
+    assertFalse( manager.isAutoFlush() );
+    Properties properties = new Properties();
+    properties.setProperty( org.pentaho.hadoop.shim.spi.HBaseConnection.HTABLE_BULK_LOAD_STAGING_DIR_KEY,
+      "/tmp/staging" );
+    properties.setProperty( org.pentaho.hadoop.shim.spi.HBaseConnection.HTABLE_BULK_LOAD_BUFFER_SIZE_KEY, "20" );
+    verify( hBaseConnectionPool ).getConnectionHandle( eq( testName ), eq( properties ) );
+  }
+
+  @Test( expected = IOException.class )
+  public void testCreateBulkLoadWriteOperationManagerNoStagingDirectory() throws IOException {
+    hBaseTable.createBulkLoadWriteOperationManager( null, null );
+  }
+
   @Test
   public void testClose() throws IOException {
     hBaseTable.close();
@@ -0,0 +1,158 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package com.pentaho.big.data.bundles.impl.shim.hdfs;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.PrivilegedExceptionAction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HadoopFileCacheTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private FileSystem fileSystem;
+  private File cacheDir;
+  private File file;
+  private Path path;
+  private int loads;
+
+  @Before
+  public void setup() throws IOException {
+    fileSystem = FileSystem.getLocal( new Configuration() );
+    cacheDir = temporaryFolder.newFolder( "cache" );
+    file = temporaryFolder.newFile( "lookup.csv" );
+    Files.write( file.toPath(), "a,b".getBytes( StandardCharsets.UTF_8 ) );
+    path = new Path( file.toURI() );
+  }
+
+  @Test
+  public void testMemoryHit() throws IOException {
+    HadoopFileCache cache = new HadoopFileCache( 1024, 1024, 1024, cacheDir, 60 );
+    assertEquals( "a,b", read( cache ) );
+    assertEquals( "a,b", read( cache ) );
+    assertEquals( 1, loads );
+    assertEquals( 1, cache.getMisses() );
+    assertEquals( 1, cache.getMemoryHits() );
+  }
+
+  @Test
+  public void testDiskHit() throws IOException {
+    read( new HadoopFileCache( 1024, 1024, 1024, cacheDir, 60 ) );
+    HadoopFileCache cache = new HadoopFileCache( 1024, 1024, 1024, cacheDir, 60 );
+    assertEquals( "a,b", read( cache ) );
+    assertEquals( 1, loads );
+    assertEquals( 1, cache.getDiskHits() );
+  }
+
+  @Test
+  public void testChangedFileIsReadAgain() throws IOException {
+    HadoopFileCache cache = new HadoopFileCache( 1024, 1024, 1024, cacheDir, 60 );
+    read( cache );
+    Files.write( file.toPath(), "a,b,c".getBytes( StandardCharsets.UTF_8 ) );
+    assertEquals( "a,b,c", read( cache ) );
+    assertEquals( 2, cache.getMisses() );
+  }
+
+  @Test
+  public void testDiskLevelIsBounded() throws IOException {
+    HadoopFileCache cache = new HadoopFileCache( 1024, 1024, 4, cacheDir, 60 );
+    read( cache );
+    File other = temporaryFolder.newFile( "other.csv" );
+    Files.write( other.toPath(), "c,d".getBytes( StandardCharsets.UTF_8 ) );
+    path = new Path( other.toURI() );
+    read( cache );
+    assertEquals( 1, cacheDir.listFiles().length );
+  }
+
+  @Test
+  public void testIsCacheable() throws IOException {
+    FileStatus fileStatus = fileSystem.getFileStatus( path );
+    assertTrue( new HadoopFileCache( 3, 1024, 0, cacheDir, 60 ).isCacheable( fileStatus ) );
+    assertFalse( new HadoopFileCache( 2, 1024, 0, cacheDir, 60 ).isCacheable( fileStatus ) );
+    assertFalse( new HadoopFileCache( 1024, 1024, 0, cacheDir, 60 )
+      .isCacheable( fileSystem.getFileStatus( new Path( cacheDir.toURI() ) ) ) );
+  }
+
+  @Test
+  public void testFromConfiguration() {
+    Configuration conf = new Configuration( false );
+    assertNull( HadoopFileCache.fromConfiguration( conf ) );
+    conf.setBoolean( HadoopFileCache.CACHE_ENABLED, true );
+    conf.set( HadoopFileCache.CACHE_DIR, cacheDir.getAbsolutePath() );
+    assertTrue( HadoopFileCache.fromConfiguration( conf ) != null );
+  }
+
+  @Test
+  public void testEntriesAreKeyedByUser() throws Exception {
+    HadoopFileCache cache = new HadoopFileCache( 1024, 1024, 1024, cacheDir, 60 );
+    UserGroupInformation.createRemoteUser( "alice" ).doAs( (PrivilegedExceptionAction<String>) () -> read( cache ) );
+    UserGroupInformation.createRemoteUser( "bob" ).doAs( (PrivilegedExceptionAction<String>) () -> read( cache ) );
+    assertEquals( 2, loads );
+    assertEquals( 0, cache.getMemoryHits() + cache.getDiskHits() );
+  }
+
+  @Test
+  public void testDiskLevelDirectoryIsPrivate() throws IOException {
+    Assume.assumeTrue( FileSystems.getDefault().supportedFileAttributeViews().contains( "posix" ) );
+    File directory = new File( cacheDir, "private" );
+    read( new HadoopFileCache( 1024, 1024, 1024, directory, 60 ) );
+    assertEquals( "rwx------", PosixFilePermissions.toString( Files.getPosixFilePermissions( directory.toPath() ) ) );
+    assertEquals( 1, directory.listFiles().length );
+  }
+
+  @Test
+  public void testSettings() {
+    Configuration conf = new Configuration( false );
+    assertNull( HadoopFileCache.getSettings( conf ) );
+    conf.setBoolean( HadoopFileCache.CACHE_ENABLED, true );
+    String settings = HadoopFileCache.getSettings( conf );
+    assertEquals( settings, HadoopFileCache.getSettings( new Configuration( conf ) ) );
+    conf.set( HadoopFileCache.CACHE_MEMORY_SIZE, "1k" );
+    assertNotEquals( settings, HadoopFileCache.getSettings( conf ) );
+  }
+
+  private String read( HadoopFileCache cache ) throws IOException {
+    FileStatus fileStatus = fileSystem.getFileStatus( path );
+    try ( InputStream inputStream = cache.open( fileStatus, () -> {
+      loads++;
+      return fileSystem.open( path );
+    } ) ) {
+      return IOUtils.toString( inputStream, StandardCharsets.UTF_8 );
+    }
+  }
+}
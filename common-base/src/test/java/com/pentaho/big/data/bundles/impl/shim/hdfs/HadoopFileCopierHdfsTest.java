@@ -0,0 +1,92 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package com.pentaho.big.data.bundles.impl.shim.hdfs;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
+import org.apache.hadoop.hdfs.MiniDFSCluster;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Copies on a real HDFS, where concat and the block layout dependent MD5-of-MD5-of-CRC file checksums apply
+ */
+public class HadoopFileCopierHdfsTest {
+  private static final int BLOCK_SIZE = 4096;
+
+  @ClassRule
+  public static TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static MiniDFSCluster cluster;
+  private static FileSystem fileSystem;
+
+  @BeforeClass
+  public static void startCluster() throws Exception {
+    Configuration conf = new Configuration();
+    conf.set( MiniDFSCluster.HDFS_MINIDFS_BASEDIR, temporaryFolder.getRoot().getAbsolutePath() );
+    conf.setLong( DFSConfigKeys.DFS_NAMENODE_MIN_BLOCK_SIZE_KEY, 0 );
+    conf.setLong( DFSConfigKeys.DFS_BLOCK_SIZE_KEY, BLOCK_SIZE );
+    conf.setInt( DFSConfigKeys.DFS_BYTES_PER_CHECKSUM_KEY, 512 );
+    cluster = new MiniDFSCluster.Builder( conf ).numDataNodes( 1 ).build();
+    cluster.waitActive();
+    fileSystem = cluster.getFileSystem();
+  }
+
+  @AfterClass
+  public static void stopCluster() {
+    if ( cluster != null ) {
+      cluster.shutdown();
+    }
+  }
+
+  @Test
+  public void testParallelCopyKeepsChecksum() throws Exception {
+    // 8 blocks and a bit, split in 4 ranges that don't fall on block boundaries unless aligned
+    byte[] content = new byte[ 8 * BLOCK_SIZE + 100 ];
+    new Random( 42 ).nextBytes( content );
+    Path source = new Path( "/in/source.bin" );
+    try ( FSDataOutputStream out = fileSystem.create( source ) ) {
+      out.write( content );
+    }
+    Path destination = new Path( "/out/copy.bin" );
+
+    HadoopFileCopier copier = new HadoopFileCopier( fileSystem, fileSystem, 4, 1024 );
+    assertTrue( copier.supportsConcat() );
+    assertEquals( content.length, copier.copy( source, destination ) );
+
+    byte[] copied = new byte[ content.length ];
+    try ( FSDataInputStream in = fileSystem.open( destination ) ) {
+      in.readFully( 0, copied );
+    }
+    assertArrayEquals( content, copied );
+    assertEquals( fileSystem.getFileChecksum( source ), fileSystem.getFileChecksum( destination ) );
+    assertEquals( 1, fileSystem.listStatus( destination.getParent() ).length );
+    assertFalse( fileSystem.exists( new Path( destination.getParent(),
+      destination.getName() + HadoopFileCopier.COPYING_SUFFIX ) ) );
+  }
+}
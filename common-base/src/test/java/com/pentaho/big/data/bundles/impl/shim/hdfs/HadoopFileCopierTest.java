@@ -0,0 +1,190 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package com.pentaho.big.data.bundles.impl.shim.hdfs;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FilterFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HadoopFileCopierTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private FileSystem fileSystem;
+
+  @Before
+  public void setup() throws IOException {
+    fileSystem = FileSystem.getLocal( new Configuration() );
+  }
+
+  @Test
+  public void testCopyLargeFileInChunks() throws IOException {
+    byte[] content = new byte[ 10000 ];
+    new Random( 42 ).nextBytes( content );
+    File source = temporaryFolder.newFile( "source.bin" );
+    Files.write( source.toPath(), content );
+    File destination = new File( temporaryFolder.getRoot(), "out/copy.bin" );
+
+    long bytes = new HadoopFileCopier( fileSystem, fileSystem, 4, 1024 )
+      .copy( new Path( source.toURI() ), new Path( destination.toURI() ) );
+
+    assertEquals( content.length, bytes );
+    assertArrayEquals( content, Files.readAllBytes( destination.toPath() ) );
+    assertFalse( new File( destination.getParentFile(), "copy.bin" + HadoopFileCopier.COPYING_SUFFIX ).exists() );
+  }
+
+  @Test
+  public void testCopyLargeFileInPartsJoinedByConcat() throws IOException {
+    byte[] content = new byte[ 10000 ];
+    new Random( 42 ).nextBytes( content );
+    File source = temporaryFolder.newFile( "source.bin" );
+    Files.write( source.toPath(), content );
+    File destination = new File( temporaryFolder.getRoot(), "out/copy.bin" );
+    ConcatFileSystem destinationFileSystem = new ConcatFileSystem( fileSystem, true );
+
+    long bytes = new ConcatCopier( destinationFileSystem, 4 )
+      .copy( new Path( source.toURI() ), new Path( destination.toURI() ) );
+
+    assertEquals( content.length, bytes );
+    assertArrayEquals( content, Files.readAllBytes( destination.toPath() ) );
+    // 2500 byte ranges rounded up to two 2048 byte blocks: 3 parts, the first written to the temporary file itself
+    assertEquals( 2, destinationFileSystem.concatenated.size() );
+    for ( String name : destination.getParentFile().list() ) {
+      assertFalse( name, name.contains( HadoopFileCopier.PART_SUFFIX ) );
+    }
+  }
+
+  @Test
+  public void testCopyFallsBackWhenConcatIsUnsupported() throws IOException {
+    byte[] content = new byte[ 10000 ];
+    new Random( 7 ).nextBytes( content );
+    File source = temporaryFolder.newFile( "source.bin" );
+    Files.write( source.toPath(), content );
+    File destination = new File( temporaryFolder.getRoot(), "out/copy.bin" );
+
+    long bytes = new ConcatCopier( new ConcatFileSystem( fileSystem, false ), 4 )
+      .copy( new Path( source.toURI() ), new Path( destination.toURI() ) );
+
+    assertEquals( content.length, bytes );
+    assertArrayEquals( content, Files.readAllBytes( destination.toPath() ) );
+    for ( String name : destination.getParentFile().list() ) {
+      assertFalse( name, name.contains( HadoopFileCopier.PART_SUFFIX ) );
+    }
+  }
+
+  @Test
+  public void testAlignToBlockSize() {
+    assertEquals( 4096, HadoopFileCopier.alignToBlockSize( 2500, 2048 ) );
+    assertEquals( 4096, HadoopFileCopier.alignToBlockSize( 4096, 2048 ) );
+    assertEquals( 2500, HadoopFileCopier.alignToBlockSize( 2500, 0 ) );
+  }
+
+  @Test
+  public void testCopyReplacesExistingFile() throws IOException {
+    File source = temporaryFolder.newFile( "source.txt" );
+    Files.write( source.toPath(), "new".getBytes( StandardCharsets.UTF_8 ) );
+    File destination = temporaryFolder.newFile( "destination.txt" );
+    Files.write( destination.toPath(), "old content".getBytes( StandardCharsets.UTF_8 ) );
+
+    new HadoopFileCopier( fileSystem, fileSystem, 1 )
+      .copy( new Path( source.toURI() ), new Path( destination.toURI() ) );
+
+    assertEquals( "new", new String( Files.readAllBytes( destination.toPath() ), StandardCharsets.UTF_8 ) );
+  }
+
+  @Test
+  public void testCopyDirectoryTree() throws IOException {
+    File sourceDir = temporaryFolder.newFolder( "in" );
+    new File( sourceDir, "nested" ).mkdirs();
+    Files.write( new File( sourceDir, "a.txt" ).toPath(), "aa".getBytes( StandardCharsets.UTF_8 ) );
+    Files.write( new File( sourceDir, "nested/b.txt" ).toPath(), "bbb".getBytes( StandardCharsets.UTF_8 ) );
+    File destinationDir = new File( temporaryFolder.getRoot(), "copied" );
+
+    long bytes = new HadoopFileCopier( fileSystem, fileSystem, 2 )
+      .copy( new Path( sourceDir.toURI() ), new Path( destinationDir.toURI() ) );
+
+    assertEquals( 5, bytes );
+    assertEquals( "aa", new String( Files.readAllBytes( new File( destinationDir, "a.txt" ).toPath() ),
+      StandardCharsets.UTF_8 ) );
+    assertEquals( "bbb", new String( Files.readAllBytes( new File( destinationDir, "nested/b.txt" ).toPath() ),
+      StandardCharsets.UTF_8 ) );
+  }
+
+  private class ConcatCopier extends HadoopFileCopier {
+    ConcatCopier( FileSystem destinationFileSystem, int parallelism ) {
+      super( fileSystem, destinationFileSystem, parallelism, 1024 );
+    }
+
+    @Override
+    boolean supportsConcat() {
+      return true;
+    }
+  }
+
+  /**
+   * Local file system with a concat that joins the sources to the target, like HDFS does
+   */
+  private static class ConcatFileSystem extends FilterFileSystem {
+    private final boolean concatSupported;
+    private final List<Path> concatenated = new ArrayList<>();
+
+    ConcatFileSystem( FileSystem fs, boolean concatSupported ) {
+      super( fs );
+      this.concatSupported = concatSupported;
+    }
+
+    @Override
+    public long getDefaultBlockSize( Path f ) {
+      return 2048;
+    }
+
+    @Override
+    public void concat( Path trg, Path[] psrcs ) throws IOException {
+      if ( !concatSupported ) {
+        throw new UnsupportedOperationException( "Not implemented by the ConcatFileSystem" );
+      }
+      byte[] target = Files.readAllBytes( new File( trg.toUri() ).toPath() );
+      try ( FSDataOutputStream out = create( trg, true ) ) {
+        out.write( target );
+        for ( Path src : psrcs ) {
+          out.write( Files.readAllBytes( new File( src.toUri() ).toPath() ) );
+          concatenated.add( src );
+        }
+      }
+      for ( Path src : psrcs ) {
+        assertTrue( delete( src, false ) );
+      }
+    }
+  }
+}
@@ -27,10 +27,17 @@ import org.pentaho.hadoop.shim.spi.HadoopShim;
 
 import java.io.IOException;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -103,5 +110,94 @@ public class HadoopFileSystemFactoryImplTest {
     when( fileSystem.getDelegate() ).thenReturn( new LocalFileSystem() );
     hadoopFileSystemFactory.create( namedCluster );
   }
-}
 
+  @Test
+  public void testResolvedFileSystemIsCached() throws IOException {
+    when( namedCluster.getName() ).thenReturn( "cluster" );
+    HadoopFileSystemImpl first = (HadoopFileSystemImpl) hadoopFileSystemFactory.create( namedCluster );
+    HadoopFileSystemImpl second = (HadoopFileSystemImpl) hadoopFileSystemFactory.create( namedCluster );
+    org.apache.hadoop.fs.FileSystem resolved = first.getFileSystem();
+    assertSame( resolved, first.getFileSystem() );
+    assertSame( resolved, second.getFileSystem() );
+    // one lookup per create plus a single resolution shared by both handles
+    verify( hadoopShim, times( 3 ) ).getFileSystem( configuration );
+    assertEquals( 1, hadoopFileSystemFactory.getCachedFileSystemCount() );
+  }
+
+  @Test
+  public void testInvalidateResolvesAgain() throws IOException {
+    when( namedCluster.getName() ).thenReturn( "cluster" );
+    HadoopFileSystemImpl hadoopFileSystem = (HadoopFileSystemImpl) hadoopFileSystemFactory.create( namedCluster );
+    hadoopFileSystem.getFileSystem();
+    hadoopFileSystemFactory.invalidate( namedCluster );
+    assertEquals( 0, hadoopFileSystemFactory.getCachedFileSystemCount() );
+    hadoopFileSystem.getFileSystem();
+    verify( hadoopShim, times( 3 ) ).getFileSystem( configuration );
+  }
+
+  @Test
+  public void testConfigurationFingerprintTracksProperties() {
+    org.apache.hadoop.conf.Configuration conf = new org.apache.hadoop.conf.Configuration( false );
+    conf.set( "fs.defaultFS", "hdfs://one:8020" );
+    when( configuration.getAsDelegateConf( org.apache.hadoop.conf.Configuration.class ) ).thenReturn( conf );
+    String before = HadoopFileSystemFactoryImpl.getConfigurationFingerprint( configuration );
+    assertEquals( before, HadoopFileSystemFactoryImpl.getConfigurationFingerprint( configuration ) );
+    conf.set( "fs.defaultFS", "hdfs://two:8020" );
+    assertNotEquals( before, HadoopFileSystemFactoryImpl.getConfigurationFingerprint( configuration ) );
+  }
+
+  @Test
+  public void testConfigurationChangedAfterCreateResolvesAgain() throws IOException {
+    org.apache.hadoop.conf.Configuration conf = new org.apache.hadoop.conf.Configuration( false );
+    conf.set( "fs.defaultFS", "hdfs://one:8020" );
+    when( configuration.getAsDelegateConf( org.apache.hadoop.conf.Configuration.class ) ).thenReturn( conf );
+    DistributedFileSystem delegate = new DistributedFileSystem();
+    delegate.setConf( conf );
+    when( fileSystem.getDelegate() ).thenReturn( delegate );
+    when( namedCluster.getName() ).thenReturn( "cluster" );
+    HadoopFileSystemImpl hadoopFileSystem = (HadoopFileSystemImpl) hadoopFileSystemFactory.create( namedCluster );
+    hadoopFileSystem.getFileSystem();
+    hadoopFileSystem.setProperty( "fs.defaultFS", "hdfs://two:8020" );
+    hadoopFileSystem.getFileSystem();
+    // one lookup in create plus one resolution per configuration
+    verify( hadoopShim, times( 3 ) ).getFileSystem( configuration );
+    assertEquals( 2, hadoopFileSystemFactory.getCachedFileSystemCount() );
+  }
+
+  @Test
+  public void testConfigurationFingerprintIsComputedOnce() throws IOException {
+    org.apache.hadoop.conf.Configuration conf = new org.apache.hadoop.conf.Configuration( false );
+    when( configuration.getAsDelegateConf( org.apache.hadoop.conf.Configuration.class ) ).thenReturn( conf );
+    when( namedCluster.getName() ).thenReturn( "cluster" );
+    HadoopFileSystemImpl hadoopFileSystem = (HadoopFileSystemImpl) hadoopFileSystemFactory.create( namedCluster );
+    for ( int i = 0; i < 3; i++ ) {
+      hadoopFileSystem.getFileSystem();
+    }
+    // once for the file cache settings and once for the fingerprint
+    verify( configuration, times( 2 ) ).getAsDelegateConf( org.apache.hadoop.conf.Configuration.class );
+  }
+
+  @Test
+  public void testClosedFileSystemIsDropped() throws IOException {
+    when( namedCluster.getName() ).thenReturn( "cluster" );
+    HadoopFileSystemImpl hadoopFileSystem = (HadoopFileSystemImpl) hadoopFileSystemFactory.create( namedCluster );
+    hadoopFileSystem.getFileSystem();
+    hadoopFileSystem.hadoopFileSystemCallable.fileSystemClosed();
+    assertEquals( 0, hadoopFileSystemFactory.getCachedFileSystemCount() );
+  }
+
+  @Test
+  public void testFileCacheIsSharedBySettings() {
+    org.apache.hadoop.conf.Configuration conf = new org.apache.hadoop.conf.Configuration( false );
+    when( configuration.getAsDelegateConf( org.apache.hadoop.conf.Configuration.class ) ).thenReturn( conf );
+    assertNull( hadoopFileSystemFactory.getFileCache( configuration ) );
+
+    conf.setBoolean( HadoopFileCache.CACHE_ENABLED, true );
+    HadoopFileCache fileCache = hadoopFileSystemFactory.getFileCache( configuration );
+    assertNotNull( fileCache );
+    assertSame( fileCache, hadoopFileSystemFactory.getFileCache( configuration ) );
+
+    conf.set( HadoopFileCache.CACHE_TTL_SECONDS, "5" );
+    assertNotSame( fileCache, hadoopFileSystemFactory.getFileCache( configuration ) );
+  }
+}
@@ -13,28 +13,52 @@
 
 package com.pentaho.big.data.bundles.impl.shim.hdfs;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
 import org.apache.hadoop.fs.permission.FsAction;
 import org.apache.hadoop.fs.permission.FsPermission;
 import org.junit.Before;
 import org.junit.Test;
 import org.pentaho.hadoop.shim.api.hdfs.HadoopFileStatus;
+import org.pentaho.hadoop.shim.api.hdfs.HadoopFileStatusIterator;
 import org.pentaho.hadoop.shim.api.hdfs.HadoopFileSystemPath;
+import org.pentaho.hadoop.shim.api.hdfs.HadoopPathResult;
 
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -112,6 +136,95 @@ public class HadoopFileSystemImplTest {
     assertEquals( inputStream, hadoopFileSystem.open( hadoopFileSystemPath ) );
   }
 
+  @Test
+  public void testOpenThroughFileCache() throws IOException {
+    File file = File.createTempFile( "cached", ".txt" );
+    file.deleteOnExit();
+    Files.write( file.toPath(), "lookup".getBytes( StandardCharsets.UTF_8 ) );
+    Path path = new Path( file.toURI() );
+    FileSystem localFileSystem = spy( FileSystem.getLocal( new Configuration() ) );
+    when( hadoopFileSystemCallable.getFileSystem() ).thenReturn( localFileSystem );
+    when( hadoopFileSystemPath.getPath() ).thenReturn( path.toString() );
+    HadoopFileCache fileCache = new HadoopFileCache( 1024, 1024, 0, null, 60 );
+    hadoopFileSystem.setFileCache( fileCache );
+    for ( int i = 0; i < 2; i++ ) {
+      try ( InputStream in = hadoopFileSystem.open( hadoopFileSystemPath ) ) {
+        assertEquals( "lookup", IOUtils.toString( in, StandardCharsets.UTF_8 ) );
+      }
+    }
+    verify( localFileSystem, times( 1 ) ).open( eq( path ) );
+    assertEquals( 1, fileCache.getMemoryHits() );
+  }
+
+  @Test
+  public void testFileCacheChecksReadPermission() throws IOException {
+    File file = File.createTempFile( "cached", ".txt" );
+    file.deleteOnExit();
+    Files.write( file.toPath(), "lookup".getBytes( StandardCharsets.UTF_8 ) );
+    Path path = new Path( file.toURI() );
+    FileSystem localFileSystem = spy( FileSystem.getLocal( new Configuration() ) );
+    when( hadoopFileSystemCallable.getFileSystem() ).thenReturn( localFileSystem );
+    when( hadoopFileSystemPath.getPath() ).thenReturn( path.toString() );
+    HadoopFileCache fileCache = new HadoopFileCache( 1024, 1024, 0, null, 60 );
+    hadoopFileSystem.setFileCache( fileCache );
+    hadoopFileSystem.open( hadoopFileSystemPath ).close();
+    FileStatus fileStatus = localFileSystem.getFileStatus( path );
+    doReturn( new FileStatus( fileStatus.getLen(), false, 1, fileStatus.getBlockSize(),
+      fileStatus.getModificationTime(), 0, new FsPermission( (short) 0 ), fileStatus.getOwner(),
+      fileStatus.getGroup(), path ) ).when( localFileSystem ).getFileStatus( path );
+    hadoopFileSystem.open( hadoopFileSystemPath ).close();
+    // not readable according to its status, so the file system gets to check the open itself
+    verify( localFileSystem, times( 2 ) ).open( eq( path ) );
+    verify( localFileSystem, never() ).access( any( Path.class ), any( FsAction.class ) );
+    assertEquals( 0, fileCache.getMemoryHits() );
+  }
+
+  @Test
+  public void testOpenSeekable() throws IOException {
+    when( fileSystem.open( eq( new Path( pathString ) ) ) ).thenReturn( inputStream );
+    hadoopFileSystem.openSeekable( hadoopFileSystemPath ).close();
+    verify( inputStream ).close();
+  }
+
+  @Test
+  public void testClosedFileSystemIsResolvedAgain() throws IOException {
+    FileSystem closed = mock( FileSystem.class );
+    when( closed.exists( eq( new Path( pathString ) ) ) ).thenThrow( new IOException( "Filesystem closed" ) );
+    when( fileSystem.exists( eq( new Path( pathString ) ) ) ).thenReturn( true );
+    when( hadoopFileSystemCallable.getFileSystem() ).thenReturn( closed, fileSystem );
+    assertTrue( hadoopFileSystem.exists( hadoopFileSystemPath ) );
+    verify( hadoopFileSystemCallable ).fileSystemClosed();
+  }
+
+  @Test
+  public void testClosedFileSystemWriteIsNotRetried() throws IOException {
+    FileSystem closed = mock( FileSystem.class );
+    when( closed.rename( eq( new Path( pathString ) ), eq( new Path( pathString2 ) ) ) )
+      .thenThrow( new IOException( "Filesystem closed" ) );
+    when( hadoopFileSystemCallable.getFileSystem() ).thenReturn( closed, fileSystem );
+    try {
+      hadoopFileSystem.rename( hadoopFileSystemPath, hadoopFileSystemPath2 );
+      fail( "expected the IOException" );
+    } catch ( IOException e ) {
+      assertEquals( "Filesystem closed", e.getMessage() );
+    }
+    // the closed handle is dropped so the next call resolves a new one
+    verify( hadoopFileSystemCallable ).fileSystemClosed();
+    verify( fileSystem, never() ).rename( any( Path.class ), any( Path.class ) );
+  }
+
+  @Test
+  public void testOtherIOExceptionsAreNotRetried() throws IOException {
+    when( fileSystem.mkdirs( eq( new Path( pathString ) ) ) ).thenThrow( new IOException( "disk full" ) );
+    try {
+      hadoopFileSystem.mkdirs( hadoopFileSystemPath );
+      fail( "expected the IOException" );
+    } catch ( IOException e ) {
+      assertEquals( "disk full", e.getMessage() );
+    }
+    verify( hadoopFileSystemCallable, never() ).fileSystemClosed();
+  }
+
   @Test
   public void testRename() throws IOException {
     when( fileSystem.rename( eq( new Path( pathString ) ), eq( new Path( pathString2 ) ) ) ).thenReturn( true )
@@ -145,6 +258,162 @@ public class HadoopFileSystemImplTest {
     assertEquals( len, hadoopFileStatuses[ 0 ].getLen() );
   }
 
+  @Test
+  public void testListStatusIterator() throws IOException {
+    FileStatus fileStatus = mock( FileStatus.class );
+    when( fileStatus.getLen() ).thenReturn( 7L );
+    when( fileSystem.listStatusIterator( eq( new Path( pathString ) ) ) )
+      .thenReturn( remoteIterator( fileStatus ) );
+    HadoopFileStatusIterator iterator = hadoopFileSystem.listStatusIterator( hadoopFileSystemPath );
+    assertTrue( iterator.hasNext() );
+    assertEquals( 7L, iterator.next().getLen() );
+    assertFalse( iterator.hasNext() );
+  }
+
+  @Test
+  public void testListFiles() throws IOException {
+    LocatedFileStatus fileStatus = mock( LocatedFileStatus.class );
+    when( fileStatus.getLen() ).thenReturn( 9L );
+    when( fileSystem.listFiles( eq( new Path( pathString ) ), eq( true ) ) )
+      .thenReturn( remoteIterator( fileStatus ) );
+    HadoopFileStatusIterator iterator = hadoopFileSystem.listFiles( hadoopFileSystemPath, true );
+    assertTrue( iterator.hasNext() );
+    assertEquals( 9L, iterator.next().getLen() );
+    assertFalse( iterator.hasNext() );
+  }
+
+  @Test
+  public void testFindFilesParallelWalk() throws IOException {
+    when( fileSystem.getUri() ).thenReturn( URI.create( "hdfs://namenode:8020" ) );
+    Path root = new Path( pathString );
+    Path sub = new Path( root, "sub" );
+    FileStatus subDir = status( sub, true );
+    FileStatus rootCsv = status( new Path( root, "a.csv" ), false );
+    FileStatus rootTxt = status( new Path( root, "b.txt" ), false );
+    FileStatus subCsv = status( new Path( sub, "c.csv" ), false );
+    when( fileSystem.listStatusIterator( eq( root ) ) ).thenReturn( remoteIterator( subDir, rootCsv, rootTxt ) );
+    when( fileSystem.listStatusIterator( eq( sub ) ) ).thenReturn( remoteIterator( subCsv ) );
+
+    List<HadoopFileStatus> result = hadoopFileSystem.findFiles( hadoopFileSystemPath, "*.csv", 4 );
+
+    Set<String> names = new HashSet<>();
+    for ( HadoopFileStatus status : result ) {
+      names.add( status.getPath().getName() );
+    }
+    assertEquals( new HashSet<>( Arrays.asList( "a.csv", "c.csv" ) ), names );
+    verify( fileSystem, never() ).listFiles( any( Path.class ), anyBoolean() );
+  }
+
+  @Test
+  public void testFindFilesUsesFlatListingOnObjectStores() throws IOException {
+    when( fileSystem.getUri() ).thenReturn( URI.create( "s3a://bucket" ) );
+    Path root = new Path( pathString );
+    LocatedFileStatus csv = mock( LocatedFileStatus.class );
+    when( csv.getPath() ).thenReturn( new Path( root, "deep/a.csv" ) );
+    LocatedFileStatus txt = mock( LocatedFileStatus.class );
+    when( txt.getPath() ).thenReturn( new Path( root, "b.txt" ) );
+    when( fileSystem.listFiles( eq( root ), eq( true ) ) ).thenReturn( remoteIterator( csv, txt ) );
+
+    List<HadoopFileStatus> result = hadoopFileSystem.findFiles( hadoopFileSystemPath, "*.csv", 4 );
+
+    assertEquals( 1, result.size() );
+    assertEquals( "a.csv", result.get( 0 ).getPath().getName() );
+    verify( fileSystem, never() ).listStatusIterator( any( Path.class ) );
+  }
+
+  @Test( expected = IOException.class )
+  public void testFindFilesPropagatesListingFailure() throws IOException {
+    when( fileSystem.getUri() ).thenReturn( URI.create( "hdfs://namenode:8020" ) );
+    when( fileSystem.listStatusIterator( eq( new Path( pathString ) ) ) ).thenThrow( new IOException( "boom" ) );
+    hadoopFileSystem.findFiles( hadoopFileSystemPath, null, 2 );
+  }
+
+  @Test
+  public void testDeleteAllRecursiveSkipsNestedPaths() throws IOException {
+    HadoopFileSystemPath out = new HadoopFileSystemPathImpl( new Path( "/out" ) );
+    HadoopFileSystemPath part = new HadoopFileSystemPathImpl( new Path( "/out/part-00000" ) );
+    HadoopFileSystemPath other = new HadoopFileSystemPathImpl( new Path( "/other" ) );
+    when( fileSystem.delete( eq( new Path( "/out" ) ), eq( true ) ) ).thenReturn( true );
+    IOException failure = new IOException( "denied" );
+    when( fileSystem.delete( eq( new Path( "/other" ) ), eq( true ) ) ).thenThrow( failure );
+
+    List<HadoopPathResult> results = hadoopFileSystem.deleteAll( Arrays.asList( part, out, other ), true, 4 );
+
+    assertEquals( 3, results.size() );
+    assertEquals( part, results.get( 0 ).getPath() );
+    assertTrue( results.get( 0 ).getResult() );
+    assertTrue( results.get( 1 ).getResult() );
+    assertTrue( results.get( 2 ).isFailed() );
+    assertEquals( failure, results.get( 2 ).getException() );
+    verify( fileSystem, never() ).delete( eq( new Path( "/out/part-00000" ) ), anyBoolean() );
+  }
+
+  @Test
+  public void testDeleteAllNonRecursive() throws IOException {
+    HadoopFileSystemPath out = new HadoopFileSystemPathImpl( new Path( "/out" ) );
+    HadoopFileSystemPath part = new HadoopFileSystemPathImpl( new Path( "/out/part-00000" ) );
+    when( fileSystem.delete( any( Path.class ), eq( false ) ) ).thenReturn( true );
+    List<HadoopPathResult> results = hadoopFileSystem.deleteAll( Arrays.asList( part, out ), false, 2 );
+    assertEquals( 2, results.size() );
+    verify( fileSystem ).delete( eq( new Path( "/out/part-00000" ) ), eq( false ) );
+    verify( fileSystem ).delete( eq( new Path( "/out" ) ), eq( false ) );
+  }
+
+  @Test
+  public void testRenameAll() throws IOException {
+    Map<HadoopFileSystemPath, HadoopFileSystemPath> renames = new LinkedHashMap<>();
+    renames.put( hadoopFileSystemPath, hadoopFileSystemPath2 );
+    when( fileSystem.rename( eq( new Path( pathString ) ), eq( new Path( pathString2 ) ) ) ).thenReturn( true );
+    List<HadoopPathResult> results = hadoopFileSystem.renameAll( renames, 2 );
+    assertEquals( 1, results.size() );
+    assertEquals( hadoopFileSystemPath, results.get( 0 ).getPath() );
+    assertTrue( results.get( 0 ).getResult() );
+  }
+
+  @Test
+  public void testExistsAll() throws IOException {
+    HadoopFileSystemPath present = new HadoopFileSystemPathImpl( new Path( "/present" ) );
+    HadoopFileSystemPath missing = new HadoopFileSystemPathImpl( new Path( "/missing" ) );
+    when( fileSystem.exists( eq( new Path( "/present" ) ) ) ).thenReturn( true );
+    List<HadoopPathResult> results = hadoopFileSystem.existsAll( Arrays.asList( present, missing ), 2 );
+    assertTrue( results.get( 0 ).getResult() );
+    assertFalse( results.get( 1 ).getResult() );
+    assertFalse( results.get( 1 ).isFailed() );
+  }
+
+  @Test
+  public void testChmodAll() throws IOException {
+    HadoopFileSystemPath first = new HadoopFileSystemPathImpl( new Path( "/first" ) );
+    HadoopFileSystemPath second = new HadoopFileSystemPathImpl( new Path( "/second" ) );
+    List<HadoopPathResult> results = hadoopFileSystem.chmodAll( Arrays.asList( first, second ), 750, 2 );
+    assertTrue( results.get( 0 ).getResult() );
+    assertTrue( results.get( 1 ).getResult() );
+    FsPermission permission = new FsPermission( FsAction.ALL, FsAction.READ_EXECUTE, FsAction.NONE );
+    verify( fileSystem ).setPermission( eq( new Path( "/first" ) ), eq( permission ) );
+    verify( fileSystem ).setPermission( eq( new Path( "/second" ) ), eq( permission ) );
+  }
+
+  private static FileStatus status( Path path, boolean directory ) {
+    FileStatus fileStatus = mock( FileStatus.class );
+    when( fileStatus.getPath() ).thenReturn( path );
+    when( fileStatus.isDir() ).thenReturn( directory );
+    return fileStatus;
+  }
+
+  @SafeVarargs
+  private static <T extends FileStatus> RemoteIterator<T> remoteIterator( T... statuses ) {
+    final Iterator<T> iterator = Arrays.asList( statuses ).iterator();
+    return new RemoteIterator<T>() {
+      @Override public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override public T next() {
+        return iterator.next();
+      }
+    };
+  }
+
   @Test
   public void testGetPath() {
     assertEquals( pathString, hadoopFileSystem.getPath( pathString ).getPath() );
@@ -240,5 +509,6 @@ public class HadoopFileSystemImplTest {
     String name = "name";
     hadoopFileSystem.setProperty( name, value );
     verify( configuration ).set( name, value );
+    verify( hadoopFileSystemCallable ).configurationChanged();
   }
 }
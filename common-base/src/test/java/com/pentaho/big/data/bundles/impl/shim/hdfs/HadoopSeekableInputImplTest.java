@@ -0,0 +1,120 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package com.pentaho.big.data.bundles.impl.shim.hdfs;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.hadoop.shim.api.hdfs.HadoopFileRange;
+import org.pentaho.hadoop.shim.api.hdfs.HadoopSeekableInput;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+
+public class HadoopSeekableInputImplTest {
+  private static final String CONTENT = "0123456789abcdefghij";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private FileSystem fileSystem;
+  private Path path;
+
+  @Before
+  public void setup() throws IOException {
+    File file = temporaryFolder.newFile( "data.bin" );
+    Files.write( file.toPath(), CONTENT.getBytes( StandardCharsets.UTF_8 ) );
+    fileSystem = FileSystem.getLocal( new Configuration() );
+    path = new Path( file.toURI() );
+  }
+
+  @Test
+  public void testPositionalReadKeepsPosition() throws IOException {
+    try ( HadoopSeekableInput input = new HadoopSeekableInputImpl( fileSystem.open( path ) ) ) {
+      byte[] buffer = new byte[ 4 ];
+      input.readFully( 10, buffer, 0, 4 );
+      assertEquals( "abcd", new String( buffer, StandardCharsets.UTF_8 ) );
+      assertEquals( 0, input.getPos() );
+    }
+  }
+
+  @Test( expected = EOFException.class )
+  public void testReadFullyPastEnd() throws IOException {
+    try ( HadoopSeekableInput input = new HadoopSeekableInputImpl( fileSystem.open( path ) ) ) {
+      input.readFully( 18, new byte[ 4 ], 0, 4 );
+    }
+  }
+
+  @Test
+  public void testSeekAndByteBufferRead() throws IOException {
+    try ( HadoopSeekableInput input = new HadoopSeekableInputImpl( fileSystem.open( path ) ) ) {
+      input.seek( 5 );
+      ByteBuffer buffer = ByteBuffer.allocate( 3 );
+      assertEquals( 3, input.read( buffer ) );
+      buffer.flip();
+      assertEquals( "567", StandardCharsets.UTF_8.decode( buffer ).toString() );
+      assertEquals( 8, input.getPos() );
+    }
+  }
+
+  @Test
+  public void testReadVectored() throws Exception {
+    try ( HadoopSeekableInput input = new HadoopSeekableInputImpl( fileSystem.open( path ) ) ) {
+      List<CompletableFuture<ByteBuffer>> results = input.readVectored(
+        Arrays.asList( new HadoopFileRange( 0, 2 ), new HadoopFileRange( 15, 5 ) ), ByteBuffer::allocate );
+      assertEquals( 2, results.size() );
+      assertEquals( "01", StandardCharsets.UTF_8.decode( results.get( 0 ).get() ).toString() );
+      assertEquals( "fghij", StandardCharsets.UTF_8.decode( results.get( 1 ).get() ).toString() );
+    }
+  }
+
+  @Test
+  public void testReadVectoredFallback() throws Exception {
+    try ( HadoopSeekableInput input = new HadoopSeekableInputImpl( fileSystem.open( path ), false ) ) {
+      List<CompletableFuture<ByteBuffer>> results = input.readVectored(
+        Arrays.asList( new HadoopFileRange( 0, 2 ), new HadoopFileRange( 15, 5 ) ), ByteBuffer::allocateDirect );
+      assertEquals( "01", StandardCharsets.UTF_8.decode( results.get( 0 ).get() ).toString() );
+      assertEquals( "fghij", StandardCharsets.UTF_8.decode( results.get( 1 ).get() ).toString() );
+      assertEquals( "abc", StandardCharsets.UTF_8.decode( input.readVectored(
+        Arrays.asList( new HadoopFileRange( 10, 3 ) ), ByteBuffer::allocate ).get( 0 ).get() ).toString() );
+    }
+  }
+
+  @Test( expected = ExecutionException.class )
+  public void testReadVectoredFallbackPastEnd() throws Exception {
+    try ( HadoopSeekableInput input = new HadoopSeekableInputImpl( fileSystem.open( path ), false ) ) {
+      input.readVectored( Arrays.asList( new HadoopFileRange( 18, 4 ) ), ByteBuffer::allocate ).get( 0 ).get();
+    }
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testNegativeRange() {
+    new HadoopFileRange( -1, 2 );
+  }
+}
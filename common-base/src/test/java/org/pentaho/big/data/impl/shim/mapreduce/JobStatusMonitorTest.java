@@ -0,0 +1,87 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.impl.shim.mapreduce;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.hadoop.shim.api.internal.mapred.RunningJob;
+import org.pentaho.hadoop.shim.api.internal.mapred.RunningJobStatus;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JobStatusMonitorTest {
+  private JobStatusMonitor jobStatusMonitor;
+  private RunningJob runningJob;
+
+  @Before
+  public void setup() {
+    jobStatusMonitor = new JobStatusMonitor( 1, 10 );
+    runningJob = mock( RunningJob.class );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testInvalidIntervals() {
+    new JobStatusMonitor( 10, 1 );
+  }
+
+  @Test( timeout = 5000 )
+  public void testCompletesWithFinalStatus() throws Exception {
+    RunningJobStatus running = new RunningJobStatus( false, false, 1f, 0.5f, 0f );
+    RunningJobStatus complete = new RunningJobStatus( true, true, 1f, 1f, 1f );
+    when( runningJob.getStatus() ).thenReturn( running, running, running, complete );
+
+    JobStatusMonitor.MonitoredJob monitoredJob = jobStatusMonitor.monitor( runningJob );
+
+    assertSame( complete, monitoredJob.getCompletion().get() );
+    assertSame( complete, monitoredJob.getLastStatus() );
+    verify( runningJob, atLeast( 4 ) ).getStatus();
+    assertEquals( 0, jobStatusMonitor.getMonitoredJobCount() );
+  }
+
+  @Test( timeout = 5000 )
+  public void testCompletesExceptionallyOnError() throws Exception {
+    IOException ioException = new IOException( "unreachable" );
+    when( runningJob.getStatus() ).thenThrow( ioException );
+
+    JobStatusMonitor.MonitoredJob monitoredJob = jobStatusMonitor.monitor( runningJob );
+    try {
+      monitoredJob.getCompletion().get();
+      fail();
+    } catch ( ExecutionException e ) {
+      assertSame( ioException, e.getCause() );
+    }
+  }
+
+  @Test( timeout = 5000 )
+  public void testCancelStopsPolling() throws Exception {
+    when( runningJob.getStatus() ).thenReturn( new RunningJobStatus( false, false, 0f, 0f, 0f ) );
+
+    JobStatusMonitor.MonitoredJob monitoredJob = jobStatusMonitor.monitor( runningJob );
+    assertEquals( 1, jobStatusMonitor.getMonitoredJobCount() );
+    monitoredJob.cancel();
+
+    assertTrue( monitoredJob.getCompletion().isCancelled() );
+    assertEquals( 0, jobStatusMonitor.getMonitoredJobCount() );
+  }
+}
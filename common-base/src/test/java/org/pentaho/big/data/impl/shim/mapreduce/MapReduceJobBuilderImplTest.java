@@ -15,6 +15,7 @@ package org.pentaho.big.data.impl.shim.mapreduce;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
@@ -24,6 +25,7 @@ import org.pentaho.hadoop.shim.api.internal.Configuration;
 import org.pentaho.hadoop.shim.api.internal.fs.FileSystem;
 import org.pentaho.hadoop.shim.api.internal.fs.Path;
 import org.pentaho.hadoop.shim.api.internal.mapred.RunningJob;
+import org.pentaho.hadoop.shim.api.mapreduce.MapReduceJobBuilder;
 import org.pentaho.hadoop.shim.spi.HadoopShim;
 
 import java.io.IOException;
@@ -194,4 +196,56 @@ public class MapReduceJobBuilderImplTest {
     verify( configuration, never() ).set( eq( "valB" ), isNull( String.class ) );
     verify( configuration, never() ).set( eq( "valB" ), eq( "" ) );
   }
+
+  @Test
+  public void testShuffleSettings() throws Exception {
+    mapReduceJobBuilder.setHadoopJobName( testJobName );
+    mapReduceJobBuilder.setInputPaths( inputPaths );
+    mapReduceJobBuilder.setResolvedJarUrl( resolvedJarUrl );
+    mapReduceJobBuilder.setNumReduceTasks( numReduceTasks );
+    mapReduceJobBuilder.setMapOutputCompression( MapReduceJobBuilder.MapOutputCompression.ZSTD );
+    mapReduceJobBuilder.setSortBufferMb( 512 );
+    mapReduceJobBuilder.setSortSpillPercent( 0.9f );
+    mapReduceJobBuilder.setSortFactor( 64 );
+    mapReduceJobBuilder.setShuffleParallelCopies( 20 );
+    mapReduceJobBuilder.setReduceSlowStart( 0.8f );
+    // Raw properties win over the typed settings
+    mapReduceJobBuilder.set( MapReduceJobBuilderImpl.IO_SORT_FACTOR, "100" );
+
+    mapReduceJobBuilder.submit();
+
+    verify( configuration ).set( MapReduceJobBuilderImpl.MAP_OUTPUT_COMPRESS, "true" );
+    verify( configuration ).set( MapReduceJobBuilderImpl.MAP_OUTPUT_COMPRESS_CODEC,
+      MapReduceJobBuilder.MapOutputCompression.ZSTD.getCodecClass() );
+    verify( configuration ).set( MapReduceJobBuilderImpl.IO_SORT_MB, "512" );
+    verify( configuration ).set( MapReduceJobBuilderImpl.MAP_SORT_SPILL_PERCENT, "0.9" );
+    verify( configuration ).set( MapReduceJobBuilderImpl.REDUCE_SHUFFLE_PARALLEL_COPIES, "20" );
+    verify( configuration ).set( MapReduceJobBuilderImpl.REDUCE_SLOWSTART_COMPLETED_MAPS, "0.8" );
+    InOrder inOrder = inOrder( configuration );
+    inOrder.verify( configuration ).set( MapReduceJobBuilderImpl.IO_SORT_FACTOR, "64" );
+    inOrder.verify( configuration ).set( MapReduceJobBuilderImpl.IO_SORT_FACTOR, "100" );
+  }
+
+  @Test
+  public void testShuffleSettingsUnset() throws Exception {
+    mapReduceJobBuilder.setHadoopJobName( testJobName );
+    mapReduceJobBuilder.setInputPaths( inputPaths );
+    mapReduceJobBuilder.setResolvedJarUrl( resolvedJarUrl );
+    mapReduceJobBuilder.setNumReduceTasks( numReduceTasks );
+
+    mapReduceJobBuilder.submit();
+
+    verify( configuration, never() ).set( eq( MapReduceJobBuilderImpl.MAP_OUTPUT_COMPRESS ), anyString() );
+    verify( configuration, never() ).set( eq( MapReduceJobBuilderImpl.IO_SORT_MB ), anyString() );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testInvalidSortSpillPercent() {
+    mapReduceJobBuilder.setSortSpillPercent( 80 );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testInvalidSortFactor() {
+    mapReduceJobBuilder.setSortFactor( 1 );
+  }
 }
@@ -63,6 +63,8 @@ import org.pentaho.hadoop.shim.api.internal.Configuration;
 import org.pentaho.hadoop.shim.api.internal.DistributedCacheUtil;
 import org.pentaho.hadoop.shim.api.internal.fs.FileSystem;
 import org.pentaho.hadoop.shim.api.internal.fs.Path;
+import org.pentaho.hadoop.shim.api.mapreduce.MapReduceJobBuilder;
+import org.pentaho.hadoop.shim.common.CommonHadoopShim;
 import org.pentaho.hadoop.shim.spi.HadoopShim;
 
 import java.io.IOException;
@@ -641,6 +643,104 @@ public class PentahoMapReduceJobBuilderImplTest {
     verify( configuration ).set( PentahoMapReduceJobBuilderImpl.LOG_LEVEL, LogLevel.BASIC.toString() );
   }
 
+  @Test
+  public void testConfigureMapperThreads() throws Exception {
+    when( hadoopShim.getPentahoMapReduceMapRunnerClass() )
+      .thenReturn( CommonHadoopShim.PENTAHO_MAPREDUCE_RUNNABLE_CLASS_NAME );
+    pentahoMapReduceJobBuilder.setLogLevel( LogLevel.BASIC );
+    pentahoMapReduceJobBuilder.setInputPaths( new String[ 0 ] );
+    pentahoMapReduceJobBuilder.setOutputPath( "test" );
+    pentahoMapReduceJobBuilder.setResolvedJarUrl( new URL( "file:///" ) );
+    Configuration configuration = mock( Configuration.class );
+    when( hadoopShim.getFileSystem( configuration ) ).thenReturn( mock( FileSystem.class ) );
+    pentahoMapReduceJobBuilder.setMapperInfo( transXml, "testMrInput", "testMrOutput" );
+    pentahoMapReduceJobBuilder.setMapperThreads( 4 );
+    pentahoMapReduceJobBuilder.configure( configuration );
+
+    verify( configuration ).setMapRunnerClass( PentahoMapReduceJobBuilderImpl.MULTITHREADED_MAP_RUNNER_CLASS );
+    verify( configuration ).set( PentahoMapReduceJobBuilderImpl.TRANSFORMATION_MAP_THREADS, "4" );
+  }
+
+  @Test
+  public void testConfigureMapperThreadsKeepsShimMapRunner() throws Exception {
+    when( hadoopShim.getPentahoMapReduceMapRunnerClass() ).thenReturn( "org.example.ShimMapRunner" );
+    pentahoMapReduceJobBuilder.setLogLevel( LogLevel.BASIC );
+    pentahoMapReduceJobBuilder.setInputPaths( new String[ 0 ] );
+    pentahoMapReduceJobBuilder.setOutputPath( "test" );
+    pentahoMapReduceJobBuilder.setResolvedJarUrl( new URL( "file:///" ) );
+    Configuration configuration = mock( Configuration.class );
+    when( hadoopShim.getFileSystem( configuration ) ).thenReturn( mock( FileSystem.class ) );
+    pentahoMapReduceJobBuilder.setMapperInfo( transXml, "testMrInput", "testMrOutput" );
+    pentahoMapReduceJobBuilder.setMapperThreads( 4 );
+    pentahoMapReduceJobBuilder.configure( configuration );
+
+    verify( configuration ).setMapRunnerClass( "org.example.ShimMapRunner" );
+    verify( configuration, never() ).set( eq( PentahoMapReduceJobBuilderImpl.TRANSFORMATION_MAP_THREADS ), anyString() );
+  }
+
+  @Test
+  public void testConfigureRowKey() throws Exception {
+    when( hadoopShim.getPentahoMapReduceMapRunnerClass() ).thenReturn( "" );
+    pentahoMapReduceJobBuilder.setLogLevel( LogLevel.BASIC );
+    pentahoMapReduceJobBuilder.setInputPaths( new String[ 0 ] );
+    pentahoMapReduceJobBuilder.setOutputPath( "test" );
+    pentahoMapReduceJobBuilder.setResolvedJarUrl( new URL( "file:///" ) );
+    Configuration configuration = mock( Configuration.class );
+    when( hadoopShim.getFileSystem( configuration ) ).thenReturn( mock( FileSystem.class ) );
+    pentahoMapReduceJobBuilder.setMapperInfo( transXml, "testMrInput", "testMrOutput" );
+    pentahoMapReduceJobBuilder.setRowKeyInfo( new String[] { "customer", "orderDate" }, 1 );
+    pentahoMapReduceJobBuilder.configure( configuration );
+
+    verify( configuration ).set( PentahoMapReduceJobBuilderImpl.TRANSFORMATION_ROW_KEY_FIELDS, "customer,orderDate" );
+    verify( configuration ).set( PentahoMapReduceJobBuilderImpl.TRANSFORMATION_ROW_KEY_GROUPING_FIELDS, "1" );
+    verify( configuration ).set( PentahoMapReduceJobBuilderImpl.MAPRED_OUTPUT_GROUP_COMPARATOR_CLASS,
+      PentahoMapReduceJobBuilderImpl.ROW_KEY_WRITABLE_CLASS + "$GroupingComparator" );
+    verify( configuration ).set( PentahoMapReduceJobBuilderImpl.MAPRED_PARTITIONER_CLASS,
+      PentahoMapReduceJobBuilderImpl.ROW_KEY_PARTITIONER_CLASS );
+    verify( configuration )
+      .setMapOutputKeyClass( Class.forName( PentahoMapReduceJobBuilderImpl.ROW_KEY_WRITABLE_CLASS ) );
+  }
+
+  @Test
+  public void testDefaultMapOutputCompression() throws Exception {
+    when( hadoopShim.getPentahoMapReduceMapRunnerClass() ).thenReturn( "" );
+    pentahoMapReduceJobBuilder.setLogLevel( LogLevel.BASIC );
+    pentahoMapReduceJobBuilder.setInputPaths( new String[ 0 ] );
+    pentahoMapReduceJobBuilder.setOutputPath( "test" );
+    pentahoMapReduceJobBuilder.setResolvedJarUrl( new URL( "file:///" ) );
+    pentahoMapReduceJobBuilder.setNumReduceTasks( 2 );
+    pentahoMapReduceJobBuilder.setMapOutputKeyClass( "org.apache.hadoop.io.Text" );
+    pentahoMapReduceJobBuilder.setMapOutputValueClass( "org.apache.hadoop.io.LongWritable" );
+    Configuration configuration = mock( Configuration.class );
+    when( hadoopShim.getFileSystem( configuration ) ).thenReturn( mock( FileSystem.class ) );
+    pentahoMapReduceJobBuilder.setMapperInfo( transXml, "testMrInput", "testMrOutput" );
+    pentahoMapReduceJobBuilder.configure( configuration );
+
+    verify( configuration ).set( PentahoMapReduceJobBuilderImpl.MAP_OUTPUT_COMPRESS, "true" );
+    verify( configuration ).set( PentahoMapReduceJobBuilderImpl.MAP_OUTPUT_COMPRESS_CODEC,
+      MapReduceJobBuilder.MapOutputCompression.SNAPPY.getCodecClass() );
+  }
+
+  @Test
+  public void testMapOutputCompressionProperty() throws Exception {
+    when( hadoopShim.getPentahoMapReduceMapRunnerClass() ).thenReturn( "" );
+    pentahoMapReduceJobBuilder.setLogLevel( LogLevel.BASIC );
+    pentahoMapReduceJobBuilder.setInputPaths( new String[ 0 ] );
+    pentahoMapReduceJobBuilder.setOutputPath( "test" );
+    pentahoMapReduceJobBuilder.setResolvedJarUrl( new URL( "file:///" ) );
+    pentahoMapReduceJobBuilder.setNumReduceTasks( 2 );
+    pentahoMapReduceJobBuilder.setMapOutputKeyClass( "org.apache.hadoop.io.Text" );
+    when( pmrProperties.get( PentahoMapReduceJobBuilderImpl.PENTAHO_MAPREDUCE_PROPERTY_MAP_OUTPUT_COMPRESSION ) )
+      .thenReturn( "none" );
+    Configuration configuration = mock( Configuration.class );
+    when( hadoopShim.getFileSystem( configuration ) ).thenReturn( mock( FileSystem.class ) );
+    pentahoMapReduceJobBuilder.setMapperInfo( transXml, "testMrInput", "testMrOutput" );
+    pentahoMapReduceJobBuilder.configure( configuration );
+
+    verify( configuration ).set( PentahoMapReduceJobBuilderImpl.MAP_OUTPUT_COMPRESS, "false" );
+    verify( configuration, never() ).set( eq( PentahoMapReduceJobBuilderImpl.MAP_OUTPUT_COMPRESS_CODEC ), anyString() );
+  }
+
   @Test
   public void testDeleteLogging() throws Exception {
     when( hadoopShim.getPentahoMapReduceMapRunnerClass() ).thenReturn( "" );
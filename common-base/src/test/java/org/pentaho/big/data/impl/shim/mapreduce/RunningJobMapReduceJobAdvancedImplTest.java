@@ -18,6 +18,7 @@ import org.junit.Test;
 import org.pentaho.hadoop.shim.api.internal.mapred.TaskCompletionEvent;
 import org.pentaho.hadoop.shim.api.mapreduce.MapReduceService;
 import org.pentaho.hadoop.shim.api.internal.mapred.RunningJob;
+import org.pentaho.hadoop.shim.api.internal.mapred.RunningJobStatus;
 
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
@@ -27,6 +28,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -129,4 +131,26 @@ public class RunningJobMapReduceJobAdvancedImplTest {
     when( runningJob.getTaskDiagnostics( o ) ).thenReturn( value );
     assertArrayEquals( value, runningJobMapReduceJobAdvanced.getTaskDiagnostics( o ) );
   }
+
+  @Test( timeout = 5000 )
+  public void testWaitOnCompletionMonitored() throws IOException, InterruptedException {
+    RunningJobStatus complete = new RunningJobStatus( true, true, 1f, 1f, 0.75f );
+    when( runningJob.getStatus() ).thenReturn( new RunningJobStatus( false, false, 1f, 0.5f, 0f ), complete );
+    runningJobMapReduceJobAdvanced = new RunningJobMapReduceJobAdvancedImpl( runningJob, new JobStatusMonitor( 1, 10 ) );
+
+    assertTrue( runningJobMapReduceJobAdvanced.waitOnCompletion( 10, TimeUnit.MINUTES, stoppable ) );
+    assertTrue( runningJobMapReduceJobAdvanced.isComplete() );
+    assertTrue( runningJobMapReduceJobAdvanced.isSuccessful() );
+    assertEquals( 0.75f, runningJobMapReduceJobAdvanced.getReduceProgress(), 0 );
+    verify( runningJob, never() ).isComplete();
+    verify( runningJob, never() ).reduceProgress();
+  }
+
+  @Test( timeout = 5000, expected = IOException.class )
+  public void testWaitOnCompletionMonitoredFailure() throws IOException, InterruptedException {
+    when( runningJob.getStatus() ).thenThrow( new IOException() );
+    runningJobMapReduceJobAdvanced = new RunningJobMapReduceJobAdvancedImpl( runningJob, new JobStatusMonitor( 1, 10 ) );
+
+    runningJobMapReduceJobAdvanced.waitOnCompletion( 10, TimeUnit.MINUTES, stoppable );
+  }
 }
@@ -0,0 +1,176 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.hadoop.hbase.factory;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.tool.BulkLoadHFiles;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class HBase10BulkLoadTableTest {
+  private static final String TABLE = "bulk";
+  private static final byte[] FAMILY = Bytes.toBytes( "cf" );
+  private static final byte[] QUALIFIER = Bytes.toBytes( "q" );
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Configuration conf;
+  private Connection connection;
+  private BulkLoadHFiles loader;
+
+  @Before
+  public void setup() throws Exception {
+    conf = HBaseConfiguration.create();
+    conf.set( FileSystem.FS_DEFAULT_NAME_KEY, "file:///" );
+    connection = mock( Connection.class );
+    Table table = mock( Table.class );
+    when( table.getDescriptor() ).thenReturn( TableDescriptorBuilder.newBuilder( TableName.valueOf( TABLE ) )
+      .setColumnFamily( ColumnFamilyDescriptorBuilder.of( FAMILY ) ).build() );
+    when( connection.getTable( TableName.valueOf( TABLE ) ) ).thenReturn( table );
+    RegionLocator locator = mock( RegionLocator.class );
+    when( locator.getStartKeys() ).thenReturn( new byte[][] { HConstants.EMPTY_START_ROW, Bytes.toBytes( "m" ) } );
+    when( connection.getRegionLocator( TableName.valueOf( TABLE ) ) ).thenReturn( locator );
+    loader = mock( BulkLoadHFiles.class );
+  }
+
+  private HBase10BulkLoadTable createTable( long bufferSize ) throws Exception {
+    HBase10BulkLoadTable table =
+      spy( new HBase10BulkLoadTable( conf, connection, TABLE, temporaryFolder.getRoot().getAbsolutePath(),
+        bufferSize ) );
+    doReturn( loader ).when( table ).createLoader();
+    return table;
+  }
+
+  private static Put put( String row, String value ) {
+    return new Put( Bytes.toBytes( row ) ).addColumn( FAMILY, QUALIFIER, 1L, Bytes.toBytes( value ) );
+  }
+
+  private FileSystem getFileSystem() throws Exception {
+    return FileSystem.getLocal( conf );
+  }
+
+  @Test
+  public void testLaterPutOfSameCellWins() throws Exception {
+    HBase10BulkLoadTable table = createTable( 1024 * 1024 );
+    table.put( put( "a", "first" ) );
+    long firstBytes = table.getBufferedBytes();
+    table.put( put( "a", "second" ) );
+
+    assertEquals( 1, table.getBufferedCells() );
+    assertEquals( firstBytes + 1, table.getBufferedBytes() );
+    table.put( put( "b", "first" ) );
+    assertEquals( 2, table.getBufferedCells() );
+  }
+
+  @Test
+  public void testSpillsWhenBufferSizeIsReached() throws Exception {
+    HBase10BulkLoadTable table = createTable( 1 );
+    table.put( put( "a", "value" ) );
+
+    assertEquals( 0, table.getBufferedCells() );
+    assertEquals( 0, table.getBufferedBytes() );
+    FileSystem fs = getFileSystem();
+    Path familyDir = new Path( new Path( table.getStagingDir(), "spill-0" ), "cf" );
+    assertTrue( fs.exists( familyDir ) );
+    assertEquals( 1, fs.listStatus( familyDir ).length );
+  }
+
+  @Test
+  public void testBufferBelowSizeIsNotSpilled() throws Exception {
+    HBase10BulkLoadTable table = createTable( 1024 * 1024 );
+    table.put( put( "a", "value" ) );
+
+    assertEquals( 1, table.getBufferedCells() );
+    assertFalse( getFileSystem().exists( table.getStagingDir() ) );
+  }
+
+  @Test
+  public void testFlushCommitsLoadsStagedDirectories() throws Exception {
+    HBase10BulkLoadTable table = createTable( 1 );
+    table.put( put( "a", "value" ) );
+    table.setWriteBufferSize( 1024 * 1024 );
+    table.put( put( "n", "value" ) );
+    table.put( put( "z", "value" ) );
+    table.flushCommits();
+
+    Path stagingDir = table.getStagingDir();
+    verify( loader ).bulkLoad( TableName.valueOf( TABLE ), new Path( stagingDir, "spill-0" ) );
+    verify( loader ).bulkLoad( TableName.valueOf( TABLE ), new Path( stagingDir, "spill-1" ) );
+    verifyNoMoreInteractions( loader );
+    assertEquals( 0, table.getBufferedCells() );
+    assertFalse( getFileSystem().exists( stagingDir ) );
+
+    table.flushCommits();
+    verifyNoMoreInteractions( loader );
+  }
+
+  @Test
+  public void testFailedLoadKeepsStagedFilesForRetry() throws Exception {
+    HBase10BulkLoadTable table = createTable( 1 );
+    table.put( put( "a", "value" ) );
+    table.put( put( "b", "value" ) );
+    Path stagingDir = table.getStagingDir();
+    Path first = new Path( stagingDir, "spill-0" );
+    Path second = new Path( stagingDir, "spill-1" );
+    when( loader.bulkLoad( TableName.valueOf( TABLE ), second ) ).thenThrow( new IOException( "region moved" ) )
+      .thenReturn( null );
+
+    try {
+      table.flushCommits();
+      fail( "the failed load should be rethrown" );
+    } catch ( IOException e ) {
+      assertEquals( "region moved", e.getMessage() );
+    }
+    FileSystem fs = getFileSystem();
+    assertFalse( fs.exists( first ) );
+    assertTrue( fs.exists( second ) );
+
+    table.flushCommits();
+    verify( loader, times( 1 ) ).bulkLoad( TableName.valueOf( TABLE ), first );
+    verify( loader, times( 2 ) ).bulkLoad( TableName.valueOf( TABLE ), second );
+    assertFalse( fs.exists( stagingDir ) );
+  }
+
+  @Test
+  public void testSecondRegionGetsItsOwnFile() throws Exception {
+    HBase10BulkLoadTable table = createTable( 1024 * 1024 );
+    table.put( put( "a", "value" ) );
+    table.put( put( "n", "value" ) );
+    table.setWriteBufferSize( 1 );
+    table.put( put( "z", "value" ) );
+
+    Path familyDir = new Path( new Path( table.getStagingDir(), "spill-0" ), "cf" );
+    assertEquals( 2, getFileSystem().listStatus( familyDir ).length );
+  }
+}
@@ -0,0 +1,124 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.hadoop.shim;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SiteConfigurationCacheTest {
+  private static final String CORE_SITE = "core-site.xml";
+
+  private SiteConfigurationCache siteConfigurationCache;
+  private NamedCluster namedCluster;
+  private String coreSite;
+
+  @Before
+  public void setup() {
+    siteConfigurationCache = new SiteConfigurationCache();
+    namedCluster = mock( NamedCluster.class );
+    when( namedCluster.getName() ).thenReturn( "cluster" );
+    coreSite = siteXml( "hdfs://one:8020" );
+    when( namedCluster.getSiteFileInputStream( CORE_SITE ) ).thenAnswer(
+      invocation -> new ByteArrayInputStream( coreSite.getBytes( StandardCharsets.UTF_8 ) ) );
+  }
+
+  @Test
+  public void testSnapshotIsParsedOnce() {
+    Configuration snapshot = siteConfigurationCache.getSnapshot( namedCluster, CORE_SITE );
+    assertEquals( "hdfs://one:8020", snapshot.get( "fs.defaultFS" ) );
+    assertSame( snapshot, siteConfigurationCache.getSnapshot( namedCluster, CORE_SITE ) );
+  }
+
+  @Test
+  public void testChangedContentIsParsedAgain() {
+    Configuration snapshot = siteConfigurationCache.getSnapshot( namedCluster, CORE_SITE );
+    coreSite = siteXml( "hdfs://two:8020" );
+    Configuration changed = siteConfigurationCache.getSnapshot( namedCluster, CORE_SITE );
+    assertNotSame( snapshot, changed );
+    assertEquals( "hdfs://two:8020", changed.get( "fs.defaultFS" ) );
+  }
+
+  @Test
+  public void testAddSnapshotCopiesProperties() {
+    Configuration configuration = new Configuration( false );
+    assertTrue( siteConfigurationCache.addSnapshot( namedCluster, CORE_SITE, configuration ) );
+    assertEquals( "hdfs://one:8020", configuration.get( "fs.defaultFS" ) );
+    configuration.set( "fs.defaultFS", "hdfs://other:8020" );
+    assertEquals( "hdfs://one:8020",
+      siteConfigurationCache.getSnapshot( namedCluster, CORE_SITE ).get( "fs.defaultFS" ) );
+  }
+
+  @Test
+  public void testAddSnapshotKeepsFinalProperties() {
+    coreSite = "<?xml version=\"1.0\"?><configuration>"
+      + "<property><name>fs.defaultFS</name><value>hdfs://one:8020</value><final>true</final></property>"
+      + "<property><name>hadoop.tmp.dir</name><value>/tmp/a&amp;b</value></property>"
+      + "</configuration>";
+    Configuration configuration = new Configuration( false );
+    assertTrue( siteConfigurationCache.addSnapshot( namedCluster, CORE_SITE, configuration ) );
+    configuration.addResource( new ByteArrayInputStream( ( "<?xml version=\"1.0\"?><configuration>"
+      + "<property><name>fs.defaultFS</name><value>hdfs://later:8020</value></property>"
+      + "<property><name>hadoop.tmp.dir</name><value>/tmp/later</value></property>"
+      + "</configuration>" ).getBytes( StandardCharsets.UTF_8 ) ), "later-site.xml" );
+
+    assertEquals( "hdfs://one:8020", configuration.get( "fs.defaultFS" ) );
+    assertEquals( "/tmp/later", configuration.get( "hadoop.tmp.dir" ) );
+    assertTrue( configuration.getFinalParameters().contains( "fs.defaultFS" ) );
+    assertFalse( configuration.getFinalParameters().contains( "hadoop.tmp.dir" ) );
+  }
+
+  @Test
+  public void testAddSnapshotOfContent() {
+    Configuration configuration = new Configuration( false );
+    assertTrue( siteConfigurationCache.addSnapshot( "cluster", CORE_SITE,
+      siteXml( "hdfs://three:8020" ).getBytes( StandardCharsets.UTF_8 ), configuration ) );
+    assertEquals( "hdfs://three:8020", configuration.get( "fs.defaultFS" ) );
+    assertTrue( configuration.getFinalParameters().isEmpty() );
+    assertFalse( siteConfigurationCache.addSnapshot( "cluster", CORE_SITE, null, configuration ) );
+  }
+
+  @Test
+  public void testMissingSiteFile() {
+    Configuration configuration = new Configuration( false );
+    assertFalse( siteConfigurationCache.addSnapshot( namedCluster, "hbase-site.xml", configuration ) );
+    assertNull( siteConfigurationCache.getSnapshot( namedCluster, "hbase-site.xml" ) );
+  }
+
+  @Test
+  public void testInvalidate() {
+    siteConfigurationCache.getSnapshot( namedCluster, CORE_SITE );
+    assertEquals( 1, siteConfigurationCache.size() );
+    siteConfigurationCache.invalidate( "cluster" );
+    assertEquals( 0, siteConfigurationCache.size() );
+  }
+
+  private static String siteXml( String defaultFs ) {
+    return "<?xml version=\"1.0\"?><configuration><property><name>fs.defaultFS</name><value>" + defaultFs
+      + "</value></property></configuration>";
+  }
+}
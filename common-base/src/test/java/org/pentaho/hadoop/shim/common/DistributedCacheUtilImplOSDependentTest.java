@@ -14,10 +14,13 @@ package org.pentaho.hadoop.shim.common;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -304,4 +307,132 @@ public class DistributedCacheUtilImplOSDependentTest {
     }
   }
 
+  @Test
+  public void installKettleEnvironment_incremental() throws Exception {
+    DistributedCacheUtilImpl ch = new DistributedCacheUtilImpl();
+
+    Configuration conf = new Configuration();
+    FileSystem fs = DistributedCacheTestUtil.getLocalFileSystem( conf );
+
+    FileObject pmrArchive = KettleVFS.getFileObject( getClass().getResource( "/empty-pmr.zip" ).toURI().getPath() );
+    FileObject bigDataPluginDir = DistributedCacheTestUtil
+      .createTestFolderWithContent( DistributedCacheUtilImpl.PENTAHO_BIG_DATA_PLUGIN_FOLDER_NAME );
+    String pluginDir = "plugins/" + DistributedCacheUtilImpl.PENTAHO_BIG_DATA_PLUGIN_FOLDER_NAME;
+
+    Path root = new Path( "bin/test/installKettleEnvironment_incremental" );
+    Path first = new Path( root, "first" );
+    Path second = new Path( root, "second" );
+    try {
+      ch.installKettleEnvironment( pmrArchive, fs, first, bigDataPluginDir, null, "", "test-config", true );
+      assertTrue( ch.isKettleEnvironmentInstalledAt( fs, first ) );
+
+      KettleEnvironmentManifest manifest = KettleEnvironmentManifest.read( fs, first );
+      assertNotNull( manifest );
+      String digest = manifest.get( "lib/configuration-specific.jar" );
+      assertNotNull( digest );
+      assertNotNull( manifest.get( pluginDir + "/hadoop-configurations/test-config/lib/required.jar" ) );
+
+      // Libraries are staged by digest into the shared blob store, plugins as directories named after their files
+      Path blob = new Path( ch.getBlobStoreAt( first ), digest + ".jar" );
+      assertTrue( fs.exists( blob ) );
+      assertEquals( blob, ch.getStagedPathAt( first, manifest, "lib/configuration-specific.jar" ) );
+      assertFalse( fs.exists( new Path( first, "lib/configuration-specific.jar" ) ) );
+      assertFalse( fs.exists( new Path( first, pluginDir + "/jar1.jar" ) ) );
+      Path jar1 = ch.getStagedPathAt( first, manifest, pluginDir + "/jar1.jar" );
+      assertTrue( fs.exists( jar1 ) );
+      assertEquals( ch.getBlobStoreAt( first ), jar1.getParent().getParent() );
+      assertTrue( fs.exists( ch.getStagedPathAt( first, manifest, pluginDir + "/folder/file.txt" ) ) );
+      long modified = fs.getFileStatus( blob ).getModificationTime();
+
+      // A second installation id shares the staged libraries
+      ch.installKettleEnvironment( pmrArchive, fs, second, bigDataPluginDir, null, "", "test-config", true );
+      assertTrue( ch.isKettleEnvironmentInstalledAt( fs, second ) );
+      assertEquals( manifest.getEntries(), KettleEnvironmentManifest.read( fs, second ).getEntries() );
+      assertEquals( modified, fs.getFileStatus( blob ).getModificationTime() );
+      assertEquals( jar1, ch.getStagedPathAt( second, manifest, pluginDir + "/jar1.jar" ) );
+
+      ch.configureWithKettleEnvironment( conf, fs, second );
+      assertTrue( conf.get( "mapred.cache.files" ).contains( digest + ".jar#configuration-specific.jar" ) );
+      assertTrue( conf.get( "mapred.cache.files" ).contains( digest + ".jar#kettle-core.jar" ) );
+      assertTrue( conf.get( "mapred.job.classpath.files" ).contains( digest + ".jar" ) );
+      assertTrue( conf.get( "mapred.cache.files" ).contains( jar1.getParent().getName() + "#" + pluginDir ) );
+      assertFalse( conf.get( "mapred.cache.files" ).contains( KettleEnvironmentManifest.MANIFEST_FILE_NAME ) );
+    } finally {
+      bigDataPluginDir.delete( new AllFileSelector() );
+      fs.delete( root, true );
+    }
+  }
+
+  @Test
+  public void installKettleEnvironment_incremental_update() throws Exception {
+    DistributedCacheUtilImpl ch = new DistributedCacheUtilImpl();
+
+    Configuration conf = new Configuration();
+    FileSystem fs = DistributedCacheTestUtil.getLocalFileSystem( conf );
+
+    FileObject pmrArchive = KettleVFS.getFileObject( getClass().getResource( "/empty-pmr.zip" ).toURI().getPath() );
+    FileObject bigDataPluginDir = DistributedCacheTestUtil
+      .createTestFolderWithContent( DistributedCacheUtilImpl.PENTAHO_BIG_DATA_PLUGIN_FOLDER_NAME );
+    String pluginDir = "plugins/" + DistributedCacheUtilImpl.PENTAHO_BIG_DATA_PLUGIN_FOLDER_NAME;
+
+    Path root = new Path( "bin/test/installKettleEnvironment_incremental_update" );
+    Path dest = new Path( root, "install" );
+    try {
+      ch.installKettleEnvironment( pmrArchive, fs, dest, bigDataPluginDir, null, "", "test-config", true );
+      KettleEnvironmentManifest original = KettleEnvironmentManifest.read( fs, dest );
+      String jar1Digest = original.get( pluginDir + "/jar1.jar" );
+      Path originalJar1 = ch.getStagedPathAt( dest, original, pluginDir + "/jar1.jar" );
+      long jar1Length = fs.getFileStatus( originalJar1 ).getLen();
+      Path library = ch.getStagedPathAt( dest, original, "lib/kettle-core.jar" );
+      long libraryModified = fs.getFileStatus( library ).getModificationTime();
+
+      // Staging unchanged files again keeps the manifest
+      ch.installKettleEnvironment( pmrArchive, fs, dest, bigDataPluginDir, null, "", "test-config", true );
+      assertEquals( original.getEntries(), KettleEnvironmentManifest.read( fs, dest ).getEntries() );
+      assertNull( KettleEnvironmentManifest.readPrevious( fs, dest ) );
+
+      // Change one file and remove another
+      try ( OutputStream out = bigDataPluginDir.resolveFile( "jar1.jar" ).getContent().getOutputStream() ) {
+        out.write( "changed".getBytes() );
+      }
+      bigDataPluginDir.resolveFile( "folder/file.txt" ).delete();
+
+      ch.installKettleEnvironment( pmrArchive, fs, dest, bigDataPluginDir, null, "", "test-config", true );
+      assertTrue( ch.isKettleEnvironmentInstalledAt( fs, dest ) );
+
+      KettleEnvironmentManifest manifest = KettleEnvironmentManifest.read( fs, dest );
+      assertFalse( jar1Digest.equals( manifest.get( pluginDir + "/jar1.jar" ) ) );
+      assertEquals( original.getEntries(), KettleEnvironmentManifest.readPrevious( fs, dest ).getEntries() );
+      Path jar1 = ch.getStagedPathAt( dest, manifest, pluginDir + "/jar1.jar" );
+      assertFalse( originalJar1.equals( jar1 ) );
+      assertEquals( "changed".length(), fs.getFileStatus( jar1 ).getLen() );
+      assertEquals( null, manifest.get( pluginDir + "/folder/file.txt" ) );
+      assertFalse( fs.exists( new Path( jar1.getParent(), "folder/file.txt" ) ) );
+
+      // Only the changed plugin was uploaded again
+      assertEquals( library, ch.getStagedPathAt( dest, manifest, "lib/kettle-core.jar" ) );
+      assertEquals( libraryModified, fs.getFileStatus( library ).getModificationTime() );
+
+      // The files of the previous manifest were not touched, jobs configured with it keep working
+      assertEquals( jar1Length, fs.getFileStatus( originalJar1 ).getLen() );
+      assertTrue( fs.exists( new Path( originalJar1.getParent(), "folder/file.txt" ) ) );
+
+      // Blobs of older manifests are collected once they are past the retention
+      fs.setTimes( originalJar1.getParent(), 0, -1 );
+      fs.setTimes( jar1.getParent(), 0, -1 );
+      try ( OutputStream out = bigDataPluginDir.resolveFile( "jar1.jar" ).getContent().getOutputStream() ) {
+        out.write( "changed again".getBytes() );
+      }
+      ch.installKettleEnvironment( pmrArchive, fs, dest, bigDataPluginDir, null, "", "test-config", true );
+      assertFalse( fs.exists( originalJar1.getParent() ) );
+      assertTrue( fs.exists( jar1 ) );
+      assertTrue( fs.exists( library ) );
+      assertTrue( fs.exists(
+        ch.getStagedPathAt( dest, KettleEnvironmentManifest.read( fs, dest ), pluginDir + "/jar1.jar" ) ) );
+    } finally {
+      bigDataPluginDir.delete( new AllFileSelector() );
+      fs.delete( root, true );
+    }
+  }
+
 }
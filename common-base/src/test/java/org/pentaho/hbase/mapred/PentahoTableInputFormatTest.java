@@ -0,0 +1,77 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.hbase.mapred;
+
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.mapred.TableSplit;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PentahoTableInputFormatTest {
+  private static final TableName TABLE = TableName.valueOf( "table" );
+
+  @Test
+  public void testGetSubSplitCount() {
+    assertEquals( 1, PentahoTableInputFormat.getSubSplitCount( 100, 100, 16 ) );
+    assertEquals( 2, PentahoTableInputFormat.getSubSplitCount( 101, 100, 16 ) );
+    assertEquals( 4, PentahoTableInputFormat.getSubSplitCount( 1000, 100, 4 ) );
+  }
+
+  @Test
+  public void testCreateSubSplitsKeepsRegionBoundsAndLocation() {
+    byte[] start = Bytes.toBytes( "a" );
+    byte[] end = Bytes.toBytes( "z" );
+    List<TableSplit> splits = PentahoTableInputFormat.createSubSplits( TABLE, start, end, "host1", 4 );
+    assertEquals( 4, splits.size() );
+    assertArrayEquals( start, splits.get( 0 ).getStartRow() );
+    assertArrayEquals( end, splits.get( 3 ).getEndRow() );
+    for ( int i = 0; i < splits.size(); i++ ) {
+      assertEquals( "host1", splits.get( i ).getRegionLocation() );
+      assertTrue( Bytes.compareTo( splits.get( i ).getStartRow(), splits.get( i ).getEndRow() ) < 0 );
+      if ( i > 0 ) {
+        assertArrayEquals( splits.get( i - 1 ).getEndRow(), splits.get( i ).getStartRow() );
+      }
+    }
+  }
+
+  @Test
+  public void testCreateSubSplitsUnboundedRegion() {
+    List<TableSplit> splits = PentahoTableInputFormat
+      .createSubSplits( TABLE, HConstants.EMPTY_START_ROW, HConstants.EMPTY_END_ROW, "host1", 3 );
+    assertEquals( 3, splits.size() );
+    assertEquals( 0, splits.get( 0 ).getStartRow().length );
+    assertEquals( 0, splits.get( 2 ).getEndRow().length );
+  }
+
+  @Test
+  public void testCreateSubSplitsSingle() {
+    List<TableSplit> splits = PentahoTableInputFormat
+      .createSubSplits( TABLE, Bytes.toBytes( "a" ), Bytes.toBytes( "b" ), "host1", 1 );
+    assertEquals( 1, splits.size() );
+  }
+
+  @Test
+  public void testParseColumns() {
+    byte[][][] parsed = PentahoTableRecordReaderImpl.parseColumns(
+      new byte[][] { Bytes.toBytes( "fam:col" ), Bytes.toBytes( "fam" ) } );
+    assertArrayEquals( Bytes.toBytes( "fam" ), parsed[ 0 ][ 0 ] );
+    assertArrayEquals( Bytes.toBytes( "col" ), parsed[ 0 ][ 1 ] );
+    assertArrayEquals( Bytes.toBytes( "fam" ), parsed[ 1 ][ 0 ] );
+  }
+}
@@ -12,10 +12,24 @@
 
 package org.pentaho.hbase.shim.common;
 
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.RowFilter;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.junit.Test;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.hadoop.shim.api.internal.hbase.ColumnFilter;
+import org.pentaho.hadoop.shim.api.internal.hbase.HBaseValueMeta;
+import org.pentaho.hadoop.shim.api.internal.hbase.Mapping;
 import org.pentaho.hbase.shim.common.CommonHBaseConnection;
 
+import java.text.SimpleDateFormat;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by Vasilina_Terehova on 4/10/2018.
@@ -43,4 +57,106 @@ public class CommonHBaseConnectionTest {
     assertEquals( false, CommonHBaseConnection.isMapR60OrAboveShim( "Mapr5" ) );
     assertEquals( true, CommonHBaseConnection.isMapR60OrAboveShim( "Mapr 7" ) );
   }
+
+  @Test
+  public void testSignedIntegerKeyBoundsUseKeyEncoding() throws Exception {
+    CommonHBaseConnection connection = new CommonHBaseConnection();
+    connection.m_sourceScan = new Scan();
+    HBaseValueMeta keyMeta = getKeyMeta( ValueMetaInterface.TYPE_INTEGER, Mapping.KeyType.INTEGER );
+    connection.addColumnFilterToScan( getFilter( ColumnFilter.ComparisonType.GREATER_THAN_OR_EQUAL, "-5", true ),
+      keyMeta, new Variables(), false );
+    connection.addColumnFilterToScan( getFilter( ColumnFilter.ComparisonType.LESS_THAN, "10", true ),
+      keyMeta, new Variables(), false );
+    connection.m_scanFilterPlanner.apply( connection.m_sourceScan );
+
+    Scan scan = connection.m_sourceScan;
+    assertArrayEquals( HBaseValueMeta.encodeKeyValue( -5, Mapping.KeyType.INTEGER, connection.m_bytesUtil ),
+      scan.getStartRow() );
+    assertTrue( scan.includeStartRow() );
+    assertArrayEquals( HBaseValueMeta.encodeKeyValue( 10, Mapping.KeyType.INTEGER, connection.m_bytesUtil ),
+      scan.getStopRow() );
+    assertFalse( scan.includeStopRow() );
+    // -5 has to sort before 10 for the range to hold any row at all
+    assertTrue( Bytes.compareTo( scan.getStartRow(), scan.getStopRow() ) < 0 );
+  }
+
+  @Test
+  public void testSignedDateKeyBeforeEpoch() throws Exception {
+    CommonHBaseConnection connection = new CommonHBaseConnection();
+    connection.m_sourceScan = new Scan();
+    ColumnFilter filter = getFilter( ColumnFilter.ComparisonType.GREATER_THAN, "1960-01-01", true );
+    filter.setFormat( "yyyy-MM-dd" );
+    connection.addColumnFilterToScan( filter, getKeyMeta( ValueMetaInterface.TYPE_DATE, Mapping.KeyType.DATE ), new Variables(),
+      false );
+    connection.m_scanFilterPlanner.apply( connection.m_sourceScan );
+
+    assertArrayEquals( HBaseValueMeta.encodeKeyValue( new SimpleDateFormat( "yyyy-MM-dd" ).parse( "1960-01-01" ),
+      Mapping.KeyType.DATE, connection.m_bytesUtil ), connection.m_sourceScan.getStartRow() );
+    assertFalse( connection.m_sourceScan.includeStartRow() );
+  }
+
+  @Test
+  public void testUnsignedLongKeyBoundsAreRawBytes() throws Exception {
+    CommonHBaseConnection connection = new CommonHBaseConnection();
+    connection.m_sourceScan = new Scan();
+    connection.addColumnFilterToScan( getFilter( ColumnFilter.ComparisonType.EQUAL, "42", false ),
+      getKeyMeta( ValueMetaInterface.TYPE_INTEGER, Mapping.KeyType.UNSIGNED_LONG ), new Variables(), false );
+    connection.m_scanFilterPlanner.apply( connection.m_sourceScan );
+
+    assertArrayEquals( connection.m_bytesUtil.toBytes( 42L ), connection.m_sourceScan.getStartRow() );
+    assertArrayEquals( connection.m_bytesUtil.toBytes( 42L ), connection.m_sourceScan.getStopRow() );
+  }
+
+  @Test
+  public void testSignedComparisonOnUnsignedKeyUsesKeyType() throws Exception {
+    CommonHBaseConnection connection = new CommonHBaseConnection();
+    connection.m_sourceScan = new Scan();
+    connection.addColumnFilterToScan( getFilter( ColumnFilter.ComparisonType.GREATER_THAN_OR_EQUAL, "42", true ),
+      getKeyMeta( ValueMetaInterface.TYPE_INTEGER, Mapping.KeyType.UNSIGNED_LONG ), new Variables(), false );
+    connection.m_scanFilterPlanner.apply( connection.m_sourceScan );
+
+    assertArrayEquals( connection.m_bytesUtil.toBytes( 42L ), connection.m_sourceScan.getStartRow() );
+  }
+
+  @Test
+  public void testKeyTypeMismatchUsesRowFilter() throws Exception {
+    CommonHBaseConnection connection = new CommonHBaseConnection();
+    connection.m_sourceScan = new Scan();
+    connection.addColumnFilterToScan( getFilter( ColumnFilter.ComparisonType.GREATER_THAN, "42", false ),
+      getKeyMeta( ValueMetaInterface.TYPE_INTEGER, Mapping.KeyType.STRING ), new Variables(), false );
+    connection.m_scanFilterPlanner.apply( connection.m_sourceScan );
+
+    assertEquals( 0, connection.m_sourceScan.getStartRow().length );
+    assertEquals( 0, connection.m_sourceScan.getStopRow().length );
+    assertTrue( connection.m_sourceScan.getFilter() instanceof FilterList );
+    assertTrue( ( (FilterList) connection.m_sourceScan.getFilter() ).getFilters().get( 0 ) instanceof RowFilter );
+  }
+
+  @Test
+  public void testNegativeBoundOfUnsignedKeyUsesRowFilter() throws Exception {
+    CommonHBaseConnection connection = new CommonHBaseConnection();
+    connection.m_sourceScan = new Scan();
+    connection.addColumnFilterToScan( getFilter( ColumnFilter.ComparisonType.GREATER_THAN, "-1", false ),
+      getKeyMeta( ValueMetaInterface.TYPE_INTEGER, Mapping.KeyType.UNSIGNED_LONG ), new Variables(), false );
+    connection.m_scanFilterPlanner.apply( connection.m_sourceScan );
+
+    assertEquals( 0, connection.m_sourceScan.getStartRow().length );
+    assertTrue( ( (FilterList) connection.m_sourceScan.getFilter() ).getFilters().get( 0 ) instanceof RowFilter );
+  }
+
+  private static HBaseValueMeta getKeyMeta( int type, Mapping.KeyType keyType ) {
+    HBaseValueMeta keyMeta = new HBaseValueMeta( "key,key,key", type, -1, -1 );
+    keyMeta.setKey( true );
+    keyMeta.setKeyType( keyType );
+    keyMeta.setIsLongOrDouble( keyType == Mapping.KeyType.LONG || keyType == Mapping.KeyType.UNSIGNED_LONG );
+    return keyMeta;
+  }
+
+  private static ColumnFilter getFilter( ColumnFilter.ComparisonType comparison, String constant, boolean signed ) {
+    ColumnFilter filter = new ColumnFilter( "key" );
+    filter.setComparisonOperator( comparison );
+    filter.setConstant( constant );
+    filter.setSignedComparison( signed );
+    return filter;
+  }
 }
@@ -0,0 +1,133 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.hbase.shim.common;
+
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.BinaryComparator;
+import org.apache.hadoop.hbase.filter.CompareFilter;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.MultiRowRangeFilter;
+import org.apache.hadoop.hbase.filter.RegexStringComparator;
+import org.apache.hadoop.hbase.filter.RowFilter;
+import org.apache.hadoop.hbase.filter.ValueFilter;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ScanFilterPlannerTest {
+
+  @Test
+  public void testMatchAllNarrowsScanToKeyRange() {
+    ScanFilterPlanner planner = new ScanFilterPlanner( false );
+    planner.addKeyRange( ScanFilterPlanner.KeyRange.forComparison( CompareFilter.CompareOp.GREATER,
+      Bytes.toBytes( "b" ) ) );
+    planner.addKeyRange( ScanFilterPlanner.KeyRange.forComparison( CompareFilter.CompareOp.LESS_OR_EQUAL,
+      Bytes.toBytes( "m" ) ) );
+    Scan scan = new Scan();
+    planner.apply( scan );
+    assertArrayEquals( Bytes.toBytes( "b" ), scan.getStartRow() );
+    assertFalse( scan.includeStartRow() );
+    assertArrayEquals( Bytes.toBytes( "m" ), scan.getStopRow() );
+    assertTrue( scan.includeStopRow() );
+    assertNull( scan.getFilter() );
+  }
+
+  @Test
+  public void testMatchAllKeepsTighterScanBounds() {
+    ScanFilterPlanner planner = new ScanFilterPlanner( false );
+    planner.addKeyRange( ScanFilterPlanner.KeyRange.forPrefix( Bytes.toBytes( "a" ) ) );
+    Scan scan = new Scan( Bytes.toBytes( "aa" ), Bytes.toBytes( "ab" ) );
+    planner.apply( scan );
+    assertArrayEquals( Bytes.toBytes( "aa" ), scan.getStartRow() );
+    assertArrayEquals( Bytes.toBytes( "ab" ), scan.getStopRow() );
+    assertFalse( scan.includeStopRow() );
+  }
+
+  @Test
+  public void testMatchAllDisjointRangesScanNothing() {
+    ScanFilterPlanner planner = new ScanFilterPlanner( false );
+    planner.addKeyRange( ScanFilterPlanner.KeyRange.forComparison( CompareFilter.CompareOp.EQUAL,
+      Bytes.toBytes( "a" ) ) );
+    planner.addKeyRange( ScanFilterPlanner.KeyRange.forComparison( CompareFilter.CompareOp.EQUAL,
+      Bytes.toBytes( "b" ) ) );
+    Scan scan = new Scan();
+    planner.apply( scan );
+    assertArrayEquals( scan.getStartRow(), scan.getStopRow() );
+    assertFalse( scan.includeStopRow() );
+  }
+
+  @Test
+  public void testMatchAllOrdersFiltersByCost() {
+    ScanFilterPlanner planner = new ScanFilterPlanner( false );
+    Filter regex = new ValueFilter( CompareFilter.CompareOp.EQUAL, new RegexStringComparator( "a.*" ) );
+    Filter equal = new ValueFilter( CompareFilter.CompareOp.EQUAL, new BinaryComparator( Bytes.toBytes( "a" ) ) );
+    Filter row = new RowFilter( CompareFilter.CompareOp.NOT_EQUAL, new BinaryComparator( Bytes.toBytes( "a" ) ) );
+    planner.addFilter( regex, ScanFilterPlanner.COST_REGEX );
+    planner.addFilter( equal, ScanFilterPlanner.COST_EQUAL );
+    planner.addFilter( row, ScanFilterPlanner.COST_ROW_KEY );
+    Scan scan = new Scan();
+    planner.apply( scan );
+    FilterList filterList = (FilterList) scan.getFilter();
+    assertEquals( FilterList.Operator.MUST_PASS_ALL, filterList.getOperator() );
+    assertSame( row, filterList.getFilters().get( 0 ) );
+    assertSame( equal, filterList.getFilters().get( 1 ) );
+    assertSame( regex, filterList.getFilters().get( 2 ) );
+  }
+
+  @Test
+  public void testMatchAnyKeyRangesBecomeMultiRowRangeFilter() {
+    ScanFilterPlanner planner = new ScanFilterPlanner( true );
+    planner.addKeyRange( ScanFilterPlanner.KeyRange.forComparison( CompareFilter.CompareOp.EQUAL,
+      Bytes.toBytes( "k" ) ) );
+    planner.addKeyRange( ScanFilterPlanner.KeyRange.forPrefix( Bytes.toBytes( "c" ) ) );
+    Scan scan = new Scan();
+    planner.apply( scan );
+    assertTrue( scan.getFilter() instanceof MultiRowRangeFilter );
+    assertArrayEquals( Bytes.toBytes( "c" ), scan.getStartRow() );
+    assertArrayEquals( Bytes.toBytes( "k" ), scan.getStopRow() );
+    assertTrue( scan.includeStopRow() );
+  }
+
+  @Test
+  public void testMatchAnyWithValueFilterKeepsEveryCondition() {
+    ScanFilterPlanner planner = new ScanFilterPlanner( true );
+    planner.addKeyRange( ScanFilterPlanner.KeyRange.forPrefix( Bytes.toBytes( "c" ) ) );
+    planner.addFilter( new ValueFilter( CompareFilter.CompareOp.EQUAL, new BinaryComparator( Bytes.toBytes( "a" ) ) ),
+      ScanFilterPlanner.COST_EQUAL );
+    Scan scan = new Scan();
+    planner.apply( scan );
+    FilterList filterList = (FilterList) scan.getFilter();
+    assertEquals( FilterList.Operator.MUST_PASS_ONE, filterList.getOperator() );
+    assertEquals( 2, filterList.getFilters().size() );
+    assertEquals( 0, scan.getStartRow().length );
+    assertEquals( 0, scan.getStopRow().length );
+  }
+
+  @Test
+  public void testNextPrefix() {
+    assertArrayEquals( new byte[] { 1, 3 }, ScanFilterPlanner.KeyRange.nextPrefix( new byte[] { 1, 2 } ) );
+    assertArrayEquals( new byte[] { 2 }, ScanFilterPlanner.KeyRange.nextPrefix( new byte[] { 1, (byte) 0xFF } ) );
+    assertNull( ScanFilterPlanner.KeyRange.nextPrefix( new byte[] { (byte) 0xFF } ) );
+  }
+
+  @Test
+  public void testNoConditionsLeaveScanUnfiltered() {
+    Scan scan = new Scan();
+    new ScanFilterPlanner( false ).apply( scan );
+    assertNull( scan.getFilter() );
+    assertEquals( 0, scan.getStartRow().length );
+  }
+}
@@ -14,8 +14,13 @@
 package org.pentaho.big.data.api.cluster.service.locator.impl;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import org.pentaho.big.data.api.shims.LegacyShimLocator;
 import org.pentaho.big.data.impl.cluster.NamedClusterManager;
+import org.pentaho.di.core.osgi.api.NamedClusterSiteFile;
 import org.pentaho.di.core.service.PluginServiceLoader;
 import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
 import org.pentaho.hadoop.shim.api.cluster.NamedClusterService;
@@ -26,12 +31,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -43,7 +51,28 @@ import static java.util.Optional.ofNullable;
  */
 @SuppressWarnings( "WeakerAccess" )
 public class NamedClusterServiceLocatorImpl implements NamedClusterServiceLocator {
+  @VisibleForTesting static final int MAX_CACHED_SERVICES = 256;
+  @VisibleForTesting static final long SHIM_RESOLUTION_TTL_SECONDS = 30;
+
   @VisibleForTesting final Map<String, Map<Class<?>, List<NamedClusterServiceFactory<?>>>> serviceVendorTypeMapping;
+  /**
+   * Immutable copy of serviceVendorTypeMapping, republished on every change so getService doesn't take a lock
+   */
+  private volatile Map<String, Map<Class<?>, List<NamedClusterServiceFactory<?>>>> factorySnapshot =
+    Collections.emptyMap();
+  /**
+   * Services already created, by factory and named cluster version, as creating one usually builds a configuration.
+   * A cached service keeps the NamedCluster instance it was created for. Later lookups with another instance of the
+   * same name and version get that service back, so factories must not rely on the identity of the instance.
+   */
+  private final Cache<ServiceKey, Object> serviceCache =
+    CacheBuilder.newBuilder().maximumSize( MAX_CACHED_SERVICES ).build();
+  /**
+   * Shims of named clusters that had to be looked up in a metastore
+   */
+  private final Cache<String, String> shimCache =
+    CacheBuilder.newBuilder().maximumSize( MAX_CACHED_SERVICES )
+      .expireAfterWrite( SHIM_RESOLUTION_TTL_SECONDS, TimeUnit.SECONDS ).build();
   private final ReadWriteLock readWriteLock;
   @VisibleForTesting final String internalShim;
   private MetastoreLocator metastoreLocator;
@@ -104,6 +133,7 @@ public class NamedClusterServiceLocatorImpl implements NamedClusterServiceLocato
       classServiceMap.putIfAbsent( serviceClass, new ArrayList<>() );
       //Add the service Factory to the list
       Objects.requireNonNull( classServiceMap ).get( serviceClass ).add( namedClusterServiceFactory );
+      publishFactories();
     } finally {
       writeLock.unlock();
     }
@@ -121,11 +151,45 @@ public class NamedClusterServiceLocatorImpl implements NamedClusterServiceLocato
       String shim = (String) properties.get( "shim" );
       ofNullable( serviceVendorTypeMapping.get( shim ) )
         .ifPresent( serviceFactories -> serviceFactories.remove( serviceClass ) );
+      publishFactories();
     } finally {
       writeLock.unlock();
     }
   }
 
+  /**
+   * Must be called holding the write lock. Also drops the cached services, which may come from a removed factory or
+   * be shadowed by an added one.
+   */
+  private void publishFactories() {
+    Map<String, Map<Class<?>, List<NamedClusterServiceFactory<?>>>> snapshot = new HashMap<>();
+    for ( Map.Entry<String, Map<Class<?>, List<NamedClusterServiceFactory<?>>>> shimEntry
+      : serviceVendorTypeMapping.entrySet() ) {
+      Map<Class<?>, List<NamedClusterServiceFactory<?>>> classServiceMap = new HashMap<>();
+      for ( Map.Entry<Class<?>, List<NamedClusterServiceFactory<?>>> classEntry : shimEntry.getValue().entrySet() ) {
+        classServiceMap.put( classEntry.getKey(),
+          Collections.unmodifiableList( new ArrayList<>( classEntry.getValue() ) ) );
+      }
+      snapshot.put( shimEntry.getKey(), Collections.unmodifiableMap( classServiceMap ) );
+    }
+    factorySnapshot = Collections.unmodifiableMap( snapshot );
+    serviceCache.invalidateAll();
+  }
+
+  /**
+   * Drops the cached services and shim resolution of a named cluster, e.g. after it was edited. Edits that change
+   * the cluster's properties or last modified date are detected anyway, see {@link #getClusterVersion(NamedCluster)}.
+   */
+  public void invalidate( String namedClusterName ) {
+    serviceCache.asMap().keySet().removeIf( key -> Objects.equals( key.clusterName, namedClusterName ) );
+    shimCache.asMap().keySet().removeIf( key -> key.startsWith( namedClusterName + '\u0000' ) );
+  }
+
+  public void invalidateAll() {
+    serviceCache.invalidateAll();
+    shimCache.invalidateAll();
+  }
+
   @Override
   public <T> T getService( NamedCluster namedCluster, Class<T> serviceClass ) {
     return getService( namedCluster, serviceClass, null );
@@ -133,41 +197,93 @@ public class NamedClusterServiceLocatorImpl implements NamedClusterServiceLocato
 
   @Override
   public <T> T getService( NamedCluster namedCluster, Class<T> serviceClass, String embeddedMetaStoreProviderKey ) {
-    Lock readLock = readWriteLock.readLock();
-    try {
-      readLock.lock();
-      String shim = Objects.requireNonNull( getShimForService( namedCluster, embeddedMetaStoreProviderKey ) );
-      logger.debug( "NamedClusterServiceLocator.getService({}, {})", namedCluster, serviceClass );
-
-      Map<Class<?>, List<NamedClusterServiceFactory<?>>> serviceMap = serviceVendorTypeMapping.get( shim );
-      if ( serviceMap != null ) {
-        List<NamedClusterServiceFactory<?>> serviceFactoryList = serviceMap.get( serviceClass );
-        //We must have a list here because there can be multiple factories registered under the same shim and class
-        //It is expected that the NamedClusterServiceFactory.canHandle( namedCluster ) method will determine which
-        //factory is returned.  (eg: Both MapReduceImpersonationServiceFactor and KnoxMapReduceServiceFactor create
-        //a MapReduceService.  But the knox factory should be returned for knox clusters and the impersonation factory
-        //for all non-knox clusters.)
-        if ( serviceFactoryList != null ) {
-          for ( NamedClusterServiceFactory serviceFactory : serviceFactoryList ) {
-            if ( serviceFactory.canHandle( namedCluster ) ) {
-              return serviceClass.cast( serviceFactory.create( namedCluster ) );
-            }
+    String clusterVersion = getClusterVersion( namedCluster );
+    String shim =
+      Objects.requireNonNull( getShimForService( namedCluster, clusterVersion, embeddedMetaStoreProviderKey ) );
+    logger.debug( "NamedClusterServiceLocator.getService({}, {})", namedCluster, serviceClass );
+
+    Map<Class<?>, List<NamedClusterServiceFactory<?>>> serviceMap = factorySnapshot.get( shim );
+    if ( serviceMap != null ) {
+      List<NamedClusterServiceFactory<?>> serviceFactoryList = serviceMap.get( serviceClass );
+      //We must have a list here because there can be multiple factories registered under the same shim and class
+      //It is expected that the NamedClusterServiceFactory.canHandle( namedCluster ) method will determine which
+      //factory is returned.  (eg: Both MapReduceImpersonationServiceFactor and KnoxMapReduceServiceFactor create
+      //a MapReduceService.  But the knox factory should be returned for knox clusters and the impersonation factory
+      //for all non-knox clusters.)
+      if ( serviceFactoryList != null ) {
+        for ( NamedClusterServiceFactory serviceFactory : serviceFactoryList ) {
+          if ( serviceFactory.canHandle( namedCluster ) ) {
+            return serviceClass.cast( getOrCreateService( serviceFactory, namedCluster, clusterVersion ) );
           }
         }
       }
-
-    } finally {
-      readLock.unlock();
     }
+
     logger.error( "Could not find service for {} associated with named cluster {}", serviceClass, namedCluster );
     return null;
   }
 
+  private Object getOrCreateService( NamedClusterServiceFactory<?> serviceFactory, NamedCluster namedCluster,
+                                     String clusterVersion ) {
+    ServiceKey key =
+      new ServiceKey( serviceFactory, namedCluster == null ? null : namedCluster.getName(), clusterVersion );
+    Object service = serviceCache.getIfPresent( key );
+    if ( service == null ) {
+      // concurrent misses may both create the service; that is cheaper than serializing every creation
+      service = serviceFactory.create( namedCluster );
+      if ( service != null ) {
+        serviceCache.put( key, service );
+      }
+    }
+    return service;
+  }
+
+  /**
+   * SHA-256 of everything that can make a factory create a different service for the named cluster: its name, last
+   * modified date, connection properties with variables substituted, and site files. Hashed so the passwords among
+   * them aren't kept in the cache keys.
+   */
+  @VisibleForTesting
+  static String getClusterVersion( NamedCluster namedCluster ) {
+    if ( namedCluster == null ) {
+      return "";
+    }
+    Hasher version = Hashing.sha256().newHasher();
+    for ( String value : new String[] { namedCluster.getName(), namedCluster.getShimIdentifier(),
+      namedCluster.getStorageScheme(), namedCluster.getHdfsHost(), namedCluster.getHdfsPort(),
+      namedCluster.getHdfsUsername(), namedCluster.getHdfsPassword(), namedCluster.getJobTrackerHost(),
+      namedCluster.getJobTrackerPort(), namedCluster.getZooKeeperHost(), namedCluster.getZooKeeperPort(),
+      namedCluster.getOozieUrl(), namedCluster.getGatewayUrl(), namedCluster.getGatewayUsername(),
+      namedCluster.getGatewayPassword(), namedCluster.getKafkaBootstrapServers() } ) {
+      putString( version, value == null ? null : namedCluster.environmentSubstitute( value ) );
+    }
+    putString( version, String.valueOf( namedCluster.getLastModifiedDate() ) );
+    version.putBoolean( namedCluster.isMapr() ).putBoolean( namedCluster.isUseGateway() );
+    List<NamedClusterSiteFile> siteFiles = namedCluster.getSiteFiles();
+    if ( siteFiles != null ) {
+      for ( NamedClusterSiteFile siteFile : siteFiles ) {
+        putString( version, siteFile.getSiteFileName() );
+        putString( version, siteFile.getSiteFileContents() );
+      }
+    }
+    return version.hash().toString();
+  }
+
+  private static void putString( Hasher hasher, String value ) {
+    // null and every string are told apart, as are adjacent values
+    if ( value == null ) {
+      hasher.putByte( (byte) 0 );
+    } else {
+      hasher.putByte( (byte) 1 ).putInt( value.length() ).putString( value, StandardCharsets.UTF_8 );
+    }
+  }
+
   /**
    * If namedCluster is defined, will use it to try to determine the associated shim.  Otherwise returns the default
    * shim name.
    */
-  private String getShimForService( NamedCluster namedCluster, String embeddedMetaStoreProviderKey ) {
+  private String getShimForService( NamedCluster namedCluster, String clusterVersion,
+                                   String embeddedMetaStoreProviderKey ) {
     if ( namedCluster == null ) {
       return this.internalShim;
     }
@@ -175,6 +291,17 @@ public class NamedClusterServiceLocatorImpl implements NamedClusterServiceLocato
     if ( shim != null ) {
       return shim;
     }
+    String key = namedCluster.getName() + '\u0000' + clusterVersion + '\u0000' + embeddedMetaStoreProviderKey;
+    shim = shimCache.getIfPresent( key );
+    if ( shim == null ) {
+      shim = lookupShimForService( namedCluster, embeddedMetaStoreProviderKey );
+      shimCache.put( key, shim );
+    }
+    return shim;
+  }
+
+  private String lookupShimForService( NamedCluster namedCluster, String embeddedMetaStoreProviderKey ) {
+    String shim = null;
     NamedCluster storedNamedCluster =
       namedClusterManager.getNamedClusterByName( namedCluster.getName(), getMetastoreLocator().getMetastore() );
     if ( storedNamedCluster != null ) {
@@ -203,7 +330,37 @@ public class NamedClusterServiceLocatorImpl implements NamedClusterServiceLocato
   }
 
   public List<String> getVendorShimList() {
-    return new ArrayList<>( serviceVendorTypeMapping.keySet() );
+    return new ArrayList<>( factorySnapshot.keySet() );
+  }
+
+  private static final class ServiceKey {
+    private final NamedClusterServiceFactory<?> factory;
+    private final String clusterName;
+    private final String clusterVersion;
+
+    private ServiceKey( NamedClusterServiceFactory<?> factory, String clusterName, String clusterVersion ) {
+      this.factory = factory;
+      this.clusterName = clusterName;
+      this.clusterVersion = clusterVersion;
+    }
+
+    @Override public boolean equals( Object o ) {
+      if ( this == o ) {
+        return true;
+      }
+      if ( o == null || getClass() != o.getClass() ) {
+        return false;
+      }
+      ServiceKey that = (ServiceKey) o;
+      // factories are compared by identity, a re-registered factory gets new services
+      return factory == that.factory
+        && Objects.equals( clusterName, that.clusterName )
+        && Objects.equals( clusterVersion, that.clusterVersion );
+    }
+
+    @Override public int hashCode() {
+      return Objects.hash( System.identityHashCode( factory ), clusterName, clusterVersion );
+    }
   }
 
 }
@@ -21,6 +21,7 @@ import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.pentaho.di.core.osgi.api.NamedClusterSiteFile;
 import org.pentaho.di.core.service.PluginServiceLoader;
 import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
 import org.pentaho.hadoop.shim.api.cluster.NamedClusterService;
@@ -31,12 +32,19 @@ import org.pentaho.metastore.locator.api.MetastoreLocator;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -203,4 +211,85 @@ public class NamedClusterServiceLocatorImplTest {
     }
   }
 
+  @Test
+  public void testGetServiceReusesCreatedService() {
+    Collection<MetastoreLocator> metastoreLocatorCollection = new ArrayList<>();
+    metastoreLocatorCollection.add( mockMetastoreLocator );
+    try( MockedStatic<PluginServiceLoader> pluginServiceLoaderMockedStatic = Mockito.mockStatic( PluginServiceLoader.class ) ) {
+      pluginServiceLoaderMockedStatic.when( () -> PluginServiceLoader.loadServices( MetastoreLocator.class ) )
+        .thenReturn( metastoreLocatorCollection );
+      when( namedClusterServiceFactory.canHandle( namedCluster ) ).thenReturn( true );
+      when( namedClusterServiceFactory.create( namedCluster ) ).thenReturn( value );
+
+      assertSame( value, serviceLocator.getService( namedCluster, Object.class ) );
+      assertSame( value, serviceLocator.getService( namedCluster, Object.class ) );
+      verify( namedClusterServiceFactory, times( 1 ) ).create( namedCluster );
+    }
+  }
+
+  @Test
+  public void testChangedNamedClusterCreatesNewService() {
+    Collection<MetastoreLocator> metastoreLocatorCollection = new ArrayList<>();
+    metastoreLocatorCollection.add( mockMetastoreLocator );
+    try( MockedStatic<PluginServiceLoader> pluginServiceLoaderMockedStatic = Mockito.mockStatic( PluginServiceLoader.class ) ) {
+      pluginServiceLoaderMockedStatic.when( () -> PluginServiceLoader.loadServices( MetastoreLocator.class ) )
+        .thenReturn( metastoreLocatorCollection );
+      when( namedClusterServiceFactory.canHandle( namedCluster ) ).thenReturn( true );
+
+      serviceLocator.getService( namedCluster, Object.class );
+      when( namedCluster.getLastModifiedDate() ).thenReturn( 1L );
+      serviceLocator.getService( namedCluster, Object.class );
+      verify( namedClusterServiceFactory, times( 2 ) ).create( namedCluster );
+    }
+  }
+
+  @Test
+  public void testFactoryChangesAndInvalidateDropCachedServices() {
+    Collection<MetastoreLocator> metastoreLocatorCollection = new ArrayList<>();
+    metastoreLocatorCollection.add( mockMetastoreLocator );
+    try( MockedStatic<PluginServiceLoader> pluginServiceLoaderMockedStatic = Mockito.mockStatic( PluginServiceLoader.class ) ) {
+      pluginServiceLoaderMockedStatic.when( () -> PluginServiceLoader.loadServices( MetastoreLocator.class ) )
+        .thenReturn( metastoreLocatorCollection );
+      when( namedClusterServiceFactory.canHandle( namedCluster ) ).thenReturn( true );
+
+      serviceLocator.getService( namedCluster, Object.class );
+      serviceLocator.factoryAdded( namedClusterServiceFactory2, ImmutableMap.of( "shim", SHIM_B ) );
+      serviceLocator.getService( namedCluster, Object.class );
+      verify( namedClusterServiceFactory, times( 2 ) ).create( namedCluster );
+
+      serviceLocator.invalidate( namedCluster.getName() );
+      serviceLocator.getService( namedCluster, Object.class );
+      verify( namedClusterServiceFactory, times( 3 ) ).create( namedCluster );
+
+      serviceLocator.invalidateAll();
+      serviceLocator.getService( namedCluster, Object.class );
+      verify( namedClusterServiceFactory, times( 4 ) ).create( namedCluster );
+    }
+  }
+
+  @Test
+  public void testGetClusterVersionSubstitutesVariables() {
+    when( namedCluster.getHdfsHost() ).thenReturn( "${host}" );
+    when( namedCluster.environmentSubstitute( "${host}" ) ).thenReturn( "hostA", "hostB" );
+
+    assertNotEquals( NamedClusterServiceLocatorImpl.getClusterVersion( namedCluster ),
+      NamedClusterServiceLocatorImpl.getClusterVersion( namedCluster ) );
+    assertEquals( "", NamedClusterServiceLocatorImpl.getClusterVersion( null ) );
+  }
+
+  @Test
+  public void testGetClusterVersionHashesPasswordsAndSiteFiles() {
+    when( namedCluster.getHdfsPassword() ).thenReturn( "secret" );
+    when( namedCluster.environmentSubstitute( "secret" ) ).thenReturn( "secret" );
+    NamedClusterSiteFile siteFile = mock( NamedClusterSiteFile.class );
+    when( siteFile.getSiteFileName() ).thenReturn( "core-site.xml" );
+    when( siteFile.getSiteFileContents() ).thenReturn( "<configuration/>", "<configuration></configuration>" );
+    when( namedCluster.getSiteFiles() ).thenReturn( Collections.singletonList( siteFile ) );
+
+    String version = NamedClusterServiceLocatorImpl.getClusterVersion( namedCluster );
+    assertFalse( version.contains( "secret" ) );
+    assertEquals( 64, version.length() );
+    assertNotEquals( version, NamedClusterServiceLocatorImpl.getClusterVersion( namedCluster ) );
+  }
+
 }
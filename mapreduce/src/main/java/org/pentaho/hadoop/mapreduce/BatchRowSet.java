@@ -0,0 +1,170 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.mapreduce;
+
+import org.pentaho.di.core.BaseRowSet;
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.trans.RowProducer;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepInterface;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Row set that moves rows from the producer to the step in chunks, so a whole batch of injected rows costs one
+ * blocking queue handoff instead of one per row. Like Kettle's BlockingRowSet it has a single producer and a single
+ * consumer thread; the consumer drains the chunk it took before taking the next one.
+ */
+public class BatchRowSet extends BaseRowSet implements Comparable<RowSet>, RowSet {
+  private static final long TIMEOUT_MILLIS = 50;
+
+  private final BlockingQueue<Object[][]> chunks;
+  private final AtomicInteger buffered = new AtomicInteger();
+  private Object[][] current;
+  private int currentIndex;
+
+  /**
+   * @param maxChunks chunks that can be queued before the producer blocks
+   */
+  public BatchRowSet( int maxChunks ) {
+    super();
+    chunks = new ArrayBlockingQueue<>( Math.max( 1, maxChunks ) );
+  }
+
+  /**
+   * Adds a row producer feeding the step through a BatchRowSet, holding about as many rows as the transformation's
+   * row set size. Transformations that aren't run by the normal multi-threaded engine get a regular row producer.
+   */
+  public static RowProducer addRowProducer( Trans trans, String stepName, int copy, int batchSize )
+    throws KettleException {
+    TransMeta transMeta = trans.getTransMeta();
+    if ( transMeta.getTransformationType() != TransMeta.TransformationType.Normal ) {
+      return trans.addRowProducer( stepName, copy );
+    }
+    StepInterface step = trans.getStepInterface( stepName, copy );
+    if ( step == null ) {
+      throw new KettleException( "Unable to find thread with name " + stepName + " and copy number " + copy );
+    }
+    BatchRowSet rowSet = new BatchRowSet( transMeta.getSizeRowset() / Math.max( 1, batchSize ) );
+    rowSet.setThreadNameFromToCopy( BatchRowSet.class.getSimpleName(), 0, stepName, copy );
+    step.addRowSetToInputRowSets( rowSet );
+    return new RowProducer( step, rowSet );
+  }
+
+  /**
+   * Queues the rows as one chunk, waiting while the row set is full. The array is handed over and must not be
+   * reused by the caller.
+   *
+   * @return false if the row set was closed or the thread interrupted before the rows could be queued
+   */
+  public boolean putRows( RowMetaInterface rowMeta, Object[][] rows ) {
+    if ( rows.length == 0 ) {
+      return true;
+    }
+    setRowMeta( rowMeta );
+    buffered.addAndGet( rows.length );
+    try {
+      while ( !chunks.offer( rows, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS ) ) {
+        if ( isDone() ) {
+          buffered.addAndGet( -rows.length );
+          return false;
+        }
+      }
+      return true;
+    } catch ( InterruptedException e ) {
+      buffered.addAndGet( -rows.length );
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  @Override
+  public boolean putRow( RowMetaInterface rowMeta, Object[] rowData ) {
+    return putRows( rowMeta, new Object[][] { rowData } );
+  }
+
+  @Override
+  public boolean putRowWait( RowMetaInterface rowMeta, Object[] rowData, long time, TimeUnit tu ) {
+    setRowMeta( rowMeta );
+    buffered.incrementAndGet();
+    try {
+      if ( chunks.offer( new Object[][] { rowData }, time, tu ) ) {
+        return true;
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    buffered.decrementAndGet();
+    return false;
+  }
+
+  @Override
+  public Object[] getRow() {
+    return getRowWait( TIMEOUT_MILLIS, TimeUnit.MILLISECONDS );
+  }
+
+  @Override
+  public Object[] getRowImmediate() {
+    return nextRow( -1, null );
+  }
+
+  @Override
+  public Object[] getRowWait( long timeout, TimeUnit tu ) {
+    return nextRow( timeout, tu );
+  }
+
+  private Object[] nextRow( long timeout, TimeUnit tu ) {
+    if ( current == null || currentIndex == current.length ) {
+      try {
+        current = timeout < 0 ? chunks.poll() : chunks.poll( timeout, tu );
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        current = null;
+      }
+      currentIndex = 0;
+      if ( current == null ) {
+        return null;
+      }
+    }
+    Object[] row = current[ currentIndex ];
+    current[ currentIndex++ ] = null;
+    buffered.decrementAndGet();
+    return row;
+  }
+
+  @Override
+  public int size() {
+    return buffered.get();
+  }
+
+  @Override
+  public boolean isBlocking() {
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    chunks.clear();
+    current = null;
+    currentIndex = 0;
+    buffered.set( 0 );
+  }
+}
@@ -56,6 +56,8 @@ public class GenericTransReduce<K extends WritableComparable<?>, V extends Itera
   protected ITypeConverter inConverterV = null;
   protected RowMetaInterface injectorRowMeta;
   protected SingleThreadedTransExecutor executor;
+  protected RowInjectionBatch injectionBatch;
+  protected StepMetricsCounters stepMetrics;
 
   public GenericTransReduce() throws KettleException {
     super();
@@ -94,6 +96,9 @@ public class GenericTransReduce<K extends WritableComparable<?>, V extends Itera
         setTransLogLevel( reporter );
         prepareExecution( reporter );
         addInjectorAndProducerToTrans( key, values, output, reporter, getInputStepName(), getOutputStepName() );
+        if ( stepCounters ) {
+          stepMetrics = new StepMetricsCounters( reporter, "Pentaho " + mrOperation + " Steps", stepCountersInterval );
+        }
 
         // If we're using the single threading engine we're going to keep pushing rows into our construct.
         // If not, we're going to re-create the Trans engine every time.
@@ -122,6 +127,10 @@ public class GenericTransReduce<K extends WritableComparable<?>, V extends Itera
         executor.oneIteration();
       }
 
+      if ( stepMetrics != null ) {
+        stepMetrics.maybeReport( trans );
+      }
+
     } catch ( Exception e ) {
       printException( reporter, e );
       setDebugStatus( reporter, "An exception was raised" );
@@ -154,6 +163,11 @@ public class GenericTransReduce<K extends WritableComparable<?>, V extends Itera
       // Execute row injection
       // We loop through the values to do this
 
+      if ( injectionBatchSize > 1 ) {
+        injectBatched( key, values, reporter );
+        return;
+      }
+
       if ( value != null ) {
         if ( inOrdinals != null ) {
           injectValue( key, inOrdinals.getKeyOrdinal(), inConverterK, value, inOrdinals.getValueOrdinal(), inConverterV,
@@ -179,6 +193,31 @@ public class GenericTransReduce<K extends WritableComparable<?>, V extends Itera
     }
   }
 
+  private void injectBatched( final K key, final Iterator<V> values, final Reporter reporter ) throws Exception {
+    if ( injectionBatch == null ) {
+      injectionBatch = new RowInjectionBatch( injectorRowMeta,
+        inOrdinals != null ? inOrdinals.getKeyOrdinal() : 0, inConverterK,
+        inOrdinals != null ? inOrdinals.getValueOrdinal() : 1, inConverterV, inKeyFieldOrdinals, rowProducer,
+        injectionBatchSize );
+    }
+
+    if ( value != null ) {
+      injectionBatch.add( key, value );
+    }
+    while ( values.hasNext() ) {
+      injectionBatch.add( key, values.next() );
+    }
+
+    // All values for this key must be in the transformation before the next single threaded iteration
+    int injected = injectionBatch.flush();
+    if ( log.isDebug() ) {
+      setDebugStatus( reporter, "Injected " + injected + " trailing records for key [" + key + "]" );
+    }
+
+    // make sure we don't pick up a bogus row next time this method is called without rows.
+    value = null;
+  }
+
   private void prepareExecution( Reporter reporter ) throws KettleException {
     setDebugStatus( reporter, "Preparing transformation for execution" );
     trans.prepareExecution( null );
@@ -233,18 +272,23 @@ public class GenericTransReduce<K extends WritableComparable<?>, V extends Itera
     setDebugStatus( reporter, "Locating output step: " + outputStepName );
     StepInterface outputStep = trans.findRunThread( outputStepName );
     if ( outputStep != null ) {
-      rowCollector = new OutputCollectorRowListener( output, outClassK, outClassV, reporter, log.isDebug() );
+      rowCollector = new OutputCollectorRowListener( output, outClassK, outClassV, reporter, log.isDebug(),
+        reuseOutputWritables );
+      rowCollector.setKeyFieldNames( rowKeyFields );
       outputStep.addRowListener( rowCollector );
 
       injectorRowMeta = new RowMeta();
       setDebugStatus( reporter, "Locating input step: " + inputStepName );
       if ( inputStepName != null ) {
         // Setup row injection
-        rowProducer = trans.addRowProducer( inputStepName, 0 );
+        rowProducer = injectionBatchSize > 1
+          ? BatchRowSet.addRowProducer( trans, inputStepName, 0, injectionBatchSize )
+          : trans.addRowProducer( inputStepName, 0 );
         StepInterface inputStep = rowProducer.getStepInterface();
         StepMetaInterface inputStepMeta = inputStep.getStepMeta().getStepMetaInterface();
 
         inOrdinals = null;
+        inKeyFieldOrdinals = null;
         if ( inputStepMeta instanceof BaseStepMeta ) {
           setDebugStatus( reporter, "Generating converters from RowMeta for injection into the transformation" );
 
@@ -257,6 +301,18 @@ public class GenericTransReduce<K extends WritableComparable<?>, V extends Itera
             throw new KettleException( "key or value is not defined in transformation injector step" );
           }
 
+          // A combiner has to emit every field of a composite key again, so all of them are injected by name
+          if ( key instanceof RowKeyWritable && rowKeyFields != null && rowKeyFields.length > 0 ) {
+            inKeyFieldOrdinals = new int[ rowKeyFields.length ];
+            for ( int i = 0; i < rowKeyFields.length; i++ ) {
+              inKeyFieldOrdinals[ i ] = injectorRowMeta.indexOfValue( rowKeyFields[ i ] );
+              if ( inKeyFieldOrdinals[ i ] < 0 ) {
+                throw new KettleException(
+                  "Key field " + rowKeyFields[ i ] + " is not defined in transformation injector step" );
+              }
+            }
+          }
+
           // Get a converter for the Key if the value meta has a concrete Java class we can use.
           // If no converter can be found here we wont do any type conversion.
           if ( injectorRowMeta.getValueMeta( inOrdinals.getKeyOrdinal() ) != null ) {
@@ -307,6 +363,9 @@ public class GenericTransReduce<K extends WritableComparable<?>, V extends Itera
     }
     // Stop the executor if any is defined...
     if ( isSingleThreaded() && executor != null ) {
+      if ( stepMetrics != null ) {
+        stepMetrics.report( trans );
+      }
       try {
         executor.dispose();
       } catch ( KettleException e ) {
@@ -318,6 +377,9 @@ public class GenericTransReduce<K extends WritableComparable<?>, V extends Itera
       if ( rowProducer != null ) {
         trans.waitUntilFinished();
       }
+      if ( stepMetrics != null ) {
+        stepMetrics.report( trans );
+      }
       disposeTransformation();
     }
 
@@ -0,0 +1,215 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.mapreduce;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapred.OutputCollector;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An {@link OutputCollector} that aggregates numeric values per key inside the mapper before they reach the map
+ * output buffer. Values are folded into primitive accumulators and the aggregated pairs are written to the wrapped
+ * collector when the table reaches its entry limit, when the heap is running low, or when {@link #flush()} is called
+ * at the end of the task.
+ * <p/>
+ * Only {@link LongWritable}, {@link IntWritable} and {@link DoubleWritable} values are supported. Records with a null
+ * key or value are passed through unchanged.
+ */
+public class InMapperAggregator<K, V> implements OutputCollector<K, V> {
+
+  public enum Operation {
+    SUM, COUNT, MIN, MAX
+  }
+
+  /**
+   * Number of new keys between heap checks
+   */
+  private static final int MEMORY_CHECK_INTERVAL = 1024;
+
+  /**
+   * Fraction of the maximum heap in use above which the table is flushed
+   */
+  private static final double MEMORY_HIGH_WATER_MARK = 0.8;
+
+  private final OutputCollector<K, V> output;
+  private final Class<V> valueClass;
+  private final Operation operation;
+  private final int maxEntries;
+  private final Configuration copyKeysConf;
+  private final boolean floatingPoint;
+  private final Map<K, Accumulator> table;
+  private int newKeysSinceMemoryCheck;
+
+  /**
+   * @param output       Collector to write aggregated pairs to
+   * @param valueClass   Output value class
+   * @param operation    Aggregate to compute per key
+   * @param maxEntries   Maximum number of distinct keys held before flushing
+   * @param copyKeysConf When not null keys are copied before they are stored, required when the caller reuses key
+   *                     instances
+   */
+  public InMapperAggregator( OutputCollector<K, V> output, Class<V> valueClass, Operation operation, int maxEntries,
+                             Configuration copyKeysConf ) {
+    if ( !isSupportedValueClass( valueClass ) ) {
+      throw new IllegalArgumentException( "In-mapper aggregation does not support value class " + valueClass );
+    }
+    if ( maxEntries < 1 ) {
+      throw new IllegalArgumentException( "Maximum number of entries must be positive: " + maxEntries );
+    }
+    this.output = output;
+    this.valueClass = valueClass;
+    this.operation = operation;
+    this.maxEntries = maxEntries;
+    this.copyKeysConf = copyKeysConf;
+    this.floatingPoint = DoubleWritable.class.equals( valueClass );
+    this.table = new HashMap<K, Accumulator>( Math.min( maxEntries, 1 << 16 ) );
+  }
+
+  public static boolean isSupportedValueClass( Class<?> valueClass ) {
+    return LongWritable.class.equals( valueClass ) || IntWritable.class.equals( valueClass )
+      || DoubleWritable.class.equals( valueClass );
+  }
+
+  @Override
+  public synchronized void collect( K key, V value ) throws IOException {
+    if ( key == null || value == null ) {
+      output.collect( key, value );
+      return;
+    }
+
+    Accumulator accumulator = table.get( key );
+    if ( accumulator == null ) {
+      accumulator = new Accumulator();
+      table.put( copyKey( key ), accumulator );
+    }
+    if ( floatingPoint ) {
+      accumulator.add( ( (DoubleWritable) value ).get() );
+    } else {
+      accumulator.add( value instanceof IntWritable ? ( (IntWritable) value ).get() : ( (LongWritable) value ).get() );
+    }
+
+    if ( accumulator.count == 1 && ( table.size() >= maxEntries || isMemoryLow() ) ) {
+      flush();
+    }
+  }
+
+  /**
+   * Writes all aggregated pairs to the wrapped collector and empties the table.
+   */
+  public synchronized void flush() throws IOException {
+    for ( Map.Entry<K, Accumulator> entry : table.entrySet() ) {
+      output.collect( entry.getKey(), toWritable( entry.getValue() ) );
+    }
+    table.clear();
+  }
+
+  public synchronized int size() {
+    return table.size();
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private K copyKey( K key ) {
+    if ( copyKeysConf != null && key instanceof Writable ) {
+      return (K) WritableUtils.clone( (Writable) key, copyKeysConf );
+    }
+    return key;
+  }
+
+  private boolean isMemoryLow() {
+    if ( ++newKeysSinceMemoryCheck < MEMORY_CHECK_INTERVAL ) {
+      return false;
+    }
+    newKeysSinceMemoryCheck = 0;
+    Runtime runtime = Runtime.getRuntime();
+    long used = runtime.totalMemory() - runtime.freeMemory();
+    return used > runtime.maxMemory() * MEMORY_HIGH_WATER_MARK;
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private V toWritable( Accumulator accumulator ) {
+    if ( operation == Operation.COUNT ) {
+      return (V) wrap( accumulator.count, accumulator.count );
+    }
+    return (V) wrap( accumulator.longValue, accumulator.doubleValue );
+  }
+
+  private Writable wrap( long longValue, double doubleValue ) {
+    if ( floatingPoint ) {
+      return new DoubleWritable( doubleValue );
+    } else if ( IntWritable.class.equals( valueClass ) ) {
+      return new IntWritable( (int) longValue );
+    }
+    return new LongWritable( longValue );
+  }
+
+  /**
+   * Running aggregate for one key. Only the field matching the value type is maintained.
+   */
+  private final class Accumulator {
+    private long count;
+    private long longValue;
+    private double doubleValue;
+
+    private void add( long value ) {
+      if ( count == 0 ) {
+        longValue = value;
+      } else {
+        switch ( operation ) {
+          case SUM:
+            longValue += value;
+            break;
+          case MIN:
+            longValue = Math.min( longValue, value );
+            break;
+          case MAX:
+            longValue = Math.max( longValue, value );
+            break;
+          default:
+            break;
+        }
+      }
+      count++;
+    }
+
+    private void add( double value ) {
+      if ( count == 0 ) {
+        doubleValue = value;
+      } else {
+        switch ( operation ) {
+          case SUM:
+            doubleValue += value;
+            break;
+          case MIN:
+            doubleValue = Math.min( doubleValue, value );
+            break;
+          case MAX:
+            doubleValue = Math.max( doubleValue, value );
+            break;
+          default:
+            break;
+        }
+      }
+      count++;
+    }
+  }
+}
@@ -19,6 +19,7 @@ import org.apache.hadoop.mapred.JobConf;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.KettleEnvironment;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.logging.LogLevel;
 import org.pentaho.di.core.logging.LoggingObjectType;
 import org.pentaho.di.core.logging.SimpleLoggingObject;
 import org.pentaho.di.core.variables.VariableSpace;
@@ -28,6 +29,8 @@ import org.pentaho.di.trans.TransConfiguration;
 import org.pentaho.di.trans.TransExecutionConfiguration;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.TransMeta.TransformationType;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.steps.missing.MissingTrans;
 
 import org.pentaho.di.core.logging.LogChannel;
 import org.pentaho.di.core.logging.LogChannelInterface;
@@ -35,6 +38,8 @@ import org.pentaho.di.core.logging.LogChannelInterface;
 import java.io.FileOutputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 
 public class MRUtil {
@@ -56,18 +61,36 @@ public class MRUtil {
    */
   public static final String PROPERTY_PENTAHO_KETTLE_HOME = "pentaho.kettle.home";
 
+  /**
+   * Hadoop Configuration for reusing transformations parsed by earlier tasks in the same (reused) JVM. Defaults to
+   * true; set to false to parse the transformation XML for every task.
+   */
+  public static final String PROPERTY_PENTAHO_KETTLE_TRANS_CACHE = "pentaho.kettle.trans.cache";
+
+  private static final int TRANS_CACHE_SIZE = 8;
+
+  /**
+   * Parsed transformations keyed by their XML. Entries are never handed out directly, callers get a clone.
+   */
+  private static final Map<String, ParsedTrans> transCache =
+    new LinkedHashMap<String, ParsedTrans>( 16, 0.75f, true ) {
+      @Override
+      protected boolean removeEldestEntry( Map.Entry<String, ParsedTrans> eldest ) {
+        return size() > TRANS_CACHE_SIZE;
+      }
+    };
+
   public static Trans getTrans( final Configuration conf, final String transXml, boolean singleThreaded )
     throws KettleException {
     initKettleEnvironment( conf );
 
-    TransConfiguration transConfiguration = TransConfiguration.fromXML( transXml );
-    TransMeta transMeta = transConfiguration.getTransMeta();
+    ParsedTrans parsedTrans = parseTrans( conf, transXml );
+    TransMeta transMeta = parsedTrans.transMeta;
     String carteObjectId = UUID.randomUUID().toString();
     SimpleLoggingObject servletLoggingObject =
       new SimpleLoggingObject( "HADOOP_MAPPER", LoggingObjectType.CARTE, null ); //$NON-NLS-1$
     servletLoggingObject.setContainerObjectId( carteObjectId );
-    TransExecutionConfiguration executionConfiguration = transConfiguration.getTransExecutionConfiguration();
-    servletLoggingObject.setLogLevel( executionConfiguration.getLogLevel() );
+    servletLoggingObject.setLogLevel( parsedTrans.logLevel );
 
     if ( singleThreaded ) {
       // Set the type to single threaded in case the user forgot...
@@ -85,6 +108,53 @@ public class MRUtil {
     return new Trans( transMeta, servletLoggingObject );
   }
 
+  /**
+   * Parses the transformation XML, or clones the transformation parsed by an earlier task in this JVM. A
+   * transformation is only cached once all of its step plugins have been resolved.
+   */
+  private static ParsedTrans parseTrans( final Configuration conf, final String transXml ) throws KettleException {
+    boolean useCache = conf.getBoolean( PROPERTY_PENTAHO_KETTLE_TRANS_CACHE, true );
+    if ( useCache ) {
+      ParsedTrans cached;
+      synchronized ( transCache ) {
+        cached = transCache.get( transXml );
+      }
+      if ( cached != null ) {
+        return cached.copy();
+      }
+    }
+
+    TransConfiguration transConfiguration = TransConfiguration.fromXML( transXml );
+    TransExecutionConfiguration executionConfiguration = transConfiguration.getTransExecutionConfiguration();
+    ParsedTrans parsedTrans =
+      new ParsedTrans( transConfiguration.getTransMeta(), executionConfiguration.getLogLevel() );
+
+    if ( useCache && !hasMissingPlugins( parsedTrans.transMeta ) ) {
+      synchronized ( transCache ) {
+        transCache.put( transXml, parsedTrans.copy() );
+      }
+    }
+    return parsedTrans;
+  }
+
+  private static boolean hasMissingPlugins( TransMeta transMeta ) {
+    for ( StepMeta stepMeta : transMeta.getSteps() ) {
+      if ( stepMeta.getStepMetaInterface() instanceof MissingTrans ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Discards all transformations cached by {@link #getTrans(Configuration, String, boolean)}.
+   */
+  public static void clearTransCache() {
+    synchronized ( transCache ) {
+      transCache.clear();
+    }
+  }
+
   /**
    * Initialize the Kettle environment with settings from the provided configuration
    *
@@ -250,4 +320,18 @@ public class MRUtil {
       // ignore
     }
   }
+
+  private static class ParsedTrans {
+    private final TransMeta transMeta;
+    private final LogLevel logLevel;
+
+    private ParsedTrans( TransMeta transMeta, LogLevel logLevel ) {
+      this.transMeta = transMeta;
+      this.logLevel = logLevel;
+    }
+
+    private ParsedTrans copy() {
+      return new ParsedTrans( (TransMeta) transMeta.clone(), logLevel );
+    }
+  }
 }
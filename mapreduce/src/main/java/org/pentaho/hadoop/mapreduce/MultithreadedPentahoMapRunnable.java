@@ -0,0 +1,259 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.mapreduce;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.RecordReader;
+import org.apache.hadoop.mapred.Reporter;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.logging.KettleLogStore;
+import org.pentaho.di.core.logging.LogChannel;
+import org.pentaho.di.core.logging.LogChannelInterface;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.trans.RowProducer;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.BaseStepMeta;
+import org.pentaho.di.trans.step.StepInterface;
+import org.pentaho.di.trans.step.StepMetaInterface;
+import org.pentaho.hadoop.mapreduce.converter.TypeConverterFactory;
+import org.pentaho.hadoop.mapreduce.converter.spi.ITypeConverter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Map runner that reads the input split on one thread and deals the records out, a batch at a time, to several
+ * independent copies of the mapper transformation. Output of all copies goes through one synchronized collector.
+ * <p/>
+ * The number of copies is read from {@link PentahoMapReduceBase#STRING_MAP_THREADS}; with one copy this behaves exactly
+ * like {@link PentahoMapRunnable}. Record order within the split is not preserved across copies.
+ */
+public class MultithreadedPentahoMapRunnable<K1, V1, K2, V2> extends PentahoMapRunnable<K1, V1, K2, V2> {
+
+  private static LogChannelInterface log = new LogChannel( MultithreadedPentahoMapRunnable.class.getName() );
+
+  protected int mapThreads;
+
+  public MultithreadedPentahoMapRunnable() throws KettleException {
+    super();
+  }
+
+  @Override
+  public void configure( JobConf job ) {
+    super.configure( job );
+    mapThreads = job.getInt( PentahoMapReduceBase.STRING_MAP_THREADS, 1 );
+  }
+
+  @Override
+  public void run( RecordReader<K1, V1> input, OutputCollector<K2, V2> output, Reporter reporter ) throws IOException {
+    if ( mapThreads <= 1 ) {
+      super.run( input, output, reporter );
+      return;
+    }
+
+    List<MapperInstance> instances = new ArrayList<MapperInstance>( mapThreads );
+    try {
+      if ( trans == null ) {
+        throw new RuntimeException( "Error initializing transformation.  See error log." ); //$NON-NLS-1$
+      }
+      KettleLogStore.discardLines( trans.getLogChannelId(), true );
+      if ( mapInputStepName == null ) {
+        throw new KettleException( "Input step not defined in transformation" );
+      }
+
+      InMapperAggregator<K2, V2> aggregator = null;
+      OutputCollector<K2, V2> collector = new SynchronizedOutputCollector<K2, V2>( output );
+      if ( mapAggregation != null && InMapperAggregator.isSupportedValueClass( outClassV ) ) {
+        // The aggregator is synchronized itself
+        aggregator = new InMapperAggregator<K2, V2>( output, outClassV, mapAggregation, mapAggregationMaxEntries,
+          reuseOutputWritables ? new Configuration( false ) : null );
+        collector = aggregator;
+      }
+
+      K1 key = input.createKey();
+      V1 value = input.createValue();
+      int batchSize = Math.max( injectionBatchSize, 1 );
+
+      setDebugStatus( reporter, "Starting " + mapThreads + " copies of the mapper transformation" );
+      for ( int i = 0; i < mapThreads; i++ ) {
+        MapperInstance instance = new MapperInstance( collector, reporter );
+        instances.add( instance );
+        instance.start( key, value, batchSize );
+      }
+
+      int current = 0;
+      while ( input.next( key, value ) ) {
+        MapperInstance instance = instances.get( current );
+        if ( instance.batch.add( key, value ) ) {
+          if ( instance.stepMetrics != null ) {
+            instance.stepMetrics.maybeReport( instance.trans );
+          }
+          current = ( current + 1 ) % mapThreads;
+        }
+      }
+
+      for ( MapperInstance instance : instances ) {
+        instance.batch.flush();
+        instance.rowProducer.finished();
+      }
+      for ( MapperInstance instance : instances ) {
+        instance.finish();
+      }
+      setDebugStatus( reporter, "Mapper transformations have finished" );
+
+      if ( aggregator != null ) {
+        aggregator.flush();
+      }
+    } catch ( Exception e ) {
+      e.printStackTrace( System.err );
+      setDebugStatus( reporter, "An exception was generated by the mapper task" );
+      throw new IOException( e );
+    } finally {
+      for ( MapperInstance instance : instances ) {
+        instance.dispose();
+      }
+    }
+    reporter.setStatus( "Completed processing record" );
+  }
+
+  /**
+   * One running copy of the mapper transformation with its injector and output listener
+   */
+  private class MapperInstance {
+    private final OutputCollector<K2, V2> output;
+    private final Reporter reporter;
+    private Trans trans;
+    private RowProducer rowProducer;
+    private RowInjectionBatch batch;
+    private OutputCollectorRowListener<K2, V2> listener;
+    private StepMetricsCounters stepMetrics;
+
+    private MapperInstance( OutputCollector<K2, V2> output, Reporter reporter ) {
+      this.output = output;
+      this.reporter = reporter;
+    }
+
+    private void start( K1 key, V1 value, int batchSize ) throws Exception {
+      TransMeta transMeta = (TransMeta) MultithreadedPentahoMapRunnable.this.trans.getTransMeta().clone();
+      trans = new Trans( transMeta, MultithreadedPentahoMapRunnable.this.trans.getParent() );
+      if ( variableSpace != null ) {
+        trans.shareVariablesWith( variableSpace );
+      }
+      if ( logLevel != null ) {
+        trans.setLogLevel( logLevel );
+      }
+      trans.prepareExecution( null );
+
+      StepInterface outputStep = trans.findRunThread( mapOutputStepName );
+      if ( outputStep == null ) {
+        throw new KettleException( "Output step not defined in transformation" );
+      }
+      listener = new OutputCollectorRowListener<K2, V2>( output, outClassK, outClassV, reporter, log.isDebug(),
+        reuseOutputWritables );
+      listener.setKeyFieldNames( rowKeyFields );
+      outputStep.addRowListener( listener );
+
+      rowProducer = BatchRowSet.addRowProducer( trans, mapInputStepName, 0, batchSize );
+      batch = createInjectionBatch( rowProducer, key, value, batchSize );
+      if ( stepCounters ) {
+        stepMetrics = new StepMetricsCounters( reporter, "Pentaho Map Steps", stepCountersInterval );
+      }
+      trans.startThreads();
+    }
+
+    private void finish() throws Exception {
+      trans.waitUntilFinished();
+      if ( stepMetrics != null ) {
+        stepMetrics.report( trans );
+      }
+      if ( trans.getErrors() > 0 ) {
+        throw new KettleException( "Errors were detected for mapper transformation, see the task log" );
+      }
+      if ( listener.getException() != null ) {
+        throw listener.getException();
+      }
+    }
+
+    private void dispose() {
+      if ( trans == null ) {
+        return;
+      }
+      try {
+        trans.stopAll();
+      } catch ( Exception ex ) {
+        ex.printStackTrace();
+      }
+      try {
+        trans.cleanup();
+      } catch ( Exception ex ) {
+        ex.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * Resolves the injector row layout and the key/value converters of the input step, the same way
+   * {@link PentahoMapRunnable} does, and returns a batch injecting into {@code rowProducer}.
+   */
+  private RowInjectionBatch createInjectionBatch( RowProducer rowProducer, Object key, Object value, int batchSize )
+    throws KettleException {
+    RowMeta injectorRowMeta = new RowMeta();
+    StepMetaInterface inputStepMeta = rowProducer.getStepInterface().getStepMeta().getStepMetaInterface();
+    int keyOrdinal = 0;
+    int valueOrdinal = 1;
+    ITypeConverter inConverterK = null;
+    ITypeConverter inConverterV = null;
+    if ( inputStepMeta instanceof BaseStepMeta ) {
+      inputStepMeta.getFields( injectorRowMeta, null, null, null, null );
+      InKeyValueOrdinals inOrdinals = new InKeyValueOrdinals( injectorRowMeta );
+      if ( inOrdinals.getKeyOrdinal() < 0 || inOrdinals.getValueOrdinal() < 0 ) {
+        throw new KettleException( "key or value is not defined in transformation injector step" );
+      }
+      keyOrdinal = inOrdinals.getKeyOrdinal();
+      valueOrdinal = inOrdinals.getValueOrdinal();
+
+      TypeConverterFactory typeConverterFactory = new TypeConverterFactory();
+      if ( injectorRowMeta.getValueMeta( keyOrdinal ) != null ) {
+        inConverterK = typeConverterFactory.getConverter( key.getClass(), injectorRowMeta.getValueMeta( keyOrdinal ) );
+      }
+      if ( injectorRowMeta.getValueMeta( valueOrdinal ) != null ) {
+        inConverterV =
+          typeConverterFactory.getConverter( value.getClass(), injectorRowMeta.getValueMeta( valueOrdinal ) );
+      }
+    }
+    return new RowInjectionBatch( injectorRowMeta, keyOrdinal, inConverterK, valueOrdinal, inConverterV, rowProducer,
+      batchSize );
+  }
+
+  /**
+   * Serializes calls into a collector that is not thread safe, such as Hadoop's map output buffer
+   */
+  private static class SynchronizedOutputCollector<K, V> implements OutputCollector<K, V> {
+    private final OutputCollector<K, V> delegate;
+
+    private SynchronizedOutputCollector( OutputCollector<K, V> delegate ) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized void collect( K key, V value ) throws IOException {
+      delegate.collect( key, value );
+    }
+  }
+}
@@ -18,9 +18,12 @@ import org.apache.hadoop.mapred.Reporter;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.trans.step.RowAdapter;
 import org.pentaho.hadoop.mapreduce.PentahoMapRunnable.Counter;
+import org.pentaho.hadoop.mapreduce.converter.TypeConversionException;
 import org.pentaho.hadoop.mapreduce.converter.TypeConverterFactory;
+import org.pentaho.hadoop.mapreduce.converter.spi.IReusableTypeConverter;
 import org.pentaho.hadoop.mapreduce.converter.spi.ITypeConverter;
 
 import org.pentaho.di.core.logging.LogChannel;
@@ -47,17 +50,51 @@ public class OutputCollectorRowListener<K, V> extends RowAdapter {
 
   private OutKeyValueOrdinals outOrdinals;
 
+  /**
+   * The row meta {@link #outOrdinals} was computed for. Steps hand out the same instance for every row, so an identity
+   * check is enough to know the ordinals are still valid.
+   */
+  private RowMetaInterface outOrdinalsRowMeta;
+
   private TypeConverterFactory typeConverterFactory;
 
+  private final ConverterSlot keySlot;
+
+  private final ConverterSlot valueSlot;
+
+  private final boolean reuseWritables;
+
+  /**
+   * Fields a {@link RowKeyWritable} output key is built from; the outKey field when not set
+   */
+  private String[] keyFieldNames;
+
+  private int[] keyFieldIndexes;
+
+  private RowKeyWritable rowKey;
+
   public OutputCollectorRowListener( OutputCollector<K, V> output, Class<K> outClassK, Class<V> outClassV,
                                      Reporter reporter, boolean debug ) {
+    this( output, outClassK, outClassV, reporter, debug, false );
+  }
+
+  /**
+   * @param reuseWritables if {@code true} one key and one value instance are reused for every collected record. Only
+   *                       safe when {@code output} serializes records as they are collected, as Hadoop's own
+   *                       collectors do.
+   */
+  public OutputCollectorRowListener( OutputCollector<K, V> output, Class<K> outClassK, Class<V> outClassV,
+                                     Reporter reporter, boolean debug, boolean reuseWritables ) {
     this.output = output;
     this.outClassK = outClassK;
     this.outClassV = outClassV;
     this.reporter = reporter;
     this.debug = debug;
+    this.reuseWritables = reuseWritables;
 
     this.typeConverterFactory = new TypeConverterFactory();
+    this.keySlot = new ConverterSlot( outClassK );
+    this.valueSlot = new ConverterSlot( outClassV );
 
     outOrdinals = null;
   }
@@ -71,13 +108,17 @@ public class OutputCollectorRowListener<K, V> extends RowAdapter {
        * Column 2: Value (convert to outClassV)
        */
       if ( row != null && !rowMeta.isEmpty() && rowMeta.size() >= 2 ) {
-        if ( outOrdinals == null ) {
+        if ( outOrdinals == null || outOrdinalsRowMeta != rowMeta ) {
           outOrdinals = new OutKeyValueOrdinals( rowMeta );
+          outOrdinalsRowMeta = rowMeta;
 
           if ( outOrdinals.getKeyOrdinal() < 0 || outOrdinals.getValueOrdinal() < 0 ) {
             throw new KettleException(
               "outKey or outValue is not defined in transformation output stream" ); //$NON-NLS-1$
           }
+          if ( RowKeyWritable.class.equals( outClassK ) ) {
+            keyFieldIndexes = getKeyFieldIndexes( rowMeta );
+          }
         }
 
         // TODO Implement type safe converters
@@ -87,18 +128,7 @@ public class OutputCollectorRowListener<K, V> extends RowAdapter {
             "Begin conversion of output key [from:" + ( row[ outOrdinals.getKeyOrdinal() ] == null ? null
               : row[ outOrdinals.getKeyOrdinal() ].getClass() ) + "] [to:" + outClassK
               + "]" ); //$NON-NLS-1$ //$NON-NLS-2$
-        }
-        if ( log.isDebug() ) {
-          setDebugStatus( reporter, "getConverter: " + ( row[ outOrdinals.getKeyOrdinal() ] == null ? null
-            : row[ outOrdinals.getKeyOrdinal() ].getClass() ) );
           setDebugStatus( reporter, "out class: " + outClassK );
-        }
-
-        ITypeConverter converter = typeConverterFactory
-          .getConverter(
-            row[ outOrdinals.getKeyOrdinal() ] == null ? null : row[ outOrdinals.getKeyOrdinal() ].getClass(),
-            outClassK );
-        if ( log.isDebug() ) {
           setDebugStatus( reporter, "ordinals key: " + outOrdinals.getKeyOrdinal() );
           setDebugStatus( reporter, "rowMeta: " + rowMeta );
           setDebugStatus( reporter, "rowMeta: " + rowMeta.getMetaXML() );
@@ -106,8 +136,8 @@ public class OutputCollectorRowListener<K, V> extends RowAdapter {
           setDebugStatus( reporter, "key: " + row[ outOrdinals.getKeyOrdinal() ] );
         }
 
-        Object outKey =
-          converter.convert( rowMeta.getValueMeta( outOrdinals.getKeyOrdinal() ), row[ outOrdinals.getKeyOrdinal() ] );
+        Object outKey = keyFieldIndexes != null ? toRowKey( rowMeta, row )
+          : keySlot.convert( rowMeta.getValueMeta( outOrdinals.getKeyOrdinal() ), row[ outOrdinals.getKeyOrdinal() ] );
 
         if ( log.isDebug() ) {
           setDebugStatus( reporter,
@@ -115,18 +145,13 @@ public class OutputCollectorRowListener<K, V> extends RowAdapter {
               //$NON-NLS-1$
               : row[ outOrdinals.getValueOrdinal() ].getClass() ) + "] [to:" + outClassV
               + "]" ); //$NON-NLS-1$ //$NON-NLS-2$
-        }
-        ITypeConverter valueConverter = typeConverterFactory.getConverter(
-          row[ outOrdinals.getValueOrdinal() ] == null ? null : row[ outOrdinals.getValueOrdinal() ].getClass(),
-          outClassV );
-        if ( log.isDebug() ) {
           setDebugStatus( reporter, "ordinals value: " + outOrdinals.getValueOrdinal() );
           setDebugStatus( reporter, "rowMeta: " + rowMeta );
           setDebugStatus( reporter, "rowMeta: " + rowMeta.getMetaXML() );
           setDebugStatus( reporter, "meta: " + rowMeta.getValueMeta( outOrdinals.getValueOrdinal() ) );
           setDebugStatus( reporter, "value: " + row[ outOrdinals.getValueOrdinal() ] );
         }
-        Object outVal = valueConverter
+        Object outVal = valueSlot
           .convert( rowMeta.getValueMeta( outOrdinals.getValueOrdinal() ), row[ outOrdinals.getValueOrdinal() ] );
 
         if ( outKey != null && outVal != null ) {
@@ -185,6 +210,39 @@ public class OutputCollectorRowListener<K, V> extends RowAdapter {
     }
   }
 
+  /**
+   * Sets the output row fields a {@link RowKeyWritable} output key is built from, in key order. Ignored for other key
+   * classes.
+   */
+  public void setKeyFieldNames( String... keyFieldNames ) {
+    this.keyFieldNames = keyFieldNames == null || keyFieldNames.length == 0 ? null : keyFieldNames;
+    outOrdinals = null;
+  }
+
+  private int[] getKeyFieldIndexes( RowMetaInterface rowMeta ) throws KettleException {
+    if ( keyFieldNames == null ) {
+      return new int[] { outOrdinals.getKeyOrdinal() };
+    }
+    int[] indexes = new int[ keyFieldNames.length ];
+    for ( int i = 0; i < keyFieldNames.length; i++ ) {
+      indexes[ i ] = rowMeta.indexOfValue( keyFieldNames[ i ] );
+      if ( indexes[ i ] < 0 ) {
+        throw new KettleException(
+          "Key field " + keyFieldNames[ i ] + " is not defined in transformation output stream" ); //$NON-NLS-1$
+      }
+    }
+    return indexes;
+  }
+
+  private RowKeyWritable toRowKey( RowMetaInterface rowMeta, Object[] row ) throws KettleException {
+    RowKeyWritable key = reuseWritables && rowKey != null ? rowKey : new RowKeyWritable();
+    if ( reuseWritables ) {
+      rowKey = key;
+    }
+    key.set( rowMeta, row, keyFieldIndexes );
+    return key;
+  }
+
   /**
    * Set the reporter status if {@code debug == true}.
    */
@@ -195,6 +253,41 @@ public class OutputCollectorRowListener<K, V> extends RowAdapter {
     }
   }
 
+  /**
+   * Converts one output column. The converter is looked up again only when the Java type of the values changes, which
+   * in practice means once per column plus once for nulls.
+   */
+  private class ConverterSlot {
+    private final Class<?> to;
+    private Class<?> from;
+    private ITypeConverter converter;
+    private Object target;
+
+    private ConverterSlot( Class<?> to ) {
+      this.to = to;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private Object convert( ValueMetaInterface meta, Object obj ) throws TypeConversionException {
+      Class<?> objClass = obj == null ? null : obj.getClass();
+      if ( converter == null || objClass != from ) {
+        if ( log.isDebug() ) {
+          setDebugStatus( reporter, "getConverter: " + objClass );
+        }
+        converter = typeConverterFactory.getConverter( objClass, to );
+        from = objClass;
+      }
+      if ( reuseWritables && converter instanceof IReusableTypeConverter ) {
+        IReusableTypeConverter reusable = (IReusableTypeConverter) converter;
+        if ( target == null ) {
+          target = reusable.createTarget();
+        }
+        return reusable.convert( meta, obj, target );
+      }
+      return converter.convert( meta, obj );
+    }
+  }
+
   /**
    * @return The exception thrown from {@link #rowWrittenEvent(RowMetaInterface, Object[])}.
    */
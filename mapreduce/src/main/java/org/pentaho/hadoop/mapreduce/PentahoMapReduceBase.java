@@ -50,6 +50,41 @@ public class PentahoMapReduceBase<K, V> extends MapReduceBase {
 
   public static final String STRING_COMBINE_SINGLE_THREADED = "transformation-combine-single-threaded";
   public static final String STRING_REDUCE_SINGLE_THREADED = "transformation-reduce-single-threaded";
+  /**
+   * When "true" the output row listener reuses one key and one value Writable for every record it collects
+   */
+  public static final String STRING_REUSE_OUTPUT_WRITABLES = "transformation-reuse-output-writables";
+  /**
+   * Number of input records converted before they are injected into the transformation together. 1 injects each
+   * record as soon as it is read.
+   */
+  public static final String STRING_INJECTION_BATCH_SIZE = "transformation-injection-batch-size";
+  /**
+   * Aggregate (sum, count, min or max) the mapper computes per output key before writing map output. Partial counts
+   * are emitted, so the combiner and reducer must sum them.
+   */
+  public static final String STRING_MAP_AGGREGATION = "transformation-map-aggregation";
+  /**
+   * Maximum number of distinct keys the in-mapper aggregation holds before flushing to the map output
+   */
+  public static final String STRING_MAP_AGGREGATION_MAX_ENTRIES = "transformation-map-aggregation-max-entries";
+  /**
+   * Comma separated output fields a {@link RowKeyWritable} output key is built from
+   */
+  public static final String STRING_ROW_KEY_FIELDS = "transformation-row-key-fields";
+  /**
+   * When "true" the rows read/written, errors and run time of every step of the embedded transformation are published
+   * as Hadoop counters
+   */
+  public static final String STRING_STEP_COUNTERS = "transformation-step-counters";
+  /**
+   * Minimum number of milliseconds between two step counter updates while a task is running
+   */
+  public static final String STRING_STEP_COUNTERS_INTERVAL = "transformation-step-counters-interval";
+  /**
+   * Number of mapper transformation copies {@link MultithreadedPentahoMapRunnable} runs per task
+   */
+  public static final String STRING_MAP_THREADS = "transformation-map-threads";
 
 
   private final String ENVIRONMENT_VARIABLE_PREFIX = "java.system.";
@@ -89,6 +124,15 @@ public class PentahoMapReduceBase<K, V> extends MapReduceBase {
   protected OutputCollectorRowListener<K, V> rowCollector;
   protected boolean combineSingleThreaded;
   protected boolean reduceSingleThreaded;
+  protected boolean reuseOutputWritables;
+  protected int injectionBatchSize = 1;
+  protected String[] rowKeyFields;
+  /**
+   * Injector row ordinal of each {@link #rowKeyFields} field, resolved when the input key is a {@link RowKeyWritable}
+   */
+  protected int[] inKeyFieldOrdinals;
+  protected boolean stepCounters;
+  protected long stepCountersInterval;
 
   public PentahoMapReduceBase() throws KettleException {
   }
@@ -111,6 +155,11 @@ public class PentahoMapReduceBase<K, V> extends MapReduceBase {
     reduceInputStepName = job.get( "transformation-reduce-input-stepname" );
     reduceOutputStepName = job.get( "transformation-reduce-output-stepname" );
     reduceSingleThreaded = isReducerSingleThreaded( job );
+    reuseOutputWritables = "true".equalsIgnoreCase( job.get( STRING_REUSE_OUTPUT_WRITABLES ) );
+    injectionBatchSize = job.getInt( STRING_INJECTION_BATCH_SIZE, 1 );
+    rowKeyFields = job.getTrimmedStrings( STRING_ROW_KEY_FIELDS );
+    stepCounters = "true".equalsIgnoreCase( job.get( STRING_STEP_COUNTERS ) );
+    stepCountersInterval = job.getLong( STRING_STEP_COUNTERS_INTERVAL, 60000L );
     String xmlVariableSpace = job.get( "variableSpace" );
 
     if ( !Const.isEmpty( xmlVariableSpace ) ) {
@@ -211,6 +260,7 @@ public class PentahoMapReduceBase<K, V> extends MapReduceBase {
       inConverterK != null ? inConverterK.convert( injectorRowMeta.getValueMeta( keyOrdinal ), key ) : key;
     row[ valueOrdinal ] =
       inConverterV != null ? inConverterV.convert( injectorRowMeta.getValueMeta( valueOrdinal ), value ) : value;
+    RowInjectionBatch.setKeyFields( key, inKeyFieldOrdinals, injectorRowMeta, row );
 
     if ( log.isDebug() ) {
       setDebugStatus( reporter, "Injecting input record [" + row[ keyOrdinal ] + "] - [" + row[ valueOrdinal ] + "]" );
@@ -93,6 +93,20 @@ public class PentahoMapRunnable<K1, V1, K2, V2> implements MapRunnable<K1, V1, K
 
   protected OutputCollectorRowListener<K2, V2> rowCollector;
 
+  protected boolean reuseOutputWritables;
+
+  protected int injectionBatchSize = 1;
+
+  protected InMapperAggregator.Operation mapAggregation;
+
+  protected int mapAggregationMaxEntries;
+
+  protected String[] rowKeyFields;
+
+  protected boolean stepCounters;
+
+  protected long stepCountersInterval;
+
   private final String ENVIRONMENT_VARIABLE_PREFIX = "java.system.";
   private final String KETTLE_VARIABLE_PREFIX = "KETTLE_";
 
@@ -110,6 +124,16 @@ public class PentahoMapRunnable<K1, V1, K2, V2> implements MapRunnable<K1, V1, K
     mapOutputStepName = job.get( "transformation-map-output-stepname" );
     reduceInputStepName = job.get( "transformation-reduce-input-stepname" );
     reduceOutputStepName = job.get( "transformation-reduce-output-stepname" );
+    reuseOutputWritables =
+      "true".equalsIgnoreCase( job.get( PentahoMapReduceBase.STRING_REUSE_OUTPUT_WRITABLES ) );
+    injectionBatchSize = job.getInt( PentahoMapReduceBase.STRING_INJECTION_BATCH_SIZE, 1 );
+    String aggregation = job.get( PentahoMapReduceBase.STRING_MAP_AGGREGATION );
+    mapAggregation =
+      Const.isEmpty( aggregation ) ? null : InMapperAggregator.Operation.valueOf( aggregation.trim().toUpperCase() );
+    mapAggregationMaxEntries = job.getInt( PentahoMapReduceBase.STRING_MAP_AGGREGATION_MAX_ENTRIES, 100000 );
+    rowKeyFields = job.getTrimmedStrings( PentahoMapReduceBase.STRING_ROW_KEY_FIELDS );
+    stepCounters = "true".equalsIgnoreCase( job.get( PentahoMapReduceBase.STRING_STEP_COUNTERS ) );
+    stepCountersInterval = job.getLong( PentahoMapReduceBase.STRING_STEP_COUNTERS_INTERVAL, 60000L );
     String xmlVariableSpace = job.get( "variableSpace" );
 
     outClassK = (Class<K2>) job.getMapOutputKeyClass();
@@ -403,12 +427,29 @@ public class PentahoMapRunnable<K1, V1, K2, V2> implements MapRunnable<K1, V1, K
 
       setDebugStatus( reporter, "Preparing transformation for execution" );
       trans.prepareExecution( null );
+      StepMetricsCounters stepMetrics =
+        stepCounters ? new StepMetricsCounters( reporter, "Pentaho Map Steps", stepCountersInterval ) : null;
 
       try {
         setDebugStatus( reporter, "Locating output step: " + mapOutputStepName );
         StepInterface outputStep = trans.findRunThread( mapOutputStepName );
         if ( outputStep != null ) {
-          rowCollector = new OutputCollectorRowListener( output, outClassK, outClassV, reporter, log.isDebug() );
+          OutputCollector<K2, V2> collector = output;
+          InMapperAggregator<K2, V2> aggregator = null;
+          if ( mapAggregation != null ) {
+            if ( InMapperAggregator.isSupportedValueClass( outClassV ) ) {
+              setDebugStatus( reporter, "Aggregating map output in the mapper using " + mapAggregation );
+              aggregator = new InMapperAggregator<K2, V2>( output, outClassV, mapAggregation, mapAggregationMaxEntries,
+                reuseOutputWritables ? new Configuration( false ) : null );
+              collector = aggregator;
+            } else {
+              log.logBasic( "In-mapper aggregation is not supported for map output value class " + outClassV.getName()
+                + ", map output will not be aggregated" );
+            }
+          }
+          rowCollector = new OutputCollectorRowListener( collector, outClassK, outClassV, reporter, log.isDebug(),
+            reuseOutputWritables );
+          rowCollector.setKeyFieldNames( rowKeyFields );
           //          rowCollector = OutputCollectorRowListener.build(output, outputRowMeta, outClassK, outClassV,
           // reporter, debug);
           outputStep.addRowListener( rowCollector );
@@ -422,7 +463,9 @@ public class PentahoMapRunnable<K1, V1, K2, V2> implements MapRunnable<K1, V1, K
           setDebugStatus( reporter, "Locating input step: " + mapInputStepName );
           if ( mapInputStepName != null ) {
             // Setup row injection
-            rowProducer = trans.addRowProducer( mapInputStepName, 0 );
+            rowProducer = injectionBatchSize > 1
+              ? BatchRowSet.addRowProducer( trans, mapInputStepName, 0, injectionBatchSize )
+              : trans.addRowProducer( mapInputStepName, 0 );
             StepInterface inputStep = rowProducer.getStepInterface();
             StepMetaInterface inputStepMeta = inputStep.getStepMeta().getStepMetaInterface();
 
@@ -458,12 +501,33 @@ public class PentahoMapRunnable<K1, V1, K2, V2> implements MapRunnable<K1, V1, K
             trans.startThreads();
             if ( rowProducer != null ) {
 
-              while ( input.next( key, value ) ) {
-                if ( inOrdinals != null ) {
-                  injectValue( key, inOrdinals.getKeyOrdinal(), inConverterK, value, inOrdinals.getValueOrdinal(),
-                    inConverterV, injectorRowMeta, rowProducer, reporter );
-                } else {
-                  injectValue( key, inConverterK, value, inConverterV, injectorRowMeta, rowProducer, reporter );
+              if ( injectionBatchSize > 1 ) {
+                RowInjectionBatch batch = new RowInjectionBatch( injectorRowMeta,
+                  inOrdinals != null ? inOrdinals.getKeyOrdinal() : 0, inConverterK,
+                  inOrdinals != null ? inOrdinals.getValueOrdinal() : 1, inConverterV, rowProducer,
+                  injectionBatchSize );
+                while ( input.next( key, value ) ) {
+                  if ( batch.add( key, value ) ) {
+                    if ( log.isDebug() ) {
+                      setDebugStatus( reporter, "Injected " + injectionBatchSize + " input records" );
+                    }
+                    if ( stepMetrics != null ) {
+                      stepMetrics.maybeReport( trans );
+                    }
+                  }
+                }
+                batch.flush();
+              } else {
+                while ( input.next( key, value ) ) {
+                  if ( inOrdinals != null ) {
+                    injectValue( key, inOrdinals.getKeyOrdinal(), inConverterK, value, inOrdinals.getValueOrdinal(),
+                      inConverterV, injectorRowMeta, rowProducer, reporter );
+                  } else {
+                    injectValue( key, inConverterK, value, inConverterV, injectorRowMeta, rowProducer, reporter );
+                  }
+                  if ( stepMetrics != null ) {
+                    stepMetrics.maybeReport( trans );
+                  }
                 }
               }
 
@@ -472,6 +536,9 @@ public class PentahoMapRunnable<K1, V1, K2, V2> implements MapRunnable<K1, V1, K
 
             trans.waitUntilFinished();
             setDebugStatus( reporter, "Mapper transformation has finished" );
+            if ( stepMetrics != null ) {
+              stepMetrics.report( trans );
+            }
             if ( trans.getErrors() > 0 ) {
               setDebugStatus( "Errors detected for mapper transformation" );
               List<KettleLoggingEvent> logList = KettleLogStore
@@ -496,6 +563,10 @@ public class PentahoMapRunnable<K1, V1, K2, V2> implements MapRunnable<K1, V1, K
             throw getException();
           }
 
+          if ( aggregator != null ) {
+            aggregator.flush();
+          }
+
         } else {
           if ( mapOutputStepName != null ) {
             setDebugStatus( reporter, "Output step [" + mapOutputStepName + "]could not be found" );
@@ -0,0 +1,155 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.mapreduce;
+
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.row.RowDataUtil;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.trans.RowProducer;
+import org.pentaho.hadoop.mapreduce.converter.converters.RowKeyWritableToObjectConverter;
+import org.pentaho.hadoop.mapreduce.converter.spi.ITypeConverter;
+
+import java.util.Arrays;
+
+/**
+ * Converts Hadoop key/value pairs into transformation rows in chunks and hands each chunk to the injector step in one
+ * pass. The key and value converters and their target value metas are resolved once for the lifetime of the batch, so
+ * the per-record work is reduced to the two conversions and a row allocation. When the row producer feeds a
+ * {@link BatchRowSet} (see {@link BatchRowSet#addRowProducer}) a chunk crosses to the step thread in a single queue
+ * handoff, otherwise its rows are put one by one.
+ * <p>
+ * For a composite {@link RowKeyWritable} key the key ordinal receives the first key field, and every key field is also
+ * written to the row field given for it in {@code keyFieldOrdinals}.
+ */
+public class RowInjectionBatch {
+  private final RowMetaInterface rowMeta;
+  private final RowProducer rowProducer;
+  private final int keyOrdinal;
+  private final int valueOrdinal;
+  private final ValueMetaInterface keyMeta;
+  private final ValueMetaInterface valueMeta;
+  private final ITypeConverter keyConverter;
+  private final ITypeConverter valueConverter;
+  private final int[] keyFieldOrdinals;
+  private final int rowSize;
+  private final int batchSize;
+  private Object[][] rows;
+  private int count;
+
+  public RowInjectionBatch( RowMetaInterface rowMeta, int keyOrdinal, ITypeConverter keyConverter, int valueOrdinal,
+                            ITypeConverter valueConverter, RowProducer rowProducer, int batchSize ) {
+    this( rowMeta, keyOrdinal, keyConverter, valueOrdinal, valueConverter, null, rowProducer, batchSize );
+  }
+
+  /**
+   * @param keyFieldOrdinals Row ordinal of each {@link RowKeyWritable} key field, in key order; {@code null} to inject
+   *                         only the key and the value
+   */
+  public RowInjectionBatch( RowMetaInterface rowMeta, int keyOrdinal, ITypeConverter keyConverter, int valueOrdinal,
+                            ITypeConverter valueConverter, int[] keyFieldOrdinals, RowProducer rowProducer,
+                            int batchSize ) {
+    if ( batchSize < 1 ) {
+      throw new IllegalArgumentException( "Batch size must be positive: " + batchSize );
+    }
+    this.rowMeta = rowMeta;
+    this.rowProducer = rowProducer;
+    this.keyOrdinal = keyOrdinal;
+    this.valueOrdinal = valueOrdinal;
+    this.keyMeta = rowMeta.getValueMeta( keyOrdinal );
+    this.valueMeta = rowMeta.getValueMeta( valueOrdinal );
+    this.keyConverter = keyConverter;
+    this.valueConverter = valueConverter;
+    this.keyFieldOrdinals = keyFieldOrdinals;
+    int maxOrdinal = Math.max( keyOrdinal, valueOrdinal );
+    if ( keyFieldOrdinals != null ) {
+      for ( int ordinal : keyFieldOrdinals ) {
+        maxOrdinal = Math.max( maxOrdinal, ordinal );
+      }
+    }
+    this.rowSize = Math.max( rowMeta.size(), maxOrdinal + 1 );
+    this.batchSize = batchSize;
+    this.rows = new Object[ batchSize ][];
+  }
+
+  /**
+   * Converts a key/value pair into a row and queues it, injecting the whole batch once it is full.
+   *
+   * @return {@code true} if adding this record caused the batch to be injected
+   */
+  @SuppressWarnings( "unchecked" )
+  public boolean add( Object key, Object value ) throws Exception {
+    // Allocate with Kettle's over-allocation so downstream steps can append fields without resizing
+    Object[] row = RowDataUtil.allocateRowData( rowSize );
+    row[ keyOrdinal ] = keyConverter != null ? keyConverter.convert( keyMeta, key ) : key;
+    row[ valueOrdinal ] = valueConverter != null ? valueConverter.convert( valueMeta, value ) : value;
+    setKeyFields( key, keyFieldOrdinals, rowMeta, row );
+    rows[ count++ ] = row;
+    if ( count == rows.length ) {
+      flush();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Injects all queued rows into the transformation.
+   *
+   * @return the number of rows injected
+   */
+  public int flush() {
+    int injected = count;
+    if ( injected == 0 ) {
+      return 0;
+    }
+    RowSet rowSet = rowProducer.getRowSet();
+    if ( rowSet instanceof BatchRowSet ) {
+      // the chunk is handed over as is, so start a new one
+      ( (BatchRowSet) rowSet ).putRows( rowMeta, injected == rows.length ? rows : Arrays.copyOf( rows, injected ) );
+      rows = new Object[ batchSize ][];
+    } else {
+      for ( int i = 0; i < injected; i++ ) {
+        rowProducer.putRow( rowMeta, rows[ i ] );
+        rows[ i ] = null;
+      }
+    }
+    count = 0;
+    return injected;
+  }
+
+  /**
+   * Writes each field of a {@link RowKeyWritable} key to its row ordinal, converted to the row's value meta. Does
+   * nothing for other keys or when {@code keyFieldOrdinals} is {@code null}.
+   */
+  static void setKeyFields( Object key, int[] keyFieldOrdinals, RowMetaInterface rowMeta, Object[] row )
+    throws Exception {
+    if ( keyFieldOrdinals == null || !( key instanceof RowKeyWritable ) ) {
+      return;
+    }
+    Object[] fields = ( (RowKeyWritable) key ).getFields();
+    for ( int i = 0; i < keyFieldOrdinals.length; i++ ) {
+      row[ keyFieldOrdinals[ i ] ] = RowKeyWritableToObjectConverter
+        .convertField( rowMeta.getValueMeta( keyFieldOrdinals[ i ] ), i < fields.length ? fields[ i ] : null );
+    }
+  }
+
+  public int size() {
+    return count;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+}
@@ -0,0 +1,38 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.mapreduce;
+
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Partitioner;
+
+/**
+ * Partitions {@link RowKeyWritable} keys on their first {@link RowKeyWritable#GROUPING_FIELDS} fields so that all
+ * records of a group reach the same reducer when the remaining fields are used for secondary sort.
+ */
+public class RowKeyPartitioner<V> implements Partitioner<RowKeyWritable, V> {
+  private int groupingFields;
+
+  @Override
+  public void configure( JobConf job ) {
+    groupingFields = job.getInt( RowKeyWritable.GROUPING_FIELDS, 0 );
+  }
+
+  @Override
+  public int getPartition( RowKeyWritable key, V value, int numPartitions ) {
+    int length = RowKeyWritable.prefixLength( key.getBytes(), 0, key.getLength(), groupingFields );
+    return ( WritableComparator.hashBytes( key.getBytes(), length ) & Integer.MAX_VALUE ) % numPartitions;
+  }
+}
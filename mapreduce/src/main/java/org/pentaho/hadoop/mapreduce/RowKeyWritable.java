@@ -0,0 +1,401 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.mapreduce;
+
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A map output key made of several typed Kettle fields. The fields are serialized into a byte encoding whose unsigned
+ * lexicographic order is the natural order of the field values (nulls first), so the shuffle sort compares keys
+ * without deserializing them.
+ * <p/>
+ * Each field is a type tag followed by its encoded value: integers and dates as sign-flipped big-endian longs, numbers
+ * as order-preserving IEEE 754 bits, booleans as one byte, and strings (UTF-8) and binaries with 0x00 escaped as 0x00
+ * 0x01 and terminated by 0x00 0x00. Big numbers are not supported.
+ * <p/>
+ * {@link GroupingComparator} and {@link RowKeyPartitioner} look at only the first {@link #GROUPING_FIELDS} fields,
+ * which gives a secondary sort on the remaining fields.
+ */
+public class RowKeyWritable implements WritableComparable<RowKeyWritable> {
+
+  /**
+   * Number of leading key fields used to group and partition map output. 0 or less uses all fields.
+   */
+  public static final String GROUPING_FIELDS = "transformation-row-key-grouping-fields";
+
+  static final byte NULL = 0;
+  static final byte BOOLEAN = 1;
+  static final byte INTEGER = 2;
+  static final byte NUMBER = 3;
+  static final byte DATE = 4;
+  static final byte STRING = 5;
+  static final byte BINARY = 6;
+
+  private static final byte[] EMPTY = new byte[ 0 ];
+
+  static {
+    WritableComparator.define( RowKeyWritable.class, new Comparator() );
+  }
+
+  private byte[] bytes = EMPTY;
+  private int length;
+
+  public RowKeyWritable() {
+  }
+
+  public RowKeyWritable( Object... fields ) {
+    set( fields );
+  }
+
+  /**
+   * Replaces the key with the given field values. Supported types are {@link Boolean}, {@link Long} (and other
+   * integral {@link Number}s), {@link Double}, {@link Float}, {@link Date}, {@link String} and {@code byte[]}.
+   */
+  public void set( Object... fields ) {
+    length = 0;
+    for ( Object field : fields ) {
+      if ( field == null ) {
+        writeTag( NULL );
+      } else if ( field instanceof Boolean ) {
+        writeBoolean( (Boolean) field );
+      } else if ( field instanceof Double || field instanceof Float ) {
+        writeNumber( ( (Number) field ).doubleValue() );
+      } else if ( field instanceof Long || field instanceof Integer || field instanceof Short
+        || field instanceof Byte ) {
+        writeLong( INTEGER, ( (Number) field ).longValue() );
+      } else if ( field instanceof Date ) {
+        writeLong( DATE, ( (Date) field ).getTime() );
+      } else if ( field instanceof String ) {
+        writeBytes( STRING, ( (String) field ).getBytes( StandardCharsets.UTF_8 ) );
+      } else if ( field instanceof byte[] ) {
+        writeBytes( BINARY, (byte[]) field );
+      } else {
+        throw new IllegalArgumentException( "Unsupported row key field type: " + field.getClass().getName() );
+      }
+    }
+  }
+
+  /**
+   * Replaces the key with the values of the given row fields, read through their value metas.
+   */
+  public void set( RowMetaInterface rowMeta, Object[] row, int[] fieldIndexes ) throws KettleValueException {
+    length = 0;
+    for ( int index : fieldIndexes ) {
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( index );
+      Object data = row[ index ];
+      if ( valueMeta.isNull( data ) ) {
+        writeTag( NULL );
+        continue;
+      }
+      switch ( valueMeta.getType() ) {
+        case ValueMetaInterface.TYPE_BOOLEAN:
+          writeBoolean( valueMeta.getBoolean( data ) );
+          break;
+        case ValueMetaInterface.TYPE_INTEGER:
+          writeLong( INTEGER, valueMeta.getInteger( data ) );
+          break;
+        case ValueMetaInterface.TYPE_NUMBER:
+          writeNumber( valueMeta.getNumber( data ) );
+          break;
+        case ValueMetaInterface.TYPE_DATE:
+        case ValueMetaInterface.TYPE_TIMESTAMP:
+          writeLong( DATE, valueMeta.getDate( data ).getTime() );
+          break;
+        case ValueMetaInterface.TYPE_STRING:
+          writeBytes( STRING, valueMeta.getString( data ).getBytes( StandardCharsets.UTF_8 ) );
+          break;
+        case ValueMetaInterface.TYPE_BINARY:
+          writeBytes( BINARY, valueMeta.getBinary( data ) );
+          break;
+        default:
+          throw new KettleValueException(
+            "Field " + valueMeta.getName() + " of type " + valueMeta.getTypeDesc() + " can't be used in a row key" );
+      }
+    }
+  }
+
+  /**
+   * @return The decoded field values
+   */
+  public Object[] getFields() {
+    List<Object> fields = new ArrayList<Object>();
+    int pos = 0;
+    while ( pos < length ) {
+      byte tag = bytes[ pos++ ];
+      switch ( tag ) {
+        case NULL:
+          fields.add( null );
+          break;
+        case BOOLEAN:
+          fields.add( bytes[ pos++ ] != 0 );
+          break;
+        case INTEGER:
+          fields.add( readLong( pos ) ^ Long.MIN_VALUE );
+          pos += 8;
+          break;
+        case NUMBER:
+          long bits = readLong( pos );
+          bits = bits < 0 ? bits ^ Long.MIN_VALUE : ~bits;
+          fields.add( Double.longBitsToDouble( bits ) );
+          pos += 8;
+          break;
+        case DATE:
+          fields.add( new Date( readLong( pos ) ^ Long.MIN_VALUE ) );
+          pos += 8;
+          break;
+        case STRING:
+        case BINARY:
+          int end = skipField( bytes, pos - 1, length );
+          byte[] value = unescape( bytes, pos, end - 2 );
+          fields.add( tag == STRING ? new String( value, StandardCharsets.UTF_8 ) : value );
+          pos = end;
+          break;
+        default:
+          throw new IllegalStateException( "Corrupt row key, unknown field tag " + tag );
+      }
+    }
+    return fields.toArray();
+  }
+
+  /**
+   * @return The encoded key; only the first {@link #getLength()} bytes are valid
+   */
+  public byte[] getBytes() {
+    return bytes;
+  }
+
+  public int getLength() {
+    return length;
+  }
+
+  @Override
+  public void write( DataOutput out ) throws IOException {
+    WritableUtils.writeVInt( out, length );
+    out.write( bytes, 0, length );
+  }
+
+  @Override
+  public void readFields( DataInput in ) throws IOException {
+    length = 0;
+    int size = WritableUtils.readVInt( in );
+    ensureCapacity( size );
+    in.readFully( bytes, 0, size );
+    length = size;
+  }
+
+  @Override
+  public int compareTo( RowKeyWritable other ) {
+    return WritableComparator.compareBytes( bytes, 0, length, other.bytes, 0, other.length );
+  }
+
+  @Override
+  public boolean equals( Object o ) {
+    return o instanceof RowKeyWritable && compareTo( (RowKeyWritable) o ) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return WritableComparator.hashBytes( bytes, length );
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.deepToString( getFields() );
+  }
+
+  /**
+   * @return The number of bytes {@code fieldCount} leading fields take in the encoding starting at {@code start}. All
+   * fields are included if {@code fieldCount} is 0 or less.
+   */
+  static int prefixLength( byte[] b, int start, int end, int fieldCount ) {
+    int pos = start;
+    for ( int i = 0; pos < end && ( fieldCount <= 0 || i < fieldCount ); i++ ) {
+      pos = skipField( b, pos, end );
+    }
+    return pos - start;
+  }
+
+  /**
+   * @return The position just past the field whose tag is at {@code pos}
+   */
+  private static int skipField( byte[] b, int pos, int end ) {
+    switch ( b[ pos++ ] ) {
+      case NULL:
+        return pos;
+      case BOOLEAN:
+        return pos + 1;
+      case INTEGER:
+      case NUMBER:
+      case DATE:
+        return pos + 8;
+      default:
+        while ( pos < end - 1 ) {
+          if ( b[ pos ] == 0 ) {
+            if ( b[ pos + 1 ] == 0 ) {
+              return pos + 2;
+            }
+            pos += 2;
+          } else {
+            pos++;
+          }
+        }
+        return end;
+    }
+  }
+
+  private static byte[] unescape( byte[] b, int start, int end ) {
+    byte[] out = new byte[ end - start ];
+    int n = 0;
+    for ( int i = start; i < end; i++ ) {
+      out[ n++ ] = b[ i ];
+      if ( b[ i ] == 0 ) {
+        i++;
+      }
+    }
+    return n == out.length ? out : Arrays.copyOf( out, n );
+  }
+
+  private long readLong( int pos ) {
+    long value = 0;
+    for ( int i = 0; i < 8; i++ ) {
+      value = ( value << 8 ) | ( bytes[ pos + i ] & 0xFF );
+    }
+    return value;
+  }
+
+  private void writeTag( byte tag ) {
+    ensureCapacity( length + 1 );
+    bytes[ length++ ] = tag;
+  }
+
+  private void writeBoolean( boolean value ) {
+    ensureCapacity( length + 2 );
+    bytes[ length++ ] = BOOLEAN;
+    bytes[ length++ ] = (byte) ( value ? 1 : 0 );
+  }
+
+  private void writeNumber( double value ) {
+    long bits = Double.doubleToLongBits( value );
+    writeLong( NUMBER, bits ^ ( ( bits >> 63 ) | Long.MIN_VALUE ) );
+  }
+
+  private void writeLong( byte tag, long value ) {
+    if ( tag != NUMBER ) {
+      value ^= Long.MIN_VALUE;
+    }
+    ensureCapacity( length + 9 );
+    bytes[ length++ ] = tag;
+    for ( int shift = 56; shift >= 0; shift -= 8 ) {
+      bytes[ length++ ] = (byte) ( value >>> shift );
+    }
+  }
+
+  private void writeBytes( byte tag, byte[] value ) {
+    ensureCapacity( length + 2 * value.length + 3 );
+    bytes[ length++ ] = tag;
+    for ( byte b : value ) {
+      bytes[ length++ ] = b;
+      if ( b == 0 ) {
+        bytes[ length++ ] = 1;
+      }
+    }
+    bytes[ length++ ] = 0;
+    bytes[ length++ ] = 0;
+  }
+
+  private void ensureCapacity( int capacity ) {
+    if ( bytes.length < capacity ) {
+      bytes = Arrays.copyOf( bytes, Math.max( capacity, bytes.length * 2 ) );
+    }
+  }
+
+  /**
+   * Sort comparator working on the serialized keys
+   */
+  public static class Comparator extends WritableComparator {
+    public Comparator() {
+      super( RowKeyWritable.class );
+    }
+
+    @Override
+    public int compare( byte[] b1, int s1, int l1, byte[] b2, int s2, int l2 ) {
+      int n1 = WritableUtils.decodeVIntSize( b1[ s1 ] );
+      int n2 = WritableUtils.decodeVIntSize( b2[ s2 ] );
+      return compareBytes( b1, s1 + n1, l1 - n1, b2, s2 + n2, l2 - n2 );
+    }
+
+    @Override
+    @SuppressWarnings( "rawtypes" )
+    public int compare( WritableComparable a, WritableComparable b ) {
+      return ( (RowKeyWritable) a ).compareTo( (RowKeyWritable) b );
+    }
+  }
+
+  /**
+   * Grouping comparator that only compares the first {@link #GROUPING_FIELDS} fields of the serialized keys
+   */
+  public static class GroupingComparator extends WritableComparator implements Configurable {
+    private Configuration conf;
+    private int groupingFields;
+
+    public GroupingComparator() {
+      super( RowKeyWritable.class );
+    }
+
+    @Override
+    public void setConf( Configuration conf ) {
+      this.conf = conf;
+      groupingFields = conf.getInt( GROUPING_FIELDS, 0 );
+    }
+
+    @Override
+    public Configuration getConf() {
+      return conf;
+    }
+
+    @Override
+    public int compare( byte[] b1, int s1, int l1, byte[] b2, int s2, int l2 ) {
+      int n1 = WritableUtils.decodeVIntSize( b1[ s1 ] );
+      int n2 = WritableUtils.decodeVIntSize( b2[ s2 ] );
+      return compareBytes( b1, s1 + n1, prefixLength( b1, s1 + n1, s1 + l1, groupingFields ),
+        b2, s2 + n2, prefixLength( b2, s2 + n2, s2 + l2, groupingFields ) );
+    }
+
+    @Override
+    @SuppressWarnings( "rawtypes" )
+    public int compare( WritableComparable a, WritableComparable b ) {
+      RowKeyWritable k1 = (RowKeyWritable) a;
+      RowKeyWritable k2 = (RowKeyWritable) b;
+      return compareBytes( k1.bytes, 0, prefixLength( k1.bytes, 0, k1.length, groupingFields ),
+        k2.bytes, 0, prefixLength( k2.bytes, 0, k2.length, groupingFields ) );
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.mapreduce;
+
+import org.apache.hadoop.mapred.Reporter;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.step.StepInterface;
+import org.pentaho.di.trans.step.StepMetaDataCombi;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes the per-step metrics of an embedded transformation as Hadoop counters, one counter group per task type.
+ * Counters are named {@code "<step name>: <metric>"} and summed over all copies of a step, except the run time, which
+ * is the longest run time of any copy in milliseconds. Counters only ever increase, so each call publishes the change
+ * since the previous one.
+ */
+public class StepMetricsCounters {
+
+  static final String[] METRICS = { "Rows read", "Rows written", "Rows input", "Rows output", "Rows rejected",
+    "Errors", "Run time (ms)" };
+
+  private static final int RUN_TIME = METRICS.length - 1;
+
+  private final Reporter reporter;
+  private final String group;
+  private final long intervalMillis;
+  private final Map<String, Long> published = new HashMap<String, Long>();
+  private long lastReport;
+
+  /**
+   * @param reporter       Reporter to publish counters through
+   * @param group          Counter group name
+   * @param intervalMillis Minimum time between two publications from {@link #maybeReport(Trans)}
+   */
+  public StepMetricsCounters( Reporter reporter, String group, long intervalMillis ) {
+    this.reporter = reporter;
+    this.group = group;
+    this.intervalMillis = intervalMillis;
+    this.lastReport = System.currentTimeMillis();
+  }
+
+  /**
+   * Publishes the step metrics if at least the configured interval has passed since the last publication.
+   */
+  public void maybeReport( Trans trans ) {
+    if ( System.currentTimeMillis() - lastReport >= intervalMillis ) {
+      report( trans );
+    }
+  }
+
+  /**
+   * Publishes the step metrics now.
+   */
+  public synchronized void report( Trans trans ) {
+    lastReport = System.currentTimeMillis();
+    List<StepMetaDataCombi> steps = trans == null ? null : trans.getSteps();
+    if ( steps == null ) {
+      return;
+    }
+
+    Map<String, long[]> totals = new LinkedHashMap<String, long[]>();
+    for ( StepMetaDataCombi combi : steps ) {
+      StepInterface step = combi.step;
+      if ( step == null ) {
+        continue;
+      }
+      long[] values = totals.get( combi.stepname );
+      if ( values == null ) {
+        values = new long[ METRICS.length ];
+        totals.put( combi.stepname, values );
+      }
+      values[ 0 ] += step.getLinesRead();
+      values[ 1 ] += step.getLinesWritten();
+      values[ 2 ] += step.getLinesInput();
+      values[ 3 ] += step.getLinesOutput();
+      values[ 4 ] += step.getLinesRejected();
+      values[ 5 ] += step.getErrors();
+      values[ RUN_TIME ] = Math.max( values[ RUN_TIME ], step.getRuntime() );
+    }
+
+    for ( Map.Entry<String, long[]> entry : totals.entrySet() ) {
+      long[] values = entry.getValue();
+      for ( int i = 0; i < METRICS.length; i++ ) {
+        String counter = entry.getKey() + ": " + METRICS[ i ];
+        Long previous = published.get( counter );
+        long delta = values[ i ] - ( previous == null ? 0 : previous );
+        if ( delta > 0 ) {
+          reporter.incrCounter( group, counter, delta );
+          published.put( counter, values[ i ] );
+        }
+      }
+    }
+  }
+}
@@ -39,6 +39,7 @@ import org.pentaho.hadoop.mapreduce.converter.converters.NullConverter;
 import org.pentaho.hadoop.mapreduce.converter.converters.NullWritableConverter;
 import org.pentaho.hadoop.mapreduce.converter.converters.ObjectToStringConverter;
 import org.pentaho.hadoop.mapreduce.converter.converters.ResultPassThroughConverter;
+import org.pentaho.hadoop.mapreduce.converter.converters.RowKeyWritableToObjectConverter;
 import org.pentaho.hadoop.mapreduce.converter.converters.TextToIntegerConverter;
 import org.pentaho.hadoop.mapreduce.converter.converters.TextToLongConverter;
 import org.pentaho.hadoop.mapreduce.converter.converters.TextToStringConverter;
@@ -68,6 +69,8 @@ public class TypeConverterFactory {
     new LongWritableToTextConverter(),
     new NullConverter(),
     new NullWritableConverter(),
+    // Must be ahead of ObjectToStringConverter, which accepts any source type
+    new RowKeyWritableToObjectConverter(),
     new ObjectToStringConverter(),
     new ResultPassThroughConverter(),
     new TextToIntegerConverter(),
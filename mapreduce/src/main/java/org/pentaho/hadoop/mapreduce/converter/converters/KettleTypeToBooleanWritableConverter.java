@@ -18,21 +18,31 @@ import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.hadoop.mapreduce.converter.TypeConversionException;
 import org.pentaho.hadoop.mapreduce.converter.TypeConverterFactory;
-import org.pentaho.hadoop.mapreduce.converter.spi.ITypeConverter;
+import org.pentaho.hadoop.mapreduce.converter.spi.IReusableTypeConverter;
 
 /**
  * Converts any Kettle object to an {@link BooleanWritable} object
  */
-public class KettleTypeToBooleanWritableConverter implements ITypeConverter<Object, BooleanWritable> {
+public class KettleTypeToBooleanWritableConverter implements IReusableTypeConverter<Object, BooleanWritable> {
   @Override
   public boolean canConvert( Class from, Class to ) {
     return TypeConverterFactory.isKettleType( from ) && BooleanWritable.class.equals( to );
   }
 
+  @Override
+  public BooleanWritable createTarget() {
+    return new BooleanWritable();
+  }
+
   @Override
   public BooleanWritable convert( ValueMetaInterface meta, Object obj ) throws TypeConversionException {
+    return convert( meta, obj, createTarget() );
+  }
+
+  @Override
+  public BooleanWritable convert( ValueMetaInterface meta, Object obj, BooleanWritable result )
+    throws TypeConversionException {
     try {
-      BooleanWritable result = new BooleanWritable();
       result.set( meta.getBoolean( obj ) );
       return result;
     } catch ( Exception ex ) {
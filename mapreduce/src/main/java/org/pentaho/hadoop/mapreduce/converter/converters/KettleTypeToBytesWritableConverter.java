@@ -18,21 +18,31 @@ import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.hadoop.mapreduce.converter.TypeConversionException;
 import org.pentaho.hadoop.mapreduce.converter.TypeConverterFactory;
-import org.pentaho.hadoop.mapreduce.converter.spi.ITypeConverter;
+import org.pentaho.hadoop.mapreduce.converter.spi.IReusableTypeConverter;
 
 /**
  * Converts any Kettle object to an {@link BytesWritable} object
  */
-public class KettleTypeToBytesWritableConverter implements ITypeConverter<Object, BytesWritable> {
+public class KettleTypeToBytesWritableConverter implements IReusableTypeConverter<Object, BytesWritable> {
   @Override
   public boolean canConvert( Class from, Class to ) {
     return TypeConverterFactory.isKettleType( from ) && BytesWritable.class.equals( to );
   }
 
+  @Override
+  public BytesWritable createTarget() {
+    return new BytesWritable();
+  }
+
   @Override
   public BytesWritable convert( ValueMetaInterface meta, Object obj ) throws TypeConversionException {
+    return convert( meta, obj, createTarget() );
+  }
+
+  @Override
+  public BytesWritable convert( ValueMetaInterface meta, Object obj, BytesWritable result )
+    throws TypeConversionException {
     try {
-      BytesWritable result = new BytesWritable();
       byte[] binary = meta.getBinary( obj );
       result.set( binary, 0, binary.length );
       return result;
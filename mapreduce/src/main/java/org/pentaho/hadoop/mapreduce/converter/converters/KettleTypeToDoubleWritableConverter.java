@@ -19,21 +19,31 @@ import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.hadoop.mapreduce.converter.TypeConversionException;
 import org.pentaho.hadoop.mapreduce.converter.TypeConverterFactory;
-import org.pentaho.hadoop.mapreduce.converter.spi.ITypeConverter;
+import org.pentaho.hadoop.mapreduce.converter.spi.IReusableTypeConverter;
 
 /**
  * Converts any Kettle object to an {@link DoubleWritable} object
  */
-public class KettleTypeToDoubleWritableConverter implements ITypeConverter<Object, DoubleWritable> {
+public class KettleTypeToDoubleWritableConverter implements IReusableTypeConverter<Object, DoubleWritable> {
   @Override
   public boolean canConvert( Class from, Class to ) {
     return TypeConverterFactory.isKettleType( from ) && DoubleWritable.class.equals( to );
   }
 
+  @Override
+  public DoubleWritable createTarget() {
+    return new DoubleWritable();
+  }
+
   @Override
   public DoubleWritable convert( ValueMetaInterface meta, Object obj ) throws TypeConversionException {
+    return convert( meta, obj, createTarget() );
+  }
+
+  @Override
+  public DoubleWritable convert( ValueMetaInterface meta, Object obj, DoubleWritable result )
+    throws TypeConversionException {
     try {
-      DoubleWritable result = new DoubleWritable();
       result.set( meta.getNumber( obj ) );
       return result;
     } catch ( KettleValueException ex ) {
@@ -19,21 +19,30 @@ import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.hadoop.mapreduce.converter.TypeConversionException;
 import org.pentaho.hadoop.mapreduce.converter.TypeConverterFactory;
-import org.pentaho.hadoop.mapreduce.converter.spi.ITypeConverter;
+import org.pentaho.hadoop.mapreduce.converter.spi.IReusableTypeConverter;
 
 /**
  * Converts any Kettle object to an {@link IntWritable} object
  */
-public class KettleTypeToIntWritableConverter implements ITypeConverter<Object, IntWritable> {
+public class KettleTypeToIntWritableConverter implements IReusableTypeConverter<Object, IntWritable> {
   @Override
   public boolean canConvert( Class from, Class to ) {
     return TypeConverterFactory.isKettleType( from ) && IntWritable.class.equals( to );
   }
 
+  @Override
+  public IntWritable createTarget() {
+    return new IntWritable();
+  }
+
   @Override
   public IntWritable convert( ValueMetaInterface meta, Object obj ) throws TypeConversionException {
+    return convert( meta, obj, createTarget() );
+  }
+
+  @Override
+  public IntWritable convert( ValueMetaInterface meta, Object obj, IntWritable result ) throws TypeConversionException {
     try {
-      IntWritable result = new IntWritable();
       result.set( meta.getInteger( obj ).intValue() );
       return result;
     } catch ( KettleValueException ex ) {
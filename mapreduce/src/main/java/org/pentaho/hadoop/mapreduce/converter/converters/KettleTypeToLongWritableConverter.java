@@ -19,21 +19,31 @@ import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.hadoop.mapreduce.converter.TypeConversionException;
 import org.pentaho.hadoop.mapreduce.converter.TypeConverterFactory;
-import org.pentaho.hadoop.mapreduce.converter.spi.ITypeConverter;
+import org.pentaho.hadoop.mapreduce.converter.spi.IReusableTypeConverter;
 
 /**
  * Converts any Kettle object to a {@link LongWritable} object
  */
-public class KettleTypeToLongWritableConverter implements ITypeConverter<Object, LongWritable> {
+public class KettleTypeToLongWritableConverter implements IReusableTypeConverter<Object, LongWritable> {
   @Override
   public boolean canConvert( Class from, Class to ) {
     return TypeConverterFactory.isKettleType( from ) && LongWritable.class.equals( to );
   }
 
+  @Override
+  public LongWritable createTarget() {
+    return new LongWritable();
+  }
+
   @Override
   public LongWritable convert( ValueMetaInterface meta, Object obj ) throws TypeConversionException {
+    return convert( meta, obj, createTarget() );
+  }
+
+  @Override
+  public LongWritable convert( ValueMetaInterface meta, Object obj, LongWritable result )
+    throws TypeConversionException {
     try {
-      LongWritable result = new LongWritable();
       result.set( meta.getInteger( obj ) );
       return result;
     } catch ( KettleValueException ex ) {
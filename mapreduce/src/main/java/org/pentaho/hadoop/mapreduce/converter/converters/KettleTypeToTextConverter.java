@@ -19,21 +19,30 @@ import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.hadoop.mapreduce.converter.TypeConversionException;
 import org.pentaho.hadoop.mapreduce.converter.TypeConverterFactory;
-import org.pentaho.hadoop.mapreduce.converter.spi.ITypeConverter;
+import org.pentaho.hadoop.mapreduce.converter.spi.IReusableTypeConverter;
 
 /**
  * Converts any Kettle object to a {@link Text} object
  */
-public class KettleTypeToTextConverter implements ITypeConverter<Object, Text> {
+public class KettleTypeToTextConverter implements IReusableTypeConverter<Object, Text> {
   @Override
   public boolean canConvert( Class from, Class to ) {
     return TypeConverterFactory.isKettleType( from ) && Text.class.equals( to );
   }
 
+  @Override
+  public Text createTarget() {
+    return new Text();
+  }
+
   @Override
   public Text convert( ValueMetaInterface meta, Object obj ) throws TypeConversionException {
+    return convert( meta, obj, createTarget() );
+  }
+
+  @Override
+  public Text convert( ValueMetaInterface meta, Object obj, Text text ) throws TypeConversionException {
     try {
-      Text text = new Text();
       text.set( meta.getString( obj ) );
       return text;
     } catch ( KettleValueException ex ) {
@@ -0,0 +1,79 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.mapreduce.converter.converters;
+
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.ValueMeta;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.hadoop.mapreduce.RowKeyWritable;
+import org.pentaho.hadoop.mapreduce.converter.TypeConversionException;
+import org.pentaho.hadoop.mapreduce.converter.TypeConverterFactory;
+import org.pentaho.hadoop.mapreduce.converter.spi.ITypeConverter;
+
+import java.util.Date;
+
+/**
+ * Converts a {@link RowKeyWritable} to the Kettle type of the value meta it is injected as. The key converts to its
+ * first field, which with secondary sort is the field records are grouped on; the injection code fills the remaining
+ * key fields by name through {@link #convertField(ValueMetaInterface, Object)}.
+ */
+public class RowKeyWritableToObjectConverter implements ITypeConverter<RowKeyWritable, Object> {
+  @Override
+  public boolean canConvert( Class from, Class to ) {
+    return RowKeyWritable.class.equals( from ) && ( Object.class.equals( to ) || TypeConverterFactory.isKettleType(
+      to ) );
+  }
+
+  @Override
+  public Object convert( ValueMetaInterface meta, RowKeyWritable obj ) throws TypeConversionException {
+    Object[] fields = obj.getFields();
+    return convertField( meta, fields.length == 0 ? null : fields[ 0 ] );
+  }
+
+  /**
+   * Converts a single decoded key field to the Kettle type of {@code meta}.
+   *
+   * @param meta  Target value meta; the field is returned as decoded when {@code null}
+   * @param value Key field as returned by {@link RowKeyWritable#getFields()}
+   * @return the converted value
+   */
+  public static Object convertField( ValueMetaInterface meta, Object value ) throws TypeConversionException {
+    if ( value == null || meta == null ) {
+      return value;
+    }
+    try {
+      return meta.convertData( new ValueMeta( meta.getName(), getType( value ) ), value );
+    } catch ( KettleValueException ex ) {
+      throw new TypeConversionException(
+        BaseMessages.getString( TypeConverterFactory.class, "ErrorConverting", meta.getTypeDesc(), value ), ex );
+    }
+  }
+
+  private static int getType( Object value ) {
+    if ( value instanceof Long ) {
+      return ValueMetaInterface.TYPE_INTEGER;
+    } else if ( value instanceof Double ) {
+      return ValueMetaInterface.TYPE_NUMBER;
+    } else if ( value instanceof Boolean ) {
+      return ValueMetaInterface.TYPE_BOOLEAN;
+    } else if ( value instanceof Date ) {
+      return ValueMetaInterface.TYPE_DATE;
+    } else if ( value instanceof byte[] ) {
+      return ValueMetaInterface.TYPE_BINARY;
+    }
+    return ValueMetaInterface.TYPE_STRING;
+  }
+}
@@ -0,0 +1,43 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.hadoop.mapreduce.converter.spi;
+
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.hadoop.mapreduce.converter.TypeConversionException;
+
+/**
+ * A type converter that can write into a caller-owned, mutable target instead of allocating a new object for every
+ * value. Callers that hand the result straight to Hadoop (which serializes it immediately) can keep one target per
+ * output column.
+ *
+ * @param <F> Type this converter can convert from
+ * @param <T> Type this converter can convert to
+ */
+public interface IReusableTypeConverter<F, T> extends ITypeConverter<F, T> {
+  /**
+   * @return a new, empty instance of the type this converter produces
+   */
+  public T createTarget();
+
+  /**
+   * Convert an object with some metadata into an existing instance of the destination type.
+   *
+   * @param meta   Metadata for the object provided. This provides hints and formatting to aid in conversion.
+   * @param obj    Object to convert
+   * @param target Instance to overwrite with the converted value
+   * @return {@code target}
+   * @throws TypeConversionException Error encountered when converting {@code obj} to type {@code T}
+   */
+  public T convert( ValueMetaInterface meta, F obj, T target ) throws TypeConversionException;
+}
@@ -0,0 +1,84 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.mapreduce;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BatchRowSetTest {
+  private RowMetaInterface rowMeta;
+
+  @Before
+  public void setup() {
+    rowMeta = new RowMeta();
+  }
+
+  @Test
+  public void testRowsAreReadInOrderAcrossChunks() {
+    BatchRowSet rowSet = new BatchRowSet( 2 );
+    assertTrue( rowSet.putRows( rowMeta, new Object[][] { { "a" }, { "b" } } ) );
+    assertTrue( rowSet.putRow( rowMeta, new Object[] { "c" } ) );
+    assertEquals( 3, rowSet.size() );
+
+    assertEquals( "a", rowSet.getRow()[ 0 ] );
+    assertEquals( 2, rowSet.size() );
+    assertEquals( "b", rowSet.getRowImmediate()[ 0 ] );
+    assertEquals( "c", rowSet.getRowWait( 10, TimeUnit.MILLISECONDS )[ 0 ] );
+    assertEquals( 0, rowSet.size() );
+    assertNull( rowSet.getRowImmediate() );
+    assertNull( rowSet.getRowWait( 10, TimeUnit.MILLISECONDS ) );
+  }
+
+  @Test
+  public void testEmptyChunkIsIgnored() {
+    BatchRowSet rowSet = new BatchRowSet( 1 );
+    assertTrue( rowSet.putRows( rowMeta, new Object[0][] ) );
+    assertEquals( 0, rowSet.size() );
+    assertTrue( rowSet.putRows( rowMeta, new Object[][] { { "a" } } ) );
+  }
+
+  @Test
+  public void testPutRowsGivesUpWhenDoneAndFull() {
+    BatchRowSet rowSet = new BatchRowSet( 1 );
+    assertTrue( rowSet.putRows( rowMeta, new Object[][] { { "a" } } ) );
+    rowSet.setDone();
+    assertFalse( rowSet.putRows( rowMeta, new Object[][] { { "b" }, { "c" } } ) );
+    assertEquals( 1, rowSet.size() );
+  }
+
+  @Test
+  public void testPutRowWaitTimesOutWhenFull() {
+    BatchRowSet rowSet = new BatchRowSet( 1 );
+    assertTrue( rowSet.putRowWait( rowMeta, new Object[] { "a" }, 10, TimeUnit.MILLISECONDS ) );
+    assertFalse( rowSet.putRowWait( rowMeta, new Object[] { "b" }, 10, TimeUnit.MILLISECONDS ) );
+    assertEquals( 1, rowSet.size() );
+  }
+
+  @Test
+  public void testClear() {
+    BatchRowSet rowSet = new BatchRowSet( 2 );
+    rowSet.putRows( rowMeta, new Object[][] { { "a" }, { "b" } } );
+    rowSet.getRow();
+    rowSet.clear();
+    assertEquals( 0, rowSet.size() );
+    assertNull( rowSet.getRowImmediate() );
+  }
+}
@@ -29,6 +29,7 @@ import org.pentaho.di.trans.TransMeta;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -137,6 +138,46 @@ public class GenericTransCombinerTest {
     assertEquals( expectedValue, outputCollectorMock.getCollection().get( expectedKey ) );
   }
 
+  @Test
+  public void testCompositeKeyFieldsReachCombinerAndReducer() throws Exception {
+    transMeta = new TransMeta(
+      getClass().getResource( MRTestUtil.PATH_TO_COMPOSITE_KEY_TEST_TRANSFORMATION ).toURI().getPath() );
+    mrJobConfig.set( PentahoMapReduceBase.STRING_ROW_KEY_FIELDS, "word,day" );
+    mrJobConfig.setMapOutputKeyClass( RowKeyWritable.class );
+    mrJobConfig.setMapOutputValueClass( IntWritable.class );
+    MRTestUtil.configJobCombinerBaseCase( transMeta, mrJobConfig, genericTransCombiner );
+
+    RowKeyWritable key = new RowKeyWritable( "word", 3L );
+    genericTransCombiner.reduce( key, Arrays.asList( new IntWritable( 1 ), new IntWritable( 2 ) ).iterator(),
+      outputCollectorMock, reporterMock );
+    genericTransCombiner.close();
+    outputCollectorMock.close();
+
+    assertNull( "Exception thrown", genericTransCombiner.getException() );
+    assertEquals( 1, outputCollectorMock.getCollection().size() );
+    List<Object> combined = outputCollectorMock.getCollection().get( key );
+    assertEquals( Arrays.asList( new IntWritable( 1 ), new IntWritable( 2 ) ), combined );
+
+    // feed the combiner output to a reducer that emits the composite key again
+    GenericTransReduce genericTransReduce = new GenericTransReduce();
+    mrJobConfig.set( MRTestUtil.TRANSFORMATION_REDUCE_XML, MRTestUtil.getTransExecConfig( transMeta ).getXML() );
+    mrJobConfig.set( MRTestUtil.TRANSFORMATION_REDUCE_INPUT_STEPNAME, MRTestUtil.INJECTOR_STEP );
+    mrJobConfig.set( MRTestUtil.TRANSFORMATION_REDUCE_OUTPUT_STEPNAME, MRTestUtil.OUTPUT_STEP );
+    mrJobConfig.setOutputKeyClass( RowKeyWritable.class );
+    mrJobConfig.setOutputValueClass( IntWritable.class );
+    genericTransReduce.configure( mrJobConfig );
+    MockOutputCollector reducerOutput = new MockOutputCollector();
+
+    genericTransReduce.reduce( new RowKeyWritable( "word", 3L ), (Iterator) combined.iterator(), reducerOutput,
+      reporterMock );
+    genericTransReduce.close();
+    reducerOutput.close();
+
+    assertNull( "Exception thrown", genericTransReduce.getException() );
+    assertEquals( 1, reducerOutput.getCollection().size() );
+    assertEquals( combined, reducerOutput.getCollection().get( key ) );
+  }
+
   @Test
   public void testLogChannelLeaking() throws Exception {
     transMeta = new TransMeta(
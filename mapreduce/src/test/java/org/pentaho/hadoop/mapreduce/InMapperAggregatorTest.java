@@ -0,0 +1,129 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.mapreduce;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class InMapperAggregatorTest {
+
+  private static class MapCollector<K, V> implements OutputCollector<K, V> {
+    private final Map<K, V> collected = new HashMap<K, V>();
+    private int count;
+
+    @Override
+    public void collect( K key, V value ) throws IOException {
+      collected.put( key, value );
+      count++;
+    }
+  }
+
+  @Test
+  public void testSum() throws Exception {
+    MapCollector<Text, LongWritable> output = new MapCollector<Text, LongWritable>();
+    InMapperAggregator<Text, LongWritable> aggregator = new InMapperAggregator<Text, LongWritable>( output,
+      LongWritable.class, InMapperAggregator.Operation.SUM, 100, null );
+    aggregator.collect( new Text( "a" ), new LongWritable( 1 ) );
+    aggregator.collect( new Text( "b" ), new LongWritable( 5 ) );
+    aggregator.collect( new Text( "a" ), new LongWritable( 2 ) );
+    assertEquals( 0, output.count );
+
+    aggregator.flush();
+    assertEquals( 2, output.count );
+    assertEquals( new LongWritable( 3 ), output.collected.get( new Text( "a" ) ) );
+    assertEquals( new LongWritable( 5 ), output.collected.get( new Text( "b" ) ) );
+    assertEquals( 0, aggregator.size() );
+  }
+
+  @Test
+  public void testCountMinMax() throws Exception {
+    MapCollector<Text, IntWritable> counts = new MapCollector<Text, IntWritable>();
+    InMapperAggregator<Text, IntWritable> count = new InMapperAggregator<Text, IntWritable>( counts,
+      IntWritable.class, InMapperAggregator.Operation.COUNT, 100, null );
+    MapCollector<Text, DoubleWritable> mins = new MapCollector<Text, DoubleWritable>();
+    InMapperAggregator<Text, DoubleWritable> min = new InMapperAggregator<Text, DoubleWritable>( mins,
+      DoubleWritable.class, InMapperAggregator.Operation.MIN, 100, null );
+    MapCollector<Text, LongWritable> maxes = new MapCollector<Text, LongWritable>();
+    InMapperAggregator<Text, LongWritable> max = new InMapperAggregator<Text, LongWritable>( maxes,
+      LongWritable.class, InMapperAggregator.Operation.MAX, 100, null );
+
+    for ( int i : new int[] { 4, -2, 7 } ) {
+      count.collect( new Text( "k" ), new IntWritable( i ) );
+      min.collect( new Text( "k" ), new DoubleWritable( i ) );
+      max.collect( new Text( "k" ), new LongWritable( i ) );
+    }
+    count.flush();
+    min.flush();
+    max.flush();
+
+    assertEquals( new IntWritable( 3 ), counts.collected.get( new Text( "k" ) ) );
+    assertEquals( new DoubleWritable( -2 ), mins.collected.get( new Text( "k" ) ) );
+    assertEquals( new LongWritable( 7 ), maxes.collected.get( new Text( "k" ) ) );
+  }
+
+  @Test
+  public void testFlushesWhenFull() throws Exception {
+    MapCollector<Text, LongWritable> output = new MapCollector<Text, LongWritable>();
+    InMapperAggregator<Text, LongWritable> aggregator = new InMapperAggregator<Text, LongWritable>( output,
+      LongWritable.class, InMapperAggregator.Operation.SUM, 2, null );
+    aggregator.collect( new Text( "a" ), new LongWritable( 1 ) );
+    aggregator.collect( new Text( "a" ), new LongWritable( 1 ) );
+    assertEquals( 0, output.count );
+    aggregator.collect( new Text( "b" ), new LongWritable( 1 ) );
+    assertEquals( 2, output.count );
+    assertEquals( 0, aggregator.size() );
+  }
+
+  @Test
+  public void testCopiesReusedKeys() throws Exception {
+    MapCollector<Text, LongWritable> output = new MapCollector<Text, LongWritable>();
+    InMapperAggregator<Text, LongWritable> aggregator = new InMapperAggregator<Text, LongWritable>( output,
+      LongWritable.class, InMapperAggregator.Operation.SUM, 100, new Configuration( false ) );
+    Text key = new Text( "a" );
+    aggregator.collect( key, new LongWritable( 1 ) );
+    key.set( "b" );
+    aggregator.collect( key, new LongWritable( 2 ) );
+    aggregator.flush();
+
+    assertEquals( new LongWritable( 1 ), output.collected.get( new Text( "a" ) ) );
+    assertEquals( new LongWritable( 2 ), output.collected.get( new Text( "b" ) ) );
+  }
+
+  @Test
+  public void testPassesThroughNulls() throws Exception {
+    MapCollector<Text, LongWritable> output = new MapCollector<Text, LongWritable>();
+    InMapperAggregator<Text, LongWritable> aggregator = new InMapperAggregator<Text, LongWritable>( output,
+      LongWritable.class, InMapperAggregator.Operation.SUM, 100, null );
+    aggregator.collect( null, new LongWritable( 1 ) );
+    assertEquals( 1, output.count );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testRejectsUnsupportedValueClass() {
+    new InMapperAggregator<Text, Text>( new MapCollector<Text, Text>(), Text.class,
+      InMapperAggregator.Operation.SUM, 100, null );
+  }
+}
@@ -47,6 +47,7 @@ public class MRTestUtil {
   protected static final String PATH_TO_NO_OUTPUT_STEP_TEST_TRANSFORMATION = "/no-output-step.ktr";
   protected static final String PATH_TO_NO_INJECTOR_STEP_TEST_TRANSFORMATION = "/no-injector-step.ktr";
   protected static final String PATH_TO_BAD_INJECTOR_STEP_TEST_TRANSFORMATION = "/bad-injector-fields.ktr";
+  protected static final String PATH_TO_COMPOSITE_KEY_TEST_TRANSFORMATION = "/composite-key-test.ktr";
   protected static final String PATH_TO_MR_PASSTHROUGH_TEST_TRANSFORMATION = "/resources/mr-passthrough.ktr";
   protected static final Text KEY_TO_NULL = new Text( "0" );
   protected static final Text VALUE_TO_NULL = new Text( "test" );
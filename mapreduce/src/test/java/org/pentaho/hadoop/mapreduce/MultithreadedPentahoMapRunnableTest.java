@@ -0,0 +1,66 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.mapreduce;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Reporter;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.logging.LogLevel;
+import org.pentaho.di.trans.TransMeta;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+@SuppressWarnings( { "unchecked", "rawtypes" } )
+public class MultithreadedPentahoMapRunnableTest {
+
+  @BeforeClass
+  public static void before() throws KettleException {
+    KettleEnvironment.init();
+  }
+
+  @Test
+  public void testEveryRecordIsMappedOnce() throws Exception {
+    JobConf mrJobConfig = new JobConf();
+    mrJobConfig.set( "logLevel", LogLevel.ERROR.name() );
+    mrJobConfig.setInt( PentahoMapReduceBase.STRING_MAP_THREADS, 3 );
+    mrJobConfig.setInt( PentahoMapReduceBase.STRING_INJECTION_BATCH_SIZE, 4 );
+    MultithreadedPentahoMapRunnable mapRunnable = new MultithreadedPentahoMapRunnable();
+    TransMeta transMeta = new TransMeta(
+      getClass().getResource( MRTestUtil.PATH_TO_WORDCOUNT_MAPPER_TEST_TRANSFORMATION ).toURI().getPath() );
+    MRTestUtil.configJobMapBaseCase( transMeta, mrJobConfig, mapRunnable );
+
+    List<String> words =
+      IntStream.rangeClosed( 1, 50 ).mapToObj( value -> "word" + value ).collect( Collectors.toList() );
+    MockOutputCollector output = new MockOutputCollector();
+    mapRunnable.run( new MockRecordReader( words ), output, mock( Reporter.class ) );
+    output.close();
+
+    assertEquals( words.size(), output.getCollection().size() );
+    for ( String word : words ) {
+      assertEquals( Collections.singletonList( new IntWritable( 1 ) ), output.getCollection().get( new Text( word ) ) );
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.hadoop.mapreduce;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reporter;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMeta;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class OutputCollectorRowListenerTest {
+  private OutputCollector<Text, LongWritable> output;
+  private Reporter reporter;
+  private RowMetaInterface rowMeta;
+
+  @Before
+  @SuppressWarnings( "unchecked" )
+  public void setup() {
+    output = mock( OutputCollector.class );
+    reporter = mock( Reporter.class );
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMeta( "outKey", ValueMetaInterface.TYPE_STRING ) );
+    rowMeta.addValueMeta( new ValueMeta( "outValue", ValueMetaInterface.TYPE_INTEGER ) );
+  }
+
+  @Test
+  public void testCollectsNewWritablesByDefault() throws Exception {
+    OutputCollectorRowListener<Text, LongWritable> listener =
+      new OutputCollectorRowListener<>( output, Text.class, LongWritable.class, reporter, false );
+    listener.rowWrittenEvent( rowMeta, new Object[] { "a", 1L } );
+    listener.rowWrittenEvent( rowMeta, new Object[] { "b", 2L } );
+
+    ArgumentCaptor<Text> keys = ArgumentCaptor.forClass( Text.class );
+    ArgumentCaptor<LongWritable> values = ArgumentCaptor.forClass( LongWritable.class );
+    verify( output, times( 2 ) ).collect( keys.capture(), values.capture() );
+    List<Text> collectedKeys = keys.getAllValues();
+    assertNotSame( collectedKeys.get( 0 ), collectedKeys.get( 1 ) );
+    assertEquals( new Text( "a" ), collectedKeys.get( 0 ) );
+    assertEquals( new LongWritable( 2L ), values.getAllValues().get( 1 ) );
+  }
+
+  @Test
+  public void testReusesWritables() throws Exception {
+    OutputCollectorRowListener<Text, LongWritable> listener =
+      new OutputCollectorRowListener<>( output, Text.class, LongWritable.class, reporter, false, true );
+    listener.rowWrittenEvent( rowMeta, new Object[] { "a", 1L } );
+    listener.rowWrittenEvent( rowMeta, new Object[] { "b", 2L } );
+
+    ArgumentCaptor<Text> keys = ArgumentCaptor.forClass( Text.class );
+    ArgumentCaptor<LongWritable> values = ArgumentCaptor.forClass( LongWritable.class );
+    verify( output, times( 2 ) ).collect( keys.capture(), values.capture() );
+    assertSame( keys.getAllValues().get( 0 ), keys.getAllValues().get( 1 ) );
+    assertSame( values.getAllValues().get( 0 ), values.getAllValues().get( 1 ) );
+    assertEquals( new Text( "b" ), keys.getValue() );
+    assertEquals( new LongWritable( 2L ), values.getValue() );
+  }
+
+  @Test
+  public void testNullValueCountedWithCachedConverters() throws Exception {
+    OutputCollectorRowListener<Text, LongWritable> listener =
+      new OutputCollectorRowListener<>( output, Text.class, LongWritable.class, reporter, false, true );
+    listener.rowWrittenEvent( rowMeta, new Object[] { "a", 1L } );
+    listener.rowWrittenEvent( rowMeta, new Object[] { "b", null } );
+    listener.rowWrittenEvent( rowMeta, new Object[] { "c", 3L } );
+
+    verify( output, times( 2 ) ).collect( any( Text.class ), any( LongWritable.class ) );
+    verify( reporter ).incrCounter( PentahoMapRunnable.Counter.OUT_RECORD_WITH_NULL_VALUE, 1 );
+  }
+
+  @Test
+  public void testOrdinalsFollowRowMetaChanges() throws Exception {
+    OutputCollectorRowListener<Text, LongWritable> listener =
+      new OutputCollectorRowListener<>( output, Text.class, LongWritable.class, reporter, false );
+    listener.rowWrittenEvent( rowMeta, new Object[] { "a", 1L } );
+
+    RowMetaInterface swapped = new RowMeta();
+    swapped.addValueMeta( new ValueMeta( "outValue", ValueMetaInterface.TYPE_INTEGER ) );
+    swapped.addValueMeta( new ValueMeta( "outKey", ValueMetaInterface.TYPE_STRING ) );
+    listener.rowWrittenEvent( swapped, new Object[] { 2L, "b" } );
+
+    verify( output ).collect( new Text( "b" ), new LongWritable( 2L ) );
+  }
+}
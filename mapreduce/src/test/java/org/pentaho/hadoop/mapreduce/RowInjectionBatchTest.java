@@ -0,0 +1,110 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.mapreduce;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMeta;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.trans.RowProducer;
+import org.pentaho.hadoop.mapreduce.converter.converters.TextToStringConverter;
+import org.pentaho.hadoop.mapreduce.converter.converters.LongWritableToLongConverter;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class RowInjectionBatchTest {
+  private RowMetaInterface rowMeta;
+  private RowProducer rowProducer;
+
+  @Before
+  public void setup() {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMeta( "key", ValueMetaInterface.TYPE_STRING ) );
+    rowMeta.addValueMeta( new ValueMeta( "value", ValueMetaInterface.TYPE_INTEGER ) );
+    rowProducer = mock( RowProducer.class );
+  }
+
+  @Test
+  public void testInjectsWhenBatchIsFull() throws Exception {
+    RowInjectionBatch batch =
+      new RowInjectionBatch( rowMeta, 0, new TextToStringConverter(), 1, new LongWritableToLongConverter(), rowProducer,
+        2 );
+
+    assertFalse( batch.add( new Text( "a" ), new LongWritable( 1L ) ) );
+    verify( rowProducer, never() ).putRow( any( RowMetaInterface.class ), any( Object[].class ) );
+    assertTrue( batch.add( new Text( "b" ), new LongWritable( 2L ) ) );
+    assertFalse( batch.add( new Text( "c" ), new LongWritable( 3L ) ) );
+    assertEquals( 1, batch.size() );
+    assertEquals( 1, batch.flush() );
+    assertEquals( 0, batch.flush() );
+
+    ArgumentCaptor<Object[]> rows = ArgumentCaptor.forClass( Object[].class );
+    verify( rowProducer, times( 3 ) ).putRow( same( rowMeta ), rows.capture() );
+    List<Object[]> injected = rows.getAllValues();
+    assertEquals( "a", injected.get( 0 )[ 0 ] );
+    assertEquals( 2L, injected.get( 1 )[ 1 ] );
+    assertEquals( "c", injected.get( 2 )[ 0 ] );
+    assertTrue( injected.get( 0 ).length >= rowMeta.size() );
+  }
+
+  @Test
+  public void testPassesThroughWithoutConverters() throws Exception {
+    RowInjectionBatch batch = new RowInjectionBatch( rowMeta, 1, null, 0, null, rowProducer, 4 );
+    Text key = new Text( "k" );
+    LongWritable value = new LongWritable( 5L );
+    batch.add( key, value );
+    batch.flush();
+
+    ArgumentCaptor<Object[]> rows = ArgumentCaptor.forClass( Object[].class );
+    verify( rowProducer ).putRow( same( rowMeta ), rows.capture() );
+    assertSame( value, rows.getValue()[ 0 ] );
+    assertSame( key, rows.getValue()[ 1 ] );
+  }
+
+  @Test
+  public void testHandsFullChunksToBatchRowSet() throws Exception {
+    BatchRowSet rowSet = new BatchRowSet( 4 );
+    when( rowProducer.getRowSet() ).thenReturn( rowSet );
+    RowInjectionBatch batch =
+      new RowInjectionBatch( rowMeta, 0, new TextToStringConverter(), 1, new LongWritableToLongConverter(), rowProducer,
+        2 );
+
+    batch.add( new Text( "a" ), new LongWritable( 1L ) );
+    batch.add( new Text( "b" ), new LongWritable( 2L ) );
+    batch.add( new Text( "c" ), new LongWritable( 3L ) );
+    assertEquals( 1, batch.flush() );
+
+    verify( rowProducer, never() ).putRow( any( RowMetaInterface.class ), any( Object[].class ) );
+    assertEquals( 3, rowSet.size() );
+    assertSame( rowMeta, rowSet.getRowMeta() );
+    assertEquals( "a", rowSet.getRowImmediate()[ 0 ] );
+    assertEquals( 2L, rowSet.getRowImmediate()[ 1 ] );
+    assertEquals( "c", rowSet.getRowImmediate()[ 0 ] );
+    assertNull( rowSet.getRowImmediate() );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testRejectsNonPositiveBatchSize() {
+    new RowInjectionBatch( rowMeta, 0, null, 1, null, rowProducer, 0 );
+  }
+}
@@ -0,0 +1,124 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.mapreduce;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.mapred.JobConf;
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMeta;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+public class RowKeyWritableTest {
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Date date = new Date( 1234567890L );
+    RowKeyWritable key = new RowKeyWritable( "a\u0000b", -5L, 2.5d, true, date, null, new byte[] { 0, 1 } );
+    RowKeyWritable copy = new RowKeyWritable();
+    copy.readFields( input( serialize( key ) ) );
+
+    Object[] fields = copy.getFields();
+    assertEquals( "a\u0000b", fields[ 0 ] );
+    assertEquals( -5L, fields[ 1 ] );
+    assertEquals( 2.5d, fields[ 2 ] );
+    assertEquals( true, fields[ 3 ] );
+    assertEquals( date, fields[ 4 ] );
+    assertNull( fields[ 5 ] );
+    assertArrayEquals( new byte[] { 0, 1 }, (byte[]) fields[ 6 ] );
+    assertEquals( key, copy );
+  }
+
+  @Test
+  public void testBytesSortInValueOrder() throws Exception {
+    assertOrdered( new RowKeyWritable( (Object) null ), new RowKeyWritable( Long.MIN_VALUE ) );
+    assertOrdered( new RowKeyWritable( -1L ), new RowKeyWritable( 0L ) );
+    assertOrdered( new RowKeyWritable( 1L ), new RowKeyWritable( 256L ) );
+    assertOrdered( new RowKeyWritable( -2.5d ), new RowKeyWritable( -1.5d ) );
+    assertOrdered( new RowKeyWritable( -0.5d ), new RowKeyWritable( 0.25d ) );
+    assertOrdered( new RowKeyWritable( "ab" ), new RowKeyWritable( "abc" ) );
+    assertOrdered( new RowKeyWritable( "a", 9L ), new RowKeyWritable( "ab", 1L ) );
+    assertOrdered( new RowKeyWritable( "a\u0000", 9L ), new RowKeyWritable( "a\u0001", 1L ) );
+    assertOrdered( new RowKeyWritable( "a", 1L ), new RowKeyWritable( "a", 2L ) );
+  }
+
+  @Test
+  public void testSetFromRow() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMeta( "name", ValueMetaInterface.TYPE_STRING ) );
+    rowMeta.addValueMeta( new ValueMeta( "count", ValueMetaInterface.TYPE_INTEGER ) );
+    rowMeta.addValueMeta( new ValueMeta( "price", ValueMetaInterface.TYPE_NUMBER ) );
+    RowKeyWritable key = new RowKeyWritable();
+    key.set( rowMeta, new Object[] { "x", 3L, null }, new int[] { 2, 0, 1 } );
+    assertArrayEquals( new Object[] { null, "x", 3L }, key.getFields() );
+  }
+
+  @Test
+  public void testGroupingAndPartitioningUseLeadingFields() throws Exception {
+    RowKeyWritable a1 = new RowKeyWritable( "a", 1L );
+    RowKeyWritable a2 = new RowKeyWritable( "a", 2L );
+    RowKeyWritable b1 = new RowKeyWritable( "b", 1L );
+    byte[] ba1 = serialize( a1 );
+    byte[] ba2 = serialize( a2 );
+    byte[] bb1 = serialize( b1 );
+
+    Configuration conf = new Configuration( false );
+    conf.setInt( RowKeyWritable.GROUPING_FIELDS, 1 );
+    RowKeyWritable.GroupingComparator grouping = new RowKeyWritable.GroupingComparator();
+    grouping.setConf( conf );
+    assertEquals( 0, grouping.compare( ba1, 0, ba1.length, ba2, 0, ba2.length ) );
+    assertTrue( grouping.compare( ba2, 0, ba2.length, bb1, 0, bb1.length ) < 0 );
+    assertEquals( 0, grouping.compare( a1, a2 ) );
+
+    RowKeyWritable.Comparator comparator = new RowKeyWritable.Comparator();
+    assertTrue( comparator.compare( ba1, 0, ba1.length, ba2, 0, ba2.length ) < 0 );
+
+    JobConf job = new JobConf( false );
+    job.setInt( RowKeyWritable.GROUPING_FIELDS, 1 );
+    RowKeyPartitioner<Object> partitioner = new RowKeyPartitioner<Object>();
+    partitioner.configure( job );
+    for ( int partitions = 1; partitions < 20; partitions++ ) {
+      assertEquals( partitioner.getPartition( a1, null, partitions ), partitioner.getPartition( a2, null, partitions ) );
+    }
+  }
+
+  private void assertOrdered( RowKeyWritable smaller, RowKeyWritable larger ) throws Exception {
+    assertTrue( smaller.compareTo( larger ) < 0 );
+    byte[] s = serialize( smaller );
+    byte[] l = serialize( larger );
+    assertTrue( new RowKeyWritable.Comparator().compare( s, 0, s.length, l, 0, l.length ) < 0 );
+  }
+
+  private byte[] serialize( RowKeyWritable key ) throws Exception {
+    DataOutputBuffer out = new DataOutputBuffer();
+    key.write( out );
+    byte[] bytes = new byte[ out.getLength() ];
+    System.arraycopy( out.getData(), 0, bytes, 0, bytes.length );
+    return bytes;
+  }
+
+  private DataInputBuffer input( byte[] bytes ) {
+    DataInputBuffer in = new DataInputBuffer();
+    in.reset( bytes, bytes.length );
+    return in;
+  }
+}
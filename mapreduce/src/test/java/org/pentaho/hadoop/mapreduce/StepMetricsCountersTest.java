@@ -0,0 +1,66 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.mapreduce;
+
+import org.apache.hadoop.mapred.Reporter;
+import org.junit.Test;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.step.StepInterface;
+import org.pentaho.di.trans.step.StepMetaDataCombi;
+
+import java.util.Arrays;
+
+import static org.mockito.Mockito.*;
+
+public class StepMetricsCountersTest {
+
+  private StepMetaDataCombi combi( String name, StepInterface step ) {
+    StepMetaDataCombi combi = new StepMetaDataCombi();
+    combi.stepname = name;
+    combi.step = step;
+    return combi;
+  }
+
+  @Test
+  public void testPublishesDeltasSummedOverCopies() {
+    StepInterface copy0 = mock( StepInterface.class );
+    StepInterface copy1 = mock( StepInterface.class );
+    when( copy0.getLinesRead() ).thenReturn( 10L, 15L );
+    when( copy1.getLinesRead() ).thenReturn( 5L, 5L );
+    when( copy0.getRuntime() ).thenReturn( 100L, 300L );
+    when( copy1.getRuntime() ).thenReturn( 200L, 250L );
+    Trans trans = mock( Trans.class );
+    when( trans.getSteps() ).thenReturn( Arrays.asList( combi( "Calc", copy0 ), combi( "Calc", copy1 ) ) );
+    Reporter reporter = mock( Reporter.class );
+
+    StepMetricsCounters counters = new StepMetricsCounters( reporter, "Pentaho Map Steps", 0 );
+    counters.report( trans );
+    verify( reporter ).incrCounter( "Pentaho Map Steps", "Calc: Rows read", 15L );
+    verify( reporter ).incrCounter( "Pentaho Map Steps", "Calc: Run time (ms)", 200L );
+    verify( reporter, never() ).incrCounter( eq( "Pentaho Map Steps" ), eq( "Calc: Errors" ), anyLong() );
+
+    counters.maybeReport( trans );
+    verify( reporter ).incrCounter( "Pentaho Map Steps", "Calc: Rows read", 5L );
+    verify( reporter ).incrCounter( "Pentaho Map Steps", "Calc: Run time (ms)", 100L );
+  }
+
+  @Test
+  public void testWaitsForInterval() {
+    Trans trans = mock( Trans.class );
+    StepMetricsCounters counters = new StepMetricsCounters( mock( Reporter.class ), "group", 60000L );
+    counters.maybeReport( trans );
+    verify( trans, never() ).getSteps();
+  }
+}
@@ -76,4 +76,17 @@ public class KettleTypeToTextConverterTest {
     }
 
   }
+
+  @Test
+  public void convertIntoTarget() throws Exception {
+    KettleTypeToTextConverter c = new KettleTypeToTextConverter();
+    ValueMeta normalMeta =
+      new ValueMeta( "test", ValueMetaInterface.TYPE_STRING, ValueMetaInterface.STORAGE_TYPE_NORMAL );
+    Text target = c.createTarget();
+
+    assertSame( target, c.convert( normalMeta, "first", target ) );
+    assertEquals( new Text( "first" ), target );
+    assertSame( target, c.convert( normalMeta, "second", target ) );
+    assertEquals( new Text( "second" ), target );
+  }
 }
@@ -54,6 +54,7 @@ public class MRUtilTest {
   @Before
   public void setUp() {
     c = new Configuration();
+    MRUtil.clearTransCache();
   }
 
   @Test
@@ -117,6 +118,29 @@ public class MRUtilTest {
     assertEquals( TransMeta.TransformationType.SingleThreaded, trans.getTransMeta().getTransformationType() );
   }
 
+  @Test
+  public void createTrans_reusesParsedTransMeta() throws Exception {
+    String xml = transExecConfig.getXML();
+    Trans first = MRUtil.getTrans( c, xml, false );
+    first.getTransMeta().setName( "Changed by first task" );
+
+    Trans second = MRUtil.getTrans( c, xml, true );
+    assertNotSame( first.getTransMeta(), second.getTransMeta() );
+    assertEquals( transMeta.getName(), second.getTransMeta().getName() );
+    assertEquals( TransMeta.TransformationType.SingleThreaded, second.getTransMeta().getTransformationType() );
+    assertEquals( TransMeta.TransformationType.Normal, first.getTransMeta().getTransformationType() );
+  }
+
+  @Test
+  public void createTrans_cacheDisabled() throws Exception {
+    c.setBoolean( MRUtil.PROPERTY_PENTAHO_KETTLE_TRANS_CACHE, false );
+    String xml = transExecConfig.getXML();
+    Trans first = MRUtil.getTrans( c, xml, false );
+    Trans second = MRUtil.getTrans( c, xml, false );
+    assertNotSame( first.getTransMeta(), second.getTransMeta() );
+    assertEquals( first.getTransMeta().getName(), second.getTransMeta().getName() );
+  }
+
   private static TransMeta getTestTransMeta() {
     TransMeta transMeta = new TransMeta();
     transMeta.setName( "Test transformation" );
@@ -0,0 +1,50 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.hadoop.shim.api.hbase.mapping;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.hadoop.shim.api.hbase.Result;
+
+/**
+ * Turns HBase results into Kettle rows for a {@link Mapping} that has been compiled once up front, see
+ * {@link MappingFactory#createDecoder(Mapping, org.pentaho.di.core.row.RowMetaInterface)}.
+ */
+public interface MappingDecoder {
+  /**
+   * Decodes the key and the latest version of each mapped column of a (non tuple) mapping into the supplied row.
+   * Mapped fields that are not present in the result are set to null, all other fields are left untouched.
+   *
+   * @param result    the result to decode
+   * @param outputRow the row to write into, must be at least as long as the output row meta
+   * @return outputRow
+   * @throws KettleException if a value can't be decoded
+   */
+  Object[] decodeRow( Result result, Object[] outputRow ) throws KettleException;
+
+  /**
+   * Decodes a result for a tuple mapping, producing one row per cell (key, family, column, value, timestamp).
+   *
+   * @param result    the result to decode
+   * @param outputRow scratch row that is filled for each cell and handed to the handler; the handler must copy it if
+   *                  it needs to keep it
+   * @param handler   receives each decoded tuple row
+   * @return the number of rows handed to the handler
+   * @throws KettleException if a value can't be decoded
+   */
+  int decodeTuples( Result result, Object[] outputRow, TupleRowHandler handler ) throws KettleException;
+
+  interface TupleRowHandler {
+    void handleRow( Object[] row ) throws KettleException;
+  }
+}
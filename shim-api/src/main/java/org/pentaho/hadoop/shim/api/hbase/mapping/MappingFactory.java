@@ -13,6 +13,9 @@
 
 package org.pentaho.hadoop.shim.api.hbase.mapping;
 
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
 /**
  * Created by bryan on 1/21/16.
  */
@@ -22,4 +25,15 @@ public interface MappingFactory {
   Mapping createMapping( String tableName, String mappingName );
 
   Mapping createMapping( String tableName, String mappingName, String keyName, Mapping.KeyType keyType );
+
+  /**
+   * Compiles a decoder for the given mapping. Column family/qualifier bytes, per-column decode functions and output
+   * row indexes are resolved once here rather than for every row read.
+   *
+   * @param mapping       the mapping to decode with
+   * @param outputRowMeta the row meta of the rows the decoder writes into (fields are matched by alias)
+   * @return the decoder
+   * @throws KettleException if the mapping can't be compiled
+   */
+  MappingDecoder createDecoder( Mapping mapping, RowMetaInterface outputRowMeta ) throws KettleException;
 }
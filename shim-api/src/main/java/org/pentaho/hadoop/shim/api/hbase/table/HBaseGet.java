@@ -21,5 +21,7 @@ import java.io.IOException;
  * Created by bryan on 1/20/16.
  */
 public interface HBaseGet {
+  byte[] getKey();
+
   Result execute() throws IOException;
 }
@@ -0,0 +1,40 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.hadoop.shim.api.hbase.table;
+
+import org.pentaho.hadoop.shim.api.hbase.Result;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Bounded client-side cache of row lookups against a single table. Misses are fetched from the table in one batch.
+ */
+public interface HBaseLookupCache {
+  Result get( byte[] key ) throws IOException;
+
+  List<Result> getAll( List<byte[]> keys ) throws IOException;
+
+  boolean keyExists( byte[] key ) throws IOException;
+
+  boolean[] existsAll( List<byte[]> keys ) throws IOException;
+
+  void invalidate( byte[] key );
+
+  void invalidateAll();
+
+  long getHitCount();
+
+  long getMissCount();
+}
@@ -13,6 +13,7 @@
 
 package org.pentaho.hadoop.shim.api.hbase.table;
 
+import org.pentaho.hadoop.shim.api.hbase.Result;
 import org.pentaho.hadoop.shim.api.hbase.mapping.Mapping;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.logging.LogChannelInterface;
@@ -52,5 +53,49 @@ public interface HBaseTable extends Closeable {
 
   boolean keyExists( byte[] key ) throws IOException;
 
+  HBaseGet createGet( byte[] key );
+
+  /**
+   * Fetches the rows for all of the supplied gets in batched requests (grouped per region server by the client)
+   * instead of one blocking round trip per key.
+   *
+   * @param gets the gets to execute
+   * @return one result per get, in the same order; missing rows are returned as empty results
+   * @throws IOException if a problem occurs
+   */
+  List<Result> get( List<HBaseGet> gets ) throws IOException;
+
+  /**
+   * Batched form of {@link #keyExists(byte[])}. Only existence is checked server-side, no cell data is returned.
+   *
+   * @param keys the row keys to check
+   * @return one flag per key, in the same order
+   * @throws IOException if a problem occurs
+   */
+  boolean[] existsAll( List<byte[]> keys ) throws IOException;
+
+  /**
+   * Creates a bounded, client-side LRU cache in front of this table for lookup-style access
+   *
+   * @param maxEntries the maximum number of row keys to hold
+   * @param ttlMillis  how long an entry stays valid, values &lt;= 0 mean entries never expire
+   * @return the lookup cache
+   */
+  HBaseLookupCache createLookupCache( int maxEntries, long ttlMillis );
+
   HBaseTableWriteOperationManager createWriteOperationManager( Long writeBufferSize ) throws IOException;
+
+  /**
+   * Creates a write operation manager that bypasses the WAL and memstore. Puts are sorted client-side, written as
+   * region-partitioned HFiles under the staging directory and bulk-loaded into the table on
+   * {@link HBaseTableWriteOperationManager#flushCommits()}. Deletes are not supported in this mode.
+   *
+   * @param stagingDirectory a directory on the cluster file system to write HFiles to, it must be readable by HBase
+   * @param bufferSize       how many bytes of cells to sort in memory before they are spilled to HFiles, null for the
+   *                         default
+   * @return the write operation manager
+   * @throws IOException if a problem occurs
+   */
+  HBaseTableWriteOperationManager createBulkLoadWriteOperationManager( String stagingDirectory, Long bufferSize )
+    throws IOException;
 }
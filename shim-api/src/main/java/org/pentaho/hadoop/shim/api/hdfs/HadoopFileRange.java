@@ -0,0 +1,47 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.shim.api.hdfs;
+
+/**
+ * A byte range of a file, used to request several reads at once through
+ * {@link HadoopSeekableInput#readVectored(java.util.List, java.util.function.IntFunction)}.
+ */
+public final class HadoopFileRange {
+  private final long offset;
+  private final int length;
+
+  public HadoopFileRange( long offset, int length ) {
+    if ( offset < 0 ) {
+      throw new IllegalArgumentException( "Offset must not be negative: " + offset );
+    }
+    if ( length < 0 ) {
+      throw new IllegalArgumentException( "Length must not be negative: " + length );
+    }
+    this.offset = offset;
+    this.length = length;
+  }
+
+  public long getOffset() {
+    return offset;
+  }
+
+  public int getLength() {
+    return length;
+  }
+
+  @Override public String toString() {
+    return "HadoopFileRange{offset=" + offset + ", length=" + length + "}";
+  }
+}
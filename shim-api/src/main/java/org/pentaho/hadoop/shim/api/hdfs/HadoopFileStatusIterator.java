@@ -0,0 +1,32 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.shim.api.hdfs;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Paged iterator over file statuses. Each call may issue a remote request for the next batch of entries, so both
+ * methods may throw {@link IOException}.
+ */
+public interface HadoopFileStatusIterator {
+  boolean hasNext() throws IOException;
+
+  /**
+   * @return the next status
+   * @throws NoSuchElementException if there are no more entries
+   */
+  HadoopFileStatus next() throws IOException;
+}
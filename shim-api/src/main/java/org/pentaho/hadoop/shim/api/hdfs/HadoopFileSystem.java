@@ -16,6 +16,12 @@ package org.pentaho.hadoop.shim.api.hdfs;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 public interface HadoopFileSystem {
   public static final String FS_DEFAULT_NAME = "fs.default.name";
@@ -32,12 +38,97 @@ public interface HadoopFileSystem {
 
   InputStream open( HadoopFileSystemPath path ) throws IOException;
 
+  /**
+   * Opens a file for positional, ByteBuffer and vectored reads.
+   */
+  default HadoopSeekableInput openSeekable( HadoopFileSystemPath path ) throws IOException {
+    throw new UnsupportedOperationException( "Seekable reads are not supported by " + getClass().getName() );
+  }
+
   boolean rename( HadoopFileSystemPath path, HadoopFileSystemPath path2 ) throws IOException;
 
   void setTimes( HadoopFileSystemPath path, long mtime, long atime ) throws IOException;
 
   HadoopFileStatus[] listStatus( HadoopFileSystemPath path ) throws IOException;
 
+  /**
+   * Lists the entries of a directory a page at a time instead of materializing the whole listing.
+   */
+  default HadoopFileStatusIterator listStatusIterator( HadoopFileSystemPath path ) throws IOException {
+    final HadoopFileStatus[] statuses = listStatus( path );
+    return new HadoopFileStatusIterator() {
+      private int index = 0;
+
+      @Override public boolean hasNext() {
+        return statuses != null && index < statuses.length;
+      }
+
+      @Override public HadoopFileStatus next() {
+        if ( !hasNext() ) {
+          throw new NoSuchElementException();
+        }
+        return statuses[ index++ ];
+      }
+    };
+  }
+
+  /**
+   * Lists the files (not directories) under a path, descending into subdirectories when recursive is set.
+   */
+  default HadoopFileStatusIterator listFiles( HadoopFileSystemPath path, boolean recursive ) throws IOException {
+    final Deque<HadoopFileSystemPath> directories = new ArrayDeque<>();
+    final List<HadoopFileStatus> files = new ArrayList<>();
+    directories.push( path );
+    while ( !directories.isEmpty() ) {
+      HadoopFileStatusIterator iterator = listStatusIterator( directories.pop() );
+      while ( iterator.hasNext() ) {
+        HadoopFileStatus status = iterator.next();
+        if ( !status.isDir() ) {
+          files.add( status );
+        } else if ( recursive ) {
+          directories.push( status.getPath() );
+        }
+      }
+    }
+    final HadoopFileStatus[] result = files.toArray( new HadoopFileStatus[ 0 ] );
+    return new HadoopFileStatusIterator() {
+      private int index = 0;
+
+      @Override public boolean hasNext() {
+        return index < result.length;
+      }
+
+      @Override public HadoopFileStatus next() {
+        if ( !hasNext() ) {
+          throw new NoSuchElementException();
+        }
+        return result[ index++ ];
+      }
+    };
+  }
+
+  /**
+   * Recursively finds the files under root whose name matches the glob, listing up to parallelism directories
+   * concurrently.
+   *
+   * @param root        directory to walk
+   * @param glob        {@link HadoopGlobPattern} matched against file names, null matches everything
+   * @param parallelism maximum number of concurrent directory listings
+   */
+  default List<HadoopFileStatus> findFiles( HadoopFileSystemPath root, String glob, int parallelism )
+    throws IOException {
+    HadoopGlobPattern pattern = glob == null ? null : new HadoopGlobPattern( glob );
+    List<HadoopFileStatus> result = new ArrayList<>();
+    HadoopFileStatusIterator iterator = listFiles( root, true );
+    while ( iterator.hasNext() ) {
+      HadoopFileStatus status = iterator.next();
+      if ( pattern == null || pattern.matches( status.getPath().getName() ) ) {
+        result.add( status );
+      }
+    }
+    return result;
+  }
+
   HadoopFileSystemPath getPath( String path );
 
   HadoopFileSystemPath getHomeDirectory();
@@ -50,6 +141,116 @@ public interface HadoopFileSystem {
 
   public HadoopFileSystemPath resolvePath( HadoopFileSystemPath path ) throws IOException;
 
+  /**
+   * Deletes several paths, up to parallelism at a time.
+   *
+   * @return one result per path, in the order of paths
+   */
+  default List<HadoopPathResult> deleteAll( List<HadoopFileSystemPath> paths, boolean recursive, int parallelism ) {
+    List<HadoopPathResult> results = new ArrayList<>( paths.size() );
+    for ( HadoopFileSystemPath path : paths ) {
+      try {
+        results.add( HadoopPathResult.success( path, delete( path, recursive ) ) );
+      } catch ( IOException e ) {
+        results.add( HadoopPathResult.failure( path, e ) );
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Renames several paths, up to parallelism at a time.
+   *
+   * @param renames source to destination
+   * @return one result per source, in the iteration order of renames
+   */
+  default List<HadoopPathResult> renameAll( Map<HadoopFileSystemPath, HadoopFileSystemPath> renames,
+                                            int parallelism ) {
+    List<HadoopPathResult> results = new ArrayList<>( renames.size() );
+    for ( Map.Entry<HadoopFileSystemPath, HadoopFileSystemPath> rename : renames.entrySet() ) {
+      try {
+        results.add( HadoopPathResult.success( rename.getKey(), rename( rename.getKey(), rename.getValue() ) ) );
+      } catch ( IOException e ) {
+        results.add( HadoopPathResult.failure( rename.getKey(), e ) );
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Checks several paths for existence, up to parallelism at a time.
+   *
+   * @return one result per path, in the order of paths
+   */
+  default List<HadoopPathResult> existsAll( List<HadoopFileSystemPath> paths, int parallelism ) {
+    List<HadoopPathResult> results = new ArrayList<>( paths.size() );
+    for ( HadoopFileSystemPath path : paths ) {
+      try {
+        results.add( HadoopPathResult.success( path, exists( path ) ) );
+      } catch ( IOException e ) {
+        results.add( HadoopPathResult.failure( path, e ) );
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Applies {@link #chmod(HadoopFileSystemPath, int)} to several paths, up to parallelism at a time.
+   *
+   * @return one result per path (true when changed), in the order of paths
+   */
+  default List<HadoopPathResult> chmodAll( List<HadoopFileSystemPath> paths, int permissions, int parallelism ) {
+    List<HadoopPathResult> results = new ArrayList<>( paths.size() );
+    for ( HadoopFileSystemPath path : paths ) {
+      try {
+        chmod( path, permissions );
+        results.add( HadoopPathResult.success( path, true ) );
+      } catch ( IOException e ) {
+        results.add( HadoopPathResult.failure( path, e ) );
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Copies a file, or a directory tree, to a path of this or another file system.
+   * <p>
+   * This default copies sequentially through a single stream: it ignores {@code parallelism}, writes straight to
+   * {@code destination} rather than a temporary name and never verifies checksums. Implementations backed by Hadoop
+   * file systems override it with a parallel, verified copy.
+   *
+   * @param source                file or directory to copy
+   * @param destinationFileSystem file system to copy to, may be this one
+   * @param destination           path of the copy, replaced if it exists
+   * @param parallelism           maximum number of concurrent transfers, a hint implementations may ignore
+   * @return the number of bytes copied
+   */
+  default long copy( HadoopFileSystemPath source, HadoopFileSystem destinationFileSystem,
+                     HadoopFileSystemPath destination, int parallelism ) throws IOException {
+    if ( getFileStatus( source ).isDir() ) {
+      destinationFileSystem.mkdirs( destination );
+      long bytes = 0;
+      HadoopFileStatus[] children = listStatus( source );
+      if ( children != null ) {
+        for ( HadoopFileStatus child : children ) {
+          bytes += copy( child.getPath(), destinationFileSystem, destination.resolve( child.getPath().getName() ),
+            parallelism );
+        }
+      }
+      return bytes;
+    }
+    long bytes = 0;
+    byte[] buffer = new byte[ 64 * 1024 ];
+    try ( InputStream in = open( source ); OutputStream out = destinationFileSystem.create( destination ) ) {
+      int read;
+      while ( ( read = in.read( buffer ) ) != -1 ) {
+        out.write( buffer, 0, read );
+        bytes += read;
+      }
+    }
+    return bytes;
+  }
+
   String getFsDefaultName();
 
   void setProperty( String name, String value );
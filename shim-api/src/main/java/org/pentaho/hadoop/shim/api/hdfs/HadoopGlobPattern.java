@@ -0,0 +1,118 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.shim.api.hdfs;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * File name glob with the syntax of Hadoop's {@code org.apache.hadoop.fs.GlobPattern}: {@code *}, {@code ?},
+ * {@code [abc]}, {@code [!abc]}, {@code {a,b}} groups and backslash escapes. Shared by all {@link HadoopFileSystem}
+ * implementations so a glob matches the same names whichever one runs it.
+ */
+public final class HadoopGlobPattern {
+  private static final char BACKSLASH = '\\';
+
+  private final Pattern compiled;
+
+  /**
+   * @throws PatternSyntaxException if the glob is malformed
+   */
+  public HadoopGlobPattern( String glob ) {
+    compiled = compile( glob );
+  }
+
+  public boolean matches( CharSequence name ) {
+    return compiled.matcher( name ).matches();
+  }
+
+  private static Pattern compile( String glob ) {
+    StringBuilder regex = new StringBuilder();
+    int setOpen = 0;
+    int curlyOpen = 0;
+    int len = glob.length();
+
+    for ( int i = 0; i < len; i++ ) {
+      char c = glob.charAt( i );
+      switch ( c ) {
+        case BACKSLASH:
+          if ( ++i >= len ) {
+            throw new PatternSyntaxException( "Missing escaped character", glob, i );
+          }
+          regex.append( c ).append( glob.charAt( i ) );
+          continue;
+        case '.':
+        case '$':
+        case '(':
+        case ')':
+        case '|':
+        case '+':
+          // regex special characters that are plain characters in a glob
+          regex.append( BACKSLASH );
+          break;
+        case '*':
+          regex.append( '.' );
+          break;
+        case '?':
+          regex.append( '.' );
+          continue;
+        case '{':
+          regex.append( "(?:" );
+          curlyOpen++;
+          continue;
+        case ',':
+          regex.append( curlyOpen > 0 ? '|' : c );
+          continue;
+        case '}':
+          if ( curlyOpen > 0 ) {
+            curlyOpen--;
+            regex.append( ')' );
+            continue;
+          }
+          break;
+        case '[':
+          if ( setOpen > 0 ) {
+            throw new PatternSyntaxException( "Unclosed character class", glob, i );
+          }
+          setOpen++;
+          break;
+        case '^':
+          // only special at the start of a character class
+          if ( setOpen == 0 ) {
+            regex.append( BACKSLASH );
+          }
+          break;
+        case '!':
+          // [! negates a character class, like [^ in a regex
+          regex.append( setOpen > 0 && glob.charAt( i - 1 ) == '[' ? '^' : '!' );
+          continue;
+        case ']':
+          // malformed sets such as [][] are left to the regex compiler
+          setOpen = 0;
+          break;
+        default:
+      }
+      regex.append( c );
+    }
+
+    if ( setOpen > 0 ) {
+      throw new PatternSyntaxException( "Unclosed character class", glob, len );
+    }
+    if ( curlyOpen > 0 ) {
+      throw new PatternSyntaxException( "Unclosed group", glob, len );
+    }
+    return Pattern.compile( regex.toString(), Pattern.DOTALL );
+  }
+}
@@ -0,0 +1,67 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.shim.api.hdfs;
+
+import java.io.IOException;
+
+/**
+ * Outcome of a bulk operation for one path: either the boolean the single-path operation would have returned, or
+ * the exception it failed with.
+ */
+public final class HadoopPathResult {
+  private final HadoopFileSystemPath path;
+  private final boolean result;
+  private final IOException exception;
+
+  private HadoopPathResult( HadoopFileSystemPath path, boolean result, IOException exception ) {
+    this.path = path;
+    this.result = result;
+    this.exception = exception;
+  }
+
+  public static HadoopPathResult success( HadoopFileSystemPath path, boolean result ) {
+    return new HadoopPathResult( path, result, null );
+  }
+
+  public static HadoopPathResult failure( HadoopFileSystemPath path, IOException exception ) {
+    return new HadoopPathResult( path, false, exception );
+  }
+
+  public HadoopFileSystemPath getPath() {
+    return path;
+  }
+
+  /**
+   * @return the result of the operation, false if it failed
+   */
+  public boolean getResult() {
+    return result;
+  }
+
+  /**
+   * @return the failure, null if the operation completed
+   */
+  public IOException getException() {
+    return exception;
+  }
+
+  public boolean isFailed() {
+    return exception != null;
+  }
+
+  @Override public String toString() {
+    return "HadoopPathResult{path=" + path + ", result=" + result + ", exception=" + exception + "}";
+  }
+}
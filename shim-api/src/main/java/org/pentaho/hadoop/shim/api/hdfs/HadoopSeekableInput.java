@@ -0,0 +1,63 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.hadoop.shim.api.hdfs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntFunction;
+
+/**
+ * Random access handle on a file, for format readers that jump around rather than stream from start to end.
+ */
+public interface HadoopSeekableInput extends Closeable {
+  long getPos() throws IOException;
+
+  void seek( long position ) throws IOException;
+
+  /**
+   * Sequential read into a buffer from the current position.
+   *
+   * @return the number of bytes read, -1 at the end of the file
+   */
+  int read( ByteBuffer buffer ) throws IOException;
+
+  /**
+   * Reads up to length bytes at position without moving the current position.
+   *
+   * @return the number of bytes read, -1 at the end of the file
+   */
+  int read( long position, byte[] buffer, int offset, int length ) throws IOException;
+
+  /**
+   * Reads exactly length bytes at position without moving the current position.
+   *
+   * @throws java.io.EOFException if the file ends first
+   */
+  void readFully( long position, byte[] buffer, int offset, int length ) throws IOException;
+
+  /**
+   * Reads several ranges in one call. Implementations may coalesce nearby ranges and fetch them in parallel, which
+   * is far cheaper than seeking on object stores.
+   *
+   * @param ranges   ranges to read, must not overlap
+   * @param allocate allocates a buffer of the requested size for each range
+   * @return one future per range, in the order of ranges, completing with the range's data
+   */
+  List<CompletableFuture<ByteBuffer>> readVectored( List<HadoopFileRange> ranges, IntFunction<ByteBuffer> allocate )
+    throws IOException;
+}
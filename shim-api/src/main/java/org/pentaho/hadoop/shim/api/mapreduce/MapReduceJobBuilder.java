@@ -22,6 +22,31 @@ public interface MapReduceJobBuilder {
   String STRING_COMBINE_SINGLE_THREADED = "transformation-combine-single-threaded";
   String STRING_REDUCE_SINGLE_THREADED = "transformation-reduce-single-threaded";
 
+  /**
+   * Codecs available to compress intermediate (map output) data before it is shuffled to the reducers
+   */
+  enum MapOutputCompression {
+    NONE( null ),
+    DEFAULT( "org.apache.hadoop.io.compress.DefaultCodec" ),
+    GZIP( "org.apache.hadoop.io.compress.GzipCodec" ),
+    SNAPPY( "org.apache.hadoop.io.compress.SnappyCodec" ),
+    LZ4( "org.apache.hadoop.io.compress.Lz4Codec" ),
+    ZSTD( "org.apache.hadoop.io.compress.ZStandardCodec" );
+
+    private final String codecClass;
+
+    MapOutputCompression( String codecClass ) {
+      this.codecClass = codecClass;
+    }
+
+    /**
+     * @return the compression codec class name or {@code null} if map output is not compressed
+     */
+    public String getCodecClass() {
+      return codecClass;
+    }
+  }
+
   /**
    * Sets the url of the jar to run
    *
@@ -141,6 +166,49 @@ public interface MapReduceJobBuilder {
    */
   void setOutputPath( String outputPath );
 
+  /**
+   * Sets the compression of intermediate (map output) data
+   *
+   * @param mapOutputCompression the codec to compress map output with, {@link MapOutputCompression#NONE} to disable
+   *                             compression
+   */
+  void setMapOutputCompression( MapOutputCompression mapOutputCompression );
+
+  /**
+   * Sets the size of the buffer map output is sorted in before it is spilled to disk
+   *
+   * @param sortBufferMb the buffer size in megabytes
+   */
+  void setSortBufferMb( int sortBufferMb );
+
+  /**
+   * Sets how full the sort buffer may get before its content is spilled to disk in the background
+   *
+   * @param sortSpillPercent the fraction of the sort buffer, between 0 and 1
+   */
+  void setSortSpillPercent( float sortSpillPercent );
+
+  /**
+   * Sets the number of spills or map outputs merged at once
+   *
+   * @param sortFactor the merge factor
+   */
+  void setSortFactor( int sortFactor );
+
+  /**
+   * Sets the number of map outputs each reducer fetches in parallel
+   *
+   * @param shuffleParallelCopies the number of parallel copies
+   */
+  void setShuffleParallelCopies( int shuffleParallelCopies );
+
+  /**
+   * Sets the fraction of completed map tasks after which reducers are scheduled to start fetching map output
+   *
+   * @param reduceSlowStart the fraction of completed map tasks, between 0 and 1
+   */
+  void setReduceSlowStart( float reduceSlowStart );
+
   /**
    * Puts arbitrary variables in the job configuration
    *
@@ -30,6 +30,24 @@ public interface PentahoMapReduceJobBuilder extends MapReduceJobBuilder {
 
   void setReducerInfo( String reducerTransformationXml, String reducerInputStep, String reducerOutputStep );
 
+  /**
+   * Runs {@code threads} copies of the mapper transformation in each map task, fed from the task's single record
+   * reader. Values of 1 or less run one copy.
+   *
+   * @param threads Number of mapper transformation copies per map task
+   */
+  void setMapperThreads( int threads );
+
+  /**
+   * Uses a composite key built from the given mapper output fields as the map output key. Keys are sorted on their
+   * serialized form; when {@code groupingFieldCount} is positive, map output is partitioned and grouped on only the
+   * first {@code groupingFieldCount} key fields, so the remaining fields give a secondary sort of each group's values.
+   *
+   * @param keyFields          Mapper output fields making up the key, in sort order
+   * @param groupingFieldCount Number of leading key fields to partition and group on, 0 for all
+   */
+  void setRowKeyInfo( String[] keyFields, int groupingFieldCount );
+
   void setLogLevel( LogLevel logLevel );
 
   void setCleanOutputPath( boolean cleanOutputPath );
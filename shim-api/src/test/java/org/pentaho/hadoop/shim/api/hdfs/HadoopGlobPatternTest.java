@@ -0,0 +1,70 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.hadoop.shim.api.hdfs;
+
+import org.junit.Test;
+
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HadoopGlobPatternTest {
+
+  @Test
+  public void testWildcards() {
+    HadoopGlobPattern pattern = new HadoopGlobPattern( "*.csv" );
+    assertTrue( pattern.matches( "a.csv" ) );
+    assertTrue( pattern.matches( ".csv" ) );
+    assertFalse( pattern.matches( "acsv" ) );
+    assertFalse( pattern.matches( "a.csv.gz" ) );
+    assertTrue( new HadoopGlobPattern( "part-?????" ).matches( "part-00001" ) );
+    assertFalse( new HadoopGlobPattern( "part-?????" ).matches( "part-0001" ) );
+  }
+
+  @Test
+  public void testGroupsAndSets() {
+    HadoopGlobPattern group = new HadoopGlobPattern( "data.{csv,txt}" );
+    assertTrue( group.matches( "data.csv" ) );
+    assertTrue( group.matches( "data.txt" ) );
+    assertFalse( group.matches( "data.json" ) );
+
+    assertTrue( new HadoopGlobPattern( "file[0-9]" ).matches( "file7" ) );
+    assertFalse( new HadoopGlobPattern( "file[!0-9]" ).matches( "file7" ) );
+    assertTrue( new HadoopGlobPattern( "file[!0-9]" ).matches( "fileA" ) );
+    assertTrue( new HadoopGlobPattern( "a,b" ).matches( "a,b" ) );
+  }
+
+  @Test
+  public void testRegexCharactersAreLiteral() {
+    assertTrue( new HadoopGlobPattern( "a+b(1)^$|.x" ).matches( "a+b(1)^$|.x" ) );
+    assertTrue( new HadoopGlobPattern( "\\*" ).matches( "*" ) );
+    assertFalse( new HadoopGlobPattern( "\\*" ).matches( "a" ) );
+  }
+
+  @Test( expected = PatternSyntaxException.class )
+  public void testUnclosedGroup() {
+    new HadoopGlobPattern( "{a,b" );
+  }
+
+  @Test( expected = PatternSyntaxException.class )
+  public void testUnclosedCharacterClass() {
+    new HadoopGlobPattern( "[ab" );
+  }
+
+  @Test( expected = PatternSyntaxException.class )
+  public void testTrailingBackslash() {
+    new HadoopGlobPattern( "a\\" );
+  }
+}
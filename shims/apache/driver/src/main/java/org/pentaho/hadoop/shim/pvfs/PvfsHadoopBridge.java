@@ -16,6 +16,7 @@ package org.pentaho.hadoop.shim.pvfs;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
@@ -65,6 +66,22 @@ public class PvfsHadoopBridge extends FileSystem implements PvfsHadoopBridgeFile
     .expireAfterAccess( 1, TimeUnit.HOURS )
     .build();
 
+  /**
+   * How long a resolved connection is reused before its definition is looked up again, so changes made to a named
+   * connection are picked up.
+   */
+  static final long CONNECTION_RESOLUTION_TTL_SECONDS = 10;
+
+  /**
+   * Connections resolved per connection name. Looking up the connection details goes to the metastore, so every path
+   * operation (and every entry of a directory listing) would otherwise repeat it. The file system itself is cached by
+   * the resolved {@link PvfsConf} in {@link #fsCache}, so a changed definition also gets a new file system.
+   */
+  @SuppressWarnings( "UnstableApiUsage" )
+  private final Cache<String, PvfsConf> confCache = CacheBuilder.newBuilder()
+    .expireAfterWrite( CONNECTION_RESOLUTION_TTL_SECONDS, TimeUnit.SECONDS )
+    .build();
+
   @SuppressWarnings( "unused" )
   public PvfsHadoopBridge() {
     confFactories = Arrays.asList( S3Conf::new, HCPConf::new, SnwConf::new, GcsConf::new, ADLSGen2Conf::new, ADLSGen1Conf::new );
@@ -138,9 +155,9 @@ public class PvfsHadoopBridge extends FileSystem implements PvfsHadoopBridgeFile
 
   @Override public FileStatus[] listStatus( Path path ) throws IOException {
     FileStatus[] fileStatuses = getFs( path ).listStatus( updatePath( path ) );
+    PvfsConf pvfsConf = getPvfsConf( path );
     Arrays.stream( fileStatuses )
-      .forEach( status -> status.setPath(
-        getPvfsConf( path ).mapPath( path, status.getPath() ) ) );
+      .forEach( status -> status.setPath( pvfsConf.mapPath( path, status.getPath() ) ) );
     return fileStatuses;
   }
 
@@ -210,6 +227,30 @@ public class PvfsHadoopBridge extends FileSystem implements PvfsHadoopBridgeFile
   }
 
   private PvfsConf getPvfsConf( Path path ) {
+    String connectionName = getConnectionName( path );
+    if ( connectionName == null ) {
+      return resolvePvfsConf( path );
+    }
+    try {
+      return confCache.get( connectionName, () -> resolvePvfsConf( path ) );
+    } catch ( ExecutionException | UncheckedExecutionException e ) {
+      if ( e.getCause() instanceof RuntimeException ) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException( e.getCause() );
+    }
+  }
+
+  /**
+   * Forgets the resolved connection so its definition is looked up again on the next access.
+   *
+   * @param connectionName PVFS connection name
+   */
+  public void invalidateConnection( String connectionName ) {
+    confCache.invalidate( connectionName );
+  }
+
+  private PvfsConf resolvePvfsConf( Path path ) {
     ConnectionDetails details = getConnectionDetails( path );
     if ( details == null ) {
       throw new IllegalStateException( "Could not find named connection " + path.toUri().getHost() );
@@ -136,6 +136,10 @@ public class ADLSGen2Conf extends PvfsConf {
     config.set( "fs.azure.enable.check.access", "true" );
     config.set( "fs.abfss.impl.disable.cache", "true" ); // caching managed by PvfsHadoopBridge
     config.set( "fs.abfss.buffer.dir", System.getProperty( "java.io.tmpdir" ) );
+    setUploadSizeInBytes( config, UPLOAD_PART_SIZE, "fs.azure.write.request.size" );
+    setUploadBufferType( config, "fs.azure.data.blocks.buffer" );
+    setUploadCount( config, UPLOAD_ACTIVE_BLOCKS, "fs.azure.block.upload.active.blocks" );
+    setUploadCount( config, UPLOAD_THREADS, "fs.azure.write.max.concurrent.requests" );
     return config;
   }
 
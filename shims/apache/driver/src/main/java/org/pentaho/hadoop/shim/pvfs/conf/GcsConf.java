@@ -74,6 +74,8 @@ public class GcsConf extends PvfsConf {
     config.set( "fs.gs.http.max.retry", "10" );
     config.set( "fs.gs.http.connect-timeout", "20000" );
     config.set( "fs.gs.performance.cache.enable", "false" ); // caching managed by PvfsHadoopBridge
+    // the connector streams each upload in chunks from its own thread, only the chunk size is tunable
+    setUploadSizeInBytes( config, UPLOAD_PART_SIZE, "fs.gs.outputstream.upload.chunk.size" );
     return config;
   }
 
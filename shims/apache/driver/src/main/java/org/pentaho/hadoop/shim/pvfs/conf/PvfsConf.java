@@ -18,8 +18,11 @@ import org.apache.hadoop.fs.Path;
 import org.pentaho.di.connections.ConnectionDetails;
 import org.pentaho.di.core.variables.VariableSpace;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 /**
  * Base class for filesystem configuration classes.  Implementations
@@ -29,6 +32,20 @@ import java.util.Objects;
  */
 public abstract class PvfsConf {
 
+  /**
+   * Optional upload tuning properties of the connection details, applied by each implementation to the keys of its
+   * filesystem connector.
+   */
+  public static final String UPLOAD_PART_SIZE = "uploadPartSize";
+  public static final String UPLOAD_BUFFER_TYPE = "uploadBufferType";
+  public static final String UPLOAD_ACTIVE_BLOCKS = "uploadActiveBlocks";
+  public static final String UPLOAD_THREADS = "uploadThreads";
+  public static final String MAX_CONNECTIONS = "maxConnections";
+
+  static final List<String> UPLOAD_BUFFER_TYPES = Arrays.asList( "disk", "array", "bytebuffer" );
+  private static final Pattern SIZE_PATTERN = Pattern.compile( "\\d+[kKmMgG]?" );
+  private static final Pattern COUNT_PATTERN = Pattern.compile( "[1-9]\\d*" );
+
   protected final ConnectionDetails details;
 
   PvfsConf( ConnectionDetails details ) {
@@ -115,4 +132,93 @@ public abstract class PvfsConf {
   protected String getVar( Map<String, String> properties, String fieldName ) {
     return getVar( properties.get( fieldName ) );
   }
+
+  /**
+   * Copies a size property of the connection details (bytes, optionally suffixed with k, m or g) to the given
+   * configuration key, if set.
+   */
+  protected void setUploadSize( Configuration conf, String property, String confKey ) {
+    setUploadProperty( conf, property, confKey, SIZE_PATTERN, "a size such as 67108864 or 64M" );
+  }
+
+  /**
+   * Sets a size property of the connection details (bytes, optionally suffixed with k, m or g) to the given
+   * configuration key as a plain byte count, if set. For connectors that read the key as an int, which unlike S3A's
+   * getLongBytes doesn't accept suffixes.
+   */
+  protected void setUploadSizeInBytes( Configuration conf, String property, String confKey ) {
+    String value = getUploadValue( property );
+    if ( value == null ) {
+      return;
+    }
+    if ( !SIZE_PATTERN.matcher( value ).matches() ) {
+      throw new IllegalArgumentException(
+        String.format( "Invalid %s '%s', expected a size such as 67108864 or 64M", property, value ) );
+    }
+    Configuration sizes = new Configuration( false );
+    sizes.set( property, value );
+    long bytes = sizes.getLongBytes( property, 0 );
+    if ( bytes > Integer.MAX_VALUE ) {
+      throw new IllegalArgumentException(
+        String.format( "Invalid %s '%s', expected at most %d bytes", property, value, Integer.MAX_VALUE ) );
+    }
+    conf.setInt( confKey, (int) bytes );
+  }
+
+  /**
+   * Copies a positive count property of the connection details to the given configuration key, if set.
+   */
+  protected void setUploadCount( Configuration conf, String property, String confKey ) {
+    setUploadProperty( conf, property, confKey, COUNT_PATTERN, "a positive number" );
+  }
+
+  /**
+   * Copies the upload buffer type (disk, array or bytebuffer) of the connection details to the given configuration
+   * key, if set.
+   *
+   * @return whether the connection details set a buffer type
+   */
+  protected boolean setUploadBufferType( Configuration conf, String confKey ) {
+    String value = getUploadValue( UPLOAD_BUFFER_TYPE );
+    if ( value == null ) {
+      return false;
+    }
+    String bufferType = value.toLowerCase();
+    if ( !UPLOAD_BUFFER_TYPES.contains( bufferType ) ) {
+      throw new IllegalArgumentException(
+        String.format( "Invalid %s '%s', expected one of %s", UPLOAD_BUFFER_TYPE, value, UPLOAD_BUFFER_TYPES ) );
+    }
+    conf.set( confKey, bufferType );
+    return true;
+  }
+
+  /**
+   * Applies the part size, active block, thread and connection tuning to an S3A configuration.
+   */
+  void setS3aUploadTuning( Configuration conf ) {
+    setUploadSize( conf, UPLOAD_PART_SIZE, "fs.s3a.multipart.size" );
+    setUploadCount( conf, UPLOAD_ACTIVE_BLOCKS, "fs.s3a.fast.upload.active.blocks" );
+    setUploadCount( conf, UPLOAD_THREADS, "fs.s3a.threads.max" );
+    setUploadCount( conf, MAX_CONNECTIONS, "fs.s3a.connection.maximum" );
+  }
+
+  private void setUploadProperty( Configuration conf, String property, String confKey, Pattern pattern,
+                                  String expected ) {
+    String value = getUploadValue( property );
+    if ( value == null ) {
+      return;
+    }
+    if ( !pattern.matcher( value ).matches() ) {
+      throw new IllegalArgumentException( String.format( "Invalid %s '%s', expected %s", property, value, expected ) );
+    }
+    conf.set( confKey, value );
+  }
+
+  private String getUploadValue( String property ) {
+    if ( details == null || details.getProperties() == null ) {
+      return null;
+    }
+    String value = getVar( details.getProperties(), property );
+    return value == null || value.trim().isEmpty() ? null : value.trim();
+  }
 }
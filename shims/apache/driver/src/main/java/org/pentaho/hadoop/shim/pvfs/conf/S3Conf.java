@@ -112,9 +112,11 @@ public class S3Conf extends PvfsConf {
 
     // If we are in Windows, add this config to avoid Windows native IO issues (BAD-1967)
     String os = System.getProperty( "os.name" ).toLowerCase();
-    if ( SystemUtils.IS_OS_WINDOWS || os.contains( "win" )  ) {
+    if ( !setUploadBufferType( conf, "fs.s3a.fast.upload.buffer" )
+      && ( SystemUtils.IS_OS_WINDOWS || os.contains( "win" ) ) ) {
       conf.set( "fs.s3a.fast.upload.buffer", "array" );
     }
+    setS3aUploadTuning( conf );
 
     // Use only when VFS is configured for generic S3 connection
     if ( !isNullOrEmpty( endpoint ) ) {
@@ -46,6 +46,7 @@ import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeFalse;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -183,6 +184,21 @@ public class PvfsHadoopBridgeTest {
 
   }
 
+  @Test
+  public void connectionResolvedOncePerName() throws IOException {
+    for ( int i = 0; i < 3; i++ ) {
+      try ( FSDataInputStream is = bridge.open( path, 5 ) ) {
+        assertTrue( is.read() >= 0 );
+      }
+    }
+    verify( connectionManager, times( 1 ) ).getConnectionDetails( "conn" );
+    verify( confFactory, times( 1 ) ).get( details );
+
+    bridge.invalidateConnection( "conn" );
+    bridge.open( path, 5 ).close();
+    verify( connectionManager, times( 2 ) ).getConnectionDetails( "conn" );
+  }
+
   @Test
   public void generateAliasTest() {
     when( pvfsConf.generateAlias( any( String.class ) ) ).thenReturn( "aliasFileName" );
@@ -83,6 +83,31 @@ public class ADLSGen2ConfTest {
     assertThat( result.toString(), equalTo( "abfss://mockContainer@mockAccountName.dfs.core.windows.net/mockFile.txt" ) );
   }
 
+  @Test public void testConfUploadTuning() {
+    adlsGen2Props.put( PvfsConf.UPLOAD_PART_SIZE, "16777216" );
+    adlsGen2Props.put( PvfsConf.UPLOAD_BUFFER_TYPE, "disk" );
+    adlsGen2Props.put( PvfsConf.UPLOAD_ACTIVE_BLOCKS, "4" );
+    adlsGen2Props.put( PvfsConf.UPLOAD_THREADS, "16" );
+    Configuration conf = adlsGen2Conf.conf( path );
+    assertThat( conf.get( "fs.azure.write.request.size" ), equalTo( "16777216" ) );
+    assertThat( conf.get( "fs.azure.data.blocks.buffer" ), equalTo( "disk" ) );
+    assertThat( conf.get( "fs.azure.block.upload.active.blocks" ), equalTo( "4" ) );
+    assertThat( conf.get( "fs.azure.write.max.concurrent.requests" ), equalTo( "16" ) );
+  }
+
+  @Test public void testConfUploadSizeWithSuffix() {
+    adlsGen2Props.put( PvfsConf.UPLOAD_PART_SIZE, "8M" );
+    Configuration conf = adlsGen2Conf.conf( path );
+    assertThat( conf.get( "fs.azure.write.request.size" ), equalTo( "8388608" ) );
+    assertThat( conf.getInt( "fs.azure.write.request.size", 0 ), equalTo( 8 * 1024 * 1024 ) );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testConfUploadSizeTooLarge() {
+    adlsGen2Props.put( PvfsConf.UPLOAD_PART_SIZE, "2G" );
+    adlsGen2Conf.conf( path );
+  }
+
   @Test public void testConf() {
     Configuration conf = adlsGen2Conf.conf( path );
     assertThat( conf.get( "fs.abfss.impl" ),
@@ -90,6 +90,12 @@ public class GcsConfTest {
       equalTo( "/home/ubuntu/gcs/credentials.json" ) );
   }
 
+  @Test public void testConfUploadSizeWithSuffix() {
+    gcsProps.put( PvfsConf.UPLOAD_PART_SIZE, "64m" );
+    Configuration conf = gcsConf.conf( path );
+    assertThat( conf.getInt( "fs.gs.outputstream.upload.chunk.size", 0 ), equalTo( 64 * 1024 * 1024 ) );
+  }
+
   @Test public void testEquals() {
     assertNotEquals( null, gcsConf);
     assertEquals(gcsConf, gcsConf);
@@ -94,6 +94,32 @@ public class S3ConfTest {
     assertThat( conf.get( "fs.s3a.path.style.access" ), equalTo( "true" ) );
   }
 
+  @Test public void testConfUploadTuning() {
+    props.put( PvfsConf.UPLOAD_PART_SIZE, "128M" );
+    props.put( PvfsConf.UPLOAD_BUFFER_TYPE, "ByteBuffer" );
+    props.put( PvfsConf.UPLOAD_ACTIVE_BLOCKS, "8" );
+    props.put( PvfsConf.UPLOAD_THREADS, "32" );
+    props.put( PvfsConf.MAX_CONNECTIONS, "96" );
+    Configuration conf = s3Conf.conf( path );
+    assertThat( conf.get( "fs.s3a.multipart.size" ), equalTo( "128M" ) );
+    assertThat( conf.get( "fs.s3a.fast.upload.buffer" ), equalTo( "bytebuffer" ) );
+    assertThat( conf.get( "fs.s3a.fast.upload.active.blocks" ), equalTo( "8" ) );
+    assertThat( conf.get( "fs.s3a.threads.max" ), equalTo( "32" ) );
+    assertThat( conf.get( "fs.s3a.connection.maximum" ), equalTo( "96" ) );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testConfInvalidBufferType() {
+    props.put( PvfsConf.UPLOAD_BUFFER_TYPE, "heap" );
+    s3Conf.conf( path );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testConfInvalidThreadCount() {
+    props.put( PvfsConf.UPLOAD_THREADS, "0" );
+    s3Conf.conf( path );
+  }
+
   @Test public void testEquals() {
     assertNotEquals( null, s3Conf );
     assertEquals( s3Conf, s3Conf );